@@ -0,0 +1,86 @@
+package com.assignment.benchmark;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * How benchmarks pick the accounts of their requests
+ * Picks are sampled ahead into a table, so that sampling is not part of the measured time
+ */
+public enum AccountSelection {
+
+    // every account is equally likely
+    UNIFORM {
+        @Override
+        int pick(SplittableRandom random, int accounts, double[] cumulative) {
+            return random.nextInt(accounts);
+        }
+    },
+
+    // the account of rank k is picked in proportion to 1 / k, a few accounts take most requests
+    ZIPF {
+        @Override
+        double[] prepare(int accounts) {
+
+            double[] cumulative = new double[accounts];
+            double total = 0;
+
+            for (int k = 0; k < accounts; k++) {
+                total += 1.0 / (k + 1);
+                cumulative[k] = total;
+            }
+
+            for (int k = 0; k < accounts; k++) {
+                cumulative[k] /= total;
+            }
+
+            return cumulative;
+        }
+
+        @Override
+        int pick(SplittableRandom random, int accounts, double[] cumulative) {
+
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+
+            return Math.min(index >= 0 ? index : -index - 1, accounts - 1);
+        }
+    },
+
+    // 90% of requests go to 1% of the accounts, the rest to any account
+    HOT_SET {
+        @Override
+        int pick(SplittableRandom random, int accounts, double[] cumulative) {
+
+            int hot = Math.max(accounts / 100, 1);
+
+            return random.nextInt(10) < 9 ? random.nextInt(hot) : random.nextInt(accounts);
+        }
+    };
+
+    /**
+     * Samples account indexes
+     *
+     * @param accounts number of accounts to pick from
+     * @param samples number of picks
+     * @param seed of the picks, the same seed gives the same picks
+     * @return indexes of picked accounts, each between 0 and accounts - 1
+     */
+    public int[] sample(int accounts, int samples, long seed) {
+
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] cumulative = prepare(accounts);
+        int[] picks = new int[samples];
+
+        for (int i = 0; i < samples; i++) {
+            picks[i] = pick(random, accounts, cumulative);
+        }
+
+        return picks;
+    }
+
+    double[] prepare(int accounts) {
+        return null;
+    }
+
+    abstract int pick(SplittableRandom random, int accounts, double[] cumulative);
+}
@@ -0,0 +1,57 @@
+package com.assignment.benchmark;
+
+import com.assignment.db.AccountStorage;
+import com.assignment.db.EntityDb;
+import com.assignment.model.Account;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looks up a random account and changes its balance under its monitor, as the transaction service does
+ * Run with {@code -prof gc} to compare the allocation rate of each {@link AccountStorage}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AccountStorageBenchmark {
+
+    @Param({"OBJECT", "PRIMITIVE", "OFF_HEAP"})
+    private AccountStorage storage;
+
+    @Param({"1000000"})
+    private int accounts;
+
+    private EntityDb<Account> db;
+    private String[] ids;
+
+    @Setup
+    public void setUp() {
+
+        db = storage.createDb();
+        ids = new String[accounts];
+
+        for (int i = 0; i < accounts; i++) {
+            ids[i] = "acc_" + i;
+            db.add(new Account(ids[i], 1_000));
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean increaseBalance() {
+
+        Account account = db.get(ids[ThreadLocalRandom.current().nextInt(accounts)]);
+
+        synchronized (account.monitor()) {
+            account.increaseBalance(1);
+            account.decreaseBalance(1);
+        }
+
+        return account.hasEnoughBalanceToWithdraw(1_000);
+    }
+}
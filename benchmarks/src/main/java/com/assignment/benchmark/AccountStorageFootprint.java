@@ -0,0 +1,74 @@
+package com.assignment.benchmark;
+
+import com.assignment.db.AccountStorage;
+import com.assignment.db.EntityDb;
+import com.assignment.model.Account;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the memory taken per account by each {@link AccountStorage}
+ * Not a JMH benchmark since it measures retained memory instead of time
+ *
+ * Usage: java -Xmx4g -cp target/benchmarks.jar com.assignment.benchmark.AccountStorageFootprint [accounts] [storage...]
+ */
+public class AccountStorageFootprint {
+
+    public static void main(String[] args) throws Exception {
+
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        AccountStorage[] storages = AccountStorage.values();
+
+        if (args.length > 1) {
+            storages = new AccountStorage[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                storages[i - 1] = AccountStorage.valueOf(args[i].toUpperCase());
+            }
+        }
+
+        System.out.printf("%-10s %12s %14s %14s %12s%n", "storage", "accounts", "heap bytes", "direct bytes", "bytes/acc");
+
+        for (AccountStorage storage : storages) {
+
+            long heapBefore = usedHeap();
+            long directBefore = usedDirect();
+
+            EntityDb<Account> db = storage.createDb();
+
+            for (int i = 0; i < accounts; i++) {
+                db.add(new Account("acc_" + i, i));
+            }
+
+            long heap = usedHeap() - heapBefore;
+            long direct = usedDirect() - directBefore;
+
+            System.out.printf("%-10s %12d %14d %14d %12.1f%n",
+                    storage, db.getAll().size(), heap, direct, (double) (heap + direct) / accounts);
+        }
+    }
+
+    private static long usedHeap() throws InterruptedException {
+
+        Runtime runtime = Runtime.getRuntime();
+
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long usedDirect() {
+
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if ("direct".equals(pool.getName())) {
+                return pool.getMemoryUsed();
+            }
+        }
+
+        return 0;
+    }
+}
@@ -0,0 +1,142 @@
+package com.assignment.benchmark;
+
+import com.assignment.dao.TransactionDao;
+import com.assignment.journal.FileJournal;
+import com.assignment.journal.JournalMode;
+import com.assignment.model.Account;
+import com.assignment.service.AtomicLedger;
+import com.assignment.service.TransactionService;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Compares blocking and asynchronous transfers journaled in GROUP mode, served by the same small pool of request threads
+ * Every connection sends its next transfer once the previous one is answered, as many connections as given are open
+ * Blocking transfers hold a request thread until the journal is forced, so at most one per thread shares a force;
+ *    asynchronous transfers hand their thread back at once and every open connection shares the next force
+ *
+ * Usage: java -cp target/benchmarks.jar com.assignment.benchmark.AsyncTransferBenchmark [threads] [seconds] [connections...]
+ */
+public class AsyncTransferBenchmark {
+
+    private static final int ACCOUNTS = 10_000;
+
+    public static void main(String[] args) throws Exception {
+
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int[] connections = args.length > 2
+                ? Stream.of(args).skip(2).mapToInt(Integer::parseInt).toArray()
+                : new int[]{8, 64, 256, 1024};
+
+        Account[] accounts = new Account[ACCOUNTS];
+
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accounts[i] = new Account("acc_" + i, 1_000_000_000);
+        }
+
+        System.out.printf("%-9s %7s %11s %12s %12s%n", "path", "threads", "connections", "trx/s", "mean ms");
+
+        for (int open : connections) {
+            for (boolean async : new boolean[]{false, true}) {
+                run(accounts, threads, open, async, seconds);
+            }
+        }
+    }
+
+    private static void run(Account[] accounts, int threads, int connections, boolean async, int seconds) throws Exception {
+
+        Path directory = Files.createTempDirectory("journal-benchmark");
+        FileJournal journal = new FileJournal(directory, JournalMode.GROUP, 64 << 20, 10);
+
+        ExecutorService requestThreads = Executors.newFixedThreadPool(threads);
+        ExecutorService completions = Executors.newFixedThreadPool(threads);
+        TransactionService service = new TransactionService(new TransactionDao(journal), new AtomicLedger(), completions);
+
+        Semaphore open = new Semaphore(connections);
+        LongAdder completed = new LongAdder();
+        LongAdder latencyNanos = new LongAdder();
+
+        // half of the time warms up, the other half is measured
+        long started = System.nanoTime();
+        long measured = started + TimeUnit.SECONDS.toNanos(seconds) / 2;
+        long ended = started + TimeUnit.SECONDS.toNanos(seconds);
+        long completedBefore = 0;
+        long latencyBefore = 0;
+        boolean measuring = false;
+
+        while (System.nanoTime() < ended) {
+
+            if (!open.tryAcquire(10, TimeUnit.MILLISECONDS)) {
+                continue;
+            }
+
+            if (!measuring && System.nanoTime() >= measured) {
+                measuring = true;
+                completedBefore = completed.sum();
+                latencyBefore = latencyNanos.sum();
+            }
+
+            long sent = System.nanoTime();
+
+            requestThreads.execute(() -> {
+
+                Account from = accounts[ThreadLocalRandom.current().nextInt(ACCOUNTS)];
+                Account to = accounts[ThreadLocalRandom.current().nextInt(ACCOUNTS)];
+
+                if (from == to) {
+                    open.release();
+                    return;
+                }
+
+                if (async) {
+                    service.transferAsync(from, to, 1).whenComplete((result, e) -> {
+                        if (result != null && result.isRejected()) {
+                            open.release();
+                        } else {
+                            answered(open, completed, latencyNanos, sent);
+                        }
+                    });
+                } else if (service.transfer(from, to, 1).isRejected()) {
+                    open.release();
+                } else {
+                    answered(open, completed, latencyNanos, sent);
+                }
+            });
+        }
+
+        long count = completed.sum() - completedBefore;
+        double elapsedSeconds = (System.nanoTime() - measured) / 1e9;
+
+        System.out.printf("%-9s %7d %11d %12.0f %12.3f%n", async ? "async" : "blocking", threads, connections,
+                count / elapsedSeconds, count > 0 ? (latencyNanos.sum() - latencyBefore) / 1e6 / count : 0.0);
+
+        // every connection is answered before the journal goes away
+        open.acquire(connections);
+
+        requestThreads.shutdown();
+        completions.shutdown();
+        requestThreads.awaitTermination(10, TimeUnit.SECONDS);
+        completions.awaitTermination(10, TimeUnit.SECONDS);
+        journal.stop();
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private static void answered(Semaphore open, LongAdder completed, LongAdder latencyNanos, long sent) {
+        completed.increment();
+        latencyNanos.add(System.nanoTime() - sent);
+        open.release();
+    }
+}
@@ -0,0 +1,199 @@
+package com.assignment.benchmark;
+
+import com.assignment.client.BinaryClient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compares transfers sent to a running application over http and JSON and over the binary protocol,
+ *    both performed by the asynchronous methods of the transaction service
+ * Every client thread sends its next transfer once the previous one is answered, pipelined binary clients
+ *    keep as many transfers in flight on their single connection as the window
+ * The application has to be started with the binary protocol enabled, e.g. {@code server config.yml},
+ *    the accounts transferred between are saved over http first
+ *
+ * Usage: java -cp target/benchmarks.jar com.assignment.benchmark.BinaryProtocolBenchmark
+ *    [host] [http port] [binary port] [clients] [seconds] [window]
+ */
+public class BinaryProtocolBenchmark {
+
+    private static final int ACCOUNTS = 1_000;
+
+    private static String host;
+    private static int httpPort;
+    private static int binaryPort;
+
+    public static void main(String[] args) throws Exception {
+
+        host = args.length > 0 ? args[0] : "localhost";
+        httpPort = args.length > 1 ? Integer.parseInt(args[1]) : 8090;
+        binaryPort = args.length > 2 ? Integer.parseInt(args[2]) : 8092;
+        int clients = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+        int seconds = args.length > 4 ? Integer.parseInt(args[4]) : 10;
+        int window = args.length > 5 ? Integer.parseInt(args[5]) : 64;
+
+        for (int i = 0; i < ACCOUNTS; i++) {
+            post("/account/save", "{\"id\":\"bench_" + i + "\",\"balance\":1000000000}");
+        }
+
+        System.out.printf("%-16s %7s %12s %12s%n", "path", "clients", "trx/s", "mean us");
+
+        run("http", clients, seconds, BinaryProtocolBenchmark::httpClient);
+        run("binary", clients, seconds, BinaryProtocolBenchmark::binaryClient);
+        run("binary window " + window, clients, seconds, deadline -> pipelinedClient(deadline, window));
+    }
+
+    @FunctionalInterface
+    private interface Client {
+
+        // sends transfers until the deadline, returns the number answered and their total latency
+        long[] run(long deadline) throws Exception;
+    }
+
+    private static void run(String path, int clients, int seconds, Client client) throws Exception {
+
+        // the first half warms up
+        run(clients, System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds) / 2, client);
+
+        long started = System.nanoTime();
+        long[] totals = run(clients, started + TimeUnit.SECONDS.toNanos(seconds) / 2, client);
+        double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+
+        System.out.printf("%-16s %7d %12.0f %12.1f%n", path, clients, totals[0] / elapsedSeconds,
+                totals[0] > 0 ? totals[1] / 1e3 / totals[0] : 0.0);
+    }
+
+    private static long[] run(int clients, long deadline, Client client) throws Exception {
+
+        List<CompletableFuture<long[]>> results = new ArrayList<>();
+
+        for (int i = 0; i < clients; i++) {
+            results.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return client.run(deadline);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }, command -> new Thread(command).start()));
+        }
+
+        long[] totals = new long[2];
+
+        for (CompletableFuture<long[]> result : results) {
+            totals[0] += result.get()[0];
+            totals[1] += result.get()[1];
+        }
+
+        return totals;
+    }
+
+    private static long[] httpClient(long deadline) throws IOException {
+
+        long count = 0;
+        long latencyNanos = 0;
+
+        while (System.nanoTime() < deadline) {
+
+            int from = ThreadLocalRandom.current().nextInt(ACCOUNTS);
+            int to = (from + 1 + ThreadLocalRandom.current().nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+
+            long sent = System.nanoTime();
+            post("/transaction/async/transfer", "{\"fromAccountId\":\"bench_" + from + "\",\"toAccountId\":\"bench_" + to + "\",\"amount\":1}");
+            latencyNanos += System.nanoTime() - sent;
+            count++;
+        }
+
+        return new long[]{count, latencyNanos};
+    }
+
+    private static long[] binaryClient(long deadline) throws IOException {
+
+        long count = 0;
+        long latencyNanos = 0;
+
+        try (BinaryClient client = new BinaryClient(host, binaryPort)) {
+
+            while (System.nanoTime() < deadline) {
+
+                int from = ThreadLocalRandom.current().nextInt(ACCOUNTS);
+                int to = (from + 1 + ThreadLocalRandom.current().nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+
+                long sent = System.nanoTime();
+                client.transfer("bench_" + from, "bench_" + to, 1);
+                latencyNanos += System.nanoTime() - sent;
+                count++;
+            }
+        }
+
+        return new long[]{count, latencyNanos};
+    }
+
+    private static long[] pipelinedClient(long deadline, int window) throws Exception {
+
+        LongAdder count = new LongAdder();
+        LongAdder latencyNanos = new LongAdder();
+        Semaphore open = new Semaphore(window);
+
+        try (BinaryClient client = new BinaryClient(host, binaryPort)) {
+
+            while (System.nanoTime() < deadline) {
+
+                if (!open.tryAcquire(10, TimeUnit.MILLISECONDS)) {
+                    continue;
+                }
+
+                int from = ThreadLocalRandom.current().nextInt(ACCOUNTS);
+                int to = (from + 1 + ThreadLocalRandom.current().nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+
+                long sent = System.nanoTime();
+                client.transferAsync("bench_" + from, "bench_" + to, 1).whenComplete((reply, e) -> {
+                    count.increment();
+                    latencyNanos.add(System.nanoTime() - sent);
+                    open.release();
+                });
+            }
+
+            // every transfer in flight is answered before the connection is closed
+            open.acquire(window);
+        }
+
+        return new long[]{count.sum(), latencyNanos.sum()};
+    }
+
+    private static void post(String path, String json) throws IOException {
+
+        HttpURLConnection connection = (HttpURLConnection) new URL("http", host, httpPort, path).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setRequestProperty("Content-Type", "application/json");
+        connection.setDoOutput(true);
+
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(json.getBytes(StandardCharsets.UTF_8));
+        }
+
+        // the body is read to the end so that the connection is kept alive for the next request
+        try (InputStream in = connection.getResponseCode() < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int read;
+
+            while (in != null && (read = in.read(buffer)) >= 0) {
+                body.write(buffer, 0, read);
+            }
+        }
+    }
+}
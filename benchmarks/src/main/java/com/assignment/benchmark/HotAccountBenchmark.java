@@ -0,0 +1,58 @@
+package com.assignment.benchmark;
+
+import com.assignment.model.Account;
+import com.assignment.service.AtomicLedger;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares deposits and transfers into a single merchant account kept in one balance or split into cells
+ * Run with several threads, e.g. {@code -t 8}, a single thread never contends for the balance
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HotAccountBenchmark {
+
+    // 0 to keep the merchant in a single balance
+    @Param({"0", "8"})
+    private int cells;
+
+    private AtomicLedger ledger;
+    private Account merchant;
+    private Account[] payers;
+
+    @Setup
+    public void setUp() {
+
+        ledger = new AtomicLedger();
+        merchant = new Account("merchant", 0);
+        payers = new Account[1024];
+
+        for (int i = 0; i < payers.length; i++) {
+            payers[i] = new Account("acc_" + i, Integer.MAX_VALUE);
+        }
+
+        if (cells > 0) {
+            merchant.promote(cells);
+        }
+    }
+
+    @Benchmark
+    public boolean deposit() {
+        return ledger.deposit(merchant, 1) == null;
+    }
+
+    @Benchmark
+    public boolean transfer() {
+
+        Account payer = payers[ThreadLocalRandom.current().nextInt(payers.length)];
+
+        return ledger.transfer(payer, merchant, 1) == null;
+    }
+}
@@ -0,0 +1,105 @@
+package com.assignment.benchmark;
+
+import com.assignment.json.ModelModule;
+import com.assignment.model.Account;
+import com.assignment.model.Leg;
+import com.assignment.model.Transaction;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.dropwizard.jackson.Jackson;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the bean serializers Dropwizard derives from the annotations of the model with the hand-written codecs
+ *    of {@link ModelModule}, both on the object mapper Dropwizard creates
+ * Listing writes as many transactions as {@code /transaction/all} for a small ledger,
+ *    the single reads and writes are the bodies of the transaction and account endpoints
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonCodecBenchmark {
+
+    private static final int TRANSACTIONS = 1_000;
+
+    @Param({"bean", "codec"})
+    public String serializer;
+
+    private ObjectWriter writer;
+    private ObjectReader transactionReader;
+    private ObjectReader accountReader;
+
+    private List<Transaction> transactions;
+    private Transaction transaction;
+    private Account account;
+    private byte[] transactionJson;
+    private byte[] accountJson;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(256 * TRANSACTIONS);
+
+    @Setup
+    public void setUp() throws IOException {
+
+        ObjectMapper mapper = Jackson.newObjectMapper();
+
+        if (serializer.equals("codec")) {
+            mapper.registerModule(new ModelModule());
+        }
+
+        writer = mapper.writer();
+        transactionReader = mapper.readerFor(Transaction.class);
+        accountReader = mapper.readerFor(Account.class);
+
+        transactions = new ArrayList<>(TRANSACTIONS);
+
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            transactions.add(i % 10 == 0
+                    ? Transaction.ofSplit("acc_" + i, Arrays.asList(new Leg("acc_" + (i + 1), 1), new Leg("acc_" + (i + 2), 2)))
+                    : Transaction.ofTransfer("acc_" + i, "acc_" + (i + 1), i + 1));
+        }
+
+        transaction = transactions.get(1);
+        account = new Account("acc_1", 1_000_000);
+        transactionJson = writer.writeValueAsBytes(new Transaction("acc_1", "acc_2", 10));
+        accountJson = writer.writeValueAsBytes(account);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int writeTransactions() throws IOException {
+        out.reset();
+        writer.writeValue(out, transactions);
+        return out.size();
+    }
+
+    @Benchmark
+    public byte[] writeTransaction() throws IOException {
+        return writer.writeValueAsBytes(transaction);
+    }
+
+    @Benchmark
+    public byte[] writeAccount() throws IOException {
+        return writer.writeValueAsBytes(account);
+    }
+
+    @Benchmark
+    public Transaction readTransaction() throws IOException {
+        return transactionReader.readValue(transactionJson);
+    }
+
+    @Benchmark
+    public Account readAccount() throws IOException {
+        return accountReader.readValue(accountJson);
+    }
+}
@@ -0,0 +1,101 @@
+package com.assignment.benchmark;
+
+import com.assignment.model.Account;
+import com.assignment.service.AtomicLedger;
+import com.assignment.service.Ledger;
+import com.assignment.service.LedgerEngine;
+import com.assignment.service.MonitorLedger;
+import com.assignment.service.ShardedLedger;
+import com.assignment.service.StripedLedger;
+import com.assignment.service.StripedLockTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput and latency of transfers and deposits or withdrawals of random accounts for each {@link LedgerEngine}
+ * Few accounts make them hot, so that monitors are contended
+ * Use {@link ThreadSweep} to see how the engines scale with the number of request threads
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LedgerBenchmark {
+
+    @Param({"MONITOR", "STRIPED", "ATOMIC", "SHARDED"})
+    private LedgerEngine engine;
+
+    @Param({"16", "100000"})
+    private int accounts;
+
+    // 0 for a shard per available processor
+    @Param({"0"})
+    private int shards;
+
+    @Param({"1024"})
+    private int stripes;
+
+    private Ledger ledger;
+    private Account[] participants;
+
+    @Setup
+    public void setUp() {
+
+        participants = new Account[accounts];
+
+        for (int i = 0; i < accounts; i++) {
+            participants[i] = new Account("acc_" + i, 1_000_000);
+        }
+
+        if (engine == LedgerEngine.SHARDED) {
+            ShardedLedger shardedLedger = new ShardedLedger(
+                    shards > 0 ? shards : Runtime.getRuntime().availableProcessors(), 1024);
+            shardedLedger.start();
+            ledger = shardedLedger;
+        } else if (engine == LedgerEngine.STRIPED) {
+            ledger = new StripedLedger(new StripedLockTable(stripes));
+        } else if (engine == LedgerEngine.ATOMIC) {
+            ledger = new AtomicLedger();
+        } else {
+            ledger = new MonitorLedger();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        if (ledger instanceof ShardedLedger) {
+            ((ShardedLedger) ledger).stop();
+        }
+    }
+
+    @Benchmark
+    public boolean transfer() {
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        int from = random.nextInt(accounts);
+        // any other account
+        int to = (from + 1 + random.nextInt(accounts - 1)) % accounts;
+
+        return ledger.transfer(participants[from], participants[to], 1) == null;
+    }
+
+    @Benchmark
+    public boolean depositOrWithdraw() {
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        Account account = participants[random.nextInt(accounts)];
+
+        // balances stay around their initial value
+        if (random.nextBoolean()) {
+            return ledger.deposit(account, 1) == null;
+        }
+
+        return ledger.withdraw(account, 1) == null;
+    }
+}
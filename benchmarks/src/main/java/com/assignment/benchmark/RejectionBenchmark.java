@@ -0,0 +1,74 @@
+package com.assignment.benchmark;
+
+import com.assignment.dao.TransactionDao;
+import com.assignment.model.Account;
+import com.assignment.service.AtomicLedger;
+import com.assignment.service.Rejection;
+import com.assignment.service.TransactionException;
+import com.assignment.service.TransactionResult;
+import com.assignment.service.TransactionService;
+import io.dropwizard.jersey.errors.ErrorMessage;
+import org.openjdk.jmh.annotations.*;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares answering overdrafts of an empty account with a rejection code and a shared error entity
+ *    with the exceptions they were answered with before, a transaction and a web application exception per request
+ * The ledger work is the same for both, so the difference is the cost of rejecting
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class RejectionBenchmark {
+
+    private static final ErrorMessage INSUFFICIENT_FUNDS =
+            new ErrorMessage(Response.Status.BAD_REQUEST.getStatusCode(), Rejection.INSUFFICIENT_FUNDS.getMessage());
+
+    private TransactionService service;
+    private Account empty;
+
+    @Setup
+    public void setUp() {
+        service = new TransactionService(new TransactionDao(), new AtomicLedger());
+        empty = new Account("acc_empty", 0);
+    }
+
+    @Benchmark
+    public Response resultCode() {
+
+        TransactionResult result = service.withdraw(empty, 1);
+
+        return Response.status(Response.Status.BAD_REQUEST)
+                .type(MediaType.APPLICATION_JSON_TYPE)
+                .entity(result.isRejected() ? INSUFFICIENT_FUNDS : result.getTransaction())
+                .build();
+    }
+
+    @Benchmark
+    public Response exception() {
+
+        TransactionResult result = service.withdraw(empty, 1);
+
+        try {
+            // the ledger threw, the resource caught it and threw again for the exception mapper
+            try {
+                throw new TransactionException(result.getRejection().getMessage());
+            } catch (TransactionException e) {
+                throw new WebApplicationException(e.getMessage(), Response.Status.BAD_REQUEST);
+            }
+        } catch (WebApplicationException e) {
+            return Response.status(e.getResponse().getStatus())
+                    .type(MediaType.APPLICATION_JSON_TYPE)
+                    .entity(new ErrorMessage(e.getResponse().getStatus(), e.getMessage()))
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.assignment.benchmark;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the benchmarks matching a pattern with 1, 2, 4 ... up to max request threads and prints a summary per thread count
+ * Throughput benchmarks are summarized by their score, sample time benchmarks by their 50th, 99th and 99.9th percentiles
+ * With {@code gc} the benchmarks run with the gc profiler and the bytes allocated per operation are summarized too
+ * Usage: {@code ThreadSweep [pattern] [max threads, twice the available processors by default] [gc]}
+ */
+public class ThreadSweep {
+
+    public static void main(String[] args) throws RunnerException {
+
+        String pattern = args.length > 0 ? args[0] : LedgerBenchmark.class.getSimpleName();
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : 2 * Runtime.getRuntime().availableProcessors();
+        boolean gc = args.length > 2 && args[2].equals("gc");
+
+        // powers of two, and max itself when it is not one
+        List<Integer> sweep = new ArrayList<>();
+
+        for (int threads = 1; threads < maxThreads; threads <<= 1) {
+            sweep.add(threads);
+        }
+
+        sweep.add(maxThreads);
+
+        List<String> lines = new ArrayList<>();
+
+        for (int threads : sweep) {
+
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .include(pattern)
+                    .threads(threads);
+
+            if (gc) {
+                options.addProfiler(GCProfiler.class);
+            }
+
+            for (RunResult runResult : new Runner(options.build()).run()) {
+
+                BenchmarkParams params = runResult.getParams();
+                Result result = runResult.getPrimaryResult();
+
+                StringBuilder name = new StringBuilder(params.getBenchmark().replaceAll(".*\\.(\\w+\\.\\w+)$", "$1"));
+
+                for (String key : params.getParamsKeys()) {
+                    name.append(' ').append(key).append('=').append(params.getParam(key));
+                }
+
+                switch (params.getMode()) {
+                    case SampleTime:
+                        lines.add(String.format("%-60s %3d threads  p50 %12.3f  p99 %12.3f  p99.9 %12.3f %s",
+                                name, threads,
+                                result.getStatistics().getPercentile(50),
+                                result.getStatistics().getPercentile(99),
+                                result.getStatistics().getPercentile(99.9),
+                                result.getScoreUnit()));
+                        break;
+                    default:
+                        lines.add(String.format("%-60s %3d threads  %-4s %12.3f %s",
+                                name, threads, params.getMode().shortLabel(), result.getScore(), result.getScoreUnit()));
+                }
+
+                for (Map.Entry<String, Result> secondary : runResult.getSecondaryResults().entrySet()) {
+                    // allocation is the same in every mode, it is summarized once
+                    if (params.getMode() == Mode.Throughput && secondary.getKey().endsWith("gc.alloc.rate.norm")) {
+                        lines.add(String.format("%-60s %3d threads  %-4s %12.3f %s",
+                                name, threads, "allc", secondary.getValue().getScore(), secondary.getValue().getScoreUnit()));
+                    }
+                }
+            }
+        }
+
+        System.out.println();
+        lines.stream().sorted().forEach(System.out::println);
+    }
+}
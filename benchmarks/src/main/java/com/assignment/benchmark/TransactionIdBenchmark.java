@@ -0,0 +1,43 @@
+package com.assignment.benchmark;
+
+import com.assignment.model.IdGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares the shared counter transaction ids were taken from with the block allocating {@link IdGenerator}
+ * Contention only shows with more threads, e.g. {@code -t 16} or {@code -t max}, see {@link ThreadSweep}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class TransactionIdBenchmark {
+
+    @Param({"1024"})
+    private int blockSize;
+
+    private AtomicInteger counter;
+    private IdGenerator idGenerator;
+
+    @Setup
+    public void setUp() {
+        counter = new AtomicInteger();
+        idGenerator = new IdGenerator(blockSize);
+    }
+
+    @Benchmark
+    public int atomicIncrement() {
+        return counter.incrementAndGet();
+    }
+
+    @Benchmark
+    public long idGenerator() {
+        return idGenerator.next();
+    }
+}
@@ -0,0 +1,127 @@
+package com.assignment.benchmark;
+
+import com.assignment.dao.TransactionDao;
+import com.assignment.model.Account;
+import com.assignment.service.AtomicLedger;
+import com.assignment.service.Ledger;
+import com.assignment.service.LedgerEngine;
+import com.assignment.service.MonitorLedger;
+import com.assignment.service.ShardedLedger;
+import com.assignment.service.StripedLedger;
+import com.assignment.service.StripedLockTable;
+import com.assignment.service.TransactionResult;
+import com.assignment.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures deposits, withdrawals and transfers through {@link TransactionService}, as served to the resources:
+ *    the ledger changes the balances and every performed transaction is saved to the transaction log
+ * Accounts are picked by an {@link AccountSelection}, skewed selections make a few accounts hot
+ * Use {@link ThreadSweep} with {@code gc} to see throughput, 99th percentile latency and allocation per request
+ *    from one request thread up to all available processors
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class TransactionServiceBenchmark {
+
+    // picks sampled ahead, every thread walks them from its own offset
+    private static final int SAMPLES = 1 << 20;
+
+    @Param({"MONITOR", "STRIPED", "ATOMIC", "SHARDED"})
+    private LedgerEngine engine;
+
+    @Param({"UNIFORM", "ZIPF", "HOT_SET"})
+    private AccountSelection selection;
+
+    @Param({"100000"})
+    private int accounts;
+
+    private Ledger ledger;
+    private TransactionService service;
+    private Account[] participants;
+    private int[] picks;
+
+    @Setup
+    public void setUp() {
+
+        participants = new Account[accounts];
+
+        for (int i = 0; i < accounts; i++) {
+            participants[i] = new Account("acc_" + i, 1_000_000_000);
+        }
+
+        picks = selection.sample(accounts, SAMPLES, 42);
+
+        if (engine == LedgerEngine.SHARDED) {
+            ShardedLedger shardedLedger = new ShardedLedger(Runtime.getRuntime().availableProcessors(), 1024);
+            shardedLedger.start();
+            ledger = shardedLedger;
+        } else if (engine == LedgerEngine.STRIPED) {
+            ledger = new StripedLedger(new StripedLockTable(1024));
+        } else if (engine == LedgerEngine.ATOMIC) {
+            ledger = new AtomicLedger();
+        } else {
+            ledger = new MonitorLedger();
+        }
+    }
+
+    // a fresh transaction log per iteration, so that the saved transactions of a whole run do not fill the heap
+    @Setup(Level.Iteration)
+    public void setUpIteration() {
+        service = new TransactionService(new TransactionDao(), ledger);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        if (ledger instanceof ShardedLedger) {
+            ((ShardedLedger) ledger).stop();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int position;
+
+        @Setup
+        public void setUp() {
+            position = ThreadLocalRandom.current().nextInt(SAMPLES);
+        }
+
+        int next(int[] picks) {
+            position = (position + 1) & (SAMPLES - 1);
+            return picks[position];
+        }
+    }
+
+    @Benchmark
+    public TransactionResult deposit(Cursor cursor) {
+        return service.deposit(participants[cursor.next(picks)], 1);
+    }
+
+    @Benchmark
+    public TransactionResult withdraw(Cursor cursor) {
+        return service.withdraw(participants[cursor.next(picks)], 1);
+    }
+
+    @Benchmark
+    public TransactionResult transfer(Cursor cursor) {
+
+        int from = cursor.next(picks);
+        int to = cursor.next(picks);
+
+        // any other account when both picks are the same
+        if (to == from) {
+            to = (from + 1) % accounts;
+        }
+
+        return service.transfer(participants[from], participants[to], 1);
+    }
+}
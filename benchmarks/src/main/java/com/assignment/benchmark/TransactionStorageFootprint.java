@@ -0,0 +1,55 @@
+package com.assignment.benchmark;
+
+import com.assignment.db.InMemoryDb;
+import com.assignment.db.TransactionLog;
+import com.assignment.model.Transaction;
+
+/**
+ * Measures the heap taken per transaction by a {@link TransactionLog} and by an {@link InMemoryDb} of transactions
+ * Account ids of every transaction are separate strings as if they were read from separate requests
+ *
+ * Usage: java -Xmx4g -cp target/benchmarks.jar com.assignment.benchmark.TransactionStorageFootprint [transactions] [accounts]
+ */
+public class TransactionStorageFootprint {
+
+    public static void main(String[] args) throws Exception {
+
+        int transactions = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int accounts = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+
+        System.out.printf("%-10s %12s %14s %12s%n", "storage", "transactions", "heap bytes", "bytes/trx");
+
+        long before = usedHeap();
+        InMemoryDb<Transaction> map = new InMemoryDb<>();
+        for (int i = 0; i < transactions; i++) {
+            map.add(transaction(i, accounts));
+        }
+        long heap = usedHeap() - before;
+        System.out.printf("%-10s %12d %14d %12.1f%n", "map", map.getAll().size(), heap, (double) heap / transactions);
+        map = null;
+
+        before = usedHeap();
+        TransactionLog log = new TransactionLog();
+        for (int i = 0; i < transactions; i++) {
+            log.append(transaction(i, accounts));
+        }
+        heap = usedHeap() - before;
+        System.out.printf("%-10s %12d %14d %12.1f%n", "log", log.size(), heap, (double) heap / transactions);
+    }
+
+    private static Transaction transaction(int i, int accounts) {
+        return Transaction.ofTransfer("acc_" + (i % accounts), "acc_" + ((i + 1) % accounts), i % 1_000 + 1);
+    }
+
+    private static long usedHeap() throws InterruptedException {
+
+        Runtime runtime = Runtime.getRuntime();
+
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
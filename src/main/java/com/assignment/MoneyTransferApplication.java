@@ -3,10 +3,21 @@ package com.assignment;
 import com.assignment.client.TestClient;
 import com.assignment.dao.AccountDao;
 import com.assignment.dao.TransactionDao;
+import com.assignment.journal.Journal;
+import com.assignment.journal.JournalRecovery;
+import com.assignment.journal.SnapshotStore;
+import com.assignment.journal.TimedJournal;
+import com.assignment.json.ModelModule;
+import com.assignment.metrics.HdrReservoir;
 import com.assignment.resource.AccountResource;
+import com.assignment.resource.AuditFeature;
 import com.assignment.resource.TestResource;
 import com.assignment.resource.TransactionResource;
+import com.assignment.service.TransactionMetrics;
 import com.assignment.service.TransactionService;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.codahale.metrics.health.HealthCheck;
 import io.dropwizard.Application;
 import io.dropwizard.client.JerseyClientBuilder;
@@ -14,6 +25,8 @@ import io.dropwizard.setup.Bootstrap;
 import io.dropwizard.setup.Environment;
 
 import javax.ws.rs.client.Client;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Main class to run
@@ -37,23 +50,54 @@ public class MoneyTransferApplication extends Application<MoneyTransferConfigura
 
     @Override
     public void initialize(final Bootstrap<MoneyTransferConfiguration> bootstrap) {
-        // TODO: application initialization
+        // hand-written codecs of the model, instead of the bean serializers derived from its annotations
+        bootstrap.getObjectMapper().registerModule(new ModelModule());
     }
 
     @Override
     public void run(final MoneyTransferConfiguration config,
-                    final Environment environment) {
+                    final Environment environment) throws Exception {
+
+        // journal
+        Journal journal = config.getJournalFactory().build(environment);
+        SnapshotStore snapshotStore = config.getJournalFactory().buildSnapshotStore(environment, journal);
+
+        if (journal != Journal.DISABLED) {
+            journal = new TimedJournal(journal,
+                    environment.metrics().register(MetricRegistry.name(Journal.class, "append"), new Timer(new HdrReservoir())),
+                    environment.metrics().register(MetricRegistry.name(Journal.class, "sync"), new Timer(new HdrReservoir())));
+        }
 
         // dao
-        AccountDao accountDao = new AccountDao();
-        TransactionDao transactionDao = new TransactionDao();
+        AccountDao accountDao = new AccountDao(journal, config.getAccountStorage().createDb());
+        TransactionDao transactionDao = new TransactionDao(journal);
+        environment.metrics().register(MetricRegistry.name(AccountDao.class, "count"), (Gauge<Integer>) accountDao::count);
+        environment.metrics().register(MetricRegistry.name(TransactionDao.class, "count"), (Gauge<Integer>) transactionDao::count);
 
-        // service
-        TransactionService transactionService = new TransactionService(transactionDao);
+        // recovery, must complete before any request is served
+        long recoveryStarted = System.nanoTime();
+        new JournalRecovery(journal, snapshotStore, accountDao, transactionDao).run();
+        long recoveryMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - recoveryStarted);
+        environment.metrics().register(MetricRegistry.name(JournalRecovery.class, "duration-ms"),
+                (Gauge<Long>) () -> recoveryMillis);
+
+        // service, asynchronous requests are completed off the journal thread once they are durable
+        int processors = Runtime.getRuntime().availableProcessors();
+        ExecutorService completions = environment.lifecycle()
+                .executorService("transaction-completions-%d")
+                .minThreads(processors)
+                .maxThreads(processors)
+                .build();
+        TransactionService transactionService = new TransactionService(transactionDao,
+                config.getLedgerFactory().build(environment), completions, new TransactionMetrics(environment.metrics()));
 
         // resource
-        AccountResource accountResource = new AccountResource(accountDao);
-        TransactionResource transactionResource = new TransactionResource(transactionService, accountDao);
+        AccountResource accountResource = new AccountResource(accountDao, transactionService, environment.getObjectMapper());
+        TransactionResource transactionResource = new TransactionResource(transactionService, accountDao, environment.getObjectMapper(),
+                config.getIdempotencyCacheFactory().build(environment), config.getAdmissionControlFactory().build(environment));
+
+        // binary protocol for high-frequency clients, next to the http server
+        config.getBinaryServerFactory().build(environment, accountDao, transactionService);
 
         // test client
         Client client = new JerseyClientBuilder(environment).using(config.getJerseyClientConfiguration()).build(getName());
@@ -64,6 +108,7 @@ public class MoneyTransferApplication extends Application<MoneyTransferConfigura
         environment.jersey().register(accountResource);
         environment.jersey().register(transactionResource);
         environment.jersey().register(testResource);
+        environment.jersey().register(new AuditFeature(config.getAuditLogFactory().build(environment)));
         environment.healthChecks().register("template", new HealthCheck() { // Dummy health check
             @Override
             protected Result check() throws Exception {
@@ -1,5 +1,12 @@
 package com.assignment;
 
+import com.assignment.db.AccountStorage;
+import com.assignment.journal.JournalFactory;
+import com.assignment.protocol.BinaryServerFactory;
+import com.assignment.service.AdmissionControlFactory;
+import com.assignment.service.AuditLogFactory;
+import com.assignment.service.IdempotencyCacheFactory;
+import com.assignment.service.LedgerFactory;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.dropwizard.Configuration;
@@ -19,6 +26,33 @@ public class MoneyTransferConfiguration extends Configuration {
     @NotNull
     private JerseyClientConfiguration jerseyClient = new JerseyClientConfiguration();
 
+    @Valid
+    @NotNull
+    private JournalFactory journal = new JournalFactory();
+
+    @NotNull
+    private AccountStorage accountStorage = AccountStorage.OBJECT;
+
+    @Valid
+    @NotNull
+    private LedgerFactory ledger = new LedgerFactory();
+
+    @Valid
+    @NotNull
+    private IdempotencyCacheFactory idempotency = new IdempotencyCacheFactory();
+
+    @Valid
+    @NotNull
+    private AdmissionControlFactory admission = new AdmissionControlFactory();
+
+    @Valid
+    @NotNull
+    private AuditLogFactory audit = new AuditLogFactory();
+
+    @Valid
+    @NotNull
+    private BinaryServerFactory binary = new BinaryServerFactory();
+
     @JsonProperty("jerseyClient")
     public JerseyClientConfiguration getJerseyClientConfiguration() {
         return jerseyClient;
@@ -29,6 +63,76 @@ public class MoneyTransferConfiguration extends Configuration {
         this.jerseyClient = jerseyClient;
     }
 
+    @JsonProperty("journal")
+    public JournalFactory getJournalFactory() {
+        return journal;
+    }
+
+    @JsonProperty("journal")
+    public void setJournalFactory(JournalFactory journal) {
+        this.journal = journal;
+    }
+
+    @JsonProperty
+    public AccountStorage getAccountStorage() {
+        return accountStorage;
+    }
+
+    @JsonProperty
+    public void setAccountStorage(AccountStorage accountStorage) {
+        this.accountStorage = accountStorage;
+    }
+
+    @JsonProperty("ledger")
+    public LedgerFactory getLedgerFactory() {
+        return ledger;
+    }
+
+    @JsonProperty("ledger")
+    public void setLedgerFactory(LedgerFactory ledger) {
+        this.ledger = ledger;
+    }
+
+    @JsonProperty("idempotency")
+    public IdempotencyCacheFactory getIdempotencyCacheFactory() {
+        return idempotency;
+    }
+
+    @JsonProperty("idempotency")
+    public void setIdempotencyCacheFactory(IdempotencyCacheFactory idempotency) {
+        this.idempotency = idempotency;
+    }
+
+    @JsonProperty("admission")
+    public AdmissionControlFactory getAdmissionControlFactory() {
+        return admission;
+    }
+
+    @JsonProperty("admission")
+    public void setAdmissionControlFactory(AdmissionControlFactory admission) {
+        this.admission = admission;
+    }
+
+    @JsonProperty("audit")
+    public AuditLogFactory getAuditLogFactory() {
+        return audit;
+    }
+
+    @JsonProperty("audit")
+    public void setAuditLogFactory(AuditLogFactory audit) {
+        this.audit = audit;
+    }
+
+    @JsonProperty("binary")
+    public BinaryServerFactory getBinaryServerFactory() {
+        return binary;
+    }
+
+    @JsonProperty("binary")
+    public void setBinaryServerFactory(BinaryServerFactory binary) {
+        this.binary = binary;
+    }
+
     @JsonIgnore
     public String getTestEndpoint() {
         int port = 8080;
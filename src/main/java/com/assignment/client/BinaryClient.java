@@ -0,0 +1,216 @@
+package com.assignment.client;
+
+import com.assignment.protocol.BinaryProtocol;
+import com.assignment.protocol.BinaryServer;
+import com.assignment.protocol.BinaryStatus;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Client of the {@link BinaryServer} over a single connection
+ * Requests are pipelined: the asynchronous methods return as soon as the request is written,
+ *    a reader thread completes their futures as the responses arrive
+ * Buffers are kept for the lifetime of the connection, the client may be used by any number of threads
+ */
+public class BinaryClient implements AutoCloseable {
+
+    /**
+     * Response of the server
+     */
+    public static final class Reply {
+
+        private final BinaryStatus status;
+        private final long value;
+
+        Reply(BinaryStatus status, long value) {
+            this.status = status;
+            this.value = value;
+        }
+
+        public BinaryStatus getStatus() {
+            return status;
+        }
+
+        /**
+         * @return number of the transaction performed or balance queried, 0 unless {@link #isOk()} or {@link BinaryStatus#NOT_DURABLE}
+         */
+        public long getValue() {
+            return value;
+        }
+
+        public boolean isOk() {
+            return status == BinaryStatus.OK;
+        }
+
+        @Override
+        public String toString() {
+            return "Reply {status=" + status + " value=" + value + "}";
+        }
+    }
+
+    private final SocketChannel channel;
+    private final Map<Integer, CompletableFuture<Reply>> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger nextRequestId = new AtomicInteger();
+
+    // guarded by itself
+    private final ByteBuffer out = ByteBuffer.allocate(BinaryProtocol.MAX_REQUEST_SIZE);
+
+    private final Thread reader;
+    private volatile boolean closed;
+
+    /**
+     * Connects to the server
+     *
+     * @param host of the server
+     * @param port of the binary protocol
+     * @throws IOException if the server cannot be connected to
+     */
+    public BinaryClient(String host, int port) throws IOException {
+
+        channel = SocketChannel.open(new InetSocketAddress(host, port));
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+        reader = new Thread(this::read, "binary-client-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    public CompletableFuture<Reply> depositAsync(String accountId, int amount) {
+        return send(BinaryProtocol.DEPOSIT, accountId, null, amount);
+    }
+
+    public CompletableFuture<Reply> withdrawAsync(String accountId, int amount) {
+        return send(BinaryProtocol.WITHDRAW, accountId, null, amount);
+    }
+
+    public CompletableFuture<Reply> transferAsync(String fromAccountId, String toAccountId, int amount) {
+        return send(BinaryProtocol.TRANSFER, fromAccountId, toAccountId, amount);
+    }
+
+    public CompletableFuture<Reply> balanceAsync(String accountId) {
+        return send(BinaryProtocol.BALANCE, accountId, null, 0);
+    }
+
+    public Reply deposit(String accountId, int amount) {
+        return depositAsync(accountId, amount).join();
+    }
+
+    public Reply withdraw(String accountId, int amount) {
+        return withdrawAsync(accountId, amount).join();
+    }
+
+    public Reply transfer(String fromAccountId, String toAccountId, int amount) {
+        return transferAsync(fromAccountId, toAccountId, amount).join();
+    }
+
+    public Reply balance(String accountId) {
+        return balanceAsync(accountId).join();
+    }
+
+    /**
+     * Closes the connection, requests still waiting for their response fail
+     *
+     * @throws IOException if the connection cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        channel.close();
+        failPending(new IOException("Client closed"));
+    }
+
+    private CompletableFuture<Reply> send(byte op, String accountId, String otherId, int amount) {
+
+        int requestId = nextRequestId.getAndIncrement();
+        CompletableFuture<Reply> reply = new CompletableFuture<>();
+
+        // registered first, the response may arrive before the write returns
+        pending.put(requestId, reply);
+
+        try {
+            synchronized (out) {
+                out.clear();
+                BinaryProtocol.putRequest(out, requestId, op, accountId, otherId, amount);
+                out.flip();
+
+                while (out.hasRemaining()) {
+                    channel.write(out);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            pending.remove(requestId);
+            reply.completeExceptionally(e);
+        }
+
+        if (closed) {
+            failPending(new IOException("Client closed"));
+        }
+
+        return reply;
+    }
+
+    private void read() {
+
+        ByteBuffer in = ByteBuffer.allocate(64 * BinaryProtocol.RESPONSE_SIZE);
+
+        try {
+            while (true) {
+
+                if (channel.read(in) < 0) {
+                    throw new EOFException("Connection closed by the server");
+                }
+
+                in.flip();
+
+                while (in.remaining() >= BinaryProtocol.RESPONSE_SIZE) {
+
+                    int length = in.getInt();
+
+                    if (length != BinaryProtocol.RESPONSE_SIZE - 4) {
+                        throw new IOException("Unexpected response of " + length + " bytes");
+                    }
+
+                    int requestId = in.getInt();
+                    BinaryStatus status = BinaryStatus.of(in.get());
+                    long value = in.getLong();
+
+                    CompletableFuture<Reply> reply = pending.remove(requestId);
+
+                    if (reply != null) {
+                        reply.complete(new Reply(status, value));
+                    }
+                }
+
+                in.compact();
+            }
+        } catch (IOException e) {
+            IOException cause = closed ? new IOException("Client closed") : e;
+
+            // later requests fail right away
+            closed = true;
+            failPending(cause);
+        }
+    }
+
+    private void failPending(IOException e) {
+
+        for (Integer requestId : pending.keySet()) {
+
+            CompletableFuture<Reply> reply = pending.remove(requestId);
+
+            if (reply != null) {
+                reply.completeExceptionally(new UncheckedIOException(e));
+            }
+        }
+    }
+}
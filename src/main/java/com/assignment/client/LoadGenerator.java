@@ -0,0 +1,420 @@
+package com.assignment.client;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator: requests are sent at a constant rate, whether or not earlier requests are answered
+ * Every request has an intended start on the schedule, it is sent by the next free connection
+ * The response time of a request is measured from its intended start, so the time a request waits for a connection
+ *    behind slow responses is counted too, instead of the waiting being omitted as by a client that waits for each answer
+ * The service time is measured from when the request is actually sent, as a closed-loop client would see it
+ * Requests still unanswered when the run stops are recorded as having waited until then, and reported as dropped
+ *
+ * Usage: java -cp target/money-transfer-1.0-SNAPSHOT.jar com.assignment.client.LoadGenerator
+ *    [url] [requests per second] [seconds] [connections] [mix] [percentiles file]
+ */
+public class LoadGenerator {
+
+    /**
+     * Operations sent to the application
+     */
+    public enum Operation {
+        SAVE, READ, DEPOSIT, WITHDRAW, TRANSFER
+    }
+
+    /**
+     * Sends a request to the application, called by as many threads as there are connections
+     */
+    @FunctionalInterface
+    public interface Sender {
+
+        /**
+         * @param operation to be sent
+         * @return true if the request is answered successfully
+         * @throws IOException if the request cannot be sent or answered
+         */
+        boolean send(Operation operation) throws IOException;
+    }
+
+    /**
+     * Latencies and counts of a run
+     */
+    public static final class Report {
+
+        private final Histogram responseTimes;
+        private final Histogram serviceTimes;
+        private final AtomicLongArray sent = new AtomicLongArray(Operation.values().length);
+        private final AtomicLongArray failed = new AtomicLongArray(Operation.values().length);
+        private volatile long dropped;
+        private volatile double seconds;
+
+        Report() {
+            this.responseTimes = new ConcurrentHistogram(MAX_LATENCY_NANOS, 3);
+            this.serviceTimes = new ConcurrentHistogram(MAX_LATENCY_NANOS, 3);
+        }
+
+        /**
+         * @return nanoseconds from the intended start of every request until its answer,
+         *    or until the run stopped for a dropped request
+         */
+        public Histogram getResponseTimes() {
+            return responseTimes;
+        }
+
+        /**
+         * @return nanoseconds from sending every answered request until its answer
+         */
+        public Histogram getServiceTimes() {
+            return serviceTimes;
+        }
+
+        public long getSent(Operation operation) {
+            return sent.get(operation.ordinal());
+        }
+
+        /**
+         * @return requests answered unsuccessfully or not at all because of an error
+         */
+        public long getFailed(Operation operation) {
+            return failed.get(operation.ordinal());
+        }
+
+        /**
+         * @return requests unanswered when the run stopped, still waiting for a connection or for their answer
+         */
+        public long getDropped() {
+            return dropped;
+        }
+
+        /**
+         * @return requests answered per second, from the first intended start until the last answer
+         */
+        public double getThroughput() {
+            return seconds > 0 ? (responseTimes.getTotalCount() - dropped) / seconds : 0;
+        }
+
+        /**
+         * Prints the percentiles of both latencies in milliseconds, and the counts of every operation
+         *
+         * @param out to print to
+         */
+        public void print(PrintStream out) {
+
+            out.printf("%-9s %10s %10s %10s %10s %10s %10s %10s%n",
+                    "ms", "p50", "p90", "p99", "p99.9", "p99.99", "max", "mean");
+
+            print(out, "response", responseTimes);
+            print(out, "service", serviceTimes);
+            out.printf("%-9s %10d unanswered when the run stopped, in the response times up to then%n", "dropped", dropped);
+
+            out.println();
+            out.printf("%-9s %10s %10s%n", "operation", "sent", "failed");
+
+            for (Operation operation : Operation.values()) {
+                if (getSent(operation) > 0) {
+                    out.printf("%-9s %10d %10d%n", operation.name().toLowerCase(), getSent(operation), getFailed(operation));
+                }
+            }
+
+            out.println();
+            out.printf("answered %.0f requests per second%n", getThroughput());
+        }
+
+        private static void print(PrintStream out, String name, Histogram histogram) {
+            out.printf("%-9s %10.3f %10.3f %10.3f %10.3f %10.3f %10.3f %10.3f%n", name,
+                    histogram.getValueAtPercentile(50) / 1e6,
+                    histogram.getValueAtPercentile(90) / 1e6,
+                    histogram.getValueAtPercentile(99) / 1e6,
+                    histogram.getValueAtPercentile(99.9) / 1e6,
+                    histogram.getValueAtPercentile(99.99) / 1e6,
+                    histogram.getMaxValue() / 1e6,
+                    histogram.getMean() / 1e6);
+        }
+
+        /**
+         * Exports the percentile distribution of the response times in milliseconds as CSV,
+         *    the format of {@link Histogram#outputPercentileDistribution(PrintStream, int, Double, boolean)}
+         *
+         * @param out to write to
+         */
+        public void export(PrintStream out) {
+            responseTimes.outputPercentileDistribution(out, 5, 1e6, true);
+        }
+    }
+
+    // latencies above are recorded as this
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    private static final int ACCOUNTS = 1_000;
+
+    private final Sender sender;
+    private final LoadMix mix;
+    private final int connections;
+
+    public LoadGenerator(Sender sender, LoadMix mix, int connections) {
+        this.sender = sender;
+        this.mix = mix;
+        this.connections = connections;
+    }
+
+    /**
+     * Sends requests at given rate for given time, then waits as long again for the answers of requests still open
+     * Requests unanswered by then are dropped, recorded with the time from their intended start until the stop
+     *
+     * @param rate requests per second
+     * @param durationNanos how long requests are sent
+     * @return latencies and counts of the run
+     * @throws InterruptedException if interrupted while waiting for a request or the answers
+     */
+    public Report run(double rate, long durationNanos) throws InterruptedException {
+
+        Report report = new Report();
+        ExecutorService executor = Executors.newFixedThreadPool(connections);
+        Set<Request> inFlight = ConcurrentHashMap.newKeySet();
+
+        long intervalNanos = Math.max((long) (TimeUnit.SECONDS.toNanos(1) / rate), 1);
+        long requests = durationNanos / intervalNanos;
+        long start = System.nanoTime();
+
+        for (long request = 0; request < requests; request++) {
+
+            // the schedule does not move when answers are late
+            long intended = start + request * intervalNanos;
+            long wait;
+
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            if (Thread.interrupted()) {
+                executor.shutdownNow();
+                throw new InterruptedException();
+            }
+
+            Operation operation = mix.pick(ThreadLocalRandom.current().nextDouble());
+
+            report.sent.incrementAndGet(operation.ordinal());
+            executor.execute(new Request(report, inFlight, operation, intended));
+        }
+
+        executor.shutdown();
+
+        if (!executor.awaitTermination(durationNanos, TimeUnit.NANOSECONDS)) {
+
+            List<Runnable> waiting = executor.shutdownNow();
+            long stopped = System.nanoTime();
+
+            for (Runnable request : waiting) {
+                ((Request) request).drop(stopped);
+            }
+
+            for (Request request : inFlight) {
+                request.drop(stopped);
+            }
+        }
+
+        report.seconds = (System.nanoTime() - start) / 1e9;
+
+        return report;
+    }
+
+    /**
+     * Request scheduled to start at its intended time, recorded either once answered or once dropped
+     */
+    private final class Request implements Runnable {
+
+        private final Report report;
+        private final Set<Request> inFlight;
+        private final Operation operation;
+        private final long intended;
+
+        // claimed by whichever records the request first, the answer or the stop of the run
+        private final AtomicBoolean recorded = new AtomicBoolean();
+
+        Request(Report report, Set<Request> inFlight, Operation operation, long intended) {
+            this.report = report;
+            this.inFlight = inFlight;
+            this.operation = operation;
+            this.intended = intended;
+        }
+
+        @Override
+        public void run() {
+
+            inFlight.add(this);
+
+            long sent = System.nanoTime();
+            boolean ok;
+
+            try {
+                ok = sender.send(operation);
+            } catch (IOException e) {
+                ok = false;
+            }
+
+            long answered = System.nanoTime();
+
+            inFlight.remove(this);
+
+            if (!recorded.compareAndSet(false, true)) {
+                return;
+            }
+
+            if (!ok) {
+                report.failed.incrementAndGet(operation.ordinal());
+            }
+
+            report.responseTimes.recordValue(Math.min(answered - intended, MAX_LATENCY_NANOS));
+            report.serviceTimes.recordValue(Math.min(answered - sent, MAX_LATENCY_NANOS));
+        }
+
+        // only called by the thread running the schedule
+        void drop(long stopped) {
+            if (recorded.compareAndSet(false, true)) {
+                report.dropped++;
+                report.responseTimes.recordValue(Math.min(stopped - intended, MAX_LATENCY_NANOS));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        String url = args.length > 0 ? args[0] : "http://localhost:8090";
+        double rate = args.length > 1 ? Double.parseDouble(args[1]) : 1_000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+        int connections = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+        LoadMix mix = LoadMix.parse(args.length > 4 ? args[4] : "save=1,read=40,deposit=20,withdraw=19,transfer=20");
+        String file = args.length > 5 ? args[5] : "load.hgrm.csv";
+
+        // connections kept alive per host, 5 by default
+        System.setProperty("http.maxConnections", Integer.toString(connections));
+
+        // accounts of this run, so that runs against the same application do not collide
+        String prefix = "load_" + Long.toString(System.currentTimeMillis(), 36) + "_";
+        HttpSender sender = new HttpSender(url, prefix);
+
+        for (int i = 0; i < ACCOUNTS; i++) {
+            sender.post("/account/save", "{\"id\":\"" + prefix + i + "\",\"balance\":1000000000}");
+        }
+
+        LoadGenerator generator = new LoadGenerator(sender, mix, connections);
+
+        System.out.printf("%s at %.0f requests per second over %d connections for %d seconds, mix %s%n",
+                url, rate, connections, seconds, mix);
+
+        // the first tenth warms up
+        generator.run(rate, TimeUnit.SECONDS.toNanos(Math.max(seconds / 10, 1)));
+
+        Report report = generator.run(rate, TimeUnit.SECONDS.toNanos(seconds));
+
+        System.out.println();
+        report.print(System.out);
+
+        try (PrintStream out = new PrintStream(new FileOutputStream(file), false, StandardCharsets.UTF_8.name())) {
+            report.export(out);
+        }
+
+        System.out.println("response time percentiles written to " + file);
+    }
+
+    /**
+     * Sends the operations as JSON over http, between the accounts saved before the run
+     */
+    private static final class HttpSender implements Sender {
+
+        private final String url;
+        private final String prefix;
+        private final AtomicLong saved = new AtomicLong();
+
+        HttpSender(String url, String prefix) {
+            this.url = url;
+            this.prefix = prefix;
+        }
+
+        @Override
+        public boolean send(Operation operation) throws IOException {
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int from = random.nextInt(ACCOUNTS);
+            int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+
+            switch (operation) {
+
+                case SAVE:
+                    return post("/account/save", "{\"id\":\"" + prefix + "new_" + saved.incrementAndGet() + "\",\"balance\":0}");
+
+                case READ:
+                    return get("/account/id/" + prefix + from);
+
+                case DEPOSIT:
+                    return post("/transaction/deposit", "{\"toAccountId\":\"" + prefix + to + "\",\"amount\":1}");
+
+                case WITHDRAW:
+                    return post("/transaction/withdraw", "{\"fromAccountId\":\"" + prefix + from + "\",\"amount\":1}");
+
+                default:
+                    return post("/transaction/transfer",
+                            "{\"fromAccountId\":\"" + prefix + from + "\",\"toAccountId\":\"" + prefix + to + "\",\"amount\":1}");
+            }
+        }
+
+        boolean get(String path) throws IOException {
+            return answer((HttpURLConnection) new URL(url + path).openConnection());
+        }
+
+        boolean post(String path, String json) throws IOException {
+
+            HttpURLConnection connection = (HttpURLConnection) new URL(url + path).openConnection();
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("Content-Type", "application/json");
+            connection.setDoOutput(true);
+
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(json.getBytes(StandardCharsets.UTF_8));
+            }
+
+            return answer(connection);
+        }
+
+        // the body is read to the end so that the connection is kept alive for the next request
+        private static boolean answer(HttpURLConnection connection) throws IOException {
+
+            int status = connection.getResponseCode();
+
+            try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+
+                ByteArrayOutputStream body = new ByteArrayOutputStream();
+                byte[] buffer = new byte[1024];
+                int read;
+
+                while (in != null && (read = in.read(buffer)) >= 0) {
+                    body.write(buffer, 0, read);
+                }
+            }
+
+            return status < 400;
+        }
+    }
+}
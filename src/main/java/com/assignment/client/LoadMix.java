@@ -0,0 +1,101 @@
+package com.assignment.client;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Relative weights of the operations sent by the {@link LoadGenerator}
+ * Written as {@code save=1,read=40,deposit=20,withdraw=19,transfer=20}, operations left out are not sent
+ */
+public class LoadMix {
+
+    private final LoadGenerator.Operation[] operations = LoadGenerator.Operation.values();
+    private final int[] cumulative = new int[operations.length];
+    private final int total;
+
+    public LoadMix(Map<LoadGenerator.Operation, Integer> weights) {
+
+        int sum = 0;
+
+        for (LoadGenerator.Operation operation : operations) {
+
+            int weight = weights.getOrDefault(operation, 0);
+
+            if (weight < 0) {
+                throw new IllegalArgumentException("Weight of " + operation + " cannot be negative");
+            }
+
+            sum += weight;
+            cumulative[operation.ordinal()] = sum;
+        }
+
+        if (sum == 0) {
+            throw new IllegalArgumentException("At least one operation must have a weight");
+        }
+
+        this.total = sum;
+    }
+
+    /**
+     * Parses a mix
+     *
+     * @param mix comma separated operation=weight pairs, names are case-insensitive
+     * @return the mix
+     * @throws IllegalArgumentException if an operation is unknown or a weight is not a number
+     */
+    public static LoadMix parse(String mix) {
+
+        Map<LoadGenerator.Operation, Integer> weights = new EnumMap<>(LoadGenerator.Operation.class);
+
+        for (String pair : mix.split(",")) {
+
+            String[] parts = pair.trim().split("=");
+
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected operation=weight but was " + pair);
+            }
+
+            weights.put(LoadGenerator.Operation.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()));
+        }
+
+        return new LoadMix(weights);
+    }
+
+    /**
+     * Picks an operation in proportion to its weight
+     *
+     * @param random uniformly distributed between 0 and 1 (exclusive)
+     * @return picked operation
+     */
+    public LoadGenerator.Operation pick(double random) {
+
+        int value = (int) (random * total);
+
+        for (LoadGenerator.Operation operation : operations) {
+            if (value < cumulative[operation.ordinal()]) {
+                return operation;
+            }
+        }
+
+        return operations[operations.length - 1];
+    }
+
+    @Override
+    public String toString() {
+
+        StringBuilder mix = new StringBuilder();
+        int previous = 0;
+
+        for (LoadGenerator.Operation operation : operations) {
+
+            int weight = cumulative[operation.ordinal()] - previous;
+            previous = cumulative[operation.ordinal()];
+
+            if (weight > 0) {
+                mix.append(mix.length() > 0 ? "," : "").append(operation.name().toLowerCase()).append('=').append(weight);
+            }
+        }
+
+        return mix.toString();
+    }
+}
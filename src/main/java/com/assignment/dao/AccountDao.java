@@ -1,28 +1,62 @@
 package com.assignment.dao;
 
+import com.assignment.db.EntityDb;
 import com.assignment.db.InMemoryDb;
+import com.assignment.journal.Journal;
 import com.assignment.model.Account;
+import com.assignment.model.Page;
 
 import java.util.Collection;
+import java.util.List;
 
 /**
  * Data access object for {@link Account} objects
  */
 public class AccountDao {
 
-    private final InMemoryDb<Account> accounts;
+    private final EntityDb<Account> accounts;
+    private final Journal journal;
 
     public AccountDao() {
-        accounts = new InMemoryDb<>();
+        this(Journal.DISABLED);
+    }
+
+    public AccountDao(Journal journal) {
+        this(journal, new InMemoryDb<>());
+    }
+
+    public AccountDao(Journal journal, EntityDb<Account> accounts) {
+        this.accounts = accounts;
+        this.journal = journal;
     }
 
     /**
      * Saves given account
+     * The account is journaled before it becomes visible, so that no transaction on it can be journaled earlier
      *
      * @param account to be saved
      * @return true if the account saved successfully
      */
     public boolean save(Account account) {
+
+        long[] sequence = {0};
+
+        boolean saved = accounts.add(account, a -> sequence[0] = journal.append(a));
+
+        if (saved) {
+            journal.sync(sequence[0]);
+        }
+
+        return saved;
+    }
+
+    /**
+     * Puts back an account read from the journal without journaling it again
+     *
+     * @param account to be restored
+     * @return true if the account restored successfully
+     */
+    public boolean restore(Account account) {
         return accounts.add(account);
     }
 
@@ -44,4 +78,30 @@ public class AccountDao {
     public Collection<Account> getAll() {
         return accounts.getAll();
     }
-}
\ No newline at end of file
+
+    /**
+     * @return number of accounts saved so far, without copying them
+     */
+    public int count() {
+        return accounts.getAll().size();
+    }
+
+    /**
+     * Returns a page of the accounts in the order they were saved
+     *
+     * @param after cursor returned with the previous page, -1 for the first page
+     * @param limit maximum number of accounts in the page
+     * @return accounts following the cursor, with the cursor of the next page if there are more
+     */
+    public Page<Account> getPage(int after, int limit) {
+
+        // one more account tells whether there is a next page
+        List<Account> items = accounts.getAfter(after, limit + 1);
+
+        if (items.size() <= limit) {
+            return new Page<>(items, null);
+        }
+
+        return new Page<>(items.subList(0, limit), Integer.toString(Math.max(after, -1) + limit));
+    }
+}
@@ -1,37 +1,353 @@
 package com.assignment.dao;
 
-import com.assignment.db.InMemoryDb;
+import com.assignment.db.TransactionIndex;
+import com.assignment.db.TransactionLog;
+import com.assignment.journal.Journal;
+import com.assignment.model.Leg;
+import com.assignment.model.Page;
 import com.assignment.model.Transaction;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Data access object for {@link Transaction} objects
+ * Transactions are kept in a {@link TransactionLog} in the order they are saved
+ * A {@link TransactionIndex} of their positions by account is maintained on every save
+ * Only the committed prefix of the log is indexed, in the order of the log, so that the positions of every account
+ *    are added in increasing order and never behind a cursor already handed out
+ * A transaction is only kept once the indexed prefix reaches it, so whoever saved it finds it in every read afterwards
  */
 public class TransactionDao {
 
-    private final InMemoryDb<Transaction> transactions;
+    private final TransactionLog transactions;
+    private final TransactionIndex accountIndex;
+    private final Journal journal;
+
+    // positions below it are in the account index, only written while holding the lock
+    private final ReentrantLock indexLock = new ReentrantLock();
+    private volatile int indexed;
 
     public TransactionDao() {
-        transactions = new InMemoryDb<>();
+        this(Journal.DISABLED);
+    }
+
+    public TransactionDao(Journal journal) {
+        this.transactions = new TransactionLog();
+        this.accountIndex = new TransactionIndex();
+        this.journal = journal;
     }
 
     /**
      * Saves given transaction
+     * Returns once the transaction is durable with respect to the journal mode
      *
      * @param transaction to be saved
      * @return true if transaction saved successfully
      */
     public boolean save(Transaction transaction) {
-        return transactions.add(transaction);
+
+        if (transaction == null) {
+            return false;
+        }
+
+        return commit(transaction, journal(transaction));
+    }
+
+    /**
+     * Saves given transaction without waiting for the journal
+     * The transaction is kept once it is durable with respect to the journal mode, on given executor
+     *
+     * @param transaction to be saved
+     * @param executor keeping the transaction once it is durable, instead of the journal thread
+     * @return stage completed with true if transaction saved successfully
+     */
+    public CompletionStage<Boolean> saveAsync(Transaction transaction, Executor executor) {
+
+        if (transaction == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        return commitAsync(transaction, journal(transaction), executor);
+    }
+
+    /**
+     * Saves given transactions in the given order
+     * Returns once all of them are durable with respect to the journal mode, waiting for the journal only once
+     *
+     * @param transactions to be saved
+     * @return true if all transactions saved successfully
+     */
+    public boolean saveAll(List<Transaction> transactions) {
+
+        long sequence = 0;
+
+        for (Transaction transaction : transactions) {
+            sequence = journal(transaction);
+        }
+
+        return commitAll(transactions, sequence);
+    }
+
+    /**
+     * Appends given transaction to the journal without keeping it yet
+     * Must be called while the balances it changes cannot be changed by anything else,
+     *    e.g. by the {@link com.assignment.service.Ledger.Commit} of the change, so that the journal keeps their order
+     *
+     * @param transaction to be journaled
+     * @return sequence number of its record, to be committed with
+     */
+    public long journal(Transaction transaction) {
+        return journal.append(transaction);
+    }
+
+    /**
+     * Keeps a journaled transaction once it is durable with respect to the journal mode
+     * The transaction is kept even if the journal fails to make it durable, its balances have changed already
+     *
+     * @param transaction journaled before
+     * @param sequence returned when it was journaled
+     * @return true if transaction kept successfully
+     */
+    public boolean commit(Transaction transaction, long sequence) {
+
+        boolean kept;
+
+        try {
+            journal.sync(sequence);
+        } finally {
+            kept = append(transaction);
+        }
+
+        return kept;
+    }
+
+    /**
+     * Keeps a journaled transaction once it is durable with respect to the journal mode, without waiting for the journal
+     * The transaction is kept even if the journal fails to make it durable, the stage fails then,
+     *    also if the journal fails right away, as the balances of the transaction have changed already
+     *
+     * @param transaction journaled before
+     * @param sequence returned when it was journaled
+     * @param executor keeping the transaction once it is durable, instead of the journal thread
+     * @return stage completed with true if transaction kept successfully
+     */
+    public CompletionStage<Boolean> commitAsync(Transaction transaction, long sequence, Executor executor) {
+
+        CompletableFuture<Boolean> committed = new CompletableFuture<>();
+        CompletionStage<Void> durable;
+
+        try {
+            durable = journal.syncAsync(sequence);
+        } catch (RuntimeException e) {
+            CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            durable = failed;
+        }
+
+        durable.whenCompleteAsync((synced, error) -> {
+
+            boolean kept = append(transaction);
+
+            if (error != null) {
+                committed.completeExceptionally(error);
+            } else {
+                committed.complete(kept);
+            }
+        }, executor);
+
+        return committed;
+    }
+
+    /**
+     * Keeps journaled transactions in the given order once all of them are durable, waiting for the journal only once
+     * The transactions are kept even if the journal fails to make them durable, their balances have changed already
+     *
+     * @param transactions journaled before, in the given order
+     * @param sequence returned when the last of them was journaled
+     * @return true if all transactions kept successfully
+     */
+    public boolean commitAll(List<Transaction> transactions, long sequence) {
+
+        if (transactions.isEmpty()) {
+            return true;
+        }
+
+        boolean saved = true;
+
+        try {
+            journal.sync(sequence);
+        } finally {
+            for (Transaction transaction : transactions) {
+                saved &= append(transaction);
+            }
+        }
+
+        return saved;
     }
 
     /**
-     * Returns all transactions saved so far
+     * Puts back a transaction read from the journal without journaling it again
+     *
+     * @param transaction to be restored
+     * @return true if transaction restored successfully
+     */
+    public boolean restore(Transaction transaction) {
+        return append(transaction);
+    }
+
+    /**
+     * Returns all transactions saved so far in the order they were saved
      *
      * @return all transactions
      */
     public Collection<Transaction> getAll() {
         return transactions.getAll();
     }
+
+    /**
+     * @return number of transactions saved so far
+     */
+    public int count() {
+        return transactions.size();
+    }
+
+    /**
+     * Returns a page of all transactions in the order they were saved
+     *
+     * @param after cursor returned with the previous page, -1 for the first page
+     * @param limit maximum number of transactions in the page
+     * @return transactions following the cursor, with the cursor of the next page if there are more
+     */
+    public Page<Transaction> getPage(int after, int limit) {
+
+        int size = transactions.size();
+        int from = Math.max(after + 1, 0);
+        int to = (int) Math.min(size, (long) from + limit);
+
+        List<Transaction> items = new ArrayList<>(Math.max(to - from, 0));
+
+        for (int position = from; position < to; position++) {
+            items.add(transactions.get(position));
+        }
+
+        return new Page<>(items, to < size ? Integer.toString(to - 1) : null);
+    }
+
+    /**
+     * Returns a page of the transactions of given account in the order they were saved
+     * Takes time proportional to the size of the page, not to the number of transactions saved
+     *
+     * @param accountId account whose transactions are requested
+     * @param after cursor returned with the previous page, -1 for the first page
+     * @param limit maximum number of transactions in the page
+     * @return transactions following the cursor, with the cursor of the next page if there are more
+     */
+    public Page<Transaction> getByAccount(String accountId, int after, int limit) {
+
+        int[] positions = accountIndex.get(accountId, after, limit);
+
+        List<Transaction> items = new ArrayList<>(positions.length);
+
+        for (int position : positions) {
+            items.add(transactions.get(position));
+        }
+
+        if (positions.length == 0) {
+            return new Page<>(items, null);
+        }
+
+        int last = positions[positions.length - 1];
+
+        return new Page<>(items, accountIndex.hasAfter(accountId, last) ? Integer.toString(last) : null);
+    }
+
+    private boolean append(Transaction transaction) {
+
+        int position = transactions.append(transaction);
+
+        if (position < 0) {
+            return false;
+        }
+
+        // positions in front are only held back by appends in progress, which cannot fail or block once reserved
+        while (indexed <= position) {
+
+            index();
+
+            if (indexed <= position) {
+                Thread.yield();
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Indexes the committed prefix of the log which is not indexed yet
+     * Whoever holds the lock indexes the positions committed by the others too, so nobody waits for it;
+     *    a position committed behind one still being appended is indexed by whoever commits the latter
+     */
+    private void index() {
+
+        while (indexLock.tryLock()) {
+
+            try {
+                int size = transactions.size();
+
+                for (int position = indexed; position < size; position++) {
+                    index(transactions.get(position), position);
+                    indexed = position + 1;
+                }
+            } finally {
+                indexLock.unlock();
+            }
+
+            // positions committed while the lock was held, by threads which could not take it, are indexed by another round
+            if (indexed >= transactions.size()) {
+                return;
+            }
+        }
+    }
+
+    private void index(Transaction transaction, int position) {
+
+        String from = transaction.getFromAccountId();
+        String to = transaction.getToAccountId();
+
+        accountIndex.add(from, position);
+
+        if (to != null && !to.equals(from)) {
+            accountIndex.add(to, position);
+        }
+
+        List<Leg> legs = transaction.getLegs();
+
+        if (legs != null) {
+            for (int i = 0; i < legs.size(); i++) {
+                if (isFirstPayee(legs, i) && !legs.get(i).getToAccountId().equals(from)) {
+                    accountIndex.add(legs.get(i).getToAccountId(), position);
+                }
+            }
+        }
+    }
+
+    // an account paid by several legs is indexed once
+    private static boolean isFirstPayee(List<Leg> legs, int index) {
+
+        String payee = legs.get(index).getToAccountId();
+
+        for (int i = 0; i < index; i++) {
+            if (legs.get(i).getToAccountId().equals(payee)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
 }
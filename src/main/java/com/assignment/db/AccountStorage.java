@@ -0,0 +1,33 @@
+package com.assignment.db;
+
+import com.assignment.model.Account;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/***
+ * Storage backends for {@link Account} objects
+ *
+ * OBJECT    : an account object per account in an {@link InMemoryDb}
+ * PRIMITIVE : ids and balances in primitive arrays on the heap, see {@link PrimitiveBalanceTable}
+ * OFF_HEAP  : ids and balances in direct buffers outside of the heap, see {@link OffHeapBalanceTable}
+ */
+public enum AccountStorage {
+
+    @JsonProperty("object") OBJECT,
+    @JsonProperty("primitive") PRIMITIVE,
+    @JsonProperty("offheap") OFF_HEAP;
+
+    /**
+     * @return new empty store of this kind
+     */
+    public EntityDb<Account> createDb() {
+
+        switch (this) {
+            case PRIMITIVE:
+                return new BalanceTableDb(new PrimitiveBalanceTable());
+            case OFF_HEAP:
+                return new BalanceTableDb(new OffHeapBalanceTable());
+            default:
+                return new InMemoryDb<>();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.assignment.db;
+
+import com.assignment.model.BalanceStore;
+import com.assignment.model.HotBalance;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fixed size records of accounts, each one holding the id and the balance of an account, addressed by slot
+ * Records are allocated in chunks of {@link #CHUNK_SIZE} slots which are never moved once allocated
+ * Only a single writer may call {@link #ensureCapacity(int)} and {@link #putId(int, String)},
+ *    readers of a slot must learn about it through a happens-before edge with the writer
+ * Ids are limited to {@link #MAX_ID_LENGTH} characters, the same limit as validated on {@link com.assignment.model.Entity}
+ */
+public abstract class BalanceTable implements BalanceStore {
+
+    public static final int MAX_ID_LENGTH = 16;
+
+    static final int CHUNK_BITS = 16;
+    static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private static final int STRIPES = 1 << 12;
+
+    private final Object[] monitors;
+
+    // few accounts are ever hot, so their cells are kept aside instead of in a column
+    private final Map<Integer, HotBalance> hotBalances = new ConcurrentHashMap<>();
+
+    protected BalanceTable() {
+        monitors = new Object[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            monitors[i] = new Object();
+        }
+    }
+
+    /**
+     * Allocates chunks until given number of slots can be written
+     *
+     * @param slots to be available
+     */
+    abstract void ensureCapacity(int slots);
+
+    /**
+     * @param slot of the account
+     * @return number of characters of the id in given slot
+     */
+    abstract int getIdLength(int slot);
+
+    /**
+     * @param slot of the account
+     * @param index of the character
+     * @return character of the id in given slot
+     */
+    abstract char getIdChar(int slot, int index);
+
+    /**
+     * @param slot of the account
+     * @param id to be stored in given slot, not longer than {@link #MAX_ID_LENGTH}
+     */
+    abstract void putId(int slot, String id);
+
+    /**
+     * @param slot of the account
+     * @return id stored in given slot
+     */
+    public String getId(int slot) {
+
+        char[] id = new char[getIdLength(slot)];
+
+        for (int i = 0; i < id.length; i++) {
+            id[i] = getIdChar(slot, i);
+        }
+
+        return new String(id);
+    }
+
+    /**
+     * Compares the id in given slot without materializing it
+     *
+     * @param slot of the account
+     * @param id to be compared
+     * @return true if given slot holds the id
+     */
+    boolean idEquals(int slot, String id) {
+
+        int length = getIdLength(slot);
+
+        if (length != id.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (getIdChar(slot, i) != id.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @param slot of the account
+     * @return same hash as {@link String#hashCode()} of the id in given slot
+     */
+    int idHash(int slot) {
+
+        int hash = 0;
+
+        for (int i = 0, length = getIdLength(slot); i < length; i++) {
+            hash = 31 * hash + getIdChar(slot, i);
+        }
+
+        return hash;
+    }
+
+    @Override
+    public HotBalance getHotBalance(int slot) {
+        return hotBalances.get(slot);
+    }
+
+    @Override
+    public void setHotBalance(int slot, HotBalance hotBalance) {
+        hotBalances.put(slot, hotBalance);
+    }
+
+    @Override
+    public int getStripe(int slot) {
+        return slot & (STRIPES - 1);
+    }
+
+    @Override
+    public Object getMonitor(int slot) {
+        return monitors[getStripe(slot)];
+    }
+}
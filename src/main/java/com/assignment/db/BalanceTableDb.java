@@ -0,0 +1,219 @@
+package com.assignment.db;
+
+import com.assignment.model.Account;
+import com.assignment.model.StoredAccount;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Consumer;
+
+/**
+ * Data store for {@link Account} objects keeping ids and balances in a {@link BalanceTable} instead of an object per account
+ * The balance of a saved account is moved into its slot in the table, the saved object itself no longer follows it,
+ *    {@link #get(String)} returns a new {@link StoredAccount} view over the slot on each call
+ * Ids are mapped to slots by an open addressing hash index of primitive ints
+ * Adds are serialized, lookups never block: a slot is published in the index only after its record is written
+ *    and the index is replaced by a larger copy before it becomes too full
+ */
+public class BalanceTableDb implements EntityDb<Account> {
+
+    private static final int INITIAL_INDEX_SIZE = 1 << 10;
+
+    private final BalanceTable table;
+
+    // slot + 1 of the account in each bucket, 0 for an empty bucket
+    private volatile AtomicIntegerArray index = new AtomicIntegerArray(INITIAL_INDEX_SIZE);
+
+    // number of published slots, slots are allocated in order
+    private volatile int size;
+
+    public BalanceTableDb(BalanceTable table) {
+        this.table = table;
+    }
+
+    @Override
+    public boolean add(Account account) {
+        return add(account, a -> { });
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException if the id is longer than {@link BalanceTable#MAX_ID_LENGTH}
+     */
+    @Override
+    public synchronized boolean add(Account account, Consumer<Account> beforePublish) {
+
+        if (account == null || account.getId() == null) {
+            return false;
+        }
+
+        String id = account.getId();
+
+        if (id.length() > BalanceTable.MAX_ID_LENGTH) {
+            throw new IllegalArgumentException("Account id cannot be longer than " + BalanceTable.MAX_ID_LENGTH + ": " + id);
+        }
+
+        AtomicIntegerArray index = this.index;
+
+        int bucket = find(index, id);
+
+        if (index.get(bucket) != 0) {
+            return false;
+        }
+
+        // slot is only taken once published, so it is reused if the callback throws
+        int slot = size;
+
+        table.ensureCapacity(slot + 1);
+        table.putId(slot, id);
+
+        beforePublish.accept(account);
+
+        StoredAccount.attach(account, table, slot);
+
+        // keep the load factor below 3/4
+        if (4L * (slot + 1) > 3L * index.length()) {
+            index = resize(index.length() << 1, slot);
+            bucket = find(index, id);
+            this.index = index;
+        }
+
+        index.set(bucket, slot + 1);
+        size = slot + 1;
+
+        return true;
+    }
+
+    @Override
+    public Account get(String id) {
+
+        if (id == null) {
+            return null;
+        }
+
+        AtomicIntegerArray index = this.index;
+
+        int slot = index.get(find(index, id)) - 1;
+
+        return slot < 0 ? null : new StoredAccount(id, table, slot);
+    }
+
+    @Override
+    public Collection<Account> getAll() {
+
+        int size = this.size;
+
+        return new AbstractCollection<Account>() {
+
+            @Override
+            public Iterator<Account> iterator() {
+
+                return new Iterator<Account>() {
+
+                    private int slot;
+
+                    @Override
+                    public boolean hasNext() {
+                        return slot < size;
+                    }
+
+                    @Override
+                    public Account next() {
+
+                        if (slot >= size) {
+                            throw new NoSuchElementException();
+                        }
+
+                        Account account = new StoredAccount(table.getId(slot), table, slot);
+                        slot++;
+
+                        return account;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Returns views over the slots following given one, slots are allocated in the order accounts are added
+     *
+     * @param after slot to start after, -1 to start from the first slot
+     * @param limit maximum number of accounts to be returned
+     * @return accounts following given slot
+     */
+    @Override
+    public List<Account> getAfter(int after, int limit) {
+
+        int size = this.size;
+        int from = Math.max(after + 1, 0);
+        int to = (int) Math.min(size, (long) from + limit);
+
+        List<Account> result = new ArrayList<>(Math.max(to - from, 0));
+
+        for (int slot = from; slot < to; slot++) {
+            result.add(new StoredAccount(table.getId(slot), table, slot));
+        }
+
+        return result;
+    }
+
+    /**
+     * @return number of accounts in this store
+     */
+    public int size() {
+        return size;
+    }
+
+    private int find(AtomicIntegerArray index, String id) {
+
+        int mask = index.length() - 1;
+        int bucket = spread(id.hashCode()) & mask;
+
+        for (int entry = index.get(bucket); entry != 0; entry = index.get(bucket)) {
+
+            if (table.idEquals(entry - 1, id)) {
+                return bucket;
+            }
+
+            bucket = (bucket + 1) & mask;
+        }
+
+        return bucket;
+    }
+
+    private AtomicIntegerArray resize(int length, int slots) {
+
+        AtomicIntegerArray resized = new AtomicIntegerArray(length);
+
+        int mask = length - 1;
+
+        for (int slot = 0; slot < slots; slot++) {
+
+            int bucket = spread(table.idHash(slot)) & mask;
+
+            while (resized.get(bucket) != 0) {
+                bucket = (bucket + 1) & mask;
+            }
+
+            resized.set(bucket, slot + 1);
+        }
+
+        return resized;
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,59 @@
+package com.assignment.db;
+
+import com.assignment.model.Entity;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Data store for Entity objects keyed by their id
+ *
+ * @param <T> the type store values
+ */
+public interface EntityDb<T extends Entity> {
+
+    /**
+     * Saves given entity if there isn't any other entity with the same id
+     *
+     * @param entity to be added
+     * @return true if entity is absent in the store and added successfully
+     */
+    boolean add(T entity);
+
+    /**
+     * Saves given entity if there isn't any other entity with the same id
+     * Given callback runs once the entity is known to be absent but before it becomes visible to {@link #get(String)}
+     * If the callback throws, the entity is not added
+     *
+     * @param entity to be added
+     * @param beforePublish to be called with the entity only if it is going to be added
+     * @return true if entity is absent in the store and added successfully
+     */
+    boolean add(T entity, Consumer<T> beforePublish);
+
+    /**
+     * Returns the entity with specified id or {@code null} if this store does not contain no entity with the id
+     *
+     * @param id to be search
+     * @return the entity with specified id, otherwise {@code null}
+     */
+    T get(String id);
+
+    /**
+     * Returns all the entities in read-only format
+     *
+     * @return all entities in this store
+     */
+    Collection<T> getAll();
+
+    /**
+     * Returns entities in the order they were added, the first entity added is at position 0
+     * Takes time proportional to the limit, not to the number of entities in this store
+     *
+     * @param after position of the entity to start after, -1 to start from the first entity
+     * @param limit maximum number of entities to be returned
+     * @return entities following given position
+     */
+    List<T> getAfter(int after, int limit);
+}
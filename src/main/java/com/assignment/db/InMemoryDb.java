@@ -2,10 +2,15 @@ package com.assignment.db;
 
 import com.assignment.model.Entity;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
 
 /**
  * In-memory data store for Entity objects
@@ -14,14 +19,24 @@ import java.util.concurrent.ConcurrentHashMap;
  * ConcurrentHasMap has been chosen as the concrete Map implementation
  *    in order to prevent attempts of adding multiple entities with the same id
  * Entity.id is used as the key in map
+ * Entities are also appended to chunks of references in the order they are added, which backs {@link #getAfter(int, int)}
  *
  * @param <T> the type store values
  */
-public class InMemoryDb<T extends Entity> {
+public class InMemoryDb<T extends Entity> implements EntityDb<T> {
+
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int MAX_CHUNKS = 1 << (31 - CHUNK_BITS);
 
     // Map object to use
     private Map<String, T> entities;
 
+    // entities in the order they were added, a position is null until its entity is written
+    private final AtomicReferenceArray<AtomicReferenceArray<T>> order = new AtomicReferenceArray<>(MAX_CHUNKS);
+    private final AtomicInteger positions = new AtomicInteger();
+
     public InMemoryDb() {
         entities = new ConcurrentHashMap<>();
     }
@@ -32,15 +47,42 @@ public class InMemoryDb<T extends Entity> {
      * @param entity to be added
      * @return true if entity is absent in the map and added successfully
      */
+    @Override
     public boolean add(T entity) {
 
         if (entity == null || entity.getId() == null) {
             return false;
         }
 
-        T previous = entities.putIfAbsent(entity.getId(), entity);
+        return add(entity, e -> { });
+    }
 
-        return previous == null;
+    /**
+     * Saves given entity if there isn't any other entity with the same id
+     * Given callback runs once the entity is known to be absent but before it becomes visible to {@link #get(String)}
+     * If the callback throws, the entity is not added
+     *
+     * @param entity to be added
+     * @param beforePublish to be called with the entity only if it is going to be added
+     * @return true if entity is absent in the map and added successfully
+     */
+    @Override
+    public boolean add(T entity, Consumer<T> beforePublish) {
+
+        if (entity == null || entity.getId() == null) {
+            return false;
+        }
+
+        boolean[] added = {false};
+
+        entities.computeIfAbsent(entity.getId(), id -> {
+            beforePublish.accept(entity);
+            append(entity);
+            added[0] = true;
+            return entity;
+        });
+
+        return added[0];
     }
 
     /**
@@ -49,6 +91,7 @@ public class InMemoryDb<T extends Entity> {
      * @param id to be search
      * @return the entity with specified id, otherwise {@code null}
      */
+    @Override
     public T get(String id) {
 
         if (id == null) {
@@ -63,7 +106,63 @@ public class InMemoryDb<T extends Entity> {
      *
      * @return all entities in this store
      */
+    @Override
     public Collection<T> getAll() {
         return Collections.unmodifiableCollection(entities.values());
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns entities in the order they were added, the first entity added is at position 0
+     * Stops early at an entity that is still being added
+     *
+     * @param after position of the entity to start after, -1 to start from the first entity
+     * @param limit maximum number of entities to be returned
+     * @return entities following given position
+     */
+    @Override
+    public List<T> getAfter(int after, int limit) {
+
+        List<T> result = new ArrayList<>(Math.min(limit, CHUNK_SIZE));
+
+        int end = positions.get();
+
+        if (end < 0) {
+            end = Integer.MAX_VALUE;
+        }
+
+        for (int position = Math.max(after + 1, 0); position < end && result.size() < limit; position++) {
+
+            T entity = order.get(position >>> CHUNK_BITS).get(position & CHUNK_MASK);
+
+            if (entity == null) {
+                break;
+            }
+
+            result.add(entity);
+        }
+
+        return result;
+    }
+
+    // called while the id of the entity is locked by the map, the entity is not added if this throws
+    private void append(T entity) {
+
+        int position = positions.getAndIncrement();
+
+        if (position < 0) {
+            positions.set(Integer.MIN_VALUE);
+            throw new IllegalStateException("Store cannot hold more entities");
+        }
+
+        int index = position >>> CHUNK_BITS;
+
+        AtomicReferenceArray<T> chunk = order.get(index);
+
+        if (chunk == null) {
+            order.compareAndSet(index, null, new AtomicReferenceArray<>(CHUNK_SIZE));
+            chunk = order.get(index);
+        }
+
+        chunk.set(position & CHUNK_MASK, entity);
+    }
+}
@@ -0,0 +1,54 @@
+package com.assignment.db;
+
+import sun.misc.Unsafe;
+
+import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * Atomic access to the memory of direct buffers, the only user of {@code sun.misc.Unsafe}
+ * Java 8 has no atomic operations on direct buffers, views of byte buffers by {@code VarHandle} only came with Java 9,
+ *    so balances kept off the heap are read, written and compared and set through Unsafe at their native address
+ * Unsafe is called directly, so the dependency on the proprietary API is visible here and nowhere else
+ * javac warns about it on every build and no {@code @SuppressWarnings} token silences that warning,
+ *    it is expected and only ever reported for this class
+ */
+final class NativeMemory {
+
+    private static final Unsafe UNSAFE;
+    private static final long BUFFER_ADDRESS_OFFSET;
+
+    static {
+        try {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            UNSAFE = (Unsafe) field.get(null);
+            BUFFER_ADDRESS_OFFSET = UNSAFE.objectFieldOffset(Buffer.class.getDeclaredField("address"));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private NativeMemory() { }
+
+    /**
+     * @param buffer direct buffer
+     * @return native address of the first byte of given buffer, 8-byte aligned
+     */
+    static long address(ByteBuffer buffer) {
+        return UNSAFE.getLong(buffer, BUFFER_ADDRESS_OFFSET);
+    }
+
+    static long getLongVolatile(long address) {
+        return UNSAFE.getLongVolatile(null, address);
+    }
+
+    static void putLongVolatile(long address, long value) {
+        UNSAFE.putLongVolatile(null, address, value);
+    }
+
+    static boolean compareAndSwapLong(long address, long expected, long value) {
+        return UNSAFE.compareAndSwapLong(null, address, expected, value);
+    }
+}
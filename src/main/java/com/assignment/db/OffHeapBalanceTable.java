@@ -0,0 +1,102 @@
+package com.assignment.db;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * {@link BalanceTable} outside of the heap, kept in direct buffers which the garbage collector never scans
+ * Every record takes {@link #RECORD_SIZE} bytes: balance(8) id length(2) id characters(2 * {@link #MAX_ID_LENGTH})
+ * Memory of a chunk is released once the table itself is garbage collected
+ * Balances are read, written and compared and set atomically through {@link NativeMemory} at the address of their record,
+ *    records are 8-byte aligned since direct buffers are
+ */
+public class OffHeapBalanceTable extends BalanceTable {
+
+    static final int RECORD_SIZE = 48;
+
+    private static final int BALANCE_OFFSET = 0;
+    private static final int ID_LENGTH_OFFSET = 8;
+    private static final int ID_OFFSET = 10;
+
+    // replaced by a longer copy whenever a chunk is added, chunks themselves are never copied
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+
+    // native address of each chunk, replaced along with the chunks
+    private volatile long[] addresses = new long[0];
+
+    @Override
+    void ensureCapacity(int slots) {
+
+        ByteBuffer[] chunks = this.chunks;
+
+        int required = (slots + CHUNK_MASK) >>> CHUNK_BITS;
+
+        if (required <= chunks.length) {
+            return;
+        }
+
+        int allocated = chunks.length;
+
+        chunks = Arrays.copyOf(chunks, required);
+        long[] addresses = Arrays.copyOf(this.addresses, required);
+
+        for (int i = allocated; i < required; i++) {
+            chunks[i] = ByteBuffer.allocateDirect(CHUNK_SIZE * RECORD_SIZE).order(ByteOrder.nativeOrder());
+            addresses[i] = NativeMemory.address(chunks[i]);
+        }
+
+        this.addresses = addresses;
+        this.chunks = chunks;
+    }
+
+    @Override
+    public long getBalance(int slot) {
+        return NativeMemory.getLongVolatile(balanceAddress(slot));
+    }
+
+    @Override
+    public void setBalance(int slot, long balance) {
+        NativeMemory.putLongVolatile(balanceAddress(slot), balance);
+    }
+
+    @Override
+    public boolean compareAndSetBalance(int slot, long expected, long balance) {
+        return NativeMemory.compareAndSwapLong(balanceAddress(slot), expected, balance);
+    }
+
+    @Override
+    int getIdLength(int slot) {
+        return chunk(slot).getShort(offset(slot) + ID_LENGTH_OFFSET);
+    }
+
+    @Override
+    char getIdChar(int slot, int index) {
+        return chunk(slot).getChar(offset(slot) + ID_OFFSET + 2 * index);
+    }
+
+    @Override
+    void putId(int slot, String id) {
+
+        ByteBuffer chunk = chunk(slot);
+        int offset = offset(slot);
+
+        chunk.putShort(offset + ID_LENGTH_OFFSET, (short) id.length());
+
+        for (int i = 0; i < id.length(); i++) {
+            chunk.putChar(offset + ID_OFFSET + 2 * i, id.charAt(i));
+        }
+    }
+
+    private ByteBuffer chunk(int slot) {
+        return chunks[slot >>> CHUNK_BITS];
+    }
+
+    private long balanceAddress(int slot) {
+        return addresses[slot >>> CHUNK_BITS] + offset(slot) + BALANCE_OFFSET;
+    }
+
+    private static int offset(int slot) {
+        return (slot & CHUNK_MASK) * RECORD_SIZE;
+    }
+}
@@ -0,0 +1,79 @@
+package com.assignment.db;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * {@link BalanceTable} on the heap, kept in primitive arrays instead of an object per account
+ * Every chunk consists of an atomic long array of balances and a char array of ids,
+ *    each id takes {@link #MAX_ID_LENGTH} + 1 characters where the first one is its length
+ */
+public class PrimitiveBalanceTable extends BalanceTable {
+
+    private static final int ID_WIDTH = MAX_ID_LENGTH + 1;
+
+    // replaced by a longer copy whenever a chunk is added, chunks themselves are never copied
+    private volatile AtomicLongArray[] balances = new AtomicLongArray[0];
+    private volatile char[][] ids = new char[0][];
+
+    @Override
+    void ensureCapacity(int slots) {
+
+        AtomicLongArray[] balances = this.balances;
+        char[][] ids = this.ids;
+
+        int chunks = (slots + CHUNK_MASK) >>> CHUNK_BITS;
+
+        if (chunks <= balances.length) {
+            return;
+        }
+
+        int allocated = balances.length;
+
+        balances = Arrays.copyOf(balances, chunks);
+        ids = Arrays.copyOf(ids, chunks);
+
+        for (int i = allocated; i < chunks; i++) {
+            balances[i] = new AtomicLongArray(CHUNK_SIZE);
+            ids[i] = new char[CHUNK_SIZE * ID_WIDTH];
+        }
+
+        this.ids = ids;
+        this.balances = balances;
+    }
+
+    @Override
+    public long getBalance(int slot) {
+        return balances[slot >>> CHUNK_BITS].get(slot & CHUNK_MASK);
+    }
+
+    @Override
+    public void setBalance(int slot, long balance) {
+        balances[slot >>> CHUNK_BITS].set(slot & CHUNK_MASK, balance);
+    }
+
+    @Override
+    public boolean compareAndSetBalance(int slot, long expected, long balance) {
+        return balances[slot >>> CHUNK_BITS].compareAndSet(slot & CHUNK_MASK, expected, balance);
+    }
+
+    @Override
+    int getIdLength(int slot) {
+        return ids[slot >>> CHUNK_BITS][(slot & CHUNK_MASK) * ID_WIDTH];
+    }
+
+    @Override
+    char getIdChar(int slot, int index) {
+        return ids[slot >>> CHUNK_BITS][(slot & CHUNK_MASK) * ID_WIDTH + 1 + index];
+    }
+
+    @Override
+    void putId(int slot, String id) {
+
+        char[] chunk = ids[slot >>> CHUNK_BITS];
+        int offset = (slot & CHUNK_MASK) * ID_WIDTH;
+
+        chunk[offset] = (char) id.length();
+        id.getChars(0, id.length(), chunk, offset + 1);
+    }
+}
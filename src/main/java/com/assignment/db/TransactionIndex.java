@@ -0,0 +1,102 @@
+package com.assignment.db;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Secondary index of a {@link TransactionLog}, keeps the positions of the transactions of every account
+ * Positions of an account are appended in increasing order to a growing int array, so the transactions of an account
+ *    following a given position are found by a binary search and read in time proportional to their count
+ * Positions must be added in the order of the log, e.g. by indexing its committed prefix only,
+ *    so that no position is ever added behind one returned to a reader already
+ * Every account has its own lock, so only transactions of the same account meet on it
+ */
+public class TransactionIndex {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private static class Positions {
+
+        private int[] positions = new int[INITIAL_CAPACITY];
+        private int size;
+
+        synchronized void add(int position) {
+
+            if (size > 0 && positions[size - 1] >= position) {
+                throw new IllegalArgumentException("Position " + position + " added after " + positions[size - 1]);
+            }
+
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size << 1);
+            }
+
+            positions[size++] = position;
+        }
+
+        synchronized int[] after(int after, int limit) {
+
+            int index = Arrays.binarySearch(positions, 0, size, after);
+
+            // first position greater than the given one
+            index = index < 0 ? -index - 1 : index + 1;
+
+            return Arrays.copyOfRange(positions, index, Math.min(size, index + limit));
+        }
+
+        synchronized boolean hasAfter(int after) {
+            return size > 0 && positions[size - 1] > after;
+        }
+    }
+
+    private final Map<String, Positions> accounts = new ConcurrentHashMap<>();
+
+    /**
+     * Adds given log position to the history of given account
+     *
+     * @param accountId account taking part in the transaction, ignored if null
+     * @param position of the transaction in the log, greater than every position added for the account before
+     * @throws IllegalArgumentException if the position is not greater than the last one of the account
+     */
+    public void add(String accountId, int position) {
+
+        if (accountId == null) {
+            return;
+        }
+
+        Positions positions = accounts.get(accountId);
+
+        if (positions == null) {
+            positions = accounts.computeIfAbsent(accountId, id -> new Positions());
+        }
+
+        positions.add(position);
+    }
+
+    /**
+     * Returns the log positions of the transactions of given account in increasing order
+     *
+     * @param accountId account whose transactions are requested
+     * @param after position to start after, -1 to start from the first transaction of the account
+     * @param limit maximum number of positions to be returned
+     * @return positions greater than given one, at most limit of them
+     */
+    public int[] get(String accountId, int after, int limit) {
+
+        Positions positions = accounts.get(accountId);
+
+        return positions != null ? positions.after(after, limit) : new int[0];
+    }
+
+    /**
+     * @param accountId account whose transactions are requested
+     * @param after position of a transaction
+     * @return true if given account has transactions at greater positions than given one
+     */
+    public boolean hasAfter(String accountId, int after) {
+
+        Positions positions = accounts.get(accountId);
+
+        return positions != null && positions.hasAfter(after);
+    }
+}
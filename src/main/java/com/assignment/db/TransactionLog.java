@@ -0,0 +1,251 @@
+package com.assignment.db;
+
+import com.assignment.model.Leg;
+import com.assignment.model.Transaction;
+import com.assignment.model.TransactionType;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Append-only, columnar store for {@link Transaction} objects
+ * Instead of an object per transaction keeps id number, type, source, destination and amount in parallel primitive columns,
+ *    account ids are replaced by codes of a dictionary shared by all transactions
+ * Columns are allocated in chunks of {@link #CHUNK_SIZE} positions which are never moved, so the log never rehashes
+ * Appends never lock: a position is reserved by an atomic increment, its columns are written
+ *    and the type column is written last with release semantics to commit the position
+ * Readers see the longest prefix of committed positions, which is the order transactions were committed in
+ * Transactions are materialized on every read
+ * Legs of split transactions are kept aside by position, split transactions are expected to be rare
+ */
+public class TransactionLog {
+
+    static final int CHUNK_BITS = 16;
+    static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private static final int MAX_CHUNKS = 1 << (31 - CHUNK_BITS);
+
+    // code of the missing account of deposits and withdrawals
+    private static final int NO_ACCOUNT = -1;
+
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    private static class Chunk {
+
+        // ordinal + 1 of the type, 0 until the position is committed
+        final AtomicIntegerArray types = new AtomicIntegerArray(CHUNK_SIZE);
+        final long[] ids = new long[CHUNK_SIZE];
+        final int[] from = new int[CHUNK_SIZE];
+        final int[] to = new int[CHUNK_SIZE];
+        final int[] amounts = new int[CHUNK_SIZE];
+    }
+
+    private final AtomicReferenceArray<Chunk> chunks = new AtomicReferenceArray<>(MAX_CHUNKS);
+    private final AtomicInteger reserved = new AtomicInteger();
+
+    // lower bound of the committed prefix, only moves forward
+    private final AtomicInteger committed = new AtomicInteger();
+
+    // dictionary of account ids
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<String[]> accounts = new AtomicReferenceArray<>(MAX_CHUNKS);
+    private final AtomicInteger nextCode = new AtomicInteger();
+
+    // legs of split transactions by position
+    private final Map<Integer, List<Leg>> legs = new ConcurrentHashMap<>();
+
+    /**
+     * Appends given transaction to the end of the log
+     *
+     * @param transaction to be appended
+     * @return position of the transaction in the log,
+     *    -1 if the transaction has no type, amount or an id not assigned by {@link Transaction}
+     * @throws IllegalStateException if the log cannot grow any further
+     */
+    public int append(Transaction transaction) {
+
+        if (transaction == null || transaction.getTransactionType() == null || transaction.getAmount() == null) {
+            return -1;
+        }
+
+        long id = transaction.getNumber();
+
+        if (id <= 0) {
+            return -1;
+        }
+
+        // everything that may fail is done before a position is reserved, a reserved position must always be committed
+        int from = encode(transaction.getFromAccountId());
+        int to = encode(transaction.getToAccountId());
+
+        int position = reserved.getAndIncrement();
+
+        if (position < 0) {
+            reserved.set(Integer.MIN_VALUE);
+            throw new IllegalStateException("Transaction log is full");
+        }
+
+        Chunk chunk = chunk(position);
+        int offset = position & CHUNK_MASK;
+
+        chunk.ids[offset] = id;
+        chunk.from[offset] = from;
+        chunk.to[offset] = to;
+        chunk.amounts[offset] = transaction.getAmount();
+
+        if (transaction.getLegs() != null) {
+            legs.put(position, transaction.getLegs());
+        }
+
+        chunk.types.lazySet(offset, transaction.getTransactionType().ordinal() + 1);
+
+        return position;
+    }
+
+    /**
+     * @return number of committed transactions in front of the first one still being appended
+     */
+    public int size() {
+
+        int size = committed.get();
+        int limit = reserved.get();
+
+        if (limit < 0) {
+            limit = Integer.MAX_VALUE;
+        }
+
+        while (size < limit && isCommitted(size)) {
+            size++;
+        }
+
+        committed.accumulateAndGet(size, Math::max);
+
+        return size;
+    }
+
+    /**
+     * @param position of a committed transaction, below {@link #size()} or returned by {@link #append(Transaction)}
+     * @return transaction at given position
+     */
+    public Transaction get(int position) {
+
+        Chunk chunk = chunks.get(position >>> CHUNK_BITS);
+        int offset = position & CHUNK_MASK;
+
+        int type = chunk.types.get(offset);
+
+        if (type == 0) {
+            throw new IllegalStateException("Transaction at " + position + " is not committed yet");
+        }
+
+        return Transaction.of(chunk.ids[offset],
+                TYPES[type - 1],
+                decode(chunk.from[offset]),
+                decode(chunk.to[offset]),
+                chunk.amounts[offset],
+                legs.isEmpty() ? null : legs.get(position));
+    }
+
+    /**
+     * Returns the committed transactions in read-only format, in the order they were committed
+     * Transactions appended later are not part of the returned list
+     *
+     * @return all committed transactions
+     */
+    public List<Transaction> getAll() {
+
+        int size = size();
+
+        return new AbstractList<Transaction>() {
+
+            @Override
+            public Transaction get(int index) {
+
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+                }
+
+                return TransactionLog.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private boolean isCommitted(int position) {
+
+        Chunk chunk = chunks.get(position >>> CHUNK_BITS);
+
+        return chunk != null && chunk.types.get(position & CHUNK_MASK) != 0;
+    }
+
+    private Chunk chunk(int position) {
+
+        int index = position >>> CHUNK_BITS;
+
+        Chunk chunk = chunks.get(index);
+
+        if (chunk == null) {
+            // racing appenders allocate at most one chunk each, all but one of them are dropped
+            chunks.compareAndSet(index, null, new Chunk());
+            chunk = chunks.get(index);
+        }
+
+        return chunk;
+    }
+
+    private int encode(String accountId) {
+
+        if (accountId == null) {
+            return NO_ACCOUNT;
+        }
+
+        Integer code = codes.get(accountId);
+
+        if (code != null) {
+            return code;
+        }
+
+        return codes.computeIfAbsent(accountId, id -> {
+
+            int next = nextCode.getAndIncrement();
+
+            if (next < 0) {
+                nextCode.set(Integer.MIN_VALUE);
+                throw new IllegalStateException("Transaction log cannot hold more accounts");
+            }
+
+            int index = next >>> CHUNK_BITS;
+
+            String[] names = accounts.get(index);
+
+            if (names == null) {
+                accounts.compareAndSet(index, null, new String[CHUNK_SIZE]);
+                names = accounts.get(index);
+            }
+
+            // published to readers through the code map and the commit of the position using the code
+            names[next & CHUNK_MASK] = id;
+
+            return next;
+        });
+    }
+
+    private String decode(int code) {
+
+        if (code == NO_ACCOUNT) {
+            return null;
+        }
+
+        return accounts.get(code >>> CHUNK_BITS)[code & CHUNK_MASK];
+    }
+}
@@ -0,0 +1,131 @@
+package com.assignment.journal;
+
+import com.assignment.model.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Periodically writes a new snapshot to shorten recovery and deletes the journal segments no snapshot needs anymore
+ *
+ * The snapshot is not taken from the live accounts, which keep changing while it is written,
+ * but rebuilt from the previous snapshot and the durable journal records after it
+ * This yields balances exactly as of a single journal sequence without blocking any transaction
+ * Accounts of the previous snapshot are streamed into the new one, only the accounts changed by those records are held
+ * Transactions of those records are written as a new history segment, the older segments are referred to as they are
+ */
+public class Checkpointer implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(Checkpointer.class);
+
+    private final FileJournal journal;
+    private final SnapshotStore snapshotStore;
+
+    public Checkpointer(FileJournal journal, SnapshotStore snapshotStore) {
+        this.journal = journal;
+        this.snapshotStore = snapshotStore;
+    }
+
+    @Override
+    public void run() {
+        try {
+            checkpoint();
+        } catch (Exception e) {
+            // must not escape, otherwise the scheduled executor stops running further checkpoints
+            log.error("Could not write snapshot", e);
+        }
+    }
+
+    /**
+     * Writes a snapshot covering all durable journal records, unless the latest snapshot already covers them
+     * Journal segments covered by every retained snapshot are deleted afterwards
+     *
+     * @return written snapshot or null if nothing has changed since the latest one
+     * @throws IOException if journal or snapshots cannot be read or written
+     */
+    public SnapshotStore.Snapshot checkpoint() throws IOException {
+
+        // ids of transactions up to the durable sequence are assigned before it is read, so the counter is an upper bound
+        long upTo = journal.getDurableSequence();
+        long lastTransactionId = Transaction.getLastTransactionId();
+
+        SnapshotStore.Snapshot latest = null;
+
+        for (Path path : snapshotStore.list()) {
+            try {
+                latest = snapshotStore.read(path);
+                snapshotStore.verify(latest);
+                break;
+            } catch (IOException e) {
+                log.warn("Skipping unreadable snapshot {}", path, e);
+                latest = null;
+            }
+        }
+
+        long from = latest != null ? latest.getSequence() : 0;
+
+        if (upTo <= from) {
+            return null;
+        }
+
+        long started = System.nanoTime();
+
+        Map<String, Integer> created = new LinkedHashMap<>();
+        Map<String, Long> changes = new HashMap<>();
+        List<Transaction> transactions = new ArrayList<>();
+
+        journal.replay(from, record -> {
+
+            if (record.getSequence() > upTo) {
+                return;
+            }
+
+            if (record.isAccount()) {
+                created.putIfAbsent(record.getAccount().getId(), record.getAccount().getBalance());
+            } else {
+                JournalRecovery.changeBalances(record.getTransaction(), (id, change) -> changes.merge(id, (long) change, Long::sum));
+                transactions.add(record.getTransaction());
+            }
+        });
+
+        List<SnapshotStore.History> history = new ArrayList<>();
+
+        if (latest != null) {
+            history.addAll(latest.getHistory());
+        }
+
+        SnapshotStore.History appended = snapshotStore.writeHistory(from + 1, upTo, transactions);
+
+        if (appended != null) {
+            history.add(appended);
+        }
+
+        SnapshotStore.Snapshot base = latest;
+
+        SnapshotStore.Snapshot snapshot = snapshotStore.write(upTo, lastTransactionId, consumer -> {
+
+            if (base != null) {
+                snapshotStore.forEachAccount(base, (id, balance) -> {
+                    created.remove(id);
+                    consumer.accept(id, balance + changes.getOrDefault(id, 0L).intValue());
+                });
+            }
+
+            created.forEach((id, balance) -> consumer.accept(id, balance + changes.getOrDefault(id, 0L).intValue()));
+        }, history);
+
+        journal.prune(snapshotStore.getRetainedSequence());
+
+        log.info("Wrote snapshot of {} accounts up to sequence {} in {} ms",
+                snapshot.getAccountCount(), upTo, (System.nanoTime() - started) / 1_000_000);
+
+        return snapshot;
+    }
+}
@@ -0,0 +1,816 @@
+package com.assignment.journal;
+
+import com.assignment.model.Account;
+import com.assignment.model.Transaction;
+import io.dropwizard.lifecycle.Managed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * {@link Journal} stored as a sequence of append-only segment files in a directory
+ *
+ * Each segment is named after the sequence number of its first record and starts with a small header
+ * Records are framed as: length(4) sequence(8) crc(4) payload(length)
+ * A new segment is started once the current one grows beyond the configured segment size
+ *
+ * Appends only take the next sequence number and buffer their record in memory, so they are cheap enough
+ *    to be made while ledger locks are held; nothing is written to the file by the appending thread
+ * A single flusher thread takes all buffered records at once, writes them with as few writes as it can
+ *    and forces the segment according to {@link JournalMode}, on behalf of all callers waiting in {@link #sync(long)}
+ * Callers of {@link #syncAsync(long)} do not wait at all, their stages are completed by the flusher thread
+ * Appends wait for the flusher only if it falls behind by more than {@value #MAX_BUFFERED_BYTES} bytes
+ */
+public class FileJournal implements Journal, Managed {
+
+    private static final Logger log = LoggerFactory.getLogger(FileJournal.class);
+
+    private static final int MAGIC = 0x4A524E4C; // "JRNL"
+    private static final int VERSION = 1;
+    private static final int SEGMENT_HEADER = 8;
+    private static final int FRAME_HEADER = 16;
+    private static final int MAX_PAYLOAD = 1 << 16;
+    private static final int MAX_BUFFERED_BYTES = 1 << 22;
+    private static final int BATCH_SIZE = 1 << 18;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private static final class PendingSync extends CompletableFuture<Void> {
+
+        private final long sequence;
+
+        PendingSync(long sequence) {
+            this.sequence = sequence;
+        }
+    }
+
+    private final Path directory;
+    private final JournalMode mode;
+    private final long segmentSize;
+    private final long flushIntervalMillis;
+
+    // guarded by appendLock, records are buffered in the order of their sequence numbers
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Condition bufferDrained = appendLock.newCondition();
+    private List<byte[]> buffered = new ArrayList<>();
+    private long bufferedBytes;
+    private long appendedSequence;
+    private volatile boolean running;
+
+    // only used by the flusher thread, and by the constructor and stop while it is not running
+    private final ByteBuffer batch = ByteBuffer.allocateDirect(BATCH_SIZE);
+    private final byte[] sequenceBytes = new byte[8];
+    private final CRC32 crc = new CRC32();
+    private FileChannel channel;
+    private long segmentBytes;
+
+    // guarded by syncLock, waiters and the flusher wait on different conditions so that waiters never wake each other
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final Condition flushNeeded = syncLock.newCondition();
+    private final Condition durable = syncLock.newCondition();
+    private long writtenSequence;
+    private long durableSequence;
+    private boolean flushRequested;
+    private boolean forceRequested;
+    private volatile IOException failure;
+    private final PriorityQueue<PendingSync> pendingSyncs = new PriorityQueue<>(Comparator.comparingLong(p -> p.sequence));
+
+    private final Thread flusher;
+
+    /**
+     * Opens the journal in given directory, truncating a partially written record at the end of the last segment if any
+     * Appends always go to a fresh segment starting right after the last record found
+     *
+     * @param directory to keep segment files in, created if missing
+     * @param mode durability mode
+     * @param segmentSize size in bytes after which a new segment is started
+     * @param flushIntervalMillis period of background forces in GROUP and ASYNC modes
+     * @throws IOException if the directory cannot be prepared
+     */
+    public FileJournal(Path directory, JournalMode mode, long segmentSize, long flushIntervalMillis) throws IOException {
+
+        this.directory = directory;
+        this.mode = mode;
+        this.segmentSize = segmentSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+
+        Files.createDirectories(directory);
+
+        appendedSequence = recoverLastSequence();
+        writtenSequence = appendedSequence;
+        durableSequence = appendedSequence;
+
+        openSegment(appendedSequence + 1);
+
+        running = true;
+
+        flusher = new Thread(this::runFlusher, "journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @Override
+    public long append(Account account) {
+        return append(RecordCodec.encode(account));
+    }
+
+    @Override
+    public long append(Transaction transaction) {
+        return append(RecordCodec.encode(transaction));
+    }
+
+    /**
+     * Waits until the record with given sequence number is forced to disk, returns right away in ASYNC mode
+     * The record is buffered already and gets written regardless of the caller,
+     *    so an interrupt does not end the wait but is kept for the caller to see once it returns
+     *
+     * @param sequence returned by one of the append methods
+     * @throws UncheckedIOException if the journal failed before the record became durable
+     */
+    @Override
+    public void sync(long sequence) {
+
+        if (mode == JournalMode.ASYNC) {
+            return;
+        }
+
+        boolean interrupted = false;
+
+        syncLock.lock();
+
+        try {
+            while (durableSequence < sequence) {
+
+                if (failure != null) {
+                    throw new UncheckedIOException("Journal is not writable", failure);
+                }
+
+                requestForce();
+
+                try {
+                    durable.await();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            syncLock.unlock();
+
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public CompletionStage<Void> syncAsync(long sequence) {
+
+        if (mode == JournalMode.ASYNC) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        PendingSync pending = new PendingSync(sequence);
+
+        syncLock.lock();
+
+        try {
+            if (failure != null) {
+                pending.completeExceptionally(new UncheckedIOException("Journal is not writable", failure));
+                return pending;
+            }
+
+            if (durableSequence >= sequence) {
+                pending.complete(null);
+                return pending;
+            }
+
+            pendingSyncs.add(pending);
+
+            requestForce();
+        } finally {
+            syncLock.unlock();
+        }
+
+        return pending;
+    }
+
+    @Override
+    public void replay(long afterSequence, Consumer<JournalRecord> consumer) throws IOException {
+
+        awaitWritten(getLastSequence());
+
+        List<Path> segments = segments();
+
+        if (!segments.isEmpty() && firstSequence(segments.get(0)) > afterSequence + 1) {
+            throw new IOException("Journal records after sequence " + afterSequence + " have been pruned");
+        }
+
+        for (int i = 0; i < segments.size(); i++) {
+
+            // whole segment can be skipped if the next one still starts before the first wanted record
+            if (i + 1 < segments.size() && firstSequence(segments.get(i + 1)) <= afterSequence + 1) {
+                continue;
+            }
+
+            try (SegmentReader reader = new SegmentReader(segments.get(i))) {
+
+                JournalRecord record;
+
+                while ((record = reader.next()) != null) {
+                    if (record.getSequence() > afterSequence) {
+                        consumer.accept(record);
+                    }
+                }
+
+                if (reader.isTorn() && i + 1 < segments.size()) {
+                    throw new IOException("Journal segment " + segments.get(i) + " is corrupted at offset " + reader.validLength());
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes segments all records of which are covered by given sequence number, the current segment is never deleted
+     * Records up to the sequence cannot be replayed afterwards
+     * Waits for records up to the sequence to be written first, segments are only started by writes
+     *
+     * @param sequence records with smaller or equal sequence numbers are no longer needed
+     * @return number of deleted segments
+     * @throws IOException if a segment cannot be deleted
+     */
+    public int prune(long sequence) throws IOException {
+
+        awaitWritten(Math.min(sequence, getLastSequence()));
+
+        List<Path> segments = segments();
+        int deleted = 0;
+
+        // a segment ends right before the next one starts, so the last listed segment is always kept
+        for (int i = 0; i + 1 < segments.size() && firstSequence(segments.get(i + 1)) <= sequence + 1; i++) {
+            Files.delete(segments.get(i));
+            deleted++;
+        }
+
+        if (deleted > 0) {
+            log.info("Deleted {} journal segments covered by sequence {}", deleted, sequence);
+        }
+
+        return deleted;
+    }
+
+    /**
+     * Returns sequence number of the last appended record
+     *
+     * @return last sequence number, 0 if the journal is empty
+     */
+    public long getLastSequence() {
+        appendLock.lock();
+        try {
+            return appendedSequence;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Returns sequence number of the last record known to be forced to disk
+     *
+     * @return last durable sequence number, 0 if nothing is durable yet
+     */
+    public long getDurableSequence() {
+        syncLock.lock();
+        try {
+            return durableSequence;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    @Override
+    public void start() {
+        // opened in the constructor so that recovery can run before the server starts
+    }
+
+    /**
+     * Stops accepting appends, lets the flusher write and force all buffered records and closes the current segment
+     */
+    @Override
+    public void stop() throws Exception {
+
+        appendLock.lock();
+        try {
+            running = false;
+        } finally {
+            appendLock.unlock();
+        }
+
+        syncLock.lock();
+        try {
+            flushRequested = true;
+            flushNeeded.signal();
+        } finally {
+            syncLock.unlock();
+        }
+
+        flusher.join();
+
+        channel.close();
+    }
+
+    private long append(byte[] payload) {
+
+        if (payload.length > MAX_PAYLOAD) {
+            throw new IllegalArgumentException("Journal record is too large: " + payload.length + " bytes");
+        }
+
+        long sequence;
+        boolean first;
+
+        appendLock.lock();
+
+        try {
+            // back pressure, the flusher makes room unless it has failed
+            while (running && failure == null && bufferedBytes >= MAX_BUFFERED_BYTES) {
+                bufferDrained.awaitUninterruptibly();
+            }
+
+            if (!running) {
+                throw new IllegalStateException("Journal is closed");
+            }
+
+            if (failure != null) {
+                throw new UncheckedIOException("Journal is not writable", failure);
+            }
+
+            sequence = ++appendedSequence;
+            first = buffered.isEmpty();
+
+            buffered.add(payload);
+            bufferedBytes += FRAME_HEADER + payload.length;
+        } finally {
+            appendLock.unlock();
+        }
+
+        // records added to a non-empty buffer are taken by the flusher together with the first one
+        if (first) {
+            syncLock.lock();
+            try {
+                requestFlush();
+            } finally {
+                syncLock.unlock();
+            }
+        }
+
+        return sequence;
+    }
+
+    // called holding syncLock
+    private void requestFlush() {
+        if (!flushRequested) {
+            flushRequested = true;
+            flushNeeded.signal();
+        }
+    }
+
+    // called holding syncLock
+    private void requestForce() {
+        forceRequested = true;
+        requestFlush();
+    }
+
+    /**
+     * Waits until the record with given sequence number is written, so that reading the segments finds it
+     */
+    private void awaitWritten(long sequence) {
+
+        boolean interrupted = false;
+
+        syncLock.lock();
+
+        try {
+            while (writtenSequence < sequence && failure == null && flusher.isAlive()) {
+
+                requestFlush();
+
+                try {
+                    durable.await(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            syncLock.unlock();
+
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void runFlusher() {
+
+        List<byte[]> spare = new ArrayList<>();
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        long lastForce = System.nanoTime();
+
+        while (true) {
+
+            boolean force;
+
+            syncLock.lock();
+
+            try {
+                if (!flushRequested && running) {
+                    flushNeeded.await(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                }
+
+                // SYNC forces every write, GROUP only those somebody waits for, both as well as ASYNC force periodically
+                force = mode == JournalMode.SYNC || forceRequested;
+                flushRequested = false;
+                forceRequested = false;
+            } catch (InterruptedException e) {
+                fail(new InterruptedIOException("Journal flusher has been interrupted"));
+                return;
+            } finally {
+                syncLock.unlock();
+            }
+
+            List<byte[]> records;
+            long lastSequence;
+            boolean closing;
+
+            appendLock.lock();
+
+            try {
+                records = buffered;
+                buffered = spare;
+                bufferedBytes = 0;
+                lastSequence = appendedSequence;
+                closing = !running; // no appends follow once the flusher has seen it under the lock
+
+                bufferDrained.signalAll();
+            } finally {
+                appendLock.unlock();
+            }
+
+            try {
+                write(records, lastSequence - records.size() + 1);
+
+                if (force || closing || System.nanoTime() - lastForce >= intervalNanos) {
+                    force(lastSequence);
+                    lastForce = System.nanoTime();
+                }
+            } catch (IOException e) {
+                fail(e);
+                return;
+            }
+
+            records.clear();
+            spare = records;
+
+            if (closing) {
+                return;
+            }
+        }
+    }
+
+    private void write(List<byte[]> records, long firstSequence) throws IOException {
+
+        if (records.isEmpty()) {
+            return;
+        }
+
+        long sequence = firstSequence;
+
+        for (byte[] payload : records) {
+
+            int frameLength = FRAME_HEADER + payload.length;
+
+            if (segmentBytes > SEGMENT_HEADER && segmentBytes + frameLength > segmentSize) {
+                writeBatch();
+                rotate(sequence);
+            }
+
+            if (batch.remaining() < frameLength) {
+                writeBatch();
+            }
+
+            ByteBuffer.wrap(sequenceBytes).putLong(sequence);
+            crc.reset();
+            crc.update(sequenceBytes, 0, sequenceBytes.length);
+            crc.update(payload, 0, payload.length);
+
+            batch.putInt(payload.length);
+            batch.putLong(sequence);
+            batch.putInt((int) crc.getValue());
+            batch.put(payload);
+
+            segmentBytes += frameLength;
+            sequence++;
+        }
+
+        writeBatch();
+        markWritten(sequence - 1);
+    }
+
+    private void writeBatch() throws IOException {
+
+        batch.flip();
+
+        while (batch.hasRemaining()) {
+            channel.write(batch);
+        }
+
+        batch.clear();
+    }
+
+    private void force(long sequence) throws IOException {
+
+        syncLock.lock();
+        try {
+            if (sequence <= durableSequence) {
+                return;
+            }
+        } finally {
+            syncLock.unlock();
+        }
+
+        channel.force(false);
+        markDurable(sequence);
+    }
+
+    private void rotate(long nextSequence) throws IOException {
+
+        channel.force(false);
+        channel.close();
+        markDurable(nextSequence - 1);
+
+        openSegment(nextSequence);
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+
+        Path path = directory.resolve(segmentName(firstSequence));
+
+        channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+
+        ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER);
+        header.putInt(MAGIC).putInt(VERSION).flip();
+
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+
+        channel.force(true);
+        segmentBytes = SEGMENT_HEADER;
+    }
+
+    private void markWritten(long sequence) {
+
+        syncLock.lock();
+        try {
+            if (sequence > writtenSequence) {
+                writtenSequence = sequence;
+                durable.signalAll();
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void markDurable(long sequence) {
+
+        List<PendingSync> completed = new ArrayList<>();
+
+        syncLock.lock();
+        try {
+            if (sequence > durableSequence) {
+                writtenSequence = Math.max(writtenSequence, sequence);
+                durableSequence = sequence;
+                durable.signalAll();
+
+                while (!pendingSyncs.isEmpty() && pendingSyncs.peek().sequence <= sequence) {
+                    completed.add(pendingSyncs.poll());
+                }
+            }
+        } finally {
+            syncLock.unlock();
+        }
+
+        // completed outside of the lock, dependent stages may run right here
+        for (PendingSync pending : completed) {
+            pending.complete(null);
+        }
+    }
+
+    private void fail(IOException e) {
+
+        log.error("Journal failed, no further appends will be accepted", e);
+
+        List<PendingSync> failed = new ArrayList<>();
+
+        syncLock.lock();
+        try {
+            if (failure == null) {
+                failure = e;
+            }
+            durable.signalAll();
+
+            failed.addAll(pendingSyncs);
+            pendingSyncs.clear();
+        } finally {
+            syncLock.unlock();
+        }
+
+        // appends waiting for room in the buffer give up
+        appendLock.lock();
+        try {
+            bufferDrained.signalAll();
+        } finally {
+            appendLock.unlock();
+        }
+
+        for (PendingSync pending : failed) {
+            pending.completeExceptionally(new UncheckedIOException("Journal is not writable", e));
+        }
+    }
+
+    /**
+     * Finds the last valid record, cutting off a torn write at the end of the last segment
+     * Only the last segment needs to be scanned since earlier ones were forced and closed before rotation
+     */
+    private long recoverLastSequence() throws IOException {
+
+        List<Path> segments = segments();
+
+        if (segments.isEmpty()) {
+            return 0;
+        }
+
+        Path last = segments.get(segments.size() - 1);
+        long lastSequence = firstSequence(last) - 1;
+        long validLength;
+        boolean torn;
+
+        try (SegmentReader reader = new SegmentReader(last)) {
+
+            JournalRecord record;
+
+            while ((record = reader.next()) != null) {
+                lastSequence = record.getSequence();
+            }
+
+            validLength = reader.validLength();
+            torn = reader.isTorn();
+        }
+
+        if (torn) {
+            log.warn("Truncating partially written journal segment {} at offset {}", last, validLength);
+            try (FileChannel file = FileChannel.open(last, StandardOpenOption.WRITE)) {
+                file.truncate(validLength);
+                file.force(true);
+            }
+        }
+
+        if (validLength <= SEGMENT_HEADER) {
+            Files.delete(last); // a fresh segment starting at the same sequence is opened anyway
+        }
+
+        return lastSequence;
+    }
+
+    private List<Path> segments() throws IOException {
+
+        List<Path> segments = new ArrayList<>();
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                segments.add(path);
+            }
+        }
+
+        segments.sort((s1, s2) -> Long.compare(firstSequence(s1), firstSequence(s2)));
+
+        return segments;
+    }
+
+    private static String segmentName(long firstSequence) {
+        return String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX);
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Sequential reader of a single segment
+     * Stops at the end of the file or at the first record which is incomplete or fails its checksum
+     */
+    private static class SegmentReader implements Closeable {
+
+        private final DataInputStream in;
+        private final CRC32 crc = new CRC32();
+        private final byte[] sequenceBytes = new byte[8];
+        private long validLength;
+        private boolean torn;
+
+        SegmentReader(Path segment) throws IOException {
+
+            FileChannel file = FileChannel.open(segment, StandardOpenOption.READ);
+            in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(file), 1 << 16));
+
+            try {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    throw new IOException("Not a journal segment: " + segment);
+                }
+                validLength = SEGMENT_HEADER;
+            } catch (EOFException e) {
+                torn = true;
+            }
+        }
+
+        JournalRecord next() throws IOException {
+
+            if (torn) {
+                return null;
+            }
+
+            try {
+                int length;
+
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    return null; // clean end of segment
+                }
+
+                if (length < 0 || length > MAX_PAYLOAD) {
+                    torn = true;
+                    return null;
+                }
+
+                long sequence = in.readLong();
+                int checksum = in.readInt();
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+
+                ByteBuffer.wrap(sequenceBytes).putLong(sequence);
+                crc.reset();
+                crc.update(sequenceBytes, 0, sequenceBytes.length);
+                crc.update(payload, 0, payload.length);
+
+                if ((int) crc.getValue() != checksum) {
+                    torn = true;
+                    return null;
+                }
+
+                validLength += FRAME_HEADER + length;
+
+                return new JournalRecord(sequence, RecordCodec.decode(payload));
+
+            } catch (EOFException e) {
+                torn = true;
+                return null;
+            }
+        }
+
+        boolean isTorn() {
+            return torn;
+        }
+
+        long validLength() {
+            return validLength;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
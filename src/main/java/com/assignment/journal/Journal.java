@@ -0,0 +1,91 @@
+package com.assignment.journal;
+
+import com.assignment.model.Account;
+import com.assignment.model.Transaction;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
+
+/**
+ * Append-only journal of created accounts and performed transactions
+ * Every record gets a sequence number which is increasing in the order records are appended
+ * Replaying the journal from the beginning rebuilds the in-memory stores after a restart
+ */
+public interface Journal {
+
+    /**
+     * Journal to be used when durability is turned off
+     * Appends nothing and replays nothing
+     */
+    Journal DISABLED = new Journal() {
+
+        @Override
+        public long append(Account account) {
+            return 0;
+        }
+
+        @Override
+        public long append(Transaction transaction) {
+            return 0;
+        }
+
+        @Override
+        public void sync(long sequence) {
+        }
+
+        @Override
+        public void replay(long afterSequence, Consumer<JournalRecord> consumer) {
+        }
+    };
+
+    /**
+     * Appends a newly created account to the journal
+     * Record is not guaranteed to be durable until {@link #sync(long)} returns
+     *
+     * @param account to be appended
+     * @return sequence number of the record
+     */
+    long append(Account account);
+
+    /**
+     * Appends a performed transaction to the journal
+     * Record is not guaranteed to be durable until {@link #sync(long)} returns
+     *
+     * @param transaction to be appended
+     * @return sequence number of the record
+     */
+    long append(Transaction transaction);
+
+    /**
+     * Waits until the record with given sequence number is durable with respect to the journal mode
+     *
+     * @param sequence returned by one of the append methods
+     */
+    void sync(long sequence);
+
+    /**
+     * Completes once the record with given sequence number is durable with respect to the journal mode,
+     *    without blocking the calling thread if the journal can tell when that happens
+     * Stages may be completed by a journal thread, dependent work should run on an executor of its own
+     *
+     * @param sequence returned by one of the append methods
+     * @return stage completed once the record is durable, exceptionally if the journal failed
+     */
+    default CompletionStage<Void> syncAsync(long sequence) {
+
+        sync(sequence);
+
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Reads back all records appended after given sequence number in the order they were appended
+     *
+     * @param afterSequence records with smaller or equal sequence numbers are skipped
+     * @param consumer receives every replayed record
+     * @throws IOException if the journal cannot be read or is corrupted
+     */
+    void replay(long afterSequence, Consumer<JournalRecord> consumer) throws IOException;
+}
@@ -0,0 +1,159 @@
+package com.assignment.journal;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.setup.Environment;
+import io.dropwizard.util.Duration;
+import io.dropwizard.util.Size;
+import org.hibernate.validator.constraints.NotEmpty;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration of the {@link Journal}
+ * Journal is disabled unless explicitly enabled, in that case nothing survives a restart
+ */
+public class JournalFactory {
+
+    private boolean enabled = false;
+
+    @NotEmpty
+    private String directory = "./data/journal";
+
+    @NotNull
+    private JournalMode mode = JournalMode.GROUP;
+
+    @NotNull
+    private Size segmentSize = Size.megabytes(64);
+
+    @NotNull
+    private Duration flushInterval = Duration.milliseconds(10);
+
+    @NotNull
+    private Duration snapshotInterval = Duration.minutes(5);
+
+    @Min(1)
+    private int retainedSnapshots = 2;
+
+    @JsonProperty
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @JsonProperty
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @JsonProperty
+    public String getDirectory() {
+        return directory;
+    }
+
+    @JsonProperty
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    @JsonProperty
+    public JournalMode getMode() {
+        return mode;
+    }
+
+    @JsonProperty
+    public void setMode(JournalMode mode) {
+        this.mode = mode;
+    }
+
+    @JsonProperty
+    public Size getSegmentSize() {
+        return segmentSize;
+    }
+
+    @JsonProperty
+    public void setSegmentSize(Size segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    @JsonProperty
+    public Duration getFlushInterval() {
+        return flushInterval;
+    }
+
+    @JsonProperty
+    public void setFlushInterval(Duration flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    @JsonProperty
+    public Duration getSnapshotInterval() {
+        return snapshotInterval;
+    }
+
+    @JsonProperty
+    public void setSnapshotInterval(Duration snapshotInterval) {
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    @JsonProperty
+    public int getRetainedSnapshots() {
+        return retainedSnapshots;
+    }
+
+    @JsonProperty
+    public void setRetainedSnapshots(int retainedSnapshots) {
+        this.retainedSnapshots = retainedSnapshots;
+    }
+
+    /**
+     * Opens the configured journal and ties it to the lifecycle of the application
+     *
+     * @param environment of the application
+     * @return opened journal or {@link Journal#DISABLED}
+     * @throws IOException if the journal directory cannot be opened
+     */
+    public Journal build(Environment environment) throws IOException {
+
+        if (!enabled) {
+            return Journal.DISABLED;
+        }
+
+        FileJournal journal = new FileJournal(Paths.get(directory),
+                mode,
+                segmentSize.toBytes(),
+                flushInterval.toMilliseconds());
+
+        environment.lifecycle().manage(journal);
+
+        return journal;
+    }
+
+    /**
+     * Creates the snapshot store next to the journal segments and schedules periodic snapshots
+     *
+     * @param environment of the application
+     * @param journal built by {@link #build(Environment)}
+     * @return snapshot store or null if the journal is disabled
+     */
+    public SnapshotStore buildSnapshotStore(Environment environment, Journal journal) {
+
+        if (!(journal instanceof FileJournal)) {
+            return null;
+        }
+
+        SnapshotStore snapshotStore = new SnapshotStore(Paths.get(directory), retainedSnapshots);
+        Checkpointer checkpointer = new Checkpointer((FileJournal) journal, snapshotStore);
+
+        long interval = snapshotInterval.toMilliseconds();
+
+        environment.lifecycle()
+                .scheduledExecutorService("journal-checkpointer")
+                .build()
+                .scheduleWithFixedDelay(checkpointer, interval, interval, TimeUnit.MILLISECONDS);
+
+        return snapshotStore;
+    }
+}
@@ -0,0 +1,17 @@
+package com.assignment.journal;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/***
+ * Durability modes of {@link FileJournal}
+ *
+ * SYNC   : every write of buffered appends is forced to disk right away, callers waiting on sync wait for it
+ * GROUP  : appends are written as soon as the flusher takes them, concurrent callers waiting on sync share a single force
+ * ASYNC  : appends are written as soon as the flusher takes them and forced periodically, callers never wait
+ */
+public enum JournalMode {
+
+    @JsonProperty("sync") SYNC,
+    @JsonProperty("group") GROUP,
+    @JsonProperty("async") ASYNC;
+}
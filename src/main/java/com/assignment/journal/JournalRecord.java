@@ -0,0 +1,41 @@
+package com.assignment.journal;
+
+import com.assignment.model.Account;
+import com.assignment.model.Entity;
+import com.assignment.model.Transaction;
+
+/**
+ * A single entry of the {@link Journal}
+ * Holds either an {@link Account} that has been created or a {@link Transaction} that has been performed
+ */
+public class JournalRecord {
+
+    private final long sequence;
+    private final Entity entity;
+
+    JournalRecord(long sequence, Entity entity) {
+        this.sequence = sequence;
+        this.entity = entity;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public boolean isAccount() {
+        return entity instanceof Account;
+    }
+
+    public Account getAccount() {
+        return (Account) entity;
+    }
+
+    public Transaction getTransaction() {
+        return (Transaction) entity;
+    }
+
+    @Override
+    public String toString() {
+        return "JournalRecord {sequence=" + sequence + " " + entity + "}";
+    }
+}
@@ -0,0 +1,147 @@
+package com.assignment.journal;
+
+import com.assignment.dao.AccountDao;
+import com.assignment.dao.TransactionDao;
+import com.assignment.model.Account;
+import com.assignment.model.Leg;
+import com.assignment.model.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Rebuilds accounts, their balances and transactions after a restart
+ * Loads the latest snapshot if there is one and replays the {@link Journal} records written after it
+ * Must run before the application starts serving requests
+ */
+public class JournalRecovery {
+
+    private static final Logger log = LoggerFactory.getLogger(JournalRecovery.class);
+
+    private final Journal journal;
+    private final SnapshotStore snapshotStore;
+    private final AccountDao accountDao;
+    private final TransactionDao transactionDao;
+
+    private long replayed;
+
+    public JournalRecovery(Journal journal, AccountDao accountDao, TransactionDao transactionDao) {
+        this(journal, null, accountDao, transactionDao);
+    }
+
+    /**
+     * @param journal to replay
+     * @param snapshotStore to load the latest snapshot from, can be null if snapshots are not taken
+     * @param accountDao to restore accounts into
+     * @param transactionDao to restore transactions into
+     */
+    public JournalRecovery(Journal journal, SnapshotStore snapshotStore, AccountDao accountDao, TransactionDao transactionDao) {
+        this.journal = journal;
+        this.snapshotStore = snapshotStore;
+        this.accountDao = accountDao;
+        this.transactionDao = transactionDao;
+    }
+
+    /**
+     * Loads the latest snapshot and replays the journal records after it into the daos
+     * Transactions of the snapshot history are restored before the replayed ones, so that they keep the journal order
+     * The history is only read once all balances are restored, its segments are decoded in parallel
+     *
+     * @return number of replayed journal records
+     * @throws IOException if the journal cannot be read
+     */
+    public long run() throws IOException {
+
+        long afterSequence = 0;
+        replayed = 0;
+
+        if (snapshotStore != null) {
+
+            SnapshotStore.Snapshot snapshot = snapshotStore.loadLatest(
+                    (id, balance) -> accountDao.restore(new Account(id, balance)), transactionDao::restore);
+
+            if (snapshot != null) {
+                afterSequence = snapshot.getSequence();
+                Transaction.restoreLastTransactionId(snapshot.getLastTransactionId());
+                log.info("Loaded {} accounts and {} transactions from snapshot {}",
+                        snapshot.getAccountCount(), snapshot.getTransactionCount(), snapshot.getPath());
+            }
+        }
+
+        journal.replay(afterSequence, this::apply);
+
+        log.info("Recovered {} journal records after sequence {}", replayed, afterSequence);
+
+        return replayed;
+    }
+
+    private void apply(JournalRecord record) {
+
+        replayed++;
+
+        if (record.isAccount()) {
+            accountDao.restore(record.getAccount());
+            return;
+        }
+
+        Transaction transaction = record.getTransaction();
+
+        applyBalances(transaction, id -> {
+            Account account = accountDao.get(id);
+            if (account == null) {
+                throw new IllegalStateException("Journal refers to unknown account " + id + " in " + record);
+            }
+            return account;
+        });
+
+        transactionDao.restore(transaction);
+    }
+
+    /**
+     * Changes balances of the accounts taking part in given transaction as it was done originally
+     * Validations are not repeated since they already passed when the transaction was journaled
+     *
+     * @param transaction to be applied
+     * @param accounts lookup of participating accounts
+     */
+    static void applyBalances(Transaction transaction, Function<String, Account> accounts) {
+        changeBalances(transaction, (id, change) -> {
+            if (change < 0) {
+                accounts.apply(id).decreaseBalance(-change);
+            } else {
+                accounts.apply(id).increaseBalance(change);
+            }
+        });
+    }
+
+    /**
+     * Hands over the balance changes of given transaction, negative for the debited account
+     *
+     * @param transaction whose changes are handed over
+     * @param changes called with id of every participating account and the change of its balance
+     */
+    static void changeBalances(Transaction transaction, ObjIntConsumer<String> changes) {
+
+        switch (transaction.getTransactionType()) {
+            case DEPOSIT:
+                changes.accept(transaction.getToAccountId(), transaction.getAmount());
+                break;
+            case WITHDRAW:
+                changes.accept(transaction.getFromAccountId(), -transaction.getAmount());
+                break;
+            case TRANSFER:
+                changes.accept(transaction.getFromAccountId(), -transaction.getAmount());
+                changes.accept(transaction.getToAccountId(), transaction.getAmount());
+                break;
+            case SPLIT:
+                changes.accept(transaction.getFromAccountId(), -transaction.getAmount());
+                for (Leg leg : transaction.getLegs()) {
+                    changes.accept(leg.getToAccountId(), leg.getAmount());
+                }
+                break;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.assignment.journal;
+
+import com.assignment.model.Account;
+import com.assignment.model.Entity;
+import com.assignment.model.Leg;
+import com.assignment.model.Transaction;
+import com.assignment.model.TransactionType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary encoding of journal record payloads
+ *
+ * Account     : kind(1) id(utf) balance(4)
+ * Transaction : kind(1) id(8) type(1) hasFrom(1) [from(utf)] hasTo(1) [to(utf)] amount(4) [legCount(2) (to(utf) amount(4))*]
+ *
+ * Only split transactions have legs
+ */
+final class RecordCodec {
+
+    private static final byte ACCOUNT = 0;
+    private static final byte TRANSACTION = 1;
+
+    private static final TransactionType[] TRANSACTION_TYPES = TransactionType.values();
+
+    private RecordCodec() { }
+
+    static byte[] encode(Account account) {
+
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+            DataOutputStream out = new DataOutputStream(bytes);
+
+            out.writeByte(ACCOUNT);
+            out.writeUTF(account.getId());
+            out.writeInt(account.getBalance());
+
+            return bytes.toByteArray();
+
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static byte[] encode(Transaction transaction) {
+
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(48);
+            DataOutputStream out = new DataOutputStream(bytes);
+
+            out.writeByte(TRANSACTION);
+            out.writeLong(transaction.getNumber());
+            out.writeByte(transaction.getTransactionType().ordinal());
+            writeNullable(out, transaction.getFromAccountId());
+            writeNullable(out, transaction.getToAccountId());
+            out.writeInt(transaction.getAmount());
+
+            if (transaction.getTransactionType() == TransactionType.SPLIT) {
+
+                out.writeShort(transaction.getLegs().size());
+
+                for (Leg leg : transaction.getLegs()) {
+                    out.writeUTF(leg.getToAccountId());
+                    out.writeInt(leg.getAmount());
+                }
+            }
+
+            return bytes.toByteArray();
+
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static Entity decode(byte[] payload) throws IOException {
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+
+        byte kind = in.readByte();
+
+        switch (kind) {
+            case ACCOUNT:
+                String accountId = in.readUTF();
+                int balance = in.readInt();
+                return new Account(accountId, balance);
+            case TRANSACTION:
+                return readTransaction(in, in.readLong());
+            default:
+                throw new IOException("Unknown journal record kind " + kind);
+        }
+    }
+
+    private static Transaction readTransaction(DataInputStream in, long number) throws IOException {
+
+        if (number <= 0) {
+            throw new IOException("Invalid transaction id " + number);
+        }
+
+        TransactionType type = TRANSACTION_TYPES[in.readByte()];
+        String from = readNullable(in);
+        String to = readNullable(in);
+        int amount = in.readInt();
+        List<Leg> legs = null;
+
+        if (type == TransactionType.SPLIT) {
+
+            int count = in.readUnsignedShort();
+            legs = new ArrayList<>(count);
+
+            for (int i = 0; i < count; i++) {
+                String legTo = in.readUTF();
+                legs.add(new Leg(legTo, in.readInt()));
+            }
+        }
+
+        return Transaction.restore(number, type, from, to, amount, legs);
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,918 @@
+package com.assignment.journal;
+
+import com.assignment.model.Account;
+import com.assignment.model.Entity;
+import com.assignment.model.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * Point-in-time snapshots of all account balances, kept next to the journal segments together with the transaction history
+ *
+ * A snapshot covers every journal record up to its sequence number and is named after it
+ * Layout: header, chunks, chunk table, history table
+ *   header  : magic(4) version(4) sequence(8) lastTransactionId(8) accountCount(4) chunkCount(4) historyCount(4) tableOffset(8)
+ *   chunk   : idLength(2) id(idLength, utf-8) balance(4) for every account in the chunk
+ *   table   : offset(8) length(4) count(4) crc(4) for every chunk
+ *   history : firstSequence(8) lastSequence(8) transactionCount(8) for every history segment, in journal order
+ * Chunks are independent of each other, so that they can be mapped and decoded in parallel
+ *
+ * The transaction history is kept in immutable history segments, each one holding the transactions journaled
+ *    between two snapshots, named after the range of sequence numbers it covers
+ *   segment : magic(4) version(4) firstSequence(8) lastSequence(8) transactionCount(8) length(8) crc(4),
+ *             then length(4) payload(length) for every transaction, payloads are encoded as journal records
+ * A snapshot refers to the segments of the history up to its sequence instead of copying them,
+ *    so writing a snapshot only adds the transactions since the previous one
+ * Segments no retained snapshot refers to anymore are deleted along with old snapshots
+ */
+public class SnapshotStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotStore.class);
+
+    private static final int MAGIC = 0x534E4150; // "SNAP"
+    private static final int HISTORY_MAGIC = 0x48495354; // "HIST"
+    private static final int VERSION = 1;
+    private static final int HEADER = 44;
+    private static final int TABLE_ENTRY = 20;
+    private static final int HISTORY_ENTRY = 24;
+    private static final int HISTORY_HEADER = 44;
+    private static final int MAX_PAYLOAD = 1 << 16;
+    private static final int CHUNK_ACCOUNTS = 1 << 16;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".snap";
+    private static final String HISTORY_PREFIX = "history-";
+    private static final String HISTORY_SUFFIX = ".hist";
+
+    private final Path directory;
+    private final int retained;
+
+    /**
+     * @param directory to keep snapshot files in
+     * @param retained number of most recent snapshots to keep, older ones are deleted after a new snapshot is written
+     */
+    public SnapshotStore(Path directory, int retained) {
+        this.directory = directory;
+        this.retained = retained;
+    }
+
+    /**
+     * Accounts to be written to a snapshot, handed over one by one so that they never need to be held all at once
+     */
+    @FunctionalInterface
+    public interface Accounts {
+
+        /**
+         * @param consumer to be called with id and balance of every account from the calling thread
+         * @throws IOException if the accounts cannot be read
+         */
+        void forEach(BiConsumer<String, Integer> consumer) throws IOException;
+    }
+
+    /**
+     * Summary of a history segment, holding the transactions of the journal records in a range of sequence numbers
+     */
+    public static class History {
+
+        private final long firstSequence;
+        private final long lastSequence;
+        private final long transactionCount;
+
+        History(long firstSequence, long lastSequence, long transactionCount) {
+            this.firstSequence = firstSequence;
+            this.lastSequence = lastSequence;
+            this.transactionCount = transactionCount;
+        }
+
+        public long getFirstSequence() {
+            return firstSequence;
+        }
+
+        public long getLastSequence() {
+            return lastSequence;
+        }
+
+        public long getTransactionCount() {
+            return transactionCount;
+        }
+    }
+
+    /**
+     * Summary of a snapshot file
+     */
+    public static class Snapshot {
+
+        private final Path path;
+        private final long sequence;
+        private final long lastTransactionId;
+        private final int accountCount;
+        private final List<History> history;
+
+        // chunk table
+        private final long[] chunkOffsets;
+        private final int[] chunkLengths;
+        private final int[] chunkCounts;
+        private final int[] chunkCrcs;
+
+        Snapshot(Path path, long sequence, long lastTransactionId, int accountCount, List<History> history,
+                 long[] chunkOffsets, int[] chunkLengths, int[] chunkCounts, int[] chunkCrcs) {
+            this.path = path;
+            this.sequence = sequence;
+            this.lastTransactionId = lastTransactionId;
+            this.accountCount = accountCount;
+            this.history = Collections.unmodifiableList(history);
+            this.chunkOffsets = chunkOffsets;
+            this.chunkLengths = chunkLengths;
+            this.chunkCounts = chunkCounts;
+            this.chunkCrcs = chunkCrcs;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public long getLastTransactionId() {
+            return lastTransactionId;
+        }
+
+        public int getAccountCount() {
+            return accountCount;
+        }
+
+        /**
+         * @return segments of the transaction history up to the sequence, in journal order
+         */
+        public List<History> getHistory() {
+            return history;
+        }
+
+        public long getTransactionCount() {
+
+            long count = 0;
+
+            for (History segment : history) {
+                count += segment.transactionCount;
+            }
+
+            return count;
+        }
+    }
+
+    /**
+     * Returns paths of all snapshots, the most recent one first
+     *
+     * @return snapshot paths
+     * @throws IOException if the directory cannot be listed
+     */
+    public List<Path> list() throws IOException {
+
+        List<Path> snapshots = new ArrayList<>();
+
+        if (!Files.isDirectory(directory)) {
+            return snapshots;
+        }
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path path : stream) {
+                snapshots.add(path);
+            }
+        }
+
+        snapshots.sort((s1, s2) -> Long.compare(sequenceOf(s2), sequenceOf(s1)));
+
+        return snapshots;
+    }
+
+    /**
+     * Returns the sequence number covered by every retained snapshot
+     * Journal records up to it are not needed to recover from any of them
+     *
+     * @return sequence of the oldest snapshot, 0 if there isn't any
+     * @throws IOException if the directory cannot be listed
+     */
+    public long getRetainedSequence() throws IOException {
+
+        List<Path> snapshots = list();
+
+        return snapshots.isEmpty() ? 0 : sequenceOf(snapshots.get(snapshots.size() - 1));
+    }
+
+    /**
+     * Writes balances of given accounts as a new snapshot without any transaction history
+     *
+     * @param sequence last journal record reflected in the balances
+     * @param lastTransactionId an upper bound of transaction ids used up to the sequence
+     * @param accounts to be written
+     * @return written snapshot
+     * @throws IOException if the snapshot cannot be written
+     */
+    public Snapshot write(long sequence, long lastTransactionId, Collection<Account> accounts) throws IOException {
+        return write(sequence, lastTransactionId, accounts, null, Collections.emptyList());
+    }
+
+    /**
+     * Writes balances of given accounts as a new snapshot, with the history of the previous one followed by
+     *    a new history segment of given transactions
+     *
+     * @param sequence last journal record reflected in the balances
+     * @param lastTransactionId an upper bound of transaction ids used up to the sequence
+     * @param accounts to be written
+     * @param previous snapshot whose history is referred to, can be null
+     * @param transactions journaled after the previous snapshot up to the sequence, in journal order
+     * @return written snapshot
+     * @throws IOException if the snapshot cannot be written
+     */
+    public Snapshot write(long sequence, long lastTransactionId, Collection<Account> accounts,
+                          Snapshot previous, List<Transaction> transactions) throws IOException {
+
+        List<History> history = new ArrayList<>();
+
+        if (previous != null) {
+            history.addAll(previous.history);
+        }
+
+        History appended = writeHistory(previous != null ? previous.sequence + 1 : 1, sequence, transactions);
+
+        if (appended != null) {
+            history.add(appended);
+        }
+
+        return write(sequence, lastTransactionId, consumer -> {
+            for (Account account : accounts) {
+                consumer.accept(account.getId(), account.getBalance());
+            }
+        }, history);
+    }
+
+    /**
+     * Writes balances of given accounts as a new snapshot referring to given history segments
+     * The file becomes visible atomically once it is completely written and forced
+     *
+     * @param sequence last journal record reflected in the balances
+     * @param lastTransactionId an upper bound of transaction ids used up to the sequence
+     * @param accounts to be written, streamed into the file
+     * @param history segments of the transaction history up to the sequence, in journal order
+     * @return written snapshot
+     * @throws IOException if the snapshot cannot be written
+     */
+    public Snapshot write(long sequence, long lastTransactionId, Accounts accounts, List<History> history) throws IOException {
+
+        Files.createDirectories(directory);
+
+        Path target = directory.resolve(String.format("%s%020d%s", PREFIX, sequence, SUFFIX));
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+
+        Snapshot snapshot;
+
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+
+            channel.position(HEADER);
+
+            ChunkWriter chunks = new ChunkWriter(channel, HEADER);
+
+            try {
+                accounts.forEach((id, balance) -> {
+                    try {
+                        chunks.add(id, balance);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            chunks.finish();
+
+            long tableOffset = chunks.position;
+            ByteBuffer table = ByteBuffer.allocate(chunks.chunkCount * TABLE_ENTRY + history.size() * HISTORY_ENTRY);
+
+            for (int i = 0; i < chunks.chunkCount; i++) {
+                table.putLong(chunks.offsets[i]).putInt(chunks.lengths[i]).putInt(chunks.counts[i]).putInt(chunks.crcs[i]);
+            }
+
+            for (History segment : history) {
+                table.putLong(segment.firstSequence).putLong(segment.lastSequence).putLong(segment.transactionCount);
+            }
+
+            table.flip();
+            writeFully(channel, table);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            header.putInt(MAGIC).putInt(VERSION).putLong(sequence).putLong(lastTransactionId)
+                    .putInt(chunks.accountCount).putInt(chunks.chunkCount).putInt(history.size()).putLong(tableOffset);
+            header.flip();
+
+            channel.position(0);
+            writeFully(channel, header);
+            channel.force(true);
+
+            snapshot = new Snapshot(target, sequence, lastTransactionId, chunks.accountCount, new ArrayList<>(history),
+                    Arrays.copyOf(chunks.offsets, chunks.chunkCount), Arrays.copyOf(chunks.lengths, chunks.chunkCount),
+                    Arrays.copyOf(chunks.counts, chunks.chunkCount), Arrays.copyOf(chunks.crcs, chunks.chunkCount));
+        }
+
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        deleteUnretained();
+
+        return snapshot;
+    }
+
+    /**
+     * Writes given transactions as a new history segment, to be referred to by a snapshot written afterwards
+     * The file becomes visible atomically once it is completely written and forced
+     *
+     * @param firstSequence first journal record covered by the segment
+     * @param lastSequence last journal record covered by the segment
+     * @param transactions of the journal records in the range, in journal order
+     * @return written segment or null if there are no transactions
+     * @throws IOException if the segment cannot be written
+     */
+    public History writeHistory(long firstSequence, long lastSequence, List<Transaction> transactions) throws IOException {
+
+        if (transactions.isEmpty()) {
+            return null;
+        }
+
+        Files.createDirectories(directory);
+
+        Path target = directory.resolve(historyName(firstSequence, lastSequence));
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+        CRC32 crc = new CRC32();
+        long length = 0;
+
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+
+            channel.position(HISTORY_HEADER);
+
+            for (Transaction transaction : transactions) {
+
+                byte[] payload = RecordCodec.encode(transaction);
+
+                if (buffer.remaining() < 4 + payload.length) {
+                    length += flush(channel, buffer, crc);
+                }
+
+                buffer.putInt(payload.length).put(payload);
+            }
+
+            length += flush(channel, buffer, crc);
+
+            ByteBuffer header = ByteBuffer.allocate(HISTORY_HEADER);
+            header.putInt(HISTORY_MAGIC).putInt(VERSION).putLong(firstSequence).putLong(lastSequence)
+                    .putLong(transactions.size()).putLong(length).putInt((int) crc.getValue());
+            header.flip();
+
+            channel.position(0);
+            writeFully(channel, header);
+            channel.force(true);
+        }
+
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        return new History(firstSequence, lastSequence, transactions.size());
+    }
+
+    /**
+     * Reads the summary of a snapshot without decoding any account
+     *
+     * @param path of the snapshot
+     * @return summary of the snapshot
+     * @throws IOException if the snapshot cannot be read or is truncated
+     */
+    public Snapshot read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(channel, path);
+        }
+    }
+
+    /**
+     * Verifies every chunk of a snapshot and checks that every history segment it refers to is there
+     *
+     * @param snapshot to be verified
+     * @throws IOException if the snapshot cannot be read, is corrupted or misses a history segment
+     */
+    public void verify(Snapshot snapshot) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(snapshot.path, StandardOpenOption.READ)) {
+
+            int chunkCount = snapshot.chunkOffsets.length;
+            MappedByteBuffer[] chunks = new MappedByteBuffer[chunkCount];
+
+            for (int i = 0; i < chunkCount; i++) {
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, snapshot.chunkOffsets[i], snapshot.chunkLengths[i]);
+            }
+
+            if (!IntStream.range(0, chunkCount).parallel().allMatch(i -> checksum(chunks[i]) == snapshot.chunkCrcs[i])) {
+                throw new IOException("Snapshot " + snapshot.path + " is corrupted");
+            }
+        }
+
+        for (History segment : snapshot.history) {
+            readHistoryHeader(segment);
+        }
+    }
+
+    /**
+     * Hands the accounts of a snapshot over one by one in the order they were written, chunk by chunk
+     * Every chunk is verified before any of its balances is handed over
+     *
+     * @param snapshot to be read
+     * @param consumer called with id and balance of every account from the calling thread
+     * @throws IOException if the snapshot cannot be read or is corrupted
+     */
+    public void forEachAccount(Snapshot snapshot, BiConsumer<String, Integer> consumer) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(snapshot.path, StandardOpenOption.READ)) {
+
+            for (int i = 0; i < snapshot.chunkOffsets.length; i++) {
+
+                MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, snapshot.chunkOffsets[i], snapshot.chunkLengths[i]);
+
+                if (checksum(chunk) != snapshot.chunkCrcs[i]) {
+                    throw new IOException("Snapshot " + snapshot.path + " is corrupted");
+                }
+
+                decode(chunk, snapshot.chunkCounts[i], consumer);
+            }
+        }
+    }
+
+    /**
+     * Loads balances of a snapshot, skipping its transaction history
+     *
+     * @param path of the snapshot
+     * @param consumer called with id and balance of every account, concurrently from multiple threads
+     * @return loaded snapshot
+     * @throws IOException if the snapshot cannot be read or is corrupted
+     */
+    public Snapshot load(Path path, BiConsumer<String, Integer> consumer) throws IOException {
+        return load(path, consumer, null);
+    }
+
+    /**
+     * Loads a snapshot by mapping its chunks into memory and decoding them in parallel, followed by its transaction history
+     * Every chunk is verified and every history segment is found before any balance is handed to the consumer,
+     *    history segments are decoded in parallel once all balances are handed over and verified while decoded
+     *
+     * @param path of the snapshot
+     * @param consumer called with id and balance of every account, concurrently from multiple threads
+     * @param transactions called with every transaction of the history one at a time in journal order,
+     *    can be null to skip the history
+     * @return loaded snapshot
+     * @throws IOException if the snapshot or its history cannot be read or is corrupted
+     */
+    public Snapshot load(Path path, BiConsumer<String, Integer> consumer, Consumer<Transaction> transactions) throws IOException {
+
+        Snapshot snapshot;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+
+            snapshot = read(channel, path);
+
+            if (transactions != null) {
+                for (History segment : snapshot.history) {
+                    readHistoryHeader(segment);
+                }
+            }
+
+            int chunkCount = snapshot.chunkOffsets.length;
+            MappedByteBuffer[] chunks = new MappedByteBuffer[chunkCount];
+
+            for (int i = 0; i < chunkCount; i++) {
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, snapshot.chunkOffsets[i], snapshot.chunkLengths[i]);
+            }
+
+            if (!IntStream.range(0, chunkCount).parallel().allMatch(i -> checksum(chunks[i]) == snapshot.chunkCrcs[i])) {
+                throw new IOException("Snapshot " + path + " is corrupted");
+            }
+
+            IntStream.range(0, chunkCount).parallel().forEach(i -> decode(chunks[i], snapshot.chunkCounts[i], consumer));
+        }
+
+        if (transactions != null) {
+            loadHistory(snapshot, transactions);
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Loads the most recent snapshot which is readable, falling back to older ones if the latest is corrupted
+     *
+     * @param consumer called with id and balance of every account, concurrently from multiple threads
+     * @return loaded snapshot or null if there isn't any readable snapshot
+     * @throws IOException if the directory cannot be listed
+     */
+    public Snapshot loadLatest(BiConsumer<String, Integer> consumer) throws IOException {
+        return loadLatest(consumer, null);
+    }
+
+    /**
+     * Loads the most recent snapshot which is readable together with its transaction history,
+     *    falling back to older ones if the latest is corrupted or misses a history segment
+     *
+     * @param consumer called with id and balance of every account, concurrently from multiple threads
+     * @param transactions called with every transaction of the history in journal order, can be null to skip the history
+     * @return loaded snapshot or null if there isn't any readable snapshot
+     * @throws IOException if the directory cannot be listed, or a history segment is corrupted once balances are loaded
+     */
+    public Snapshot loadLatest(BiConsumer<String, Integer> consumer, Consumer<Transaction> transactions) throws IOException {
+
+        for (Path path : list()) {
+
+            Snapshot snapshot;
+
+            try {
+                snapshot = load(path, consumer, null);
+
+                if (transactions != null) {
+                    for (History segment : snapshot.history) {
+                        readHistoryHeader(segment);
+                    }
+                }
+            } catch (IOException e) {
+                log.warn("Skipping unreadable snapshot {}", path, e);
+                continue;
+            }
+
+            if (transactions != null) {
+                loadHistory(snapshot, transactions);
+            }
+
+            return snapshot;
+        }
+
+        return null;
+    }
+
+    /**
+     * Decodes the history segments of a snapshot in parallel and hands their transactions over in journal order
+     *
+     * @param snapshot whose history is loaded
+     * @param transactions called with every transaction one at a time in journal order
+     * @throws IOException if a segment cannot be read or is corrupted
+     */
+    public void loadHistory(Snapshot snapshot, Consumer<Transaction> transactions) throws IOException {
+
+        try {
+            snapshot.history.parallelStream()
+                    .map(segment -> {
+                        try {
+                            return readHistory(segment);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .forEachOrdered(segment -> segment.forEach(transactions));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Snapshot read(FileChannel channel, Path path) throws IOException {
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+
+        while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+            // read until the header is complete or the file ends
+        }
+
+        header.flip();
+
+        if (header.remaining() < 8 || header.getInt() != MAGIC) {
+            throw new IOException("Not a snapshot: " + path);
+        }
+
+        int version = header.getInt();
+
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + ": " + path);
+        }
+
+        if (header.remaining() < HEADER - 8) {
+            throw new IOException("Snapshot " + path + " is truncated");
+        }
+
+        long sequence = header.getLong();
+        long lastTransactionId = header.getLong();
+        int accountCount = header.getInt();
+        int chunkCount = header.getInt();
+        int historyCount = header.getInt();
+        long tableOffset = header.getLong();
+
+        long tableLength = (long) chunkCount * TABLE_ENTRY + (long) historyCount * HISTORY_ENTRY;
+
+        if (chunkCount < 0 || historyCount < 0 || tableOffset < HEADER || tableOffset + tableLength > channel.size()) {
+            throw new IOException("Snapshot " + path + " is truncated");
+        }
+
+        MappedByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, tableOffset, tableLength);
+
+        long[] offsets = new long[chunkCount];
+        int[] lengths = new int[chunkCount];
+        int[] counts = new int[chunkCount];
+        int[] crcs = new int[chunkCount];
+
+        for (int i = 0; i < chunkCount; i++) {
+
+            offsets[i] = table.getLong();
+            lengths[i] = table.getInt();
+            counts[i] = table.getInt();
+            crcs[i] = table.getInt();
+
+            if (offsets[i] + lengths[i] > tableOffset) {
+                throw new IOException("Snapshot " + path + " is corrupted");
+            }
+        }
+
+        List<History> history = new ArrayList<>(historyCount);
+
+        for (int i = 0; i < historyCount; i++) {
+            history.add(new History(table.getLong(), table.getLong(), table.getLong()));
+        }
+
+        return new Snapshot(path, sequence, lastTransactionId, accountCount, history, offsets, lengths, counts, crcs);
+    }
+
+    /**
+     * Checks that the file of a history segment is there and is the one referred to
+     *
+     * @return length of the transactions in the segment
+     */
+    private long readHistoryHeader(History segment) throws IOException {
+
+        Path path = directory.resolve(historyName(segment.firstSequence, segment.lastSequence));
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), HISTORY_HEADER))) {
+            return readHistoryHeader(in, segment, path);
+        }
+    }
+
+    private static long readHistoryHeader(DataInputStream in, History segment, Path path) throws IOException {
+
+        try {
+            if (in.readInt() != HISTORY_MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a history segment: " + path);
+            }
+
+            if (in.readLong() != segment.firstSequence || in.readLong() != segment.lastSequence
+                    || in.readLong() != segment.transactionCount) {
+                throw new IOException("History segment " + path + " does not match its snapshot");
+            }
+
+            return in.readLong();
+
+        } catch (EOFException e) {
+            throw new IOException("History segment " + path + " is truncated", e);
+        }
+    }
+
+    private List<Transaction> readHistory(History segment) throws IOException {
+
+        Path path = directory.resolve(historyName(segment.firstSequence, segment.lastSequence));
+        List<Transaction> transactions = new ArrayList<>((int) Math.min(segment.transactionCount, Integer.MAX_VALUE - 8));
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+
+            DataInputStream header = new DataInputStream(Channels.newInputStream(channel));
+            long length = readHistoryHeader(header, segment, path);
+            int checksum = header.readInt();
+
+            // transactions are only handed over once the whole segment is verified
+            CheckedInputStream checked = new CheckedInputStream(
+                    new BufferedInputStream(Channels.newInputStream(channel.position(HISTORY_HEADER)), 1 << 16), new CRC32());
+            DataInputStream in = new DataInputStream(checked);
+            long read = 0;
+
+            for (long i = 0; i < segment.transactionCount; i++) {
+
+                int payloadLength = in.readInt();
+
+                if (payloadLength < 0 || payloadLength > MAX_PAYLOAD || read + 4 + payloadLength > length) {
+                    throw new IOException("History segment " + path + " is corrupted");
+                }
+
+                byte[] payload = new byte[payloadLength];
+                in.readFully(payload);
+                read += 4 + payloadLength;
+
+                transactions.add(decodeTransaction(payload, path));
+            }
+
+            if (read != length || (int) checked.getChecksum().getValue() != checksum) {
+                throw new IOException("History segment " + path + " is corrupted");
+            }
+
+        } catch (EOFException e) {
+            throw new IOException("History segment " + path + " is truncated", e);
+        }
+
+        return transactions;
+    }
+
+    private static Transaction decodeTransaction(byte[] payload, Path path) throws IOException {
+
+        Entity entity;
+
+        try {
+            entity = RecordCodec.decode(payload);
+        } catch (RuntimeException e) {
+            throw new IOException("History segment " + path + " is corrupted", e);
+        }
+
+        if (!(entity instanceof Transaction)) {
+            throw new IOException("History segment " + path + " has a non transaction record");
+        }
+
+        return (Transaction) entity;
+    }
+
+    /**
+     * Deletes snapshots beyond the retained ones and the history segments none of the retained ones refers to
+     * Segments are kept if a retained snapshot cannot be read, as it may still refer to them
+     */
+    private void deleteUnretained() throws IOException {
+
+        List<Path> snapshots = list();
+
+        for (int i = retained; i < snapshots.size(); i++) {
+            Files.deleteIfExists(snapshots.get(i));
+        }
+
+        Set<String> referenced = new HashSet<>();
+
+        for (int i = 0; i < Math.min(retained, snapshots.size()); i++) {
+            try {
+                for (History segment : read(snapshots.get(i)).history) {
+                    referenced.add(historyName(segment.firstSequence, segment.lastSequence));
+                }
+            } catch (IOException e) {
+                log.warn("Keeping history segments, snapshot {} cannot be read", snapshots.get(i), e);
+                return;
+            }
+        }
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, HISTORY_PREFIX + "*" + HISTORY_SUFFIX)) {
+            for (Path path : stream) {
+                if (!referenced.contains(path.getFileName().toString())) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+
+    private static void decode(ByteBuffer chunk, int count, BiConsumer<String, Integer> consumer) {
+
+        ByteBuffer in = chunk.duplicate();
+        byte[] id = new byte[0xFFFF];
+
+        for (int i = 0; i < count; i++) {
+            int length = in.getShort() & 0xFFFF;
+            in.get(id, 0, length);
+            consumer.accept(new String(id, 0, length, StandardCharsets.UTF_8), in.getInt());
+        }
+    }
+
+    private static int checksum(ByteBuffer chunk) {
+
+        CRC32 crc = new CRC32();
+        crc.update(chunk.duplicate());
+
+        return (int) crc.getValue();
+    }
+
+    private static int flush(FileChannel channel, ByteBuffer buffer, CRC32 crc) throws IOException {
+
+        buffer.flip();
+        int length = buffer.remaining();
+        crc.update(buffer.array(), 0, length);
+
+        writeFully(channel, buffer);
+        buffer.clear();
+
+        return length;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static String historyName(long firstSequence, long lastSequence) {
+        return String.format("%s%020d-%020d%s", HISTORY_PREFIX, firstSequence, lastSequence, HISTORY_SUFFIX);
+    }
+
+    private static long sequenceOf(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * Writes accounts in chunks of at most {@value #CHUNK_ACCOUNTS}, recording the table entry of every chunk
+     */
+    private static final class ChunkWriter {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+        private final CRC32 crc = new CRC32();
+
+        private long position;
+        private long chunkOffset;
+        private int chunkAccounts;
+        private int accountCount;
+        private int chunkCount;
+
+        private long[] offsets = new long[16];
+        private int[] lengths = new int[16];
+        private int[] counts = new int[16];
+        private int[] crcs = new int[16];
+
+        ChunkWriter(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+            this.chunkOffset = position;
+        }
+
+        void add(String id, int balance) throws IOException {
+
+            byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+
+            if (buffer.remaining() < 2 + bytes.length + 4) {
+                position += flush(channel, buffer, crc);
+            }
+
+            buffer.putShort((short) bytes.length).put(bytes).putInt(balance);
+            accountCount++;
+
+            if (++chunkAccounts == CHUNK_ACCOUNTS) {
+                endChunk();
+            }
+        }
+
+        void finish() throws IOException {
+            if (chunkAccounts > 0) {
+                endChunk();
+            }
+        }
+
+        private void endChunk() throws IOException {
+
+            position += flush(channel, buffer, crc);
+
+            if (chunkCount == offsets.length) {
+                offsets = Arrays.copyOf(offsets, chunkCount * 2);
+                lengths = Arrays.copyOf(lengths, chunkCount * 2);
+                counts = Arrays.copyOf(counts, chunkCount * 2);
+                crcs = Arrays.copyOf(crcs, chunkCount * 2);
+            }
+
+            offsets[chunkCount] = chunkOffset;
+            lengths[chunkCount] = (int) (position - chunkOffset);
+            counts[chunkCount] = chunkAccounts;
+            crcs[chunkCount] = (int) crc.getValue();
+            chunkCount++;
+
+            chunkOffset = position;
+            chunkAccounts = 0;
+            crc.reset();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.assignment.journal;
+
+import com.assignment.model.Account;
+import com.assignment.model.Transaction;
+import com.codahale.metrics.Timer;
+
+import java.io.IOException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * {@link Journal} timing the appends and syncs of another journal
+ * Asynchronous syncs are timed until their stage completes, replays are not timed
+ */
+public class TimedJournal implements Journal {
+
+    private final Journal journal;
+    private final Timer appends;
+    private final Timer syncs;
+
+    /**
+     * @param journal to be timed
+     * @param appends receives the duration of every append
+     * @param syncs receives how long every record waited to be durable
+     */
+    public TimedJournal(Journal journal, Timer appends, Timer syncs) {
+        this.journal = journal;
+        this.appends = appends;
+        this.syncs = syncs;
+    }
+
+    @Override
+    public long append(Account account) {
+
+        long started = System.nanoTime();
+
+        try {
+            return journal.append(account);
+        } finally {
+            appends.update(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public long append(Transaction transaction) {
+
+        long started = System.nanoTime();
+
+        try {
+            return journal.append(transaction);
+        } finally {
+            appends.update(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void sync(long sequence) {
+
+        long started = System.nanoTime();
+
+        try {
+            journal.sync(sequence);
+        } finally {
+            syncs.update(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public CompletionStage<Void> syncAsync(long sequence) {
+
+        long started = System.nanoTime();
+
+        return journal.syncAsync(sequence)
+                .whenComplete((ignored, error) -> syncs.update(System.nanoTime() - started, TimeUnit.NANOSECONDS));
+    }
+
+    @Override
+    public void replay(long afterSequence, Consumer<JournalRecord> consumer) throws IOException {
+        journal.replay(afterSequence, consumer);
+    }
+}
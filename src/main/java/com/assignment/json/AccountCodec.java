@@ -0,0 +1,80 @@
+package com.assignment.json;
+
+import com.assignment.model.Account;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * JSON encoding of {@link Account}
+ *
+ * {"id":string,"balance":int}
+ */
+final class AccountCodec {
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString BALANCE = new SerializedString("balance");
+
+    private AccountCodec() { }
+
+    static final class Serializer extends StdSerializer<Account> {
+
+        Serializer() {
+            super(Account.class);
+        }
+
+        @Override
+        public void serialize(Account account, JsonGenerator generator, SerializerProvider provider) throws IOException {
+
+            generator.writeStartObject();
+
+            generator.writeFieldName(ID);
+            generator.writeString(account.getId());
+            generator.writeFieldName(BALANCE);
+            generator.writeNumber(account.getBalance());
+
+            generator.writeEndObject();
+        }
+    }
+
+    static final class Deserializer extends StdDeserializer<Account> {
+
+        Deserializer() {
+            super(Account.class);
+        }
+
+        @Override
+        public Account deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+
+            String id = null;
+            Integer balance = null;
+
+            for (String name = Fields.firstField(parser, Account.class, context);
+                 name != null;
+                 name = parser.nextFieldName()) {
+
+                parser.nextToken();
+
+                switch (name) {
+                    case "id":
+                        id = Fields.readString(parser, context);
+                        break;
+                    case "balance":
+                        balance = Fields.readInteger(parser, context);
+                        break;
+                    default:
+                        Fields.skipUnknown(parser, this, Account.class, name, context);
+                }
+            }
+
+            // a missing or null balance leaves it at 0, like the bean deserializer did
+            return new Account(id, balance != null ? balance : 0);
+        }
+    }
+}
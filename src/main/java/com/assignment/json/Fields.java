@@ -0,0 +1,101 @@
+package com.assignment.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes field values of the model classes
+ * Common tokens are read directly, any other token is handed to the deserializers of the object mapper,
+ *    so that values are coerced and rejected exactly as by the bean deserializers
+ */
+final class Fields {
+
+    private Fields() { }
+
+    /**
+     * Moves from the start of an object to the name of its first field
+     *
+     * @param parser at the start of the object or at its first field
+     * @param type of the object
+     * @param context of the deserialization
+     * @return name of the first field, null if the object is empty
+     * @throws IOException if the parser is not at an object
+     */
+    static String firstField(JsonParser parser, Class<?> type, DeserializationContext context) throws IOException {
+
+        if (parser.isExpectedStartObjectToken()) {
+            return parser.nextFieldName();
+        }
+
+        if (parser.hasToken(JsonToken.FIELD_NAME)) {
+            return parser.getCurrentName();
+        }
+
+        if (parser.hasToken(JsonToken.END_OBJECT)) {
+            return null;
+        }
+
+        context.handleUnexpectedToken(type, parser);
+
+        throw context.wrongTokenException(parser, type, JsonToken.START_OBJECT, null);
+    }
+
+    static String readString(JsonParser parser, DeserializationContext context) throws IOException {
+
+        if (parser.hasToken(JsonToken.VALUE_STRING)) {
+            return parser.getText();
+        }
+
+        if (parser.hasToken(JsonToken.VALUE_NULL)) {
+            return null;
+        }
+
+        return context.readValue(parser, String.class);
+    }
+
+    static Integer readInteger(JsonParser parser, DeserializationContext context) throws IOException {
+
+        if (parser.hasToken(JsonToken.VALUE_NUMBER_INT) && parser.getNumberType() == JsonParser.NumberType.INT) {
+            return parser.getIntValue();
+        }
+
+        if (parser.hasToken(JsonToken.VALUE_NULL)) {
+            return null;
+        }
+
+        return context.readValue(parser, Integer.class);
+    }
+
+    static void writeInteger(Integer value, JsonGenerator generator) throws IOException {
+
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+
+    /**
+     * Skips the value of an unknown field, or fails unless the object mapper ignores unknown properties
+     *
+     * @param parser at the value of the field
+     * @param deserializer reading the object
+     * @param type of the object
+     * @param name of the field
+     * @param context of the deserialization
+     * @throws IOException if unknown properties are not ignored
+     */
+    static void skipUnknown(JsonParser parser,
+                            JsonDeserializer<?> deserializer,
+                            Class<?> type,
+                            String name,
+                            DeserializationContext context) throws IOException {
+
+        context.handleUnknownProperty(parser, deserializer, type, name);
+    }
+}
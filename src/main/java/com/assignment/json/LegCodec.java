@@ -0,0 +1,97 @@
+package com.assignment.json;
+
+import com.assignment.model.Leg;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * JSON encoding of {@link Leg}, used on its own and by {@link TransactionCodec} for the legs of a split
+ *
+ * {"toAccountId":string,"amount":int}
+ */
+final class LegCodec {
+
+    private static final SerializedString TO_ACCOUNT_ID = new SerializedString("toAccountId");
+    private static final SerializedString AMOUNT = new SerializedString("amount");
+
+    private LegCodec() { }
+
+    static void write(Leg leg, JsonGenerator generator) throws IOException {
+
+        if (leg == null) {
+            generator.writeNull();
+            return;
+        }
+
+        generator.writeStartObject();
+
+        generator.writeFieldName(TO_ACCOUNT_ID);
+        generator.writeString(leg.getToAccountId());
+        generator.writeFieldName(AMOUNT);
+        Fields.writeInteger(leg.getAmount(), generator);
+
+        generator.writeEndObject();
+    }
+
+    static Leg read(JsonParser parser, Deserializer deserializer, DeserializationContext context) throws IOException {
+
+        if (parser.hasToken(JsonToken.VALUE_NULL)) {
+            return null;
+        }
+
+        String toAccountId = null;
+        Integer amount = null;
+
+        for (String name = Fields.firstField(parser, Leg.class, context);
+             name != null;
+             name = parser.nextFieldName()) {
+
+            parser.nextToken();
+
+            switch (name) {
+                case "toAccountId":
+                    toAccountId = Fields.readString(parser, context);
+                    break;
+                case "amount":
+                    amount = Fields.readInteger(parser, context);
+                    break;
+                default:
+                    Fields.skipUnknown(parser, deserializer, Leg.class, name, context);
+            }
+        }
+
+        return new Leg(toAccountId, amount);
+    }
+
+    static final class Serializer extends StdSerializer<Leg> {
+
+        Serializer() {
+            super(Leg.class);
+        }
+
+        @Override
+        public void serialize(Leg leg, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            write(leg, generator);
+        }
+    }
+
+    static final class Deserializer extends StdDeserializer<Leg> {
+
+        Deserializer() {
+            super(Leg.class);
+        }
+
+        @Override
+        public Leg deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            return read(parser, this, context);
+        }
+    }
+}
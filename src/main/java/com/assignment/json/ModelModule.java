@@ -0,0 +1,26 @@
+package com.assignment.json;
+
+import com.assignment.model.Account;
+import com.assignment.model.Leg;
+import com.assignment.model.Transaction;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+/**
+ * Registers hand-written serializers and deserializers of the model classes on an object mapper
+ * They read and write the same JSON as the bean serializers derived from the annotations of the model,
+ *    but stream fields straight to the generator without any reflection or per-property lookup
+ */
+public class ModelModule extends SimpleModule {
+
+    public ModelModule() {
+
+        super(ModelModule.class.getSimpleName());
+
+        addSerializer(Account.class, new AccountCodec.Serializer());
+        addDeserializer(Account.class, new AccountCodec.Deserializer());
+        addSerializer(Transaction.class, new TransactionCodec.Serializer());
+        addDeserializer(Transaction.class, new TransactionCodec.Deserializer());
+        addSerializer(Leg.class, new LegCodec.Serializer());
+        addDeserializer(Leg.class, new LegCodec.Deserializer());
+    }
+}
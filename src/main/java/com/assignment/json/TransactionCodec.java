@@ -0,0 +1,197 @@
+package com.assignment.json;
+
+import com.assignment.model.Leg;
+import com.assignment.model.Transaction;
+import com.assignment.model.TransactionType;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * JSON encoding of {@link Transaction}
+ *
+ * {"id":string,"transactionType":string,"fromAccountId":string,"toAccountId":string,"amount":int[,"legs":[leg*]]}
+ *
+ * Legs are only written for split transactions, they are encoded by {@link LegCodec}
+ */
+final class TransactionCodec {
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString TRANSACTION_TYPE = new SerializedString("transactionType");
+    private static final SerializedString FROM_ACCOUNT_ID = new SerializedString("fromAccountId");
+    private static final SerializedString TO_ACCOUNT_ID = new SerializedString("toAccountId");
+    private static final SerializedString AMOUNT = new SerializedString("amount");
+    private static final SerializedString LEGS = new SerializedString("legs");
+
+    // names of the transaction types by ordinal, as declared by their annotations
+    private static final TransactionType[] TYPES = TransactionType.values();
+    private static final SerializedString[] TYPE_NAMES = new SerializedString[TYPES.length];
+
+    static {
+        for (TransactionType type : TYPES) {
+            try {
+                String name = TransactionType.class.getField(type.name()).getAnnotation(JsonProperty.class).value();
+                TYPE_NAMES[type.ordinal()] = new SerializedString(name);
+            } catch (NoSuchFieldException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private TransactionCodec() { }
+
+    static final class Serializer extends StdSerializer<Transaction> {
+
+        Serializer() {
+            super(Transaction.class);
+        }
+
+        @Override
+        public void serialize(Transaction transaction, JsonGenerator generator, SerializerProvider provider) throws IOException {
+
+            generator.writeStartObject();
+
+            generator.writeFieldName(ID);
+            generator.writeString(transaction.getId());
+
+            generator.writeFieldName(TRANSACTION_TYPE);
+            TransactionType type = transaction.getTransactionType();
+
+            if (type != null) {
+                generator.writeString(TYPE_NAMES[type.ordinal()]);
+            } else {
+                generator.writeNull();
+            }
+
+            generator.writeFieldName(FROM_ACCOUNT_ID);
+            generator.writeString(transaction.getFromAccountId());
+            generator.writeFieldName(TO_ACCOUNT_ID);
+            generator.writeString(transaction.getToAccountId());
+            generator.writeFieldName(AMOUNT);
+            Fields.writeInteger(transaction.getAmount(), generator);
+
+            List<Leg> legs = transaction.getLegs();
+
+            if (legs != null) {
+
+                generator.writeFieldName(LEGS);
+                generator.writeStartArray(legs.size());
+
+                for (Leg leg : legs) {
+                    LegCodec.write(leg, generator);
+                }
+
+                generator.writeEndArray();
+            }
+
+            generator.writeEndObject();
+        }
+    }
+
+    static final class Deserializer extends StdDeserializer<Transaction> {
+
+        private final LegCodec.Deserializer legDeserializer = new LegCodec.Deserializer();
+
+        Deserializer() {
+            super(Transaction.class);
+        }
+
+        @Override
+        public Transaction deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+
+            long number = 0;
+            TransactionType type = null;
+            String fromAccountId = null;
+            String toAccountId = null;
+            Integer amount = null;
+            List<Leg> legs = null;
+
+            for (String name = Fields.firstField(parser, Transaction.class, context);
+                 name != null;
+                 name = parser.nextFieldName()) {
+
+                parser.nextToken();
+
+                switch (name) {
+                    case "id":
+                        // ids of any other format are ignored, like by the setter of the transaction
+                        number = Math.max(Transaction.parseId(Fields.readString(parser, context)), 0);
+                        break;
+                    case "transactionType":
+                        type = readType(parser, context);
+                        break;
+                    case "fromAccountId":
+                        fromAccountId = Fields.readString(parser, context);
+                        break;
+                    case "toAccountId":
+                        toAccountId = Fields.readString(parser, context);
+                        break;
+                    case "amount":
+                        amount = Fields.readInteger(parser, context);
+                        break;
+                    case "legs":
+                        legs = readLegs(parser, context);
+                        break;
+                    default:
+                        Fields.skipUnknown(parser, this, Transaction.class, name, context);
+                }
+            }
+
+            return Transaction.of(number, type, fromAccountId, toAccountId, amount, legs);
+        }
+
+        private TransactionType readType(JsonParser parser, DeserializationContext context) throws IOException {
+
+            if (parser.hasToken(JsonToken.VALUE_NULL)) {
+                return null;
+            }
+
+            if (parser.hasToken(JsonToken.VALUE_STRING)) {
+
+                String name = parser.getText();
+
+                for (TransactionType type : TYPES) {
+                    if (TYPE_NAMES[type.ordinal()].getValue().equals(name)) {
+                        return type;
+                    }
+                }
+
+                return (TransactionType) context.handleWeirdStringValue(TransactionType.class, name,
+                        "value not one of declared Enum instance names: %s", Arrays.toString(TYPE_NAMES));
+            }
+
+            return context.readValue(parser, TransactionType.class);
+        }
+
+        private List<Leg> readLegs(JsonParser parser, DeserializationContext context) throws IOException {
+
+            if (parser.hasToken(JsonToken.VALUE_NULL)) {
+                return null;
+            }
+
+            if (!parser.hasToken(JsonToken.START_ARRAY)) {
+                context.handleUnexpectedToken(List.class, parser);
+                throw context.wrongTokenException(parser, List.class, JsonToken.START_ARRAY, null);
+            }
+
+            List<Leg> legs = new ArrayList<>();
+
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                legs.add(LegCodec.read(parser, legDeserializer, context));
+            }
+
+            return legs;
+        }
+    }
+}
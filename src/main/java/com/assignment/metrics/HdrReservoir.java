@@ -0,0 +1,157 @@
+package com.assignment.metrics;
+
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramIterationValue;
+import org.HdrHistogram.Recorder;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Reservoir} recording every value into an HdrHistogram {@link Recorder} instead of sampling them
+ * Recording is wait-free: threads increment the counter of the bucket of their value, they never take a lock,
+ *    only readers taking a snapshot synchronize with each other
+ * Snapshots cover the values of the current and the previous window, so percentiles follow the recent load
+ *    instead of every value since the start
+ */
+public class HdrReservoir implements Reservoir {
+
+    private static final long DEFAULT_WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final Recorder recorder = new Recorder(3);
+    private final long windowNanos;
+
+    // guarded by this, values taken from the recorder
+    private Histogram interval;
+    private Histogram current = new Histogram(3);
+    private Histogram previous = new Histogram(3);
+    private long windowStarted = System.nanoTime();
+
+    public HdrReservoir() {
+        this(DEFAULT_WINDOW_NANOS);
+    }
+
+    /**
+     * @param windowNanos how long values stay in the current window, they are kept for one more window after that
+     */
+    public HdrReservoir(long windowNanos) {
+        this.windowNanos = windowNanos;
+    }
+
+    @Override
+    public int size() {
+        return getSnapshot().size();
+    }
+
+    /**
+     * @param value to be recorded, negative values are recorded as 0
+     */
+    @Override
+    public void update(long value) {
+        recorder.recordValue(Math.max(value, 0));
+    }
+
+    @Override
+    public synchronized Snapshot getSnapshot() {
+
+        interval = interval != null ? recorder.getIntervalHistogram(interval) : recorder.getIntervalHistogram();
+
+        long now = System.nanoTime();
+
+        if (now - windowStarted >= windowNanos) {
+
+            Histogram expired = previous;
+
+            previous = current;
+            current = expired;
+            current.reset();
+            windowStarted = now;
+        }
+
+        current.add(interval);
+
+        Histogram values = previous.copy();
+
+        values.add(current);
+
+        return new HdrSnapshot(values);
+    }
+
+    /**
+     * Values of a histogram, reported by the percentiles of their buckets
+     */
+    private static final class HdrSnapshot extends Snapshot {
+
+        private final Histogram histogram;
+
+        HdrSnapshot(Histogram histogram) {
+            this.histogram = histogram;
+        }
+
+        @Override
+        public double getValue(double quantile) {
+            return histogram.getValueAtPercentile(quantile * 100);
+        }
+
+        /**
+         * @return every distinct value recorded, a single one for all values sharing a bucket
+         */
+        @Override
+        public long[] getValues() {
+
+            int count = 0;
+
+            for (HistogramIterationValue value : histogram.recordedValues()) {
+                count++;
+            }
+
+            long[] values = new long[count];
+            int index = 0;
+
+            for (HistogramIterationValue value : histogram.recordedValues()) {
+                values[index++] = value.getValueIteratedTo();
+            }
+
+            return values;
+        }
+
+        @Override
+        public int size() {
+            return (int) Math.min(histogram.getTotalCount(), Integer.MAX_VALUE);
+        }
+
+        @Override
+        public long getMax() {
+            return histogram.getTotalCount() > 0 ? histogram.getMaxValue() : 0;
+        }
+
+        @Override
+        public double getMean() {
+            return histogram.getTotalCount() > 0 ? histogram.getMean() : 0;
+        }
+
+        @Override
+        public long getMin() {
+            return histogram.getTotalCount() > 0 ? histogram.getMinValue() : 0;
+        }
+
+        @Override
+        public double getStdDev() {
+            return histogram.getTotalCount() > 0 ? histogram.getStdDeviation() : 0;
+        }
+
+        @Override
+        public void dump(OutputStream output) {
+            try (PrintWriter out = new PrintWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+                for (long value : getValues()) {
+                    out.printf("%d%n", value);
+                }
+            }
+        }
+    }
+}
@@ -1,16 +1,39 @@
 package com.assignment.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 /**
  * Holds data of an individual account
+ * Balance is kept in the account itself, a {@link StoredAccount} is a view over the balance in the slot of a {@link BalanceStore}
+ * The balance is kept in a single long together with the amount reserved by transfers still in progress,
+ *    so that both of them are changed by a single compare and set in the lock-free operations
+ * Balance plus reserved amount never exceeds {@link Integer#MAX_VALUE}, so a reserved amount can always be given back
+ * Every change replaces that long by a single volatile write, so it doubles as the stamp of an optimistic read:
+ *    a reader sees the balance before or after any change but never in between, without taking any lock
+ * A contended account can be promoted to keep its balance in the cells of a {@link HotBalance} instead,
+ *    the long then only flags the account as hot and keeps its reserved amount
  */
 public class Account extends Entity {
 
+    private static final AtomicLongFieldUpdater<Account> BALANCE =
+            AtomicLongFieldUpdater.newUpdater(Account.class, "balance");
+
+    private static final long BALANCE_MASK = 0xFFFFFFFFL;
+    private static final int RESERVED_SHIFT = 32;
+    private static final long HOT = Long.MIN_VALUE;
+
+    // balance in the low and reserved amount in the high 32 bits
     @Min(0)
-    private Integer balance;
+    @Max(Integer.MAX_VALUE)
+    private volatile long balance;
+
+    // cells of the balance while the account is hot
+    private volatile HotBalance hot;
 
     public Account() {
         super();
@@ -21,17 +44,232 @@ public class Account extends Entity {
         this.balance = balance;
     }
 
+    Account(String id) {
+        super(id);
+    }
+
     @JsonProperty
     public Integer getBalance() {
-        return balance;
+        return balance();
+    }
+
+    /**
+     * Adds given amount to the balance without any check
+     * Concurrent changes must be kept apart by the caller, e.g. by holding {@link #monitor()}
+     *
+     * @param amount to be added
+     */
+    public void increaseBalance(int amount) {
+
+        if (isHot(state())) {
+            requireDone(tryDeposit(amount));
+            return;
+        }
+
+        putBalance(balance() + amount);
     }
 
-    public void increaseBalance(Integer amount) {
-        balance += amount;
+    /**
+     * Takes given amount from the balance without any check
+     * Concurrent changes must be kept apart by the caller, e.g. by holding {@link #monitor()}
+     *
+     * @param amount to be taken
+     */
+    public void decreaseBalance(int amount) {
+
+        if (isHot(state())) {
+            requireDone(tryWithdraw(amount));
+            return;
+        }
+
+        putBalance(balance() - amount);
     }
 
-    public void decreaseBalance(Integer amount) {
-        balance -= amount;
+    /**
+     * Adds given amount to the balance by a compare and set loop, unless the balance would exceed the upper limit
+     *
+     * @param amount to be deposit
+     * @return false if the balance would exceed {@link Integer#MAX_VALUE}, the balance is left unchanged then
+     */
+    public boolean tryDeposit(int amount) {
+
+        long state;
+
+        do {
+            state = state();
+
+            if (isHot(state)) {
+
+                int result = hot().apply(amount, -amount);
+
+                if (result != HotBalance.DEMOTED) {
+                    return result == HotBalance.DONE;
+                }
+
+                continue;
+            }
+
+            if (amount > Integer.MAX_VALUE - balanceOf(state) - reservedOf(state)) {
+                return false;
+            }
+        } while (isHot(state) || !compareAndSetState(state, state + amount));
+
+        return true;
+    }
+
+    /**
+     * Takes given amount from the balance by a compare and set loop, unless the balance would drop below zero
+     *
+     * @param amount to be withdrawn
+     * @return false if the balance is not sufficient, the balance is left unchanged then
+     */
+    public boolean tryWithdraw(int amount) {
+
+        long state;
+
+        do {
+            state = state();
+
+            if (isHot(state)) {
+
+                int result = hot().apply(-amount, amount);
+
+                if (result != HotBalance.DEMOTED) {
+                    return result == HotBalance.DONE;
+                }
+
+                continue;
+            }
+
+            if (amount > balanceOf(state)) {
+                return false;
+            }
+        } while (isHot(state) || !compareAndSetState(state, state - amount));
+
+        return true;
+    }
+
+    /**
+     * Takes given amount from the balance and reserves it, unless the balance would drop below zero
+     * The reserved amount counts against the upper limit until it is released or refunded
+     *
+     * @param amount to be withdrawn
+     * @return false if the balance is not sufficient, the balance is left unchanged then
+     */
+    public boolean tryWithdrawReserved(int amount) {
+
+        long state;
+
+        do {
+            state = state();
+
+            if (isHot(state)) {
+
+                // the room of the amount stays with the reservation instead of going back to the cells,
+                //    reserving first so that a promotion in between can only underestimate the room
+                addState((long) amount << RESERVED_SHIFT);
+
+                int result = hot().apply(-amount, 0);
+
+                if (result == HotBalance.DONE) {
+                    return true;
+                }
+
+                addState(-((long) amount << RESERVED_SHIFT));
+
+                if (result == HotBalance.REJECTED) {
+                    return false;
+                }
+
+                continue;
+            }
+
+            if (amount > balanceOf(state)) {
+                return false;
+            }
+        } while (isHot(state) || !compareAndSetState(state, state - amount + ((long) amount << RESERVED_SHIFT)));
+
+        return true;
+    }
+
+    /**
+     * Drops an amount reserved by {@link #tryWithdrawReserved(int)} once it has reached its destination
+     *
+     * @param amount reserved before
+     */
+    public void releaseReserved(int amount) {
+
+        // the room of the amount goes back to the cells before the reservation is dropped,
+        //    a demoted account finds it below its upper limit anyway
+        if (isHot(state())) {
+            hot().apply(0, amount);
+        }
+
+        addState(-((long) amount << RESERVED_SHIFT));
+    }
+
+    /**
+     * Gives an amount reserved by {@link #tryWithdrawReserved(int)} back to the balance, it always fits
+     *
+     * @param amount reserved before
+     */
+    public void refundReserved(int amount) {
+
+        long state;
+
+        do {
+            state = state();
+
+            // the room of the amount has been kept by the reservation, so the amount is added without taking any
+            if (isHot(state) && hot().apply(amount, 0) != HotBalance.DEMOTED) {
+                addState(-((long) amount << RESERVED_SHIFT));
+                return;
+            }
+        } while (isHot(state) || !compareAndSetState(state, state + amount - ((long) amount << RESERVED_SHIFT)));
+    }
+
+    /**
+     * Reserves room for an amount to be deposit later, unless the balance would exceed the upper limit
+     * The amount is deposit by {@link #refundReserved(int)} or its room is given back by {@link #releaseReserved(int)}
+     *
+     * @param amount to be deposit later
+     * @return false if the balance would exceed {@link Integer#MAX_VALUE}, nothing is reserved then
+     */
+    public boolean tryReserveRoom(int amount) {
+
+        long state;
+
+        do {
+            state = state();
+
+            if (isHot(state)) {
+
+                HotBalance hot = hot();
+
+                // holding the monitor of the cells, so they cannot be demoted before the room is reserved
+                synchronized (hot) {
+
+                    int result = hot.apply(0, -amount);
+
+                    if (result == HotBalance.DONE) {
+                        addState((long) amount << RESERVED_SHIFT);
+                        return true;
+                    }
+
+                    if (result == HotBalance.REJECTED) {
+                        return false;
+                    }
+                }
+
+                continue;
+            }
+
+            if (amount > Integer.MAX_VALUE - balanceOf(state) - reservedOf(state)) {
+                return false;
+            }
+        } while (isHot(state) || !compareAndSetState(state, state + ((long) amount << RESERVED_SHIFT)));
+
+        return true;
     }
 
     /**
@@ -40,8 +278,8 @@ public class Account extends Entity {
      * @param amount to be withdrawn
      * @return true if account has sufficient balance, otherwise false
      */
-    public boolean hasEnoughBalanceToWithdraw(Integer amount) {
-        return amount <= balance;
+    public boolean hasEnoughBalanceToWithdraw(int amount) {
+        return amount <= balance();
     }
 
     /**
@@ -50,12 +288,184 @@ public class Account extends Entity {
      * @param amount to be deposit
      * @return true if balance does not exceed the upper limit
      */
-    public boolean hasEnoughSpaceToDeposit(Integer amount) {
-        return amount <= Integer.MAX_VALUE - balance;
+    public boolean hasEnoughSpaceToDeposit(int amount) {
+
+        long state = state();
+
+        if (isHot(state)) {
+            return amount <= Integer.MAX_VALUE - (long) balance() - reservedOf(state);
+        }
+
+        return amount <= Integer.MAX_VALUE - balanceOf(state) - reservedOf(state);
+    }
+
+    /**
+     * @return true if the balance is kept in the cells of a {@link HotBalance}
+     */
+    @JsonIgnore
+    public boolean isHot() {
+        return isHot(state());
+    }
+
+    /**
+     * Moves the balance into given number of cells, so that concurrent changes of this account mostly touch different cells
+     * Only the lock-free operations spread across the cells, the others take them one by one
+     *
+     * @param cells number of cells, one per core changing the account concurrently pays off the most
+     * @return false if the account is hot already
+     */
+    public boolean promote(int cells) {
+
+        synchronized (monitor()) {
+
+            HotBalance hot = new HotBalance(cells);
+
+            // operations reaching the new cells before they are opened wait for the monitor of the cells
+            synchronized (hot) {
+
+                long state;
+
+                do {
+                    state = state();
+
+                    if (isHot(state)) {
+                        return false;
+                    }
+
+                    putHot(hot);
+                } while (!compareAndSetState(state, HOT | (state & ~BALANCE_MASK)));
+
+                hot.open(balanceOf(state), Integer.MAX_VALUE - balanceOf(state) - reservedOf(state));
+            }
+
+            return true;
+        }
+    }
+
+    /**
+     * Moves the balance of a hot account back from its cells
+     *
+     * @return false if the account is not hot
+     */
+    public boolean demote() {
+
+        synchronized (monitor()) {
+            return isHot(state()) && hot().demote(balance -> {
+
+                long state;
+
+                do {
+                    state = state();
+                } while (!compareAndSetState(state, (state & ~HOT) + balance));
+            });
+        }
+    }
+
+    /**
+     * Copies the account by a single read of its balance, without holding {@link #monitor()}
+     * The copy no longer follows changes, so it serializes the same balance however often it is read
+     *
+     * @return detached copy of this account
+     */
+    public Account snapshot() {
+        return new Account(getId(), balance());
+    }
+
+    /**
+     * Returns the object whose monitor guards the balance of this account
+     * Views over the same stripe of a store share their monitor
+     *
+     * @return monitor to be held while the balance is checked and changed
+     */
+    public Object monitor() {
+        return this;
+    }
+
+    /**
+     * Compares the order in which the monitors of two accounts must be acquired to prevent deadlocks
+     * Accounts are ordered by id, views over the same store by the stripe of their slots
+     *
+     * @param other account to be compared with
+     * @return negative if the monitor of this account must be acquired first, zero if both share the monitor
+     */
+    public int compareLockOrder(Account other) {
+        return getId().compareTo(other.getId());
+    }
+
+    private int balance() {
+
+        while (true) {
+
+            long state = state();
+
+            if (!isHot(state)) {
+                return balanceOf(state);
+            }
+
+            long sum = hot().sum();
+
+            // otherwise demoted meanwhile, the balance is back in the state
+            if (sum >= 0) {
+                return (int) (balanceOf(state) + sum);
+            }
+        }
+    }
+
+    private void putBalance(int balance) {
+        putState((state() & ~BALANCE_MASK) | (balance & BALANCE_MASK));
+    }
+
+    // the state hooks below are overridden by views keeping the balance elsewhere
+
+    long state() {
+        return balance;
+    }
+
+    void putState(long state) {
+        balance = state;
+    }
+
+    private void addState(long delta) {
+
+        long state;
+
+        do {
+            state = state();
+        } while (!compareAndSetState(state, state + delta));
+    }
+
+    HotBalance hot() {
+        return hot;
+    }
+
+    void putHot(HotBalance hot) {
+        this.hot = hot;
+    }
+
+    boolean compareAndSetState(long expected, long state) {
+        return BALANCE.compareAndSet(this, expected, state);
+    }
+
+    private static int balanceOf(long state) {
+        return (int) state;
+    }
+
+    private static int reservedOf(long state) {
+        return (int) (state >>> RESERVED_SHIFT) & Integer.MAX_VALUE;
+    }
+
+    private static boolean isHot(long state) {
+        return (state & HOT) != 0;
+    }
+
+    private static void requireDone(boolean done) {
+        if (!done) {
+            throw new IllegalStateException("Balance of a hot account cannot leave its bounds");
+        }
     }
 
     @Override
     public String toString() {
-        return "Account {" + super.toString() + " balance=" + balance + "}";
+        return "Account {" + super.toString() + " balance=" + balance() + "}";
     }
-}
\ No newline at end of file
+}
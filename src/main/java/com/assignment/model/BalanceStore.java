@@ -0,0 +1,56 @@
+package com.assignment.model;
+
+/**
+ * Keeps balances of accounts outside of {@link Account} objects, addressed by the slot of each account
+ * Accounts kept in a store are only views over their slot, see {@link StoredAccount}
+ */
+public interface BalanceStore {
+
+    /**
+     * @param slot of the account
+     * @return current balance in given slot
+     */
+    long getBalance(int slot);
+
+    /**
+     * @param slot of the account
+     * @param balance to be stored in given slot
+     */
+    void setBalance(int slot, long balance);
+
+    /**
+     * Atomically replaces the balance in given slot if it still holds the expected one
+     *
+     * @param slot of the account
+     * @param expected balance
+     * @param balance to be stored in given slot
+     * @return false if the slot held another balance, nothing is stored in that case
+     */
+    boolean compareAndSetBalance(int slot, long expected, long balance);
+
+    /**
+     * @param slot of a hot account
+     * @return cells keeping the balance of given slot, see {@link Account#promote(int)}
+     */
+    HotBalance getHotBalance(int slot);
+
+    /**
+     * @param slot of the account
+     * @param hotBalance to keep the balance of given slot once the account is flagged as hot
+     */
+    void setHotBalance(int slot, HotBalance hotBalance);
+
+    /**
+     * Slots are guarded by a fixed number of monitors, so that the store does not need an object per account
+     *
+     * @param slot of the account
+     * @return index of the monitor guarding given slot, defines the order in which monitors must be acquired
+     */
+    int getStripe(int slot);
+
+    /**
+     * @param slot of the account
+     * @return monitor guarding given slot, shared with the other slots of the same stripe
+     */
+    Object getMonitor(int slot);
+}
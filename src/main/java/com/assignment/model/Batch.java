@@ -0,0 +1,47 @@
+package com.assignment.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * Holds transactions to be performed by a single request
+ * Each transaction names its type, atomic batches are performed all together or not at all
+ */
+public class Batch {
+
+    public static final int MAX_SIZE = 1000;
+
+    private boolean atomic;
+
+    @NotNull
+    @Size(min = 1, max = MAX_SIZE)
+    @Valid
+    private List<Transaction> transactions;
+
+    public Batch() {
+
+    }
+
+    /**
+     * @param atomic true if either all transactions or none of them are to be performed
+     * @param transactions to be performed in the given order
+     */
+    public Batch(boolean atomic, List<Transaction> transactions) {
+        this.atomic = atomic;
+        this.transactions = transactions;
+    }
+
+    @JsonProperty
+    public boolean isAtomic() {
+        return atomic;
+    }
+
+    @JsonProperty
+    public List<Transaction> getTransactions() {
+        return transactions;
+    }
+}
@@ -0,0 +1,50 @@
+package com.assignment.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Holds the outcome of a single transaction of a {@link Batch}
+ * Either the performed transaction or the reason it has been rejected
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchResult {
+
+    private Transaction transaction;
+    private String error;
+
+    public BatchResult() {
+
+    }
+
+    private BatchResult(Transaction transaction, String error) {
+        this.transaction = transaction;
+        this.error = error;
+    }
+
+    /**
+     * @param transaction performed
+     * @return result of a performed transaction
+     */
+    public static BatchResult of(Transaction transaction) {
+        return new BatchResult(transaction, null);
+    }
+
+    /**
+     * @param error reason of the rejection
+     * @return result of a rejected transaction
+     */
+    public static BatchResult rejected(String error) {
+        return new BatchResult(null, error);
+    }
+
+    @JsonProperty
+    public Transaction getTransaction() {
+        return transaction;
+    }
+
+    @JsonProperty
+    public String getError() {
+        return error;
+    }
+}
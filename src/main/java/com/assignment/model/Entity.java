@@ -28,6 +28,6 @@ public class Entity {
 
     @Override
     public String toString() {
-        return "id=" + id;
+        return "id=" + getId();
     }
 }
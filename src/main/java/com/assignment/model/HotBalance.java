@@ -0,0 +1,241 @@
+package com.assignment.model;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+
+/**
+ * Balance of a contended account split into cells, so that concurrent changes of the account mostly touch different cells
+ * Each cell holds part of the balance in the low and part of the room left below the upper limit in the high 32 bits,
+ *    credits move an amount from the room of a cell to its balance and debits move it back
+ * A thread starts at a cell of its own and borrows from the other cells if its cell cannot satisfy an operation,
+ *    an operation no single cell can satisfy gathers all cells and spreads them again while holding the monitor
+ * Balance and room of all cells never exceed {@link Integer#MAX_VALUE}, so a cell never overflows
+ * Once demoted the cells are closed for good and their balance is handed back to the account
+ */
+public final class HotBalance {
+
+    static final int DONE = 0;
+    static final int REJECTED = 1;
+    static final int DEMOTED = 2;
+
+    // longs from one cell to the next, so that cells do not share a cache line
+    private static final int SPACING = 16;
+
+    // marks a cell whose value is being gathered, no valid cell has the sign bit of its balance or room set
+    private static final long CLOSED = -1L;
+
+    private static final long BALANCE_MASK = 0xFFFFFFFFL;
+    private static final int ROOM_SHIFT = 32;
+
+    private final AtomicLongArray cells;
+    private final int count;
+
+    // only changed while holding the monitor, odd while the cells are gathered
+    private volatile int epoch;
+    private volatile boolean demoted;
+
+    /**
+     * Creates closed cells, operations reaching them wait until they are opened
+     *
+     * @param count number of cells
+     */
+    HotBalance(int count) {
+
+        if (count < 1) {
+            throw new IllegalArgumentException("Cell count must be positive: " + count);
+        }
+
+        this.cells = new AtomicLongArray(count * SPACING);
+        this.count = count;
+        this.epoch = 1;
+
+        for (int i = 0; i < count; i++) {
+            cells.set(index(i), CLOSED);
+        }
+    }
+
+    /**
+     * Spreads the balance of the account across the cells, must be called while holding the monitor
+     *
+     * @param balance to be spread across the cells
+     * @param room left below the upper limit, to be spread across the cells
+     */
+    void open(int balance, int room) {
+        spread(balance, room);
+    }
+
+    /**
+     * @return number of cells
+     */
+    public int getCellCount() {
+        return count;
+    }
+
+    /**
+     * Changes balance and room by given amounts, unless either of them would drop below zero
+     * Credits move an amount from the room to the balance and debits move it back,
+     *    amounts kept elsewhere in the meantime, like reservations of transfers, are only taken or only given back
+     *
+     * @param balanceDelta to be added to the balance
+     * @param roomDelta to be added to the room
+     * @return {@link #DONE}, {@link #REJECTED} if balance or room are not sufficient or {@link #DEMOTED}
+     */
+    int apply(int balanceDelta, int roomDelta) {
+
+        long delta = balanceDelta + ((long) roomDelta << ROOM_SHIFT);
+        int home = home();
+
+        for (int i = 0; i < count; i++) {
+
+            int index = index(home + i);
+            long cell;
+
+            while ((cell = cells.get(index)) != CLOSED && fits(cell, balanceDelta, roomDelta)) {
+                if (cells.compareAndSet(index, cell, cell + delta)) {
+                    return DONE;
+                }
+            }
+
+            if (cell == CLOSED) {
+                break;
+            }
+        }
+
+        return gather(balanceDelta, roomDelta);
+    }
+
+    /**
+     * Like {@link java.util.concurrent.atomic.LongAdder#sum()} the sum only includes the operations it raced with in part,
+     *    but it never counts an amount twice: a sum overlapping a gathering of the cells is taken again behind the monitor
+     *
+     * @return balance of all cells, -1 if demoted
+     */
+    long sum() {
+
+        int epoch = this.epoch;
+
+        if ((epoch & 1) != 0) {
+            return lockedSum();
+        }
+
+        long sum = 0;
+
+        for (int i = 0; i < count; i++) {
+            sum += balanceOf(cells.get(index(i)));
+        }
+
+        return epoch == this.epoch ? sum : lockedSum();
+    }
+
+    /**
+     * Closes the cells for good and hands their balance to given consumer while holding the monitor
+     *
+     * @param fold receiving the balance of all cells
+     * @return false if already demoted
+     */
+    synchronized boolean demote(IntConsumer fold) {
+
+        if (demoted) {
+            return false;
+        }
+
+        long balance = close() & BALANCE_MASK;
+
+        demoted = true;
+        fold.accept((int) balance);
+
+        return true;
+    }
+
+    private synchronized int gather(int balanceDelta, int roomDelta) {
+
+        if (demoted) {
+            return DEMOTED;
+        }
+
+        long total = close();
+        boolean fits = fits(total, balanceDelta, roomDelta);
+
+        if (fits) {
+            total += balanceDelta + ((long) roomDelta << ROOM_SHIFT);
+        }
+
+        spread(balanceOf(total), roomOf(total));
+
+        return fits ? DONE : REJECTED;
+    }
+
+    private synchronized long lockedSum() {
+
+        if (demoted) {
+            return -1;
+        }
+
+        long sum = 0;
+
+        for (int i = 0; i < count; i++) {
+            sum += balanceOf(cells.get(index(i)));
+        }
+
+        return sum;
+    }
+
+    // takes all cells, concurrent operations seeing a closed cell wait for the monitor
+    private long close() {
+
+        epoch++;
+
+        long balance = 0;
+        long room = 0;
+
+        for (int i = 0; i < count; i++) {
+
+            long cell = cells.getAndSet(index(i), CLOSED);
+
+            balance += balanceOf(cell);
+            room += roomOf(cell);
+        }
+
+        return balance | room << ROOM_SHIFT;
+    }
+
+    private void spread(int balance, int room) {
+
+        int balanceShare = balance / count;
+        int roomShare = room / count;
+
+        for (int i = 0; i < count; i++) {
+
+            // the first cell takes the remainders
+            int cellBalance = i == 0 ? balance - balanceShare * (count - 1) : balanceShare;
+            int cellRoom = i == 0 ? room - roomShare * (count - 1) : roomShare;
+
+            cells.set(index(i), cellBalance | (long) cellRoom << ROOM_SHIFT);
+        }
+
+        epoch++;
+    }
+
+    private int home() {
+
+        long id = Thread.currentThread().getId();
+
+        return (int) ((id ^ (id >>> 16)) % count);
+    }
+
+    private int index(int cell) {
+        return (cell % count) * SPACING;
+    }
+
+    private static boolean fits(long cell, int balanceDelta, int roomDelta) {
+        return balanceOf(cell) + (long) balanceDelta >= 0 && roomOf(cell) + (long) roomDelta >= 0;
+    }
+
+    private static int balanceOf(long cell) {
+        return (int) (cell & BALANCE_MASK);
+    }
+
+    private static int roomOf(long cell) {
+        return (int) (cell >>> ROOM_SHIFT);
+    }
+}
@@ -0,0 +1,80 @@
+package com.assignment.model;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out unique, positive 64-bit ids without a shared counter on every call
+ * Every thread reserves a block of consecutive ids from the shared counter and hands them out on its own,
+ *    so threads only meet on the counter once per block instead of once per id
+ * Ids of a single thread are increasing, ids of different threads interleave in no particular order
+ * Ids that are reserved but not handed out yet are lost when the application stops
+ */
+public class IdGenerator {
+
+    private static class Block {
+
+        long next;
+        long limit;
+    }
+
+    private final int blockSize;
+
+    // first id of the next block to be reserved
+    private final AtomicLong nextBlock = new AtomicLong(1);
+
+    // blocks starting below the floor were reserved before a seed and must not be used any more
+    private volatile long floor = 1;
+
+    private final ThreadLocal<Block> blocks = ThreadLocal.withInitial(Block::new);
+
+    /**
+     * @param blockSize number of ids reserved by a thread at once
+     */
+    public IdGenerator(int blockSize) {
+
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * @return an id never handed out before by this generator nor below its seed
+     */
+    public long next() {
+
+        Block block = blocks.get();
+
+        if (block.next >= block.limit || block.next < floor) {
+            block.next = nextBlock.getAndAdd(blockSize);
+            block.limit = block.next + blockSize;
+        }
+
+        return block.next++;
+    }
+
+    /**
+     * Makes sure that ids up to given one are never handed out, e.g. after restoring persisted state
+     * Blocks reserved earlier by any thread are abandoned
+     *
+     * @param lastId an id that has already been used
+     */
+    public void seed(long lastId) {
+
+        long next = nextBlock.accumulateAndGet(lastId + 1, Math::max);
+
+        if (floor < next) {
+            synchronized (this) {
+                floor = Math.max(floor, next);
+            }
+        }
+    }
+
+    /**
+     * @return an upper bound of the ids handed out so far, 0 if none has been
+     */
+    public long getLastId() {
+        return nextBlock.get() - 1;
+    }
+}
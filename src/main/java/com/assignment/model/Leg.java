@@ -0,0 +1,65 @@
+package com.assignment.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import javax.validation.constraints.Min;
+import java.util.Objects;
+
+/**
+ * Holds one payee of a {@link TransactionType#SPLIT} transaction and the amount it receives
+ */
+public class Leg {
+
+    private String toAccountId;
+    @Min(1)
+    private Integer amount;
+
+    public Leg() {
+
+    }
+
+    /**
+     * @param toAccountId destination account of the leg
+     * @param amount to be received
+     */
+    public Leg(String toAccountId, Integer amount) {
+        this.toAccountId = toAccountId;
+        this.amount = amount;
+    }
+
+    @JsonProperty
+    public String getToAccountId() {
+        return toAccountId;
+    }
+
+    @JsonProperty
+    public Integer getAmount() {
+        return amount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+        if (this == o) {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        Leg that = (Leg) o;
+
+        return Objects.equals(toAccountId, that.toAccountId) && Objects.equals(amount, that.amount);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(toAccountId, amount);
+    }
+
+    @Override
+    public String toString() {
+        return "Leg {toAccountId=" + toAccountId + " amount=" + amount + "}";
+    }
+}
@@ -0,0 +1,40 @@
+package com.assignment.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds a page of a listing together with the cursor of the next page
+ *
+ * @param <T> type of the listed items
+ */
+public class Page<T> {
+
+    private List<T> items;
+    private String next;
+
+    public Page() {
+        this.items = new ArrayList<>();
+    }
+
+    /**
+     * @param items of the page
+     * @param next cursor to request the following page with, null if this is the last page
+     */
+    public Page(List<T> items, String next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    @JsonProperty
+    public List<T> getItems() {
+        return items;
+    }
+
+    @JsonProperty
+    public String getNext() {
+        return next;
+    }
+}
@@ -0,0 +1,81 @@
+package com.assignment.model;
+
+/**
+ * View over the balance of an account kept in the slot of a {@link BalanceStore}
+ * Views only hold the store and the slot, the balance and the cells of a hot account are kept by the store,
+ *    so any number of views over the same slot see the same balance
+ */
+public class StoredAccount extends Account {
+
+    private final BalanceStore store;
+    private final int slot;
+
+    /**
+     * @param id of the account
+     * @param store keeping the balance
+     * @param slot of the account in the store
+     */
+    public StoredAccount(String id, BalanceStore store, int slot) {
+        super(id);
+        this.store = store;
+        this.slot = slot;
+    }
+
+    /**
+     * Moves the balance of an account into given slot of the store
+     * The account itself is left as it is, only the returned view follows the balance from now on
+     *
+     * @param account whose balance is moved
+     * @param store to keep the balance from now on
+     * @param slot reserved for the account in the store
+     * @return view over the slot
+     */
+    public static StoredAccount attach(Account account, BalanceStore store, int slot) {
+        store.setBalance(slot, account.state());
+        return new StoredAccount(account.getId(), store, slot);
+    }
+
+    @Override
+    public Object monitor() {
+        return store.getMonitor(slot);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Views over the same store are ordered by the stripe of their slots
+     */
+    @Override
+    public int compareLockOrder(Account other) {
+
+        if (other instanceof StoredAccount && ((StoredAccount) other).store == store) {
+            return Integer.compare(store.getStripe(slot), store.getStripe(((StoredAccount) other).slot));
+        }
+
+        return super.compareLockOrder(other);
+    }
+
+    @Override
+    long state() {
+        return store.getBalance(slot);
+    }
+
+    @Override
+    void putState(long state) {
+        store.setBalance(slot, state);
+    }
+
+    @Override
+    HotBalance hot() {
+        return store.getHotBalance(slot);
+    }
+
+    @Override
+    void putHot(HotBalance hot) {
+        store.setHotBalance(slot, hot);
+    }
+
+    @Override
+    boolean compareAndSetState(long expected, long state) {
+        return store.compareAndSetBalance(slot, expected, state);
+    }
+}
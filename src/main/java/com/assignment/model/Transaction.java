@@ -1,19 +1,37 @@
 package com.assignment.model;
 
 import com.fasterxml.jackson.annotation.JsonGetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonSetter;
 
+import javax.validation.Valid;
 import javax.validation.constraints.Min;
-import java.util.concurrent.atomic.AtomicInteger;
+import javax.validation.constraints.Size;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
 
 /**
  * Holds data of a transaction
+ * Id of a transaction is a number internally, it is formatted as a string only by {@link #getId()}
  */
 public class Transaction extends Entity {
 
-    // Transaction id must be incremented on every transaction creation
-    // It's thread safe thanks to AtomicInteger
-    private static AtomicInteger transactionId = new AtomicInteger(0);
+    private static final String ID_PREFIX = "trx_";
+
+    private static final int ID_BLOCK_SIZE = 1024;
+
+    public static final int MAX_LEGS = 100;
+
+    // Transaction id must be unique for every transaction creation
+    // Threads take ids from their own blocks, so they do not contend on a single counter
+    private static final IdGenerator transactionIds = new IdGenerator(ID_BLOCK_SIZE);
+
+    // 0 until an id is assigned
+    private long number;
 
     private TransactionType transactionType;
     private String fromAccountId;
@@ -21,9 +39,14 @@ public class Transaction extends Entity {
     @Min(1)
     private Integer amount;
 
+    // payees of a SPLIT transaction, null for any other type
+    @Valid
+    @Size(min = 1, max = MAX_LEGS)
+    private List<Leg> legs;
+
     /**
      * Private constructor
-     * Used by static factory methods. Increments global transaction id
+     * Used by static factory methods. Assigns the next global transaction id
      *
      * @param transactionType transaction type
      * @param fromAccountId source account of transaction (can be null for deposit transaction)
@@ -37,7 +60,7 @@ public class Transaction extends Entity {
 
         this(fromAccountId, toAccountId, amount);
         this.transactionType = transactionType;
-        this.setId("trx_" + transactionId.incrementAndGet());
+        this.number = transactionIds.next();
     }
 
     /**
@@ -56,6 +79,17 @@ public class Transaction extends Entity {
         this.amount = amount;
     }
 
+    /**
+     * Public constructor of a split request. Mostly used in test classes or test client for put actions
+     *
+     * @param fromAccountId source account of all legs
+     * @param legs payees and the amounts they receive
+     */
+    public Transaction(String fromAccountId, List<Leg> legs) {
+        this.fromAccountId = fromAccountId;
+        this.legs = legs;
+    }
+
     public Transaction() {
 
     }
@@ -96,13 +130,194 @@ public class Transaction extends Entity {
         return new Transaction(TransactionType.TRANSFER, fromAccountId, toAccountId, amount);
     }
 
+    /**
+     * Factory method to create a split transaction, paying all legs from a single account at once
+     * Amount of the transaction is the total of its legs
+     *
+     * @param fromAccountId source account of all legs
+     * @param legs payees and the amounts they receive, their total must not exceed {@link Integer#MAX_VALUE}
+     * @return newly created SPLIT transaction
+     */
+    public static Transaction ofSplit(String fromAccountId, List<Leg> legs) {
+
+        long total = 0;
+
+        for (Leg leg : legs) {
+            total += leg.getAmount();
+        }
+
+        Transaction transaction = new Transaction(TransactionType.SPLIT, fromAccountId, null, Math.toIntExact(total));
+        transaction.legs = Collections.unmodifiableList(new ArrayList<>(legs));
+
+        return transaction;
+    }
+
+    /**
+     * Re-creates a transaction that has been created before, e.g. while replaying the journal
+     * Keeps given id and moves global transaction id forward so that new transactions never reuse it
+     *
+     * @param number previously assigned transaction id
+     * @param transactionType transaction type
+     * @param fromAccountId source account of transaction (can be null for deposit transaction)
+     * @param toAccountId destination account of transaction (can be null for withdraw transaction)
+     * @param amount to deposit, withdraw or transfer
+     * @return restored transaction
+     */
+    public static Transaction restore(long number,
+                                      TransactionType transactionType,
+                                      String fromAccountId,
+                                      String toAccountId,
+                                      Integer amount) {
+
+        return restore(number, transactionType, fromAccountId, toAccountId, amount, null);
+    }
+
+    /**
+     * Re-creates a transaction with legs that has been created before, e.g. while replaying the journal
+     *
+     * @param number previously assigned transaction id
+     * @param transactionType transaction type
+     * @param fromAccountId source account of transaction (can be null for deposit transaction)
+     * @param toAccountId destination account of transaction (can be null for withdraw and split transactions)
+     * @param amount to deposit, withdraw, transfer or split
+     * @param legs payees of a split transaction, null for any other type
+     * @return restored transaction
+     */
+    public static Transaction restore(long number,
+                                      TransactionType transactionType,
+                                      String fromAccountId,
+                                      String toAccountId,
+                                      Integer amount,
+                                      List<Leg> legs) {
+
+        restoreLastTransactionId(number);
+
+        return of(number, transactionType, fromAccountId, toAccountId, amount, legs);
+    }
+
+    /**
+     * Creates a transaction with given id without touching global transaction id, e.g. while reading it from a store
+     *
+     * @param number previously assigned transaction id
+     * @param transactionType transaction type
+     * @param fromAccountId source account of transaction (can be null for deposit transaction)
+     * @param toAccountId destination account of transaction (can be null for withdraw transaction)
+     * @param amount to deposit, withdraw or transfer
+     * @return transaction with given fields
+     */
+    public static Transaction of(long number,
+                                 TransactionType transactionType,
+                                 String fromAccountId,
+                                 String toAccountId,
+                                 Integer amount) {
+
+        return of(number, transactionType, fromAccountId, toAccountId, amount, null);
+    }
+
+    /**
+     * Creates a transaction with legs and given id without touching global transaction id
+     *
+     * @param number previously assigned transaction id
+     * @param transactionType transaction type
+     * @param fromAccountId source account of transaction (can be null for deposit transaction)
+     * @param toAccountId destination account of transaction (can be null for withdraw and split transactions)
+     * @param amount to deposit, withdraw, transfer or split
+     * @param legs payees of a split transaction, null for any other type
+     * @return transaction with given fields
+     */
+    public static Transaction of(long number,
+                                 TransactionType transactionType,
+                                 String fromAccountId,
+                                 String toAccountId,
+                                 Integer amount,
+                                 List<Leg> legs) {
+
+        Transaction transaction = new Transaction(fromAccountId, toAccountId, amount);
+        transaction.transactionType = transactionType;
+        transaction.number = number;
+        transaction.legs = legs;
+
+        return transaction;
+    }
+
+    /**
+     * Returns the number a transaction id has been formatted from
+     *
+     * @param id of a transaction
+     * @return number of the id or -1 if the id has not been formatted by this class
+     */
+    public static long parseId(String id) {
+
+        if (id == null || !id.startsWith(ID_PREFIX)) {
+            return -1;
+        }
+
+        try {
+            long number = Long.parseLong(id.substring(ID_PREFIX.length()));
+            return number > 0 ? number : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns the transaction id formatted from given number, the inverse of {@link #parseId(String)}
+     *
+     * @param number of the id
+     * @return transaction id
+     */
+    public static String formatId(long number) {
+        return ID_PREFIX + number;
+    }
+
+    /**
+     * Moves global transaction id forward to given id if it is behind, e.g. after loading a snapshot
+     * Must be called before any transaction is created concurrently
+     *
+     * @param lastTransactionId a transaction id that has already been used
+     */
+    public static void restoreLastTransactionId(long lastTransactionId) {
+        transactionIds.seed(lastTransactionId);
+    }
+
     /**
      * Read-only getter for latest transaction id
+     * Ids are reserved by threads in blocks, so this is an upper bound of the ids assigned so far
      *
      * @return latest transaction id
      */
-    public static int getLastTransactionId() {
-        return transactionId.get();
+    public static long getLastTransactionId() {
+        return transactionIds.getLastId();
+    }
+
+    /**
+     * Formats the id of this transaction, should only be called at the boundary to clients
+     *
+     * @return formatted id or null if no id is assigned
+     */
+    @Override
+    @JsonGetter
+    public String getId() {
+        return number > 0 ? formatId(number) : null;
+    }
+
+    /**
+     * Parses the id of a transaction read from a client
+     *
+     * @param id formatted by {@link #getId()}, ids of any other format are ignored
+     */
+    @Override
+    @JsonSetter
+    protected void setId(String id) {
+        this.number = Math.max(parseId(id), 0);
+    }
+
+    /**
+     * @return id of this transaction, 0 if no id is assigned
+     */
+    @JsonIgnore
+    public long getNumber() {
+        return number;
     }
 
     @JsonGetter
@@ -124,4 +339,36 @@ public class Transaction extends Entity {
     public Integer getAmount() {
         return amount;
     }
+
+    @JsonProperty
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public List<Leg> getLegs() {
+        return legs;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+        if (this == o) {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        Transaction that = (Transaction) o;
+
+        return number == that.number
+                && transactionType == that.transactionType
+                && Objects.equals(fromAccountId, that.fromAccountId)
+                && Objects.equals(toAccountId, that.toAccountId)
+                && Objects.equals(amount, that.amount)
+                && Objects.equals(legs, that.legs);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(number, transactionType, fromAccountId, toAccountId, amount, legs);
+    }
 }
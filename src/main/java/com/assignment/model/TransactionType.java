@@ -9,5 +9,6 @@ public enum TransactionType {
 
     @JsonProperty("deposit") DEPOSIT,
     @JsonProperty("withdraw") WITHDRAW,
-    @JsonProperty("transfer") TRANSFER;
+    @JsonProperty("transfer") TRANSFER,
+    @JsonProperty("split") SPLIT;
 }
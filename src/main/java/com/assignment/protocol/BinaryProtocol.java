@@ -0,0 +1,83 @@
+package com.assignment.protocol;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary protocol of the {@link BinaryServer}, every frame is prefixed by the length of the rest of it
+ *
+ * Request  : length(4) requestId(4) op(1) amount(4) accountLength(1) otherLength(1) account(n) other(m)
+ * Response : length(4) requestId(4) status(1) value(8)
+ *
+ * Account ids are UTF-8, the account is the one deposited to, withdrawn from, transferred from or queried,
+ *    the other account is the destination of a transfer and empty otherwise
+ * The value of a response is the number of the transaction performed, or the balance queried
+ * Clients may send any number of requests without waiting for their responses, each response carries the id of its request
+ */
+public final class BinaryProtocol {
+
+    public static final byte DEPOSIT = 1;
+    public static final byte WITHDRAW = 2;
+    public static final byte TRANSFER = 3;
+    public static final byte BALANCE = 4;
+
+    public static final int MAX_ID_LENGTH = 255;
+
+    // sizes including the length prefix
+    public static final int REQUEST_HEADER_SIZE = 4 + 4 + 1 + 4 + 1 + 1;
+    public static final int MAX_REQUEST_SIZE = REQUEST_HEADER_SIZE + 2 * MAX_ID_LENGTH;
+    public static final int RESPONSE_SIZE = 4 + 4 + 1 + 8;
+
+    private BinaryProtocol() { }
+
+    /**
+     * Appends a request to given buffer
+     *
+     * @param buffer with at least {@link #MAX_REQUEST_SIZE} bytes remaining
+     * @param requestId echoed by the response
+     * @param op one of {@link #DEPOSIT}, {@link #WITHDRAW}, {@link #TRANSFER} and {@link #BALANCE}
+     * @param account deposited to, withdrawn from, transferred from or queried
+     * @param other destination of a transfer, null otherwise
+     * @param amount of the transaction, 0 for a query
+     */
+    public static void putRequest(ByteBuffer buffer, int requestId, byte op, String account, String other, int amount) {
+
+        byte[] accountBytes = encode(account);
+        byte[] otherBytes = other != null ? encode(other) : new byte[0];
+
+        buffer.putInt(REQUEST_HEADER_SIZE - 4 + accountBytes.length + otherBytes.length)
+                .putInt(requestId)
+                .put(op)
+                .putInt(amount)
+                .put((byte) accountBytes.length)
+                .put((byte) otherBytes.length)
+                .put(accountBytes)
+                .put(otherBytes);
+    }
+
+    /**
+     * Appends a response to given buffer
+     *
+     * @param buffer with at least {@link #RESPONSE_SIZE} bytes remaining
+     * @param requestId of the request answered
+     * @param status of the request
+     * @param value transaction number or balance, 0 if the request failed
+     */
+    public static void putResponse(ByteBuffer buffer, int requestId, BinaryStatus status, long value) {
+        buffer.putInt(RESPONSE_SIZE - 4)
+                .putInt(requestId)
+                .put(status.code())
+                .putLong(value);
+    }
+
+    private static byte[] encode(String id) {
+
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+
+        if (bytes.length == 0 || bytes.length > MAX_ID_LENGTH) {
+            throw new IllegalArgumentException("Account id must take 1 to " + MAX_ID_LENGTH + " bytes: " + id);
+        }
+
+        return bytes;
+    }
+}
@@ -0,0 +1,560 @@
+package com.assignment.protocol;
+
+import com.assignment.dao.AccountDao;
+import com.assignment.model.Account;
+import com.assignment.service.NotDurableException;
+import com.assignment.service.TransactionResult;
+import com.assignment.service.TransactionService;
+import io.dropwizard.lifecycle.Managed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TCP listener speaking the {@link BinaryProtocol} next to the http server, for clients which cannot afford http and JSON
+ * Connections are spread over event loops, each one a thread with its own selector
+ * Requests are decoded by the event loop from a buffer kept per connection and handed to a worker executor,
+ *    which performs the requests of a connection one after another by the asynchronous methods of {@link TransactionService}
+ * Workers take the locks of the ledger and append to the journal, but do not wait for the journal to force its records,
+ *    so an event loop never blocks on either; responses are put into an output buffer kept per connection
+ *    by whichever thread completes them and written by the event loop, many of them with a single write
+ * A connection stops being read from while it has as many requests in flight as its output buffer holds responses
+ */
+public class BinaryServer implements Managed {
+
+    private static final Logger log = LoggerFactory.getLogger(BinaryServer.class);
+
+    // holds many pipelined requests, at least one of the largest
+    private static final int INPUT_BUFFER_SIZE = 64 * 1024;
+
+    private final int port;
+    private final int maxInFlight;
+    private final AccountDao accountDao;
+    private final TransactionService transactionService;
+    private final Executor workers;
+    private final EventLoop[] loops;
+
+    private final AtomicInteger connections = new AtomicInteger();
+    private final LongAdder requests = new LongAdder();
+
+    private ServerSocketChannel serverChannel;
+
+    /**
+     * @param port to listen on, 0 for any free port
+     * @param eventLoops number of threads serving connections
+     * @param maxInFlight number of requests of a connection in flight before it is not read from any more
+     * @param accountDao to look accounts up in
+     * @param transactionService performing the transactions
+     * @param workers performing the decoded requests
+     */
+    public BinaryServer(int port, int eventLoops, int maxInFlight, AccountDao accountDao, TransactionService transactionService,
+                        Executor workers) {
+
+        if (eventLoops < 1 || maxInFlight < 1) {
+            throw new IllegalArgumentException("Event loops and requests in flight must be positive: "
+                    + eventLoops + ", " + maxInFlight);
+        }
+
+        this.port = port;
+        this.maxInFlight = maxInFlight;
+        this.accountDao = accountDao;
+        this.transactionService = transactionService;
+        this.workers = workers;
+        this.loops = new EventLoop[eventLoops];
+    }
+
+    @Override
+    public void start() throws IOException {
+
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.configureBlocking(false);
+        serverChannel.bind(new InetSocketAddress(port));
+
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new EventLoop(i);
+        }
+
+        // the first loop accepts connections for all of them
+        serverChannel.register(loops[0].selector, SelectionKey.OP_ACCEPT);
+
+        for (EventLoop loop : loops) {
+            loop.start();
+        }
+
+        log.info("Binary protocol listening on port {}", getPort());
+    }
+
+    /**
+     * Closes every connection, responses of requests still in flight are not sent
+     *
+     * @throws Exception if interrupted while waiting for an event loop or the listener cannot be closed
+     */
+    @Override
+    public void stop() throws Exception {
+
+        for (EventLoop loop : loops) {
+            if (loop != null) {
+                loop.stop();
+            }
+        }
+
+        if (serverChannel != null) {
+            serverChannel.close();
+        }
+    }
+
+    /**
+     * @return port listened on, once started
+     * @throws IOException if the port cannot be determined
+     */
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    /**
+     * @return number of open connections
+     */
+    public int getConnections() {
+        return connections.get();
+    }
+
+    /**
+     * @return number of requests decoded
+     */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    private final class EventLoop implements Runnable {
+
+        private final int index;
+        private final Selector selector;
+
+        // connections accepted by the first loop for this one
+        private final Queue<SocketChannel> accepted = new ConcurrentLinkedQueue<>();
+
+        // connections with responses to be written
+        private final Queue<Connection> flushes = new ConcurrentLinkedQueue<>();
+
+        // next loop a connection is handed to, only used by the first loop
+        private int next;
+
+        private volatile boolean running;
+        private Thread thread;
+
+        EventLoop(int index) throws IOException {
+            this.index = index;
+            this.selector = Selector.open();
+        }
+
+        void start() {
+            running = true;
+            thread = new Thread(this, "binary-loop-" + index);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void stop() throws InterruptedException {
+
+            running = false;
+
+            if (thread != null) {
+                selector.wakeup();
+                thread.join();
+            }
+        }
+
+        void flushLater(Connection connection) {
+
+            flushes.offer(connection);
+
+            // the loop itself flushes once it has handled its selected keys
+            if (Thread.currentThread() != thread) {
+                selector.wakeup();
+            }
+        }
+
+        @Override
+        public void run() {
+
+            while (running) {
+                try {
+                    selector.select();
+
+                    SocketChannel channel;
+
+                    while ((channel = accepted.poll()) != null) {
+                        register(channel);
+                    }
+
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+
+                    while (keys.hasNext()) {
+
+                        SelectionKey key = keys.next();
+                        keys.remove();
+
+                        if (!key.isValid()) {
+                            continue;
+                        }
+
+                        if (key.isAcceptable()) {
+                            accept();
+                            continue;
+                        }
+
+                        Connection connection = (Connection) key.attachment();
+
+                        if (key.isReadable()) {
+                            connection.read();
+                        }
+
+                        if (key.isValid() && key.isWritable()) {
+                            connection.flush();
+                        }
+                    }
+
+                    Connection connection;
+
+                    while ((connection = flushes.poll()) != null) {
+                        connection.flushQueued.set(false);
+                        connection.flush();
+                    }
+                } catch (IOException e) {
+                    log.warn("Binary protocol event loop {} failed", index, e);
+                }
+            }
+
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof Connection) {
+                    ((Connection) key.attachment()).close();
+                }
+            }
+
+            try {
+                selector.close();
+            } catch (IOException e) {
+                log.warn("Binary protocol event loop {} could not be closed", index, e);
+            }
+        }
+
+        private void accept() throws IOException {
+
+            SocketChannel channel;
+
+            while ((channel = serverChannel.accept()) != null) {
+
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+                EventLoop loop = loops[next++ % loops.length];
+                loop.accepted.offer(channel);
+                loop.selector.wakeup();
+            }
+        }
+
+        private void register(SocketChannel channel) throws IOException {
+
+            Connection connection = new Connection(this, channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            connections.incrementAndGet();
+        }
+    }
+
+    private final class Connection {
+
+        private final EventLoop loop;
+        private final SocketChannel channel;
+        private SelectionKey key;
+
+        // only touched by the event loop
+        private final ByteBuffer in = ByteBuffer.allocate(INPUT_BUFFER_SIZE);
+        private long dispatched;
+        private long sentBytes;
+        private boolean paused;
+
+        // room for the response of every request in flight, guarded by itself
+        private final ByteBuffer out = ByteBuffer.allocate(maxInFlight * BinaryProtocol.RESPONSE_SIZE);
+        private final AtomicBoolean flushQueued = new AtomicBoolean();
+
+        // decoded requests performed in order by one worker at a time
+        private final Queue<Runnable> queued = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean performing = new AtomicBoolean();
+
+        private volatile boolean closed;
+
+        Connection(EventLoop loop, SocketChannel channel) {
+            this.loop = loop;
+            this.channel = channel;
+        }
+
+        void read() {
+
+            int read;
+
+            try {
+                read = channel.read(in);
+            } catch (IOException e) {
+                close();
+                return;
+            }
+
+            if (read < 0) {
+                close();
+                return;
+            }
+
+            process();
+        }
+
+        // decodes and dispatches the complete frames read so far, as long as there is room for their responses
+        private void process() {
+
+            in.flip();
+
+            while (in.remaining() >= 4) {
+
+                int start = in.position();
+                int length = in.getInt(start);
+
+                if (length < BinaryProtocol.REQUEST_HEADER_SIZE - 4 || length > BinaryProtocol.MAX_REQUEST_SIZE - 4) {
+                    log.debug("Closing binary connection after a frame of {} bytes", length);
+                    close();
+                    return;
+                }
+
+                if (in.remaining() < 4 + length) {
+                    break;
+                }
+
+                if (inFlight() >= maxInFlight) {
+                    pause();
+                    break;
+                }
+
+                in.position(start + 4);
+
+                int requestId = in.getInt();
+                byte op = in.get();
+                int amount = in.getInt();
+                int accountLength = in.get() & 0xff;
+                int otherLength = in.get() & 0xff;
+
+                if (BinaryProtocol.REQUEST_HEADER_SIZE - 4 + accountLength + otherLength != length) {
+                    log.debug("Closing binary connection after a frame with ids of {} and {} bytes", accountLength, otherLength);
+                    close();
+                    return;
+                }
+
+                String accountId = id(accountLength);
+                String otherId = id(otherLength);
+
+                dispatched++;
+                perform(() -> dispatch(requestId, op, accountId, otherId, amount));
+            }
+
+            in.compact();
+        }
+
+        private String id(int length) {
+
+            if (length == 0) {
+                return null;
+            }
+
+            String id = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+
+            return id;
+        }
+
+        private void perform(Runnable request) {
+
+            queued.offer(request);
+
+            if (performing.compareAndSet(false, true)) {
+                submit();
+            }
+        }
+
+        private void submit() {
+            try {
+                workers.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // workers are shut down with the application, the server is stopping and answers no more requests
+                log.debug("Dropping binary requests of a stopping server", e);
+                queued.clear();
+                performing.set(false);
+            }
+        }
+
+        private void drain() {
+
+            Runnable request;
+
+            while ((request = queued.poll()) != null) {
+                request.run();
+            }
+
+            performing.set(false);
+
+            // a request may have been queued after the last poll but before the flag was cleared
+            if (!queued.isEmpty() && performing.compareAndSet(false, true)) {
+                submit();
+            }
+        }
+
+        private void dispatch(int requestId, byte op, String accountId, String otherId, int amount) {
+
+            requests.increment();
+
+            if (accountId == null || op != BinaryProtocol.BALANCE && amount < 1 || (op == BinaryProtocol.TRANSFER) != (otherId != null)) {
+                respond(requestId, BinaryStatus.BAD_REQUEST, 0);
+                return;
+            }
+
+            Account account = accountDao.get(accountId);
+
+            if (account == null) {
+                respond(requestId, BinaryStatus.NOT_FOUND, 0);
+                return;
+            }
+
+            try {
+                switch (op) {
+                    case BinaryProtocol.BALANCE:
+                        respond(requestId, BinaryStatus.OK, account.getBalance());
+                        break;
+                    case BinaryProtocol.DEPOSIT:
+                        complete(requestId, transactionService.depositAsync(account, amount));
+                        break;
+                    case BinaryProtocol.WITHDRAW:
+                        complete(requestId, transactionService.withdrawAsync(account, amount));
+                        break;
+                    case BinaryProtocol.TRANSFER:
+                        Account other = accountDao.get(otherId);
+
+                        if (other == null) {
+                            respond(requestId, BinaryStatus.NOT_FOUND, 0);
+                        } else {
+                            complete(requestId, transactionService.transferAsync(account, other, amount));
+                        }
+                        break;
+                    default:
+                        respond(requestId, BinaryStatus.BAD_REQUEST, 0);
+                }
+            } catch (RuntimeException e) {
+                // the ledger undoes a change before throwing if its transaction cannot be journaled,
+                //    so the balance is as before, but the client only learns that the request failed
+                log.warn("Binary request {} failed", requestId, e);
+                respond(requestId, BinaryStatus.ERROR, 0);
+            }
+        }
+
+        private void complete(int requestId, CompletionStage<TransactionResult> stage) {
+            stage.whenComplete((result, e) -> {
+
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+
+                if (cause instanceof NotDurableException) {
+                    respond(requestId, BinaryStatus.NOT_DURABLE, ((NotDurableException) cause).getTransaction().getNumber());
+                } else if (e != null) {
+                    respond(requestId, BinaryStatus.ERROR, 0);
+                } else if (result.isRejected()) {
+                    respond(requestId, BinaryStatus.of(result.getRejection()), 0);
+                } else {
+                    respond(requestId, BinaryStatus.OK, result.getTransaction().getNumber());
+                }
+            });
+        }
+
+        // may be called by any thread, there is room for the response as its request is in flight
+        private void respond(int requestId, BinaryStatus status, long value) {
+
+            synchronized (out) {
+                BinaryProtocol.putResponse(out, requestId, status, value);
+            }
+
+            if (!flushQueued.getAndSet(true)) {
+                loop.flushLater(this);
+            }
+        }
+
+        void flush() {
+
+            if (closed) {
+                return;
+            }
+
+            try {
+                synchronized (out) {
+                    out.flip();
+                    sentBytes += channel.write(out);
+
+                    boolean pending = out.hasRemaining();
+
+                    out.compact();
+
+                    // the rest is written once the socket takes more
+                    key.interestOps(pending
+                            ? key.interestOps() | SelectionKey.OP_WRITE
+                            : key.interestOps() & ~SelectionKey.OP_WRITE);
+                }
+            } catch (IOException e) {
+                close();
+                return;
+            }
+
+            if (paused && inFlight() < maxInFlight) {
+                paused = false;
+                key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+                process();
+            }
+        }
+
+        private long inFlight() {
+            return dispatched - sentBytes / BinaryProtocol.RESPONSE_SIZE;
+        }
+
+        private void pause() {
+            paused = true;
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+        }
+
+        void close() {
+
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+            key.cancel();
+            connections.decrementAndGet();
+
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.debug("Binary connection could not be closed", e);
+            }
+        }
+    }
+}
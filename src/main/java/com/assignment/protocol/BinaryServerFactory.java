@@ -0,0 +1,114 @@
+package com.assignment.protocol;
+
+import com.assignment.dao.AccountDao;
+import com.assignment.service.TransactionService;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.setup.Environment;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Configuration of the {@link BinaryServer}
+ * The binary protocol is disabled unless explicitly enabled
+ */
+public class BinaryServerFactory {
+
+    private boolean enabled = false;
+
+    @Min(0)
+    @Max(65535)
+    private int port = 8092;
+
+    @Min(1)
+    private int eventLoops = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    @Min(1)
+    private int maxInFlight = 1024;
+
+    @Min(1)
+    private int workers = Runtime.getRuntime().availableProcessors();
+
+    @JsonProperty
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @JsonProperty
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @JsonProperty
+    public int getPort() {
+        return port;
+    }
+
+    @JsonProperty
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    @JsonProperty
+    public int getEventLoops() {
+        return eventLoops;
+    }
+
+    @JsonProperty
+    public void setEventLoops(int eventLoops) {
+        this.eventLoops = eventLoops;
+    }
+
+    @JsonProperty
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    @JsonProperty
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    @JsonProperty
+    public int getWorkers() {
+        return workers;
+    }
+
+    @JsonProperty
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    /**
+     * Creates the server unless disabled, ties it to the lifecycle of the application and registers its metrics
+     *
+     * @param environment of the application
+     * @param accountDao to look accounts up in
+     * @param transactionService performing the transactions
+     * @return server of the binary protocol, null if disabled
+     */
+    public BinaryServer build(Environment environment, AccountDao accountDao, TransactionService transactionService) {
+
+        if (!enabled) {
+            return null;
+        }
+
+        ExecutorService executor = environment.lifecycle()
+                .executorService("binary-worker-%d")
+                .minThreads(workers)
+                .maxThreads(workers)
+                .build();
+        BinaryServer server = new BinaryServer(port, eventLoops, maxInFlight, accountDao, transactionService, executor);
+
+        environment.lifecycle().manage(server);
+        environment.metrics().register(MetricRegistry.name(BinaryServer.class, "connections"),
+                (Gauge<Integer>) server::getConnections);
+        environment.metrics().register(MetricRegistry.name(BinaryServer.class, "requests"),
+                (Gauge<Long>) server::getRequests);
+
+        return server;
+    }
+}
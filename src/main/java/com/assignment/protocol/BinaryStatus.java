@@ -0,0 +1,49 @@
+package com.assignment.protocol;
+
+import com.assignment.service.Rejection;
+
+/**
+ * Outcome of a request of the {@link BinaryProtocol}, sent as the byte of its ordinal
+ */
+public enum BinaryStatus {
+
+    OK,
+    NOT_FOUND,
+    INSUFFICIENT_FUNDS,
+    BALANCE_LIMIT,
+    SAME_ACCOUNT,
+    BAD_REQUEST,
+    ERROR,
+    // performed, its balances have changed, but the journal failed to make it durable
+    NOT_DURABLE;
+
+    private static final BinaryStatus[] VALUES = values();
+
+    public byte code() {
+        return (byte) ordinal();
+    }
+
+    /**
+     * @param code sent by the server
+     * @return status of given code, {@link #ERROR} if unknown
+     */
+    public static BinaryStatus of(byte code) {
+        return code >= 0 && code < VALUES.length ? VALUES[code] : ERROR;
+    }
+
+    /**
+     * @param rejection of a transaction
+     * @return status a transaction rejected for given reason is answered with
+     */
+    public static BinaryStatus of(Rejection rejection) {
+
+        switch (rejection) {
+            case INSUFFICIENT_FUNDS:
+                return INSUFFICIENT_FUNDS;
+            case BALANCE_LIMIT:
+                return BALANCE_LIMIT;
+            default:
+                return SAME_ACCOUNT;
+        }
+    }
+}
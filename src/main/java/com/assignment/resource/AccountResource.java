@@ -2,12 +2,18 @@ package com.assignment.resource;
 
 import com.assignment.dao.AccountDao;
 import com.assignment.model.Account;
+import com.assignment.model.Page;
+import com.assignment.model.Transaction;
+import com.assignment.service.TransactionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import javax.validation.Valid;
 import javax.ws.rs.*;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
-import java.util.Collection;
 
 /**
  * Contains all endpoints for account based calls
@@ -18,38 +24,88 @@ import java.util.Collection;
 public class AccountResource extends ResourceBase {
 
     private final AccountDao accountDao;
+    private final TransactionService transactionService;
 
-    public AccountResource(AccountDao accountDao) {
+    public AccountResource(AccountDao accountDao, TransactionService transactionService, ObjectMapper objectMapper) {
+        super(objectMapper);
         this.accountDao = accountDao;
+        this.transactionService = transactionService;
     }
 
     @GET
     @Path("/all")
-    public Response getAll() {
+    public Response getAll(final @QueryParam("after") String after,
+                           final @QueryParam("limit") String limit) {
 
-        log.info("Request for all accounts..");
+        if (after == null && limit == null) {
 
-        Collection<Account> result = accountDao.getAll();
+            log.debug("Request for all accounts..");
 
-        return done(result);
+            return streamArray(accountDao.getAll());
+        }
+
+        log.debug("Request for accounts after: {}", after);
+
+        Page<Account> result = accountDao.getPage(cursor(after), limit(limit));
+
+        return ok(result);
+    }
+
+    @GET
+    @Path("/all")
+    @Produces(NDJSON_PRODUCED)
+    public Response streamAll() {
+
+        log.debug("Request for streaming all accounts..");
+
+        return streamLines(accountDao.getAll());
     }
 
     @GET
     @Path("/id/{id}")
-    public Response get(final @PathParam("id") String id) {
+    public Response get(final @PathParam("id") String id, final @Context Request request) {
 
-        log.info("Request for account with id: " + id);
+        log.debug("Request for account with id: {}", id);
+
+        Account account = accountDao.get(id);
+
+        if (account == null) {
+            return error(Response.Status.NOT_FOUND, "No account found with id " + id);
+        }
+
+        // a single lock-free read, the balance tags the representation since the id is part of the path
+        Account result = account.snapshot();
+
+        return tagged(request, result, new EntityTag(result.getBalance().toString()));
+    }
+
+    @GET
+    @Path("/id/{id}/transactions")
+    public Response getTransactions(final @PathParam("id") String id,
+                                    final @QueryParam("after") String after,
+                                    final @QueryParam("limit") String limit) {
+
+        log.debug("Request for transactions of account with id: {} after: {}", id, after);
+
+        int cursor = cursor(after);
+        int size = limit(limit);
+
+        Account account = accountDao.get(id);
+
+        if (account == null) {
+            return error(Response.Status.NOT_FOUND, "No account found with id " + id);
+        }
 
-        Account result = accountDao.get(id);
+        Page<Transaction> result = transactionService.getTransactions(account, cursor, size);
 
-        return result != null ? ok(result) : error(Response.Status.NOT_FOUND, "No account found with id " + id);
+        return ok(result);
     }
 
     @POST
     @Path("/save")
     public Response save(@Valid Account account) {
 
-        log.info("Request for save an " + account);
+        log.debug("Request for save an {}", account);
 
         if (account == null) {
             return error(Response.Status.BAD_REQUEST, "Could not store null account");
@@ -63,4 +119,4 @@ public class AccountResource extends ResourceBase {
 
         return ok(account);
     }
-}
\ No newline at end of file
+}
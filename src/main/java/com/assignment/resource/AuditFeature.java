@@ -0,0 +1,106 @@
+package com.assignment.resource;
+
+import com.assignment.model.Transaction;
+import com.assignment.service.AuditLog;
+import io.dropwizard.jersey.errors.ErrorMessage;
+
+import javax.ws.rs.Path;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.DynamicFeature;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.FeatureContext;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Records the requests of every resource method in the {@link AuditLog}, at the rate configured for its endpoint
+ * The rate of an endpoint is looked up once when the application starts, endpoints with a rate of 0 are not filtered at all
+ */
+@Provider
+public class AuditFeature implements DynamicFeature {
+
+    private final AuditLog auditLog;
+
+    public AuditFeature(AuditLog auditLog) {
+        this.auditLog = auditLog;
+    }
+
+    @Override
+    public void configure(ResourceInfo resourceInfo, FeatureContext context) {
+
+        String endpoint = pathOf(resourceInfo);
+        double rate = auditLog.rateOf(endpoint);
+
+        if (rate > 0) {
+            context.register(new AuditFilter(auditLog, endpoint, rate));
+        }
+    }
+
+    /**
+     * @param resourceInfo of a resource method
+     * @return path template of the resource method, e.g. /account/id/{id}
+     */
+    static String pathOf(ResourceInfo resourceInfo) {
+
+        Path classPath = resourceInfo.getResourceClass().getAnnotation(Path.class);
+        Path methodPath = resourceInfo.getResourceMethod().getAnnotation(Path.class);
+
+        return join(classPath != null ? classPath.value() : "", methodPath != null ? methodPath.value() : "");
+    }
+
+    private static String join(String parent, String child) {
+
+        String path = (parent.startsWith("/") ? "" : "/") + parent;
+
+        if (child.isEmpty()) {
+            return path;
+        }
+
+        return path.endsWith("/") || child.startsWith("/") ? path + child : path + "/" + child;
+    }
+
+    /**
+     * Times sampled requests of a single endpoint and records them once their response is ready
+     * Runs on the thread completing the response, which is not the request thread for suspended requests
+     */
+    static class AuditFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+        private static final String STARTED = AuditFilter.class.getName() + ".started";
+
+        private final AuditLog auditLog;
+        private final String endpoint;
+        private final double rate;
+
+        AuditFilter(AuditLog auditLog, String endpoint, double rate) {
+            this.auditLog = auditLog;
+            this.endpoint = endpoint;
+            this.rate = rate;
+        }
+
+        @Override
+        public void filter(ContainerRequestContext requestContext) {
+            if (AuditLog.isSampled(rate)) {
+                requestContext.setProperty(STARTED, System.nanoTime());
+            }
+        }
+
+        @Override
+        public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+
+            Object started = requestContext.getProperty(STARTED);
+
+            if (started == null) {
+                return;
+            }
+
+            Object entity = responseContext.getEntity();
+
+            auditLog.record(requestContext.getMethod(), endpoint, responseContext.getStatus(),
+                    System.nanoTime() - (Long) started,
+                    entity instanceof Transaction ? (Transaction) entity : null,
+                    entity instanceof ErrorMessage ? ((ErrorMessage) entity).getMessage() : null);
+        }
+    }
+}
@@ -1,11 +1,24 @@
 package com.assignment.resource;
 
+import com.assignment.service.Rejection;
+import com.assignment.service.TransactionResult;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.dropwizard.jackson.Jackson;
+import io.dropwizard.jersey.errors.ErrorMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
 
 /***
  * Base class for resources
@@ -14,6 +27,36 @@ class ResourceBase {
 
     static final Logger log = LoggerFactory.getLogger(AccountResource.class);
 
+    // newline delimited JSON, preferred less than JSON when a client accepts both
+    static final String NDJSON = "application/x-ndjson";
+    static final String NDJSON_PRODUCED = NDJSON + ";qs=0.5";
+
+    // not part of Response.Status before JAX-RS 2.1
+    static final int TOO_MANY_REQUESTS = 429;
+
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1000;
+
+    // error entities of rejected transactions, built once
+    private static final ErrorMessage[] REJECTIONS = new ErrorMessage[Rejection.values().length];
+
+    static {
+        for (Rejection rejection : Rejection.values()) {
+            REJECTIONS[rejection.ordinal()] = new ErrorMessage(Status.BAD_REQUEST.getStatusCode(), rejection.getMessage());
+        }
+    }
+
+    // writes items one by one, the output is flushed by the container whenever its buffer is full
+    private final ObjectWriter itemWriter;
+
+    ResourceBase() {
+        this(Jackson.newObjectMapper());
+    }
+
+    ResourceBase(ObjectMapper objectMapper) {
+        this.itemWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
     Response done(Object entity) {
         return entity != null ? ok(entity) : noContent();
     }
@@ -22,11 +65,146 @@ class ResourceBase {
         return status(Status.OK, entity);
     }
 
+    /**
+     * Answers with the entity unless the client already holds the representation with given tag
+     *
+     * @param request to evaluate the preconditions of
+     * @param entity to be answered
+     * @param tag of the representation of the entity
+     * @return 200 with the entity and its tag, or 304 without entity
+     */
+    Response tagged(Request request, Object entity, EntityTag tag) {
+
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+
+        return notModified != null ? notModified.build() : Response.ok(entity).tag(tag).build();
+    }
+
+    /**
+     * @param result of a transaction
+     * @return 200 with the performed transaction, or 400 with the reason of the rejection
+     */
+    Response respond(TransactionResult result) {
+        return result.isRejected() ? rejected(result.getRejection()) : ok(result.getTransaction());
+    }
+
+    /**
+     * Answers a rejected transaction like {@link #error(Status, String)} without throwing, logging
+     *    or building its error entity, which are the costs of an overdraft storm otherwise
+     *
+     * @param rejection reason of the rejection
+     * @return 400 with the shared error entity of the rejection
+     */
+    Response rejected(Rejection rejection) {
+
+        log.debug("{} - {}", Status.BAD_REQUEST, rejection);
+
+        return Response.status(Status.BAD_REQUEST)
+                .type(MediaType.APPLICATION_JSON_TYPE)
+                .entity(REJECTIONS[rejection.ordinal()])
+                .build();
+    }
+
     Response error(Status status, String errorMessage) {
-        log.warn(status + " - " + errorMessage);
+        log.debug("{} - {}", status, errorMessage);
         throw new WebApplicationException(errorMessage, status);
     }
 
+    /**
+     * Sheds a request the server has no capacity for without throwing or logging, so shedding stays cheap under overload
+     *
+     * @param retryAfterSeconds after which the client may retry
+     * @return 429 with Retry-After and no entity
+     */
+    Response tooManyRequests(long retryAfterSeconds) {
+
+        return Response.status(TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds)
+                .build();
+    }
+
+    /**
+     * Writes given items as a JSON array while iterating them, so they are never held in memory all at once
+     *
+     * @param items to be written
+     * @return response streaming the items
+     */
+    Response streamArray(Iterable<?> items) {
+
+        StreamingOutput output = stream -> {
+
+            JsonGenerator generator = itemWriter.getFactory().createGenerator(stream);
+
+            generator.writeStartArray();
+
+            for (Object item : items) {
+                itemWriter.writeValue(generator, item);
+            }
+
+            generator.writeEndArray();
+            generator.flush();
+        };
+
+        return Response.ok(output, MediaType.APPLICATION_JSON_TYPE).build();
+    }
+
+    /**
+     * Writes given items as newline delimited JSON while iterating them, one item per line
+     *
+     * @param items to be written
+     * @return response streaming the items
+     */
+    Response streamLines(Iterable<?> items) {
+
+        StreamingOutput output = stream -> {
+
+            JsonGenerator generator = itemWriter.getFactory().createGenerator(stream).setRootValueSeparator(null);
+
+            for (Object item : items) {
+                itemWriter.writeValue(generator, item);
+                generator.writeRaw('\n');
+            }
+
+            generator.flush();
+        };
+
+        return Response.ok(output, NDJSON).build();
+    }
+
+    /**
+     * @param after cursor query parameter, may be null
+     * @return position the cursor points to, -1 if there is no cursor
+     */
+    int cursor(String after) {
+
+        if (after == null) {
+            return -1;
+        }
+
+        int cursor = parse(after);
+
+        if (cursor < 0) {
+            error(Status.BAD_REQUEST, "Invalid cursor " + after);
+        }
+
+        return cursor;
+    }
+
+    /**
+     * @param limit page size query parameter, may be null
+     * @return requested page size, {@link #DEFAULT_PAGE_SIZE} if there is no limit
+     */
+    int limit(String limit) {
+
+        int size = limit == null ? DEFAULT_PAGE_SIZE : parse(limit);
+
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            error(Status.BAD_REQUEST, "Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        return size;
+    }
+
     private Response noContent() {
         return status(Status.NO_CONTENT);
     }
@@ -38,4 +216,14 @@ class ResourceBase {
     private Response status(Status status, Object entity) {
         return Response.status(status).entity(entity).build();
     }
+
+    // returns -1 for anything but a non-negative int
+    private static int parse(String value) {
+
+        try {
+            return Math.max(Integer.parseInt(value), -1);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
 }
@@ -2,15 +2,34 @@ package com.assignment.resource;
 
 import com.assignment.dao.AccountDao;
 import com.assignment.model.Account;
+import com.assignment.model.Batch;
+import com.assignment.model.BatchResult;
+import com.assignment.model.Leg;
+import com.assignment.model.Page;
 import com.assignment.model.Transaction;
+import com.assignment.service.AdmissionControl;
+import com.assignment.service.AdmissionException;
+import com.assignment.service.IdempotencyCache;
 import com.assignment.service.TransactionException;
+import com.assignment.service.TransactionResult;
 import com.assignment.service.TransactionService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import javax.validation.Valid;
 import javax.ws.rs.*;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
-import java.util.Collection;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Contains all endpoints for transaction based calls
@@ -20,28 +39,61 @@ import java.util.Collection;
 @Consumes(MediaType.APPLICATION_JSON)
 public class TransactionResource extends ResourceBase {
 
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+
     private final TransactionService transactionService;
     private final AccountDao accountDao;
-
-    public TransactionResource(TransactionService transactionService, AccountDao accountDao) {
+    private final ObjectMapper objectMapper;
+    private final IdempotencyCache idempotencyCache;
+    private final AdmissionControl admissionControl;
+
+    public TransactionResource(TransactionService transactionService,
+                               AccountDao accountDao,
+                               ObjectMapper objectMapper,
+                               IdempotencyCache idempotencyCache,
+                               AdmissionControl admissionControl) {
+        super(objectMapper);
         this.transactionService = transactionService;
         this.accountDao = accountDao;
+        this.objectMapper = objectMapper;
+        this.idempotencyCache = idempotencyCache;
+        this.admissionControl = admissionControl;
     }
 
     @GET
     @Path("/all")
-    public Response getAll() {
+    public Response getAll(final @QueryParam("after") String after,
+                           final @QueryParam("limit") String limit) {
 
-        log.info("Request for all transactions..");
+        if (after == null && limit == null) {
+
+            log.debug("Request for all transactions..");
+
+            return streamArray(transactionService.getAllTransactions());
+        }
 
-        Collection<Transaction> result = transactionService.getAllTransactions();
+        log.debug("Request for transactions after: {}", after);
 
-        return done(result);
+        Page<Transaction> result = transactionService.getAllTransactions(cursor(after), limit(limit));
+
+        return ok(result);
+    }
+
+    @GET
+    @Path("/all")
+    @Produces(NDJSON_PRODUCED)
+    public Response streamAll() {
+
+        log.debug("Request for streaming all transactions..");
+
+        return streamLines(transactionService.getAllTransactions());
     }
 
     @POST
     @Path("/deposit")
-    public Response deposit(@Valid Transaction transaction) {
+    public Response deposit(@HeaderParam(IDEMPOTENCY_KEY) String idempotencyKey, @Valid Transaction transaction) {
 
         if (transaction == null) {
             return error(Response.Status.BAD_REQUEST, "Null transaction!");
@@ -50,7 +102,7 @@ public class TransactionResource extends ResourceBase {
         String accountId = transaction.getToAccountId(); // deposit TO
         Integer amount = transaction.getAmount();
 
-        log.info("Request for deposit " + amount + " to " + accountId);
+        log.debug("Request for deposit {} to {}", amount, accountId);
 
         Account account = accountDao.get(accountId);
 
@@ -60,10 +112,10 @@ public class TransactionResource extends ResourceBase {
 
         try {
 
-            transaction = transactionService.deposit(account, amount);
-
-            return ok(transaction);
+            return respond(performOnce(idempotencyKey, "deposit", transaction, () -> admitted(() -> transactionService.deposit(account, amount), accountId)));
 
+        } catch (AdmissionException e) {
+            return tooManyRequests(e.getRetryAfterSeconds());
         } catch (TransactionException e) {
             return error(Response.Status.BAD_REQUEST, e.getMessage());
         }
@@ -71,7 +123,7 @@ public class TransactionResource extends ResourceBase {
 
     @POST
     @Path("/withdraw")
-    public Response withdraw(@Valid Transaction transaction) {
+    public Response withdraw(@HeaderParam(IDEMPOTENCY_KEY) String idempotencyKey, @Valid Transaction transaction) {
 
         if (transaction == null) {
             return error(Response.Status.BAD_REQUEST, "Null transaction!");
@@ -80,7 +132,7 @@ public class TransactionResource extends ResourceBase {
         String accountId = transaction.getFromAccountId(); // Withdraw FROM
         Integer amount = transaction.getAmount();
 
-        log.info("Request for withdraw " + amount + " of " + accountId);
+        log.debug("Request for withdraw {} of {}", amount, accountId);
 
         Account account = accountDao.get(accountId);
 
@@ -90,10 +142,10 @@ public class TransactionResource extends ResourceBase {
 
         try {
 
-            transaction = transactionService.withdraw(account, amount);
-
-            return ok(transaction);
+            return respond(performOnce(idempotencyKey, "withdraw", transaction, () -> admitted(() -> transactionService.withdraw(account, amount), accountId)));
 
+        } catch (AdmissionException e) {
+            return tooManyRequests(e.getRetryAfterSeconds());
         } catch (TransactionException e) {
             return error(Response.Status.BAD_REQUEST, e.getMessage());
         }
@@ -101,7 +153,7 @@ public class TransactionResource extends ResourceBase {
 
     @POST
     @Path("/transfer")
-    public Response transfer(@Valid Transaction transaction) {
+    public Response transfer(@HeaderParam(IDEMPOTENCY_KEY) String idempotencyKey, @Valid Transaction transaction) {
 
         if (transaction == null) {
             return error(Response.Status.BAD_REQUEST, "Null transaction!");
@@ -111,7 +163,7 @@ public class TransactionResource extends ResourceBase {
         String toAccountId = transaction.getToAccountId();
         Integer amount = transaction.getAmount();
 
-        log.info("Request for transfer from " + fromAccountId + " to " + toAccountId + " amount of " + amount);
+        log.debug("Request for transfer from {} to {} amount of {}", fromAccountId, toAccountId, amount);
 
         Account from = accountDao.get(fromAccountId);
 
@@ -127,12 +179,386 @@ public class TransactionResource extends ResourceBase {
 
         try {
 
-            transaction = transactionService.transfer(from, to, amount);
+            return respond(performOnce(idempotencyKey, "transfer", transaction,
+                    () -> admitted(() -> transactionService.transfer(from, to, amount), fromAccountId, toAccountId)));
+
+        } catch (AdmissionException e) {
+            return tooManyRequests(e.getRetryAfterSeconds());
+        } catch (TransactionException e) {
+            return error(Response.Status.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @POST
+    @Path("/async/deposit")
+    public void depositAsync(@HeaderParam(IDEMPOTENCY_KEY) String idempotencyKey, @Valid Transaction transaction,
+                             @Suspended AsyncResponse asyncResponse) {
+
+        if (transaction == null) {
+            error(Response.Status.BAD_REQUEST, "Null transaction!");
+        }
+
+        String accountId = transaction.getToAccountId(); // deposit TO
+        Integer amount = transaction.getAmount();
+
+        log.debug("Request for async deposit {} to {}", amount, accountId);
+
+        Account account = found(accountId);
+
+        resume(asyncResponse, () -> performOnceAsync(idempotencyKey, "deposit", transaction,
+                () -> admittedAsync(() -> transactionService.depositAsync(account, amount), accountId)));
+    }
+
+    @POST
+    @Path("/async/withdraw")
+    public void withdrawAsync(@HeaderParam(IDEMPOTENCY_KEY) String idempotencyKey, @Valid Transaction transaction,
+                              @Suspended AsyncResponse asyncResponse) {
+
+        if (transaction == null) {
+            error(Response.Status.BAD_REQUEST, "Null transaction!");
+        }
+
+        String accountId = transaction.getFromAccountId(); // Withdraw FROM
+        Integer amount = transaction.getAmount();
+
+        log.debug("Request for async withdraw {} of {}", amount, accountId);
+
+        Account account = found(accountId);
+
+        resume(asyncResponse, () -> performOnceAsync(idempotencyKey, "withdraw", transaction,
+                () -> admittedAsync(() -> transactionService.withdrawAsync(account, amount), accountId)));
+    }
+
+    @POST
+    @Path("/async/transfer")
+    public void transferAsync(@HeaderParam(IDEMPOTENCY_KEY) String idempotencyKey, @Valid Transaction transaction,
+                              @Suspended AsyncResponse asyncResponse) {
+
+        if (transaction == null) {
+            error(Response.Status.BAD_REQUEST, "Null transaction!");
+        }
+
+        String fromAccountId = transaction.getFromAccountId();
+        String toAccountId = transaction.getToAccountId();
+        Integer amount = transaction.getAmount();
+
+        log.debug("Request for async transfer from {} to {} amount of {}", fromAccountId, toAccountId, amount);
+
+        Account from = found(fromAccountId);
+        Account to = found(toAccountId);
+
+        resume(asyncResponse, () -> performOnceAsync(idempotencyKey, "transfer", transaction,
+                () -> admittedAsync(() -> transactionService.transferAsync(from, to, amount), fromAccountId, toAccountId)));
+    }
+
+    @POST
+    @Path("/split")
+    public Response split(@HeaderParam(IDEMPOTENCY_KEY) String idempotencyKey, @Valid Transaction transaction) {
+
+        if (transaction == null) {
+            return error(Response.Status.BAD_REQUEST, "Null transaction!");
+        }
+
+        String fromAccountId = transaction.getFromAccountId();
+        List<Leg> legs = transaction.getLegs();
+
+        if (legs == null) {
+            return error(Response.Status.BAD_REQUEST, "No legs to split!");
+        }
+
+        log.debug("Request for split from {} to {} legs", fromAccountId, legs.size());
+
+        Account from = accountDao.get(fromAccountId);
+
+        if (from == null) {
+            return error(Response.Status.NOT_FOUND, "No account found with id " + fromAccountId);
+        }
+
+        // every payee is looked up once, however many legs it receives
+        Map<String, Account> accounts = new HashMap<>();
+
+        for (Leg leg : legs) {
+
+            if (leg == null) {
+                return error(Response.Status.BAD_REQUEST, "Null leg!");
+            }
+
+            String toAccountId = leg.getToAccountId();
+
+            if (toAccountId == null || accounts.computeIfAbsent(toAccountId, accountDao::get) == null) {
+                return error(Response.Status.NOT_FOUND, "No account found with id " + toAccountId);
+            }
+        }
+
+        Set<String> accountIds = new LinkedHashSet<>(accounts.keySet());
+        accountIds.add(fromAccountId);
+
+        try {
+
+            return ok(once(idempotencyKey, "split", transaction,
+                    () -> admitted(() -> transactionService.split(from, legs, accounts::get), accountIds.toArray(new String[0]))));
 
-            return ok(transaction);
+        } catch (AdmissionException e) {
+            return tooManyRequests(e.getRetryAfterSeconds());
+        } catch (TransactionException e) {
+            return error(Response.Status.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @POST
+    @Path("/batch")
+    public Response batch(@HeaderParam(IDEMPOTENCY_KEY) String idempotencyKey, @Valid Batch batch) {
+
+        if (batch == null) {
+            return error(Response.Status.BAD_REQUEST, "Null batch!");
+        }
 
+        log.debug("Request for {}batch of {} transactions", batch.isAtomic() ? "atomic " : "", batch.getTransactions().size());
+
+        // every account is looked up once per batch, however often it takes part
+        Map<String, Account> accounts = new HashMap<>();
+
+        try {
+
+            List<BatchResult> results = once(idempotencyKey, "batch", batch,
+                    () -> admitted(() -> transactionService.execute(batch, id -> accounts.computeIfAbsent(id, accountDao::get)),
+                            accountIdsOf(batch)));
+
+            return ok(results);
+
+        } catch (AdmissionException e) {
+            return tooManyRequests(e.getRetryAfterSeconds());
         } catch (TransactionException e) {
             return error(Response.Status.BAD_REQUEST, e.getMessage());
         }
     }
+
+    /**
+     * Starts a request and resumes the suspended response with its result once it completes
+     * The request thread is returned to the container right away
+     *
+     * @param asyncResponse to be resumed
+     * @param call starting the request
+     */
+    private void resume(AsyncResponse asyncResponse, IdempotencyCache.Call<CompletionStage<TransactionResult>> call) {
+
+        CompletionStage<TransactionResult> stage;
+
+        try {
+            stage = call.call();
+        } catch (AdmissionException e) {
+            asyncResponse.resume(tooManyRequests(e.getRetryAfterSeconds()));
+            return;
+        } catch (TransactionException e) {
+            error(Response.Status.BAD_REQUEST, e.getMessage());
+            return;
+        }
+
+        stage.whenComplete((result, e) -> {
+
+            if (e == null) {
+                asyncResponse.resume(respond(result));
+                return;
+            }
+
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+
+            if (cause instanceof AdmissionException) {
+                asyncResponse.resume(tooManyRequests(((AdmissionException) cause).getRetryAfterSeconds()));
+                return;
+            }
+
+            asyncResponse.resume(cause instanceof TransactionException
+                    ? new WebApplicationException(cause.getMessage(), Response.Status.BAD_REQUEST)
+                    : cause);
+        });
+    }
+
+    /**
+     * @param accountId of the account
+     * @return account with given id, never null
+     */
+    private Account found(String accountId) {
+
+        Account account = accountDao.get(accountId);
+
+        if (account == null) {
+            error(Response.Status.NOT_FOUND, "No account found with id " + accountId);
+        }
+
+        return account;
+    }
+
+    /**
+     * Performs a call once the request is admitted for given accounts, holding the permit until the call returns
+     * Called by the idempotency cache only for keys it does not know, so duplicates never wait for the lanes
+     *
+     * @param call performing the request
+     * @param accountIds of the accounts the request works on
+     * @param <T> type of the result
+     * @return result of the call
+     * @throws AdmissionException if the request is shed
+     * @throws TransactionException if the call is rejected
+     */
+    private <T> T admitted(IdempotencyCache.Call<T> call, String... accountIds) throws TransactionException {
+
+        AdmissionControl.Permit permit = admissionControl.admit(accountIds);
+
+        try {
+            return call.call();
+        } finally {
+            permit.close();
+        }
+    }
+
+    /**
+     * Starts a call once the request is admitted like {@link #admitted(IdempotencyCache.Call, String...)},
+     *    holding the permit until the stage it returns completes
+     *
+     * @param call starting the request
+     * @param accountIds of the accounts the request works on
+     * @param <T> type of the result
+     * @return stage of the call
+     * @throws AdmissionException if the request is shed
+     * @throws TransactionException if the call is rejected
+     */
+    private <T> CompletionStage<T> admittedAsync(IdempotencyCache.Call<CompletionStage<T>> call, String... accountIds)
+            throws TransactionException {
+
+        AdmissionControl.Permit permit = admissionControl.admit(accountIds);
+        CompletionStage<T> stage;
+
+        try {
+            stage = call.call();
+        } catch (TransactionException | RuntimeException e) {
+            permit.close();
+            throw e;
+        }
+
+        return stage.whenComplete((result, e) -> permit.close());
+    }
+
+    // accounts every transaction of the batch works on, unknown ones are rejected later on by their transaction
+    private static String[] accountIdsOf(Batch batch) {
+
+        Set<String> accountIds = new LinkedHashSet<>();
+
+        for (Transaction transaction : batch.getTransactions()) {
+
+            if (transaction == null) {
+                continue;
+            }
+
+            if (transaction.getFromAccountId() != null) {
+                accountIds.add(transaction.getFromAccountId());
+            }
+
+            if (transaction.getToAccountId() != null) {
+                accountIds.add(transaction.getToAccountId());
+            }
+
+            if (transaction.getLegs() != null) {
+                for (Leg leg : transaction.getLegs()) {
+                    if (leg != null && leg.getToAccountId() != null) {
+                        accountIds.add(leg.getToAccountId());
+                    }
+                }
+            }
+        }
+
+        return accountIds.toArray(new String[0]);
+    }
+
+    /**
+     * Executes given call once per idempotency key, a retry with the same key gets the result of the first execution
+     * Requests without a key are executed every time
+     *
+     * @param idempotencyKey sent by the client, may be null
+     * @param path of the endpoint, a key may only be used again with the same endpoint and request
+     * @param request as sent by the client
+     * @param call executing the request
+     * @return result of the first execution with given key
+     * @throws TransactionException if the request is rejected or the key has been used for another request
+     */
+    private <T> T once(String idempotencyKey, String path, Object request, IdempotencyCache.Call<T> call)
+            throws TransactionException {
+
+        if (idempotencyKey == null) {
+            return call.call();
+        }
+
+        return idempotencyCache.execute(idempotencyKey, describe(idempotencyKey, path, request), call);
+    }
+
+    /**
+     * Performs a single transaction once per idempotency key like {@link #once(String, String, Object, IdempotencyCache.Call)}
+     * Rejections are answered without any exception unless a key is given, they are thrown to the cache then
+     *    so that it forgets them and a retry is performed again
+     *
+     * @param idempotencyKey sent by the client, may be null
+     * @param path of the endpoint, a key may only be used again with the same endpoint and request
+     * @param request as sent by the client
+     * @param call performing the transaction
+     * @return result of the first execution with given key
+     * @throws TransactionException if the transaction is rejected with a key or the key has been used for another request
+     */
+    private TransactionResult performOnce(String idempotencyKey, String path, Object request,
+                                          IdempotencyCache.Call<TransactionResult> call) throws TransactionException {
+
+        if (idempotencyKey == null) {
+            return call.call();
+        }
+
+        return idempotencyCache.execute(idempotencyKey, describe(idempotencyKey, path, request),
+                () -> performed(call.call()));
+    }
+
+    /**
+     * Starts a single transaction once per idempotency key like {@link #performOnce(String, String, Object, IdempotencyCache.Call)}
+     *
+     * @param idempotencyKey sent by the client, may be null
+     * @param path of the endpoint, a key may only be used again with the same endpoint and request
+     * @param request as sent by the client
+     * @param call starting the transaction
+     * @return stage completed with the result of the first execution with given key
+     * @throws TransactionException if the request is shed or the key has been used for another request
+     */
+    private CompletionStage<TransactionResult> performOnceAsync(String idempotencyKey, String path, Object request,
+                                                                IdempotencyCache.Call<CompletionStage<TransactionResult>> call)
+            throws TransactionException {
+
+        if (idempotencyKey == null) {
+            return call.call();
+        }
+
+        return idempotencyCache.executeAsync(idempotencyKey, describe(idempotencyKey, path, request),
+                () -> call.call().thenApply(result -> {
+                    try {
+                        return performed(result);
+                    } catch (TransactionException e) {
+                        throw new CompletionException(e);
+                    }
+                }));
+    }
+
+    private static TransactionResult performed(TransactionResult result) throws TransactionException {
+
+        result.orThrow();
+
+        return result;
+    }
+
+    // request a key has been used with, the key is checked first
+    private String describe(String idempotencyKey, String path, Object request) {
+
+        if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            error(Response.Status.BAD_REQUEST, IDEMPOTENCY_KEY + " must have 1 to " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+        }
+
+        try {
+            return path + ' ' + objectMapper.writeValueAsString(request);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,312 @@
+package com.assignment.service;
+
+import java.util.Arrays;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounds the number of requests working on the same accounts, so a few hot accounts cannot take every request thread
+ * Accounts are hashed to a fixed power of two number of lanes, each one admitting a few requests at a time
+ *    and queueing a bounded number of others
+ * Queued requests are shed once they waited too long, CoDel style: while the shortest wait of the last interval
+ *    stayed above the target, the lane is overloaded and requests wait at most the target, the interval otherwise
+ * Several lanes are tried in ascending order without waiting; a request finding one of them busy leaves the others
+ *    and waits for the busy one alone, so it never holds a lane while waiting and never waits for others in a cycle
+ * Shedding stays cheap: a shed request gets the same exception, made once without a stack trace
+ */
+public class AdmissionControl {
+
+    /**
+     * Lanes entered by an admitted request, to be left once it is done
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final int[] lanes;
+
+        private Permit(int[] lanes) {
+            this.lanes = lanes;
+        }
+
+        @Override
+        public void close() {
+            release(lanes, lanes.length);
+        }
+    }
+
+    private static final class Lane {
+
+        private final Semaphore permits;
+        private final AtomicInteger queued = new AtomicInteger();
+
+        // shortest wait since the interval started, overloaded if it stayed above the target for the last interval
+        private long intervalStarted;
+        private volatile long minDelay;
+        private volatile boolean overloaded;
+
+        Lane(int concurrency, long now) {
+            this.permits = new Semaphore(concurrency, true);
+            this.intervalStarted = now;
+        }
+
+        synchronized void record(long delay, long now, long targetNanos, long intervalNanos) {
+
+            if (now - intervalStarted >= intervalNanos) {
+                overloaded = minDelay > targetNanos;
+                intervalStarted = now;
+                minDelay = delay;
+            } else if (delay < minDelay) {
+                minDelay = delay;
+            }
+        }
+    }
+
+    private final Lane[] lanes;
+    private final int mask;
+    private final int maxQueue;
+    private final long targetNanos;
+    private final long intervalNanos;
+    private final AdmissionException overloaded;
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+
+    /**
+     * @param lanes number of lanes, rounded up to a power of two
+     * @param concurrency number of requests a lane admits at a time
+     * @param maxQueue number of requests a lane queues, any more are shed at once
+     * @param targetNanos wait a lane accepts in the long run
+     * @param intervalNanos time a wait above the target is tolerated for, before the lane is overloaded
+     * @param retryAfterSeconds suggested to shed requests
+     */
+    public AdmissionControl(int lanes, int concurrency, int maxQueue, long targetNanos, long intervalNanos,
+                            long retryAfterSeconds) {
+
+        if (lanes < 1 || lanes > 1 << 30) {
+            throw new IllegalArgumentException("Lanes must be between 1 and " + (1 << 30) + ": " + lanes);
+        }
+
+        if (concurrency < 1 || maxQueue < 0 || targetNanos < 1 || intervalNanos < targetNanos) {
+            throw new IllegalArgumentException("Invalid admission limits: " + concurrency + ", " + maxQueue
+                    + ", " + targetNanos + ", " + intervalNanos);
+        }
+
+        int size = Integer.highestOneBit(lanes);
+
+        if (size < lanes) {
+            size <<= 1;
+        }
+
+        this.lanes = new Lane[size];
+        this.mask = size - 1;
+
+        long now = System.nanoTime();
+
+        for (int i = 0; i < size; i++) {
+            this.lanes[i] = new Lane(concurrency, now);
+        }
+
+        this.maxQueue = maxQueue;
+        this.targetNanos = targetNanos;
+        this.intervalNanos = intervalNanos;
+        this.overloaded = new AdmissionException("Too many requests, retry after " + retryAfterSeconds + "s", retryAfterSeconds);
+    }
+
+    /**
+     * Admits a request working on given accounts, waiting for the lanes of the accounts if they are busy
+     * A thread must close its permit before it is admitted again
+     * All waits of a request together last at most the interval
+     *
+     * @param accountIds of the accounts the request works on
+     * @return permit to be closed once the request is done
+     * @throws AdmissionException if the request is shed
+     */
+    public Permit admit(String... accountIds) throws AdmissionException {
+
+        int[] entered = lanesOf(accountIds);
+        int waited = -1;
+        long deadline = 0;
+
+        while (true) {
+
+            int busy = tryEnter(entered, waited);
+
+            if (busy < 0) {
+                admitted.increment();
+                return new Permit(entered);
+            }
+
+            if (waited < 0) {
+                deadline = System.nanoTime() + intervalNanos;
+            }
+
+            // nothing is held while waiting, the lane waited for is kept and the others are tried again
+            if (!enter(lanes[entered[busy]], deadline)) {
+                shed.increment();
+                throw overloaded;
+            }
+
+            waited = busy;
+        }
+    }
+
+    /**
+     * @param accountId of an account
+     * @return lane the account is admitted in, defines the order in which lanes are entered
+     */
+    int laneOf(String accountId) {
+
+        int hash = accountId.hashCode();
+
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /**
+     * @return number of requests admitted so far
+     */
+    public long getAdmitted() {
+        return admitted.sum();
+    }
+
+    /**
+     * @return number of requests shed so far
+     */
+    public long getShed() {
+        return shed.sum();
+    }
+
+    /**
+     * @return number of requests waiting to be admitted
+     */
+    public int getQueued() {
+
+        int queued = 0;
+
+        for (Lane lane : lanes) {
+            queued += lane.queued.get();
+        }
+
+        return queued;
+    }
+
+    /**
+     * @return number of lanes whose requests waited above the target for the last interval
+     */
+    public int getOverloaded() {
+
+        int overloaded = 0;
+
+        for (Lane lane : lanes) {
+            if (lane.overloaded) {
+                overloaded++;
+            }
+        }
+
+        return overloaded;
+    }
+
+    // distinct lanes in ascending order
+    private int[] lanesOf(String[] accountIds) {
+
+        if (accountIds.length == 1) {
+            return new int[]{laneOf(accountIds[0])};
+        }
+
+        int[] entered = new int[accountIds.length];
+
+        for (int i = 0; i < accountIds.length; i++) {
+            entered[i] = laneOf(accountIds[i]);
+        }
+
+        Arrays.sort(entered);
+
+        int distinct = 0;
+
+        for (int i = 0; i < entered.length; i++) {
+            if (i == 0 || entered[i] != entered[i - 1]) {
+                entered[distinct++] = entered[i];
+            }
+        }
+
+        return distinct < entered.length ? Arrays.copyOf(entered, distinct) : entered;
+    }
+
+    /**
+     * Enters given lanes without waiting, the one entered already by waiting is skipped
+     *
+     * @param entered lanes in ascending order
+     * @param waited index of the lane entered by waiting, -1 if none
+     * @return -1 if all lanes are entered, index of a busy lane otherwise, once every lane entered has been left
+     */
+    private int tryEnter(int[] entered, int waited) {
+
+        for (int i = 0; i < entered.length; i++) {
+
+            if (i == waited || tryEnter(lanes[entered[i]])) {
+                continue;
+            }
+
+            for (int j = 0; j < i; j++) {
+                if (j != waited) {
+                    lanes[entered[j]].permits.release();
+                }
+            }
+
+            if (waited >= 0) {
+                lanes[entered[waited]].permits.release();
+            }
+
+            return i;
+        }
+
+        return -1;
+    }
+
+    private boolean tryEnter(Lane lane) {
+
+        if (!lane.permits.tryAcquire()) {
+            return false;
+        }
+
+        // an admission without waiting ends the overload once its interval is over
+        if (lane.overloaded || lane.minDelay > 0) {
+            lane.record(0, System.nanoTime(), targetNanos, intervalNanos);
+        }
+
+        return true;
+    }
+
+    private boolean enter(Lane lane, long deadline) {
+
+        if (tryEnter(lane)) {
+            return true;
+        }
+
+        if (lane.queued.incrementAndGet() > maxQueue) {
+            lane.queued.decrementAndGet();
+            return false;
+        }
+
+        long started = System.nanoTime();
+        long timeout = Math.min(lane.overloaded ? targetNanos : intervalNanos, deadline - started);
+
+        try {
+            return timeout > 0 && lane.permits.tryAcquire(timeout, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            long now = System.nanoTime();
+
+            lane.record(now - started, now, targetNanos, intervalNanos);
+            lane.queued.decrementAndGet();
+        }
+    }
+
+    private void release(int[] entered, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            lanes[entered[i]].permits.release();
+        }
+    }
+}
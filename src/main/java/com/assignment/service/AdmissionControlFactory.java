@@ -0,0 +1,117 @@
+package com.assignment.service;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.setup.Environment;
+import io.dropwizard.util.Duration;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Configuration of the {@link AdmissionControl} in front of transaction requests
+ */
+public class AdmissionControlFactory {
+
+    @Min(1)
+    private int lanes = 256;
+
+    @Min(1)
+    private int concurrency = 4;
+
+    @Min(0)
+    private int maxQueue = 32;
+
+    @NotNull
+    private Duration target = Duration.milliseconds(5);
+
+    @NotNull
+    private Duration interval = Duration.milliseconds(100);
+
+    @NotNull
+    private Duration retryAfter = Duration.seconds(1);
+
+    @JsonProperty
+    public int getLanes() {
+        return lanes;
+    }
+
+    @JsonProperty
+    public void setLanes(int lanes) {
+        this.lanes = lanes;
+    }
+
+    @JsonProperty
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    @JsonProperty
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    @JsonProperty
+    public int getMaxQueue() {
+        return maxQueue;
+    }
+
+    @JsonProperty
+    public void setMaxQueue(int maxQueue) {
+        this.maxQueue = maxQueue;
+    }
+
+    @JsonProperty
+    public Duration getTarget() {
+        return target;
+    }
+
+    @JsonProperty
+    public void setTarget(Duration target) {
+        this.target = target;
+    }
+
+    @JsonProperty
+    public Duration getInterval() {
+        return interval;
+    }
+
+    @JsonProperty
+    public void setInterval(Duration interval) {
+        this.interval = interval;
+    }
+
+    @JsonProperty
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    @JsonProperty
+    public void setRetryAfter(Duration retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Creates the admission control and registers its metrics
+     *
+     * @param environment of the application
+     * @return admission control of transaction requests
+     */
+    public AdmissionControl build(Environment environment) {
+
+        AdmissionControl admissionControl = new AdmissionControl(lanes, concurrency, maxQueue,
+                target.toNanoseconds(), interval.toNanoseconds(), Math.max(retryAfter.toSeconds(), 1));
+
+        environment.metrics().register(MetricRegistry.name(AdmissionControl.class, "admitted"),
+                (Gauge<Long>) admissionControl::getAdmitted);
+        environment.metrics().register(MetricRegistry.name(AdmissionControl.class, "shed"),
+                (Gauge<Long>) admissionControl::getShed);
+        environment.metrics().register(MetricRegistry.name(AdmissionControl.class, "queued"),
+                (Gauge<Integer>) admissionControl::getQueued);
+        environment.metrics().register(MetricRegistry.name(AdmissionControl.class, "overloaded"),
+                (Gauge<Integer>) admissionControl::getOverloaded);
+
+        return admissionControl;
+    }
+}
@@ -0,0 +1,23 @@
+package com.assignment.service;
+
+/***
+ * Checked exception to be thrown for requests shed by {@link AdmissionControl}, they may be retried later
+ * Shed requests are rejected before any balance changes, like every other {@link TransactionException}
+ * Thrown again and again, so it has no stack trace of its own
+ */
+public class AdmissionException extends TransactionException {
+
+    private final long retryAfterSeconds;
+
+    public AdmissionException(String message, long retryAfterSeconds) {
+        super(message, false);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * @return seconds after which the request may be retried
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,221 @@
+package com.assignment.service;
+
+import com.assignment.model.Account;
+
+/**
+ * {@link Ledger} changing balances by compare and set loops instead of holding monitors
+ * Deposits and withdrawals check their limit and change the balance in a single compare and set
+ * Transfers withdraw from the source and reserve the amount, then deposit it to the destination
+ *    and release the reservation, or refund the source if the destination would exceed its upper limit
+ * While a transfer is in progress its amount is neither in the source nor in the destination balance
+ * Reservations are visible to other threads: a withdrawal racing a transfer which is refunded afterwards
+ *    is rejected for insufficient funds if it needs the reserved amount, although the source has it again once refunded,
+ *    and a deposit racing a reservation of room is rejected at the upper limit the same way
+ * Use {@link MonitorLedger}, the default, where such a rejection is not acceptable
+ * Changes of several accounts are reserved one by one and committed once all of them are reserved
+ * Journaled changes are committed between reserving and settling them: the money taken from an account stays reserved
+ *    and the room taken in an account stays reserved until their commit has run, so no other change can depend on them
+ *    before it is journaled, and a change whose commit fails is undone like a rejected one
+ * Accounts changed often enough are promoted to hot accounts by {@link HotAccounts}, if given
+ */
+public class AtomicLedger implements Ledger {
+
+    // null unless hot accounts are enabled
+    private final HotAccounts hotAccounts;
+
+    public AtomicLedger() {
+        this(null);
+    }
+
+    /**
+     * @param hotAccounts recording every change, may be null
+     */
+    public AtomicLedger(HotAccounts hotAccounts) {
+        this.hotAccounts = hotAccounts;
+    }
+
+    @Override
+    public Rejection deposit(Account account, int amount, Commit commit) {
+
+        record(account);
+
+        // nothing to journal, a single compare and set does it
+        if (commit == Commit.NONE) {
+            return account.tryDeposit(amount) ? null : Rejection.BALANCE_LIMIT;
+        }
+
+        if (!account.tryReserveRoom(amount)) {
+            return Rejection.BALANCE_LIMIT;
+        }
+
+        try {
+            commit.run();
+        } catch (RuntimeException e) {
+            account.releaseReserved(amount);
+            throw e;
+        }
+
+        account.refundReserved(amount);
+
+        return null;
+    }
+
+    @Override
+    public Rejection withdraw(Account account, int amount, Commit commit) {
+
+        record(account);
+
+        if (commit == Commit.NONE) {
+            return account.tryWithdraw(amount) ? null : Rejection.INSUFFICIENT_FUNDS;
+        }
+
+        if (!account.tryWithdrawReserved(amount)) {
+            return Rejection.INSUFFICIENT_FUNDS;
+        }
+
+        try {
+            commit.run();
+        } catch (RuntimeException e) {
+            account.refundReserved(amount);
+            throw e;
+        }
+
+        account.releaseReserved(amount);
+
+        return null;
+    }
+
+    @Override
+    public Rejection transfer(Account from, Account to, int amount, Commit commit) {
+
+        if (from.getId().equals(to.getId())) {
+            return Rejection.SAME_ACCOUNT;
+        }
+
+        record(from);
+        record(to);
+
+        if (!from.tryWithdrawReserved(amount)) {
+            return Rejection.INSUFFICIENT_FUNDS;
+        }
+
+        if (commit == Commit.NONE) {
+
+            if (!to.tryDeposit(amount)) {
+                from.refundReserved(amount);
+                return Rejection.BALANCE_LIMIT;
+            }
+
+            from.releaseReserved(amount);
+
+            return null;
+        }
+
+        if (!to.tryReserveRoom(amount)) {
+            from.refundReserved(amount);
+            return Rejection.BALANCE_LIMIT;
+        }
+
+        try {
+            commit.run();
+        } catch (RuntimeException e) {
+            to.releaseReserved(amount);
+            from.refundReserved(amount);
+            throw e;
+        }
+
+        to.refundReserved(amount);
+        from.releaseReserved(amount);
+
+        return null;
+    }
+
+    /**
+     * Reserves every net change before any of them is committed: debits are withdrawn and reserved first,
+     *    then room is reserved for the credits, and everything reserved so far is undone if any of them fails
+     * While the changes are in progress debited amounts are in no balance and credited amounts not yet in theirs
+     */
+    @Override
+    public void apply(BalanceChanges changes, Commit commit) throws TransactionException {
+
+        int size = changes.size();
+        int[] order = new int[size];
+        int count = 0;
+
+        for (int i = 0; i < size; i++) {
+
+            record(changes.getAccount(i));
+
+            if (changes.getDelta(i) < 0) {
+                order[count++] = i;
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (changes.getDelta(i) > 0) {
+                order[count++] = i;
+            }
+        }
+
+        for (int reserved = 0; reserved < count; reserved++) {
+
+            Account account = changes.getAccount(order[reserved]);
+            long delta = changes.getDelta(order[reserved]);
+
+            if (!reserve(account, delta)) {
+
+                for (int i = reserved - 1; i >= 0; i--) {
+                    undo(changes.getAccount(order[i]), changes.getDelta(order[i]));
+                }
+
+                throw delta < 0 ? BalanceChanges.lowerLimit(account) : BalanceChanges.upperLimit(account);
+            }
+        }
+
+        try {
+            commit.run();
+        } catch (RuntimeException e) {
+
+            for (int i = count - 1; i >= 0; i--) {
+                undo(changes.getAccount(order[i]), changes.getDelta(order[i]));
+            }
+
+            throw e;
+        }
+
+        for (int i = 0; i < count; i++) {
+            commit(changes.getAccount(order[i]), changes.getDelta(order[i]));
+        }
+    }
+
+    private static boolean reserve(Account account, long delta) {
+
+        if (delta < -Integer.MAX_VALUE || delta > Integer.MAX_VALUE) {
+            return false;
+        }
+
+        return delta < 0 ? account.tryWithdrawReserved((int) -delta) : account.tryReserveRoom((int) delta);
+    }
+
+    private static void commit(Account account, long delta) {
+        if (delta < 0) {
+            account.releaseReserved((int) -delta);
+        } else {
+            account.refundReserved((int) delta);
+        }
+    }
+
+    private static void undo(Account account, long delta) {
+        if (delta < 0) {
+            account.refundReserved((int) -delta);
+        } else {
+            account.releaseReserved((int) delta);
+        }
+    }
+
+    private void record(Account account) {
+        if (hotAccounts != null) {
+            hotAccounts.record(account);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.assignment.service;
+
+import com.assignment.model.Transaction;
+import io.dropwizard.lifecycle.Managed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Access and audit log of requests, written by its own thread so that requests neither format nor do any I/O
+ * Requests only put their entry into a bounded ring buffer, entries finding it full are dropped and counted
+ * Every endpoint is sampled at its own rate, so that the log of a hot endpoint can be thinned out
+ * Entries are written with parameterized messages to the {@code audit} logger, which may have appenders of its own
+ */
+public class AuditLog implements Managed {
+
+    public static final String LOGGER = "audit";
+
+    // time the writer sleeps for once it found the buffer empty
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final class Entry {
+
+        private final String method;
+        private final String endpoint;
+        private final int status;
+        private final long micros;
+        private final Transaction transaction;
+        private final String error;
+
+        Entry(String method, String endpoint, int status, long micros, Transaction transaction, String error) {
+            this.method = method;
+            this.endpoint = endpoint;
+            this.status = status;
+            this.micros = micros;
+            this.transaction = transaction;
+            this.error = error;
+        }
+    }
+
+    private final RingBuffer<Entry> entries;
+    private final double defaultRate;
+    private final Map<String, Double> rates;
+    private final Logger logger;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    private volatile boolean running;
+    private Thread thread;
+
+    /**
+     * @param queueSize number of entries waiting for the writer before further entries are dropped
+     * @param defaultRate share of the requests logged, between 0 and 1, of endpoints without a rate of their own
+     * @param rates shares of the requests logged by endpoint
+     */
+    public AuditLog(int queueSize, double defaultRate, Map<String, Double> rates) {
+        this(queueSize, defaultRate, rates, LoggerFactory.getLogger(LOGGER));
+    }
+
+    AuditLog(int queueSize, double defaultRate, Map<String, Double> rates, Logger logger) {
+        this.entries = new RingBuffer<>(queueSize);
+        this.defaultRate = defaultRate;
+        this.rates = Collections.unmodifiableMap(new HashMap<>(rates));
+        this.logger = logger;
+    }
+
+    /**
+     * @param endpoint path template of the endpoint, as in the configuration
+     * @return share of the requests of given endpoint to be logged, 0 if the audit logger is off
+     */
+    public double rateOf(String endpoint) {
+
+        if (!logger.isInfoEnabled()) {
+            return 0;
+        }
+
+        return rates.getOrDefault(endpoint, defaultRate);
+    }
+
+    /**
+     * @param rate share of the requests to be logged
+     * @return true if the current request is to be logged
+     */
+    public static boolean isSampled(double rate) {
+        return rate >= 1 || rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    /**
+     * Hands a request over to the writer, never blocks
+     *
+     * @param method of the request
+     * @param endpoint path template of the endpoint
+     * @param status of the response
+     * @param nanos the request took
+     * @param transaction performed by the request, null if none
+     * @param error message of the response, null if none
+     * @return false if the entry has been dropped as the writer is behind
+     */
+    public boolean record(String method, String endpoint, int status, long nanos, Transaction transaction, String error) {
+
+        if (entries.offer(new Entry(method, endpoint, status, TimeUnit.NANOSECONDS.toMicros(nanos), transaction, error))) {
+            return true;
+        }
+
+        dropped.increment();
+
+        return false;
+    }
+
+    /**
+     * @return number of entries written
+     */
+    public long getWritten() {
+        return written.sum();
+    }
+
+    /**
+     * @return number of entries dropped as the writer was behind
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        thread = new Thread(this::run, "audit-log");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the writer once it has written the entries recorded so far
+     *
+     * @throws InterruptedException if interrupted while waiting for the writer
+     */
+    @Override
+    public void stop() throws InterruptedException {
+
+        running = false;
+
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            thread.join();
+        }
+    }
+
+    private void run() {
+
+        while (running) {
+            if (drain() == 0) {
+                LockSupport.parkNanos(this, IDLE_NANOS);
+            }
+        }
+
+        drain();
+    }
+
+    /**
+     * Writes the entries recorded so far, must only be called by the writer
+     *
+     * @return number of entries written
+     */
+    int drain() {
+
+        int count = 0;
+        Entry entry;
+
+        while ((entry = entries.poll()) != null) {
+            write(entry);
+            count++;
+        }
+
+        written.add(count);
+
+        return count;
+    }
+
+    private void write(Entry entry) {
+
+        Transaction transaction = entry.transaction;
+
+        if (transaction != null) {
+            logger.info("{} {} {} {}us transaction={} type={} from={} to={} amount={}",
+                    entry.method, entry.endpoint, entry.status, entry.micros, transaction.getNumber(),
+                    transaction.getTransactionType(), transaction.getFromAccountId(), transaction.getToAccountId(),
+                    transaction.getAmount());
+        } else if (entry.error != null) {
+            logger.info("{} {} {} {}us error={}", entry.method, entry.endpoint, entry.status, entry.micros, entry.error);
+        } else {
+            logger.info("{} {} {} {}us", entry.method, entry.endpoint, entry.status, entry.micros);
+        }
+    }
+}
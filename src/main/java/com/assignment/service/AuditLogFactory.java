@@ -0,0 +1,79 @@
+package com.assignment.service;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.setup.Environment;
+
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration of the {@link AuditLog} of requests
+ * Rates are shares of the requests logged, between 0 and 1, by path template of the endpoint, e.g. /transaction/transfer
+ */
+public class AuditLogFactory {
+
+    @Min(1)
+    private int queueSize = 8192;
+
+    @DecimalMin("0")
+    @DecimalMax("1")
+    private double defaultRate = 1;
+
+    @NotNull
+    private Map<String, Double> rates = new HashMap<>();
+
+    @JsonProperty
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    @JsonProperty
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    @JsonProperty
+    public double getDefaultRate() {
+        return defaultRate;
+    }
+
+    @JsonProperty
+    public void setDefaultRate(double defaultRate) {
+        this.defaultRate = defaultRate;
+    }
+
+    @JsonProperty
+    public Map<String, Double> getRates() {
+        return rates;
+    }
+
+    @JsonProperty
+    public void setRates(Map<String, Double> rates) {
+        this.rates = rates;
+    }
+
+    /**
+     * Creates the audit log, ties its writer to the lifecycle of the application and registers its metrics
+     *
+     * @param environment of the application
+     * @return audit log of requests
+     */
+    public AuditLog build(Environment environment) {
+
+        AuditLog auditLog = new AuditLog(queueSize, defaultRate, rates);
+
+        environment.lifecycle().manage(auditLog);
+        environment.metrics().register(MetricRegistry.name(AuditLog.class, "written"),
+                (Gauge<Long>) auditLog::getWritten);
+        environment.metrics().register(MetricRegistry.name(AuditLog.class, "dropped"),
+                (Gauge<Long>) auditLog::getDropped);
+
+        return auditLog;
+    }
+}
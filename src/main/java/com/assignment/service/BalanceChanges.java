@@ -0,0 +1,134 @@
+package com.assignment.service;
+
+import com.assignment.model.Account;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Net changes of the balances of several accounts, to be applied by {@link Ledger#apply(BalanceChanges)} all at once
+ * Credits and debits of the same account are summed up, so every account takes part once with its net change
+ *    and the changes are validated against the net change instead of one by one
+ */
+public class BalanceChanges {
+
+    // index of every account by id
+    private final Map<String, Integer> indexes = new HashMap<>();
+
+    private Account[] accounts = new Account[8];
+    private long[] deltas = new long[8];
+    private int size;
+
+    /**
+     * @param account to be credited
+     * @param amount to be added to the balance
+     */
+    public void credit(Account account, int amount) {
+        int index = indexOf(account);
+
+        deltas[index] += amount;
+    }
+
+    /**
+     * @param account to be debited
+     * @param amount to be taken from the balance
+     */
+    public void debit(Account account, int amount) {
+        int index = indexOf(account);
+
+        deltas[index] -= amount;
+    }
+
+    /**
+     * @return number of accounts taking part
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index of the account, in the order accounts have been added
+     * @return account at given index
+     */
+    public Account getAccount(int index) {
+        return accounts[index];
+    }
+
+    /**
+     * @param index of the account, in the order accounts have been added
+     * @return net change of the balance of the account at given index
+     */
+    public long getDelta(int index) {
+        return deltas[index];
+    }
+
+    /**
+     * Checks every net change against the current balance, concurrent changes must be kept apart by the caller
+     *
+     * @throws TransactionException if any balance would leave its bounds
+     */
+    void check() throws TransactionException {
+        for (int i = 0; i < size; i++) {
+            check(accounts[i], deltas[i]);
+        }
+    }
+
+    /**
+     * Applies every net change without any check, concurrent changes must be kept apart by the caller
+     */
+    void applyUnchecked() {
+        for (int i = 0; i < size; i++) {
+            if (deltas[i] > 0) {
+                accounts[i].increaseBalance((int) deltas[i]);
+            } else if (deltas[i] < 0) {
+                accounts[i].decreaseBalance((int) -deltas[i]);
+            }
+        }
+    }
+
+    /**
+     * Checks a net change against the current balance of given account
+     *
+     * @param account to be changed
+     * @param delta net change of its balance
+     * @throws TransactionException if the balance would leave its bounds
+     */
+    static void check(Account account, long delta) throws TransactionException {
+
+        if (delta < 0 && (delta < -Integer.MAX_VALUE || !account.hasEnoughBalanceToWithdraw((int) -delta))) {
+            throw lowerLimit(account);
+        }
+
+        if (delta > 0 && (delta > Integer.MAX_VALUE || !account.hasEnoughSpaceToDeposit((int) delta))) {
+            throw upperLimit(account);
+        }
+    }
+
+    static TransactionException lowerLimit(Account account) {
+        return new TransactionException("Account balance cannot be less than zero: " + account.getId());
+    }
+
+    static TransactionException upperLimit(Account account) {
+        return new TransactionException("Account balance cannot be greater than " + Integer.MAX_VALUE + ": " + account.getId());
+    }
+
+    private int indexOf(Account account) {
+
+        Integer index = indexes.get(account.getId());
+
+        if (index != null) {
+            return index;
+        }
+
+        if (size == accounts.length) {
+            accounts = Arrays.copyOf(accounts, size * 2);
+            deltas = Arrays.copyOf(deltas, size * 2);
+        }
+
+        indexes.put(account.getId(), size);
+        accounts[size] = account;
+
+        return size++;
+    }
+}
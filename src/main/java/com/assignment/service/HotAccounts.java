@@ -0,0 +1,157 @@
+package com.assignment.service;
+
+import com.assignment.model.Account;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Promotes accounts changed more often than a threshold to hot accounts and demotes them once they cool down
+ * Changes are sampled by {@link #record(Account)}, one in {@code sampleEvery} of them is counted,
+ *    every run estimates the rate of changes per account since the previous run from the samples
+ * Pinned accounts are promoted by the first run after they are changed and never demoted
+ */
+public class HotAccounts implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(HotAccounts.class);
+
+    private static final class Sample {
+
+        private final Account account;
+        private final LongAdder count = new LongAdder();
+
+        Sample(Account account) {
+            this.account = account;
+        }
+    }
+
+    private final int cells;
+    private final Set<String> pinned;
+    private final long promoteRate;
+    private final long demoteRate;
+    private final int sampleEvery;
+
+    // sampled accounts since the previous run, hot ones are kept until they are demoted
+    private final Map<String, Sample> samples = new ConcurrentHashMap<>();
+
+    private final AtomicInteger hot = new AtomicInteger();
+    private final AtomicLong promotions = new AtomicLong();
+    private final AtomicLong demotions = new AtomicLong();
+
+    // only touched by the thread running this
+    private long lastRun = System.nanoTime();
+
+    /**
+     * @param cells number of cells a hot account is split into
+     * @param pinned ids of accounts to be hot whenever they are changed
+     * @param promoteRate changes per second from which an account is promoted
+     * @param demoteRate changes per second below which a hot account is demoted
+     * @param sampleEvery one in how many changes is counted
+     */
+    public HotAccounts(int cells, Set<String> pinned, long promoteRate, long demoteRate, int sampleEvery) {
+
+        if (cells < 1 || sampleEvery < 1) {
+            throw new IllegalArgumentException("Cells and sampling must be positive: " + cells + ", " + sampleEvery);
+        }
+
+        this.cells = cells;
+        this.pinned = pinned;
+        this.promoteRate = promoteRate;
+        this.demoteRate = demoteRate;
+        this.sampleEvery = sampleEvery;
+    }
+
+    /**
+     * Counts a change of given account, called before every change of a balance
+     *
+     * @param account to be changed
+     */
+    public void record(Account account) {
+
+        // pinned accounts are always counted, so that the next run promotes them
+        if (sampleEvery > 1 && ThreadLocalRandom.current().nextInt(sampleEvery) != 0
+                && (pinned.isEmpty() || !pinned.contains(account.getId()))) {
+            return;
+        }
+
+        Sample sample = samples.get(account.getId());
+
+        if (sample == null) {
+            sample = samples.computeIfAbsent(account.getId(), id -> new Sample(account));
+        }
+
+        sample.count.increment();
+    }
+
+    /**
+     * Promotes and demotes accounts by their rate of changes since the previous run
+     */
+    @Override
+    public void run() {
+
+        long now = System.nanoTime();
+        double seconds = Math.max(now - lastRun, 1) / 1e9;
+
+        lastRun = now;
+
+        for (Iterator<Map.Entry<String, Sample>> it = samples.entrySet().iterator(); it.hasNext(); ) {
+
+            Map.Entry<String, Sample> entry = it.next();
+            Account account = entry.getValue().account;
+            boolean isPinned = pinned.contains(entry.getKey());
+            double rate = entry.getValue().count.sumThenReset() * (isPinned ? 1.0 : sampleEvery) / seconds;
+
+            if (account.isHot()) {
+
+                if (!isPinned && rate < demoteRate) {
+
+                    if (account.demote()) {
+                        hot.decrementAndGet();
+                        demotions.incrementAndGet();
+                        log.info("Demoted {} at {} changes/s", account.getId(), (long) rate);
+                    }
+
+                    it.remove();
+                }
+            } else if (isPinned || rate >= promoteRate) {
+
+                if (account.promote(cells)) {
+                    hot.incrementAndGet();
+                    promotions.incrementAndGet();
+                    log.info("Promoted {} at {} changes/s", account.getId(), (long) rate);
+                }
+            } else {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * @return number of hot accounts
+     */
+    public int getHotCount() {
+        return hot.get();
+    }
+
+    /**
+     * @return number of promotions so far
+     */
+    public long getPromotions() {
+        return promotions.get();
+    }
+
+    /**
+     * @return number of demotions so far
+     */
+    public long getDemotions() {
+        return demotions.get();
+    }
+}
@@ -0,0 +1,124 @@
+package com.assignment.service;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.setup.Environment;
+import io.dropwizard.util.Duration;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration of {@link HotAccounts}, hot accounts are disabled unless configured
+ */
+public class HotAccountsFactory {
+
+    @Min(1)
+    private int cells = Runtime.getRuntime().availableProcessors();
+
+    @NotNull
+    private Set<String> accounts = new HashSet<>();
+
+    @Min(1)
+    private long promoteRate = 20_000;
+
+    @Min(0)
+    private long demoteRate = 2_000;
+
+    @Min(1)
+    private int sampleEvery = 64;
+
+    @NotNull
+    private Duration interval = Duration.seconds(1);
+
+    @JsonProperty
+    public int getCells() {
+        return cells;
+    }
+
+    @JsonProperty
+    public void setCells(int cells) {
+        this.cells = cells;
+    }
+
+    @JsonProperty
+    public Set<String> getAccounts() {
+        return accounts;
+    }
+
+    @JsonProperty
+    public void setAccounts(Set<String> accounts) {
+        this.accounts = accounts;
+    }
+
+    @JsonProperty
+    public long getPromoteRate() {
+        return promoteRate;
+    }
+
+    @JsonProperty
+    public void setPromoteRate(long promoteRate) {
+        this.promoteRate = promoteRate;
+    }
+
+    @JsonProperty
+    public long getDemoteRate() {
+        return demoteRate;
+    }
+
+    @JsonProperty
+    public void setDemoteRate(long demoteRate) {
+        this.demoteRate = demoteRate;
+    }
+
+    @JsonProperty
+    public int getSampleEvery() {
+        return sampleEvery;
+    }
+
+    @JsonProperty
+    public void setSampleEvery(int sampleEvery) {
+        this.sampleEvery = sampleEvery;
+    }
+
+    @JsonProperty
+    public Duration getInterval() {
+        return interval;
+    }
+
+    @JsonProperty
+    public void setInterval(Duration interval) {
+        this.interval = interval;
+    }
+
+    /**
+     * Creates the hot accounts, schedules their promotions and demotions and registers their metrics
+     *
+     * @param environment of the application
+     * @return hot accounts to record changes with
+     */
+    public HotAccounts build(Environment environment) {
+
+        HotAccounts hotAccounts = new HotAccounts(cells, accounts, promoteRate, demoteRate, sampleEvery);
+
+        long millis = interval.toMilliseconds();
+
+        environment.lifecycle()
+                .scheduledExecutorService("ledger-hot-accounts")
+                .build()
+                .scheduleWithFixedDelay(hotAccounts, millis, millis, TimeUnit.MILLISECONDS);
+
+        environment.metrics().register(MetricRegistry.name(HotAccounts.class, "hot"),
+                (Gauge<Integer>) hotAccounts::getHotCount);
+        environment.metrics().register(MetricRegistry.name(HotAccounts.class, "promotions"),
+                (Gauge<Long>) hotAccounts::getPromotions);
+        environment.metrics().register(MetricRegistry.name(HotAccounts.class, "demotions"),
+                (Gauge<Long>) hotAccounts::getDemotions);
+
+        return hotAccounts;
+    }
+}
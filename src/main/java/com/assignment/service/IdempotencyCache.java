@@ -0,0 +1,304 @@
+package com.assignment.service;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers the results of requests by the idempotency keys of their clients, so that a retried request is answered
+ *    with the result of its first execution instead of being executed again
+ * A key is bound to the request it has been used with first, using it for another request is rejected
+ * Duplicates of a request still in progress wait for its result, so concurrent duplicates are executed once
+ * Rejected requests are forgotten, so a retry executes them again, they are rejected before any balance changes
+ * Requests failing otherwise are kept with their failure and a retry gets the same failure,
+ *    they may have changed balances already, e.g. when the journal failed to make a performed transaction durable
+ * Completed keys are evicted in the order they have been added, once they are older than the time to live
+ *    or to keep at most the maximum number of them; keys of requests in progress are never evicted,
+ *    so duplicates keep waiting for them, even if the cache grows beyond its maximum meanwhile
+ */
+public class IdempotencyCache {
+
+    /**
+     * Request to be executed once per key
+     *
+     * @param <T> type of the result
+     */
+    @FunctionalInterface
+    public interface Call<T> {
+
+        T call() throws TransactionException;
+    }
+
+    private static final class Entry extends CompletableFuture<Object> {
+
+        private final String key;
+        private final String request;
+        private final long created;
+
+        Entry(String key, String request, long created) {
+            this.key = key;
+            this.request = request;
+            this.created = created;
+        }
+    }
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // entries in the order they have been added, replaced and forgotten ones are dropped once they reach the head
+    private final Queue<Entry> order = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+
+    // a single thread evicts at a time, the others leave it to that thread
+    private final ReentrantLock evicting = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxSize maximum number of keys
+     * @param ttlNanos time a key is kept for
+     */
+    public IdempotencyCache(int maxSize, long ttlNanos) {
+        this(maxSize, ttlNanos, System::nanoTime);
+    }
+
+    IdempotencyCache(int maxSize, long ttlNanos, LongSupplier clock) {
+
+        if (maxSize < 1 || ttlNanos < 1) {
+            throw new IllegalArgumentException("Size and time to live must be positive: " + maxSize + ", " + ttlNanos);
+        }
+
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlNanos;
+        this.clock = clock;
+    }
+
+    /**
+     * Executes given call unless the key has been used before, answers with the result of the first execution otherwise
+     *
+     * @param key idempotency key of the client
+     * @param request description of the request, a key may only be used again with an equal one
+     * @param call executing the request
+     * @param <T> type of the result
+     * @return result of the first execution of the request with given key
+     * @throws TransactionException if the request is rejected or the key has been used for another request
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, String request, Call<T> call) throws TransactionException {
+
+        Entry entry = new Entry(key, request, clock.getAsLong());
+        Entry existing = claim(entry);
+
+        if (existing != null) {
+            return (T) await(existing, request);
+        }
+
+        try {
+            T result = call.call();
+            entry.complete(result);
+            return result;
+        } catch (TransactionException e) {
+            entries.remove(key, entry);
+            entry.completeExceptionally(e);
+            throw e;
+        } catch (RuntimeException e) {
+            entry.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Executes given call like {@link #execute(String, String, Call)} without waiting for a request in progress
+     * The key is forgotten if the call or its stage is rejected with a {@link TransactionException}
+     *
+     * @param key idempotency key of the client
+     * @param request description of the request, a key may only be used again with an equal one
+     * @param call starting the request
+     * @param <T> type of the result
+     * @return stage completed with the result of the first execution of the request with given key
+     * @throws TransactionException if the request is rejected or the key has been used for another request
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletionStage<T> executeAsync(String key, String request, Call<? extends CompletionStage<T>> call)
+            throws TransactionException {
+
+        Entry entry = new Entry(key, request, clock.getAsLong());
+        Entry existing = claim(entry);
+
+        if (existing != null) {
+            check(existing, request);
+            return existing.thenApply(result -> (T) result);
+        }
+
+        CompletionStage<T> stage;
+
+        try {
+            stage = call.call();
+        } catch (TransactionException e) {
+            entries.remove(key, entry);
+            entry.completeExceptionally(e);
+            throw e;
+        } catch (RuntimeException e) {
+            entry.completeExceptionally(e);
+            throw e;
+        }
+
+        return stage.whenComplete((result, e) -> {
+
+            if (e == null) {
+                entry.complete(result);
+                return;
+            }
+
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+
+            if (cause instanceof TransactionException) {
+                entries.remove(key, entry);
+            }
+
+            entry.completeExceptionally(e);
+        });
+    }
+
+    /**
+     * @return number of keys kept
+     */
+    public int getSize() {
+        return entries.size();
+    }
+
+    /**
+     * @return number of duplicates answered with the result of a completed request
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of duplicates that waited for a request in progress
+     */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * @return number of keys evicted for their age or to make room
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Adds given entry unless its key is kept already
+     *
+     * @param entry of a request to be executed
+     * @return entry kept for the key, null if given entry has been added and its request is to be executed
+     */
+    private Entry claim(Entry entry) {
+
+        while (true) {
+
+            Entry existing = entries.putIfAbsent(entry.key, entry);
+
+            if (existing == null) {
+                break;
+            }
+
+            // a request still in progress is never expired, whatever it takes
+            if (existing.isDone() && isExpired(existing, entry.created)) {
+
+                if (entries.replace(entry.key, existing, entry)) {
+                    break;
+                }
+
+                continue;
+            }
+
+            return existing;
+        }
+
+        order.offer(entry);
+        queued.incrementAndGet();
+        evict(entry.created);
+
+        return null;
+    }
+
+    // counts a duplicate of the request of given entry
+    private void check(Entry entry, String request) throws TransactionException {
+
+        if (!entry.request.equals(request)) {
+            throw new TransactionException("Idempotency key " + entry.key + " has been used for another request");
+        }
+
+        if (entry.isDone()) {
+            hits.increment();
+        } else {
+            coalesced.increment();
+        }
+    }
+
+    private Object await(Entry entry, String request) throws TransactionException {
+
+        check(entry, request);
+
+        try {
+            return entry.join();
+        } catch (CompletionException e) {
+
+            if (e.getCause() instanceof TransactionException) {
+                throw (TransactionException) e.getCause();
+            }
+
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw e;
+        }
+    }
+
+    private void evict(long now) {
+
+        if (!evicting.tryLock()) {
+            return;
+        }
+
+        try {
+            Entry oldest;
+
+            // only this thread takes from the queue, so the polled entry is the one looked at,
+            //    eviction stops at a request in progress and goes on once a later call finds it completed
+            while ((oldest = order.peek()) != null
+                    && (entries.get(oldest.key) != oldest
+                        || oldest.isDone() && (queued.get() > maxSize || isExpired(oldest, now)))) {
+
+                order.poll();
+                queued.decrementAndGet();
+
+                if (entries.remove(oldest.key, oldest)) {
+                    evictions.increment();
+                }
+            }
+        } finally {
+            evicting.unlock();
+        }
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return now - entry.created >= ttlNanos;
+    }
+}
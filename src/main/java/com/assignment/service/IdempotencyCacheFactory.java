@@ -0,0 +1,64 @@
+package com.assignment.service;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.setup.Environment;
+import io.dropwizard.util.Duration;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Configuration of the {@link IdempotencyCache} remembering the results of requests sent with an idempotency key
+ */
+public class IdempotencyCacheFactory {
+
+    @Min(1)
+    private int maxKeys = 100_000;
+
+    @NotNull
+    private Duration ttl = Duration.hours(24);
+
+    @JsonProperty
+    public int getMaxKeys() {
+        return maxKeys;
+    }
+
+    @JsonProperty
+    public void setMaxKeys(int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    @JsonProperty
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    @JsonProperty
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    /**
+     * Creates the cache and registers its metrics
+     *
+     * @param environment of the application
+     * @return cache of the results of requests by idempotency key
+     */
+    public IdempotencyCache build(Environment environment) {
+
+        IdempotencyCache cache = new IdempotencyCache(maxKeys, ttl.toNanoseconds());
+
+        environment.metrics().register(MetricRegistry.name(IdempotencyCache.class, "size"),
+                (Gauge<Integer>) cache::getSize);
+        environment.metrics().register(MetricRegistry.name(IdempotencyCache.class, "hits"),
+                (Gauge<Long>) cache::getHits);
+        environment.metrics().register(MetricRegistry.name(IdempotencyCache.class, "coalesced"),
+                (Gauge<Long>) cache::getCoalesced);
+        environment.metrics().register(MetricRegistry.name(IdempotencyCache.class, "evictions"),
+                (Gauge<Long>) cache::getEvictions);
+
+        return cache;
+    }
+}
@@ -0,0 +1,118 @@
+package com.assignment.service;
+
+import com.assignment.model.Account;
+
+/**
+ * Checks and changes balances of accounts on behalf of {@link TransactionService}
+ * Implementations decide how concurrent changes of the same account are kept apart
+ * Single changes return the reason they are rejected, so that rejections need no exception
+ * Every valid change runs a {@link Commit} before any other change can depend on it, which journals the change,
+ *    so that replaying the journal in its order never takes a balance out of its bounds
+ */
+public interface Ledger {
+
+    /**
+     * Runs once a change is validated, before the change is visible to any other change of the accounts taking part:
+     *    money taken from an account cannot be spent and room taken in an account cannot be used by another change yet
+     * Every change this one depends on has run its commit before, so the order of commits is a valid order of changes
+     */
+    @FunctionalInterface
+    interface Commit {
+
+        /**
+         * Commit of changes that are not journaled
+         */
+        Commit NONE = () -> {
+        };
+
+        /**
+         * @throws RuntimeException if the change cannot be journaled, the change is undone and the exception is thrown
+         *    to the caller of the ledger
+         */
+        void run();
+    }
+
+    /**
+     * Adds given amount to the balance of the account
+     *
+     * @param account to deposit
+     * @param amount to be deposit
+     * @return null if deposited, {@link Rejection#BALANCE_LIMIT} if the balance would exceed {@link Integer#MAX_VALUE}
+     */
+    default Rejection deposit(Account account, int amount) {
+        return deposit(account, amount, Commit.NONE);
+    }
+
+    /**
+     * Adds given amount to the balance of the account
+     *
+     * @param account to deposit
+     * @param amount to be deposit
+     * @param commit run once the deposit is valid, not run if it is rejected
+     * @return null if deposited, {@link Rejection#BALANCE_LIMIT} if the balance would exceed {@link Integer#MAX_VALUE}
+     */
+    Rejection deposit(Account account, int amount, Commit commit);
+
+    /**
+     * Takes given amount from the balance of the account
+     *
+     * @param account to withdraw
+     * @param amount to be withdrawn
+     * @return null if withdrawn, {@link Rejection#INSUFFICIENT_FUNDS} if the balance would drop below zero
+     */
+    default Rejection withdraw(Account account, int amount) {
+        return withdraw(account, amount, Commit.NONE);
+    }
+
+    /**
+     * Takes given amount from the balance of the account
+     *
+     * @param account to withdraw
+     * @param amount to be withdrawn
+     * @param commit run once the withdrawal is valid, not run if it is rejected
+     * @return null if withdrawn, {@link Rejection#INSUFFICIENT_FUNDS} if the balance would drop below zero
+     */
+    Rejection withdraw(Account account, int amount, Commit commit);
+
+    /**
+     * Moves given amount from one account to another
+     *
+     * @param from source account
+     * @param to destination account
+     * @param amount to be transferred
+     * @return null if transferred, the reason otherwise if the accounts are the same or any balance would leave its bounds
+     */
+    default Rejection transfer(Account from, Account to, int amount) {
+        return transfer(from, to, amount, Commit.NONE);
+    }
+
+    /**
+     * Moves given amount from one account to another
+     *
+     * @param from source account
+     * @param to destination account
+     * @param amount to be transferred
+     * @param commit run once the transfer is valid, not run if it is rejected
+     * @return null if transferred, the reason otherwise if the accounts are the same or any balance would leave its bounds
+     */
+    Rejection transfer(Account from, Account to, int amount, Commit commit);
+
+    /**
+     * Changes the balances of all given accounts by their net changes, or none of them
+     *
+     * @param changes net change of the balance of every account taking part
+     * @throws TransactionException if any balance would leave its bounds
+     */
+    default void apply(BalanceChanges changes) throws TransactionException {
+        apply(changes, Commit.NONE);
+    }
+
+    /**
+     * Changes the balances of all given accounts by their net changes, or none of them
+     *
+     * @param changes net change of the balance of every account taking part
+     * @param commit run once all changes are valid, not run if any of them is rejected
+     * @throws TransactionException if any balance would leave its bounds
+     */
+    void apply(BalanceChanges changes, Commit commit) throws TransactionException;
+}
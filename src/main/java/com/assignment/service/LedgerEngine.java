@@ -0,0 +1,19 @@
+package com.assignment.service;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/***
+ * Engines a {@link Ledger} can be built with
+ *
+ * MONITOR : requests change balances on their own threads while holding the monitors of the accounts
+ * STRIPED : requests change balances on their own threads while holding the locks of a striped lock table
+ * ATOMIC  : requests change balances on their own threads by compare and set loops, without locks
+ * SHARDED : accounts are split across single-threaded shards, requests submit commands to them and wait
+ */
+public enum LedgerEngine {
+
+    @JsonProperty("monitor") MONITOR,
+    @JsonProperty("striped") STRIPED,
+    @JsonProperty("atomic") ATOMIC,
+    @JsonProperty("sharded") SHARDED;
+}
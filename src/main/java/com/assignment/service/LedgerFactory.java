@@ -0,0 +1,133 @@
+package com.assignment.service;
+
+import com.assignment.metrics.HdrReservoir;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.setup.Environment;
+import io.dropwizard.validation.ValidationMethod;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration of the {@link Ledger} used by {@link TransactionService}
+ */
+public class LedgerFactory {
+
+    @NotNull
+    private LedgerEngine engine = LedgerEngine.MONITOR;
+
+    @Min(1)
+    private int shards = Runtime.getRuntime().availableProcessors();
+
+    @Min(1)
+    private int ringSize = 1024;
+
+    @Min(1)
+    private int stripes = 1024;
+
+    // null unless hot accounts are enabled
+    @Valid
+    private HotAccountsFactory hot;
+
+    @JsonProperty
+    public LedgerEngine getEngine() {
+        return engine;
+    }
+
+    @JsonProperty
+    public void setEngine(LedgerEngine engine) {
+        this.engine = engine;
+    }
+
+    @JsonProperty
+    public int getShards() {
+        return shards;
+    }
+
+    @JsonProperty
+    public void setShards(int shards) {
+        this.shards = shards;
+    }
+
+    @JsonProperty
+    public int getRingSize() {
+        return ringSize;
+    }
+
+    @JsonProperty
+    public void setRingSize(int ringSize) {
+        this.ringSize = ringSize;
+    }
+
+    @JsonProperty
+    public int getStripes() {
+        return stripes;
+    }
+
+    @JsonProperty
+    public void setStripes(int stripes) {
+        this.stripes = stripes;
+    }
+
+    @JsonProperty
+    public HotAccountsFactory getHot() {
+        return hot;
+    }
+
+    @JsonProperty
+    public void setHot(HotAccountsFactory hot) {
+        this.hot = hot;
+    }
+
+    @JsonIgnore
+    @ValidationMethod(message = "hot accounts are only supported by the atomic engine")
+    public boolean isHotSupported() {
+        return hot == null || engine == LedgerEngine.ATOMIC;
+    }
+
+    /**
+     * Creates the configured ledger, ties its threads, if any, to the lifecycle of the application
+     *    and registers its metrics
+     *
+     * @param environment of the application
+     * @return ledger to change balances with
+     */
+    public Ledger build(Environment environment) {
+
+        if (engine == LedgerEngine.MONITOR) {
+            return new MonitorLedger();
+        }
+
+        if (engine == LedgerEngine.ATOMIC) {
+            return new AtomicLedger(hot != null ? hot.build(environment) : null);
+        }
+
+        if (engine == LedgerEngine.STRIPED) {
+            Histogram lockWaits = environment.metrics().register(MetricRegistry.name(StripedLedger.class, "lock-wait"),
+                    new Histogram(new HdrReservoir()));
+            Histogram criticalSections = environment.metrics().register(MetricRegistry.name(StripedLedger.class, "critical-section"),
+                    new Histogram(new HdrReservoir()));
+            StripedLockTable locks = new StripedLockTable(stripes, lockWaits, criticalSections);
+
+            environment.metrics().register(MetricRegistry.name(StripedLedger.class, "waits"),
+                    (Gauge<Long>) locks::getTotalWaits);
+            environment.metrics().register(MetricRegistry.name(StripedLedger.class, "wait-ms"),
+                    (Gauge<Long>) () -> TimeUnit.NANOSECONDS.toMillis(locks.getTotalWaitNanos()));
+            environment.admin().addTask(new StripeWaitsTask(locks));
+
+            return new StripedLedger(locks);
+        }
+
+        ShardedLedger ledger = new ShardedLedger(shards, ringSize);
+
+        environment.lifecycle().manage(ledger);
+
+        return ledger;
+    }
+}
@@ -0,0 +1,121 @@
+package com.assignment.service;
+
+import com.assignment.model.Account;
+
+import java.util.Arrays;
+
+/**
+ * {@link Ledger} guarding balances by the monitors of their accounts
+ * Requests change balances on their own threads, transfers hold both monitors in a deterministic order
+ * Changes are committed while the monitors are held, so the order of commits is the order of changes
+ */
+public class MonitorLedger implements Ledger {
+
+    @Override
+    public Rejection deposit(Account account, int amount, Commit commit) {
+
+        synchronized (account.monitor()) {
+
+            // validation
+            if (!account.hasEnoughSpaceToDeposit(amount)) {
+                return Rejection.BALANCE_LIMIT;
+            }
+
+            // journaled before the balance changes, so there is nothing to undo if that fails
+            commit.run();
+
+            // perform deposit
+            account.increaseBalance(amount);
+        }
+
+        return null;
+    }
+
+    @Override
+    public Rejection withdraw(Account account, int amount, Commit commit) {
+
+        synchronized (account.monitor()) {
+
+            // validation
+            if (!account.hasEnoughBalanceToWithdraw(amount)) {
+                return Rejection.INSUFFICIENT_FUNDS;
+            }
+
+            commit.run();
+
+            // perform withdrawal
+            account.decreaseBalance(amount);
+        }
+
+        return null;
+    }
+
+    @Override
+    public Rejection transfer(Account from, Account to, int amount, Commit commit) {
+
+        // Two account id cannot be same since its checked during insertion to account store
+        // Accounts may share a monitor if their balances are kept in the same stripe of a balance store
+        boolean fromFirst = from.compareLockOrder(to) < 0;
+        Object firstLock = fromFirst ? from.monitor() : to.monitor();
+        Object secondLock = fromFirst ? to.monitor() : from.monitor();
+
+        // Lock ordering must be deterministic to prevent deadlock situations
+        synchronized (firstLock) {
+
+            synchronized (secondLock) {
+
+                // validations
+                if (from.getId().equals(to.getId())) {
+                    return Rejection.SAME_ACCOUNT;
+                }
+
+                if (!from.hasEnoughBalanceToWithdraw(amount)) {
+                    return Rejection.INSUFFICIENT_FUNDS;
+                }
+
+                if (!to.hasEnoughSpaceToDeposit(amount)) {
+                    return Rejection.BALANCE_LIMIT;
+                }
+
+                commit.run();
+
+                // perform transfer
+                from.decreaseBalance(amount);
+                to.increaseBalance(amount);
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public void apply(BalanceChanges changes, Commit commit) throws TransactionException {
+
+        Account[] accounts = new Account[changes.size()];
+
+        for (int i = 0; i < accounts.length; i++) {
+            accounts[i] = changes.getAccount(i);
+        }
+
+        // Lock ordering must be deterministic to prevent deadlock situations, a shared monitor is simply entered again
+        Arrays.sort(accounts, Account::compareLockOrder);
+
+        apply(changes, commit, accounts, 0);
+    }
+
+    private void apply(BalanceChanges changes, Commit commit, Account[] accounts, int next) throws TransactionException {
+
+        if (next == accounts.length) {
+
+            // validation and perform changes once all monitors are held
+            changes.check();
+            commit.run();
+            changes.applyUnchecked();
+            return;
+        }
+
+        synchronized (accounts[next].monitor()) {
+            apply(changes, commit, accounts, next + 1);
+        }
+    }
+}
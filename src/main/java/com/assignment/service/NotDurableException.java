@@ -0,0 +1,24 @@
+package com.assignment.service;
+
+import com.assignment.model.Transaction;
+
+/**
+ * Unchecked exception completing a transaction which has been performed and journaled, but not made durable
+ *    because the journal failed: its balances have changed and it is listed, yet it may be lost by a restart
+ */
+public class NotDurableException extends RuntimeException {
+
+    private final Transaction transaction;
+
+    public NotDurableException(Transaction transaction, Throwable cause) {
+        super("Transaction " + transaction.getId() + " has been performed but is not durable", cause);
+        this.transaction = transaction;
+    }
+
+    /**
+     * @return performed transaction
+     */
+    public Transaction getTransaction() {
+        return transaction;
+    }
+}
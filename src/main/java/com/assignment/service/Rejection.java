@@ -0,0 +1,31 @@
+package com.assignment.service;
+
+/**
+ * Reasons a {@link Ledger} rejects a change of balances, returned instead of thrown so that rejections stay cheap
+ * Every reason comes with its message and an exception built once, for callers which have to throw
+ */
+public enum Rejection {
+
+    INSUFFICIENT_FUNDS("Account balance cannot be less than zero"),
+    BALANCE_LIMIT("Account balance cannot be greater than " + Integer.MAX_VALUE),
+    SAME_ACCOUNT("Participants of a transfer must be different");
+
+    private final String message;
+    private final TransactionException exception;
+
+    Rejection(String message) {
+        this.message = message;
+        this.exception = new TransactionException(message, false);
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * @return exception with the message of the rejection, shared by every caller and without stack trace
+     */
+    public TransactionException toException() {
+        return exception;
+    }
+}
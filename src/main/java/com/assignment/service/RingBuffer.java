@@ -0,0 +1,95 @@
+package com.assignment.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded queue of preallocated slots with many producers and a single consumer
+ * Producers claim a sequence by a compare and set and publish their element into its slot,
+ *    the consumer takes elements in sequence order and frees their slots, neither of them ever blocks
+ *
+ * @param <E> type of the elements
+ */
+class RingBuffer<E> {
+
+    private final AtomicReferenceArray<E> slots;
+    private final int mask;
+
+    // next sequence to be claimed by a producer
+    private final AtomicLong tail = new AtomicLong();
+
+    // next sequence to be taken by the consumer, only written by the consumer
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * @param capacity number of slots, rounded up to a power of two
+     */
+    RingBuffer(int capacity) {
+
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 1 and " + (1 << 30) + ": " + capacity);
+        }
+
+        int size = Integer.highestOneBit(capacity);
+
+        if (size < capacity) {
+            size <<= 1;
+        }
+
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Appends given element if there is a free slot, may be called by any thread
+     *
+     * @param element to be appended, not null
+     * @return false if the buffer is full
+     */
+    boolean offer(E element) {
+
+        long sequence;
+
+        do {
+            sequence = tail.get();
+
+            if (sequence - head.get() > mask) {
+                return false;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+
+        // the slot has been freed by the consumer before it moved the head past it
+        slots.set((int) sequence & mask, element);
+
+        return true;
+    }
+
+    /**
+     * Takes the oldest element, must only be called by the consumer
+     *
+     * @return oldest element or null if the buffer is empty or the oldest element is not published yet
+     */
+    E poll() {
+
+        long sequence = head.get();
+        int index = (int) sequence & mask;
+
+        E element = slots.get(index);
+
+        if (element == null) {
+            return null;
+        }
+
+        slots.lazySet(index, null);
+        head.lazySet(sequence + 1);
+
+        return element;
+    }
+
+    /**
+     * @return true if no element has been claimed beyond the consumer
+     */
+    boolean isEmpty() {
+        return tail.get() == head.get();
+    }
+}
@@ -0,0 +1,579 @@
+package com.assignment.service;
+
+import com.assignment.model.Account;
+import io.dropwizard.lifecycle.Managed;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link Ledger} splitting accounts across single-threaded shards instead of guarding them by monitors
+ * Every account is owned by the shard its id hashes to, only the thread of that shard ever changes its balance,
+ *    so balances are changed without any lock
+ * Requests submit commands to the ring buffer of the owning shard and wait for their completion
+ * A transfer between accounts of different shards is handed off in a fixed order:
+ *    the shard of the source withdraws and reserves the amount, then hands the command to the shard of the destination,
+ *    which deposits it and hands the command back to settle the reservation, or hands it back to refund the source
+ * Deposits to an account take its reserved refunds into account, so a refund can never exceed the upper limit
+ * While a transfer is handed off its amount is neither in the source nor in the destination balance
+ * Changes of several accounts are reserved by every shard owning any of them and committed once all shards have reserved
+ * Journaled changes are committed by the shard changing the balance, right before it does: a transfer between shards
+ *    is committed by the shard of the destination while the source still holds its reservation,
+ *    changes of several accounts by the caller once every shard has reserved them
+ */
+public class ShardedLedger implements Ledger, Managed {
+
+    // idle rounds a shard yields before it parks
+    private static final int IDLE_SPINS = 64;
+
+    private enum Step {
+        DEPOSIT, WITHDRAW, TRANSFER, CREDIT, SETTLE, REFUND, RESERVE, COMMIT, UNDO
+    }
+
+    /**
+     * A request travelling between shards, completed once its balances are changed or with the reason it is rejected
+     */
+    private static final class Command extends CompletableFuture<Rejection> {
+
+        // written by the shard holding the command, read by the next one after the handoff
+        private Step step;
+        private final Account account;
+        private final Account other;
+        private final int amount;
+        private final Commit commit;
+
+        // thrown by the commit of a transfer handed off, the source is refunded before it is passed on
+        private RuntimeException failure;
+
+        // net changes of several accounts, each shard only touches the accounts it owns
+        private final BalanceChanges changes;
+
+        Command(Step step, Account account, Account other, int amount, Commit commit) {
+            this.step = step;
+            this.account = account;
+            this.other = other;
+            this.amount = amount;
+            this.commit = commit;
+            this.changes = null;
+        }
+
+        Command(Step step, BalanceChanges changes) {
+            this.step = step;
+            this.account = null;
+            this.other = null;
+            this.amount = 0;
+            this.commit = Commit.NONE;
+            this.changes = changes;
+        }
+    }
+
+    private final class Shard implements Runnable {
+
+        private final int index;
+        private final RingBuffer<Command> commands;
+
+        // commands handed off by other shards, unbounded so that shards never wait for each other
+        private final Queue<Command> handoffs = new ConcurrentLinkedQueue<>();
+
+        // amounts taken from accounts of this shard by transfers still handed off, only touched by the shard thread
+        private final Map<String, long[]> reserved = new HashMap<>();
+
+        private volatile boolean running;
+        private volatile boolean waiting;
+        private Thread thread;
+
+        Shard(int index, int ringSize) {
+            this.index = index;
+            this.commands = new RingBuffer<>(ringSize);
+        }
+
+        void start() {
+            running = true;
+            thread = new Thread(this, "ledger-shard-" + index);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void stop() throws InterruptedException {
+
+            running = false;
+
+            if (thread != null) {
+                LockSupport.unpark(thread);
+                thread.join();
+            }
+        }
+
+        void submit(Command command) {
+
+            if (!running) {
+                command.completeExceptionally(new IllegalStateException("Ledger is not running"));
+                return;
+            }
+
+            while (!commands.offer(command)) {
+
+                if (!running) {
+                    command.completeExceptionally(new IllegalStateException("Ledger is not running"));
+                    return;
+                }
+
+                // the shard is behind, wait for it to free a slot
+                wake();
+                Thread.yield();
+            }
+
+            wake();
+        }
+
+        void handoff(Command command) {
+            handoffs.offer(command);
+            wake();
+        }
+
+        private void wake() {
+            if (waiting) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        @Override
+        public void run() {
+
+            int idle = 0;
+
+            while (running) {
+
+                // handed off transfers go first, their callers have been waiting the longest
+                Command command = handoffs.poll();
+
+                if (command == null) {
+                    command = commands.poll();
+                }
+
+                if (command != null) {
+                    process(command);
+                    idle = 0;
+                } else if (++idle < IDLE_SPINS) {
+                    Thread.yield();
+                } else {
+                    // producers look at the flag after publishing, so either they wake the shard or it sees their command
+                    waiting = true;
+
+                    if (running && handoffs.isEmpty() && commands.isEmpty()) {
+                        LockSupport.park(this);
+                    }
+
+                    waiting = false;
+                    idle = 0;
+                }
+            }
+
+            Command command;
+
+            while ((command = handoffs.poll()) != null || (command = commands.poll()) != null) {
+                command.completeExceptionally(new IllegalStateException("Ledger is not running"));
+            }
+        }
+
+        private void process(Command command) {
+
+            Account account = command.account;
+            int amount = command.amount;
+
+            switch (command.step) {
+
+                case DEPOSIT:
+                    if (!hasSpace(account, amount)) {
+                        reject(command, Rejection.BALANCE_LIMIT);
+                        return;
+                    }
+
+                    if (commit(command)) {
+                        account.increaseBalance(amount);
+                        command.complete(null);
+                    }
+                    return;
+
+                case WITHDRAW:
+                    if (!account.hasEnoughBalanceToWithdraw(amount)) {
+                        reject(command, Rejection.INSUFFICIENT_FUNDS);
+                        return;
+                    }
+
+                    if (commit(command)) {
+                        account.decreaseBalance(amount);
+                        command.complete(null);
+                    }
+                    return;
+
+                case TRANSFER:
+                    if (!account.hasEnoughBalanceToWithdraw(amount)) {
+                        reject(command, Rejection.INSUFFICIENT_FUNDS);
+                        return;
+                    }
+
+                    Shard destination = shardOf(command.other);
+
+                    if (destination == this) {
+
+                        if (!hasSpace(command.other, amount)) {
+                            reject(command, Rejection.BALANCE_LIMIT);
+                            return;
+                        }
+
+                        if (commit(command)) {
+                            account.decreaseBalance(amount);
+                            command.other.increaseBalance(amount);
+                            command.complete(null);
+                        }
+                        return;
+                    }
+
+                    account.decreaseBalance(amount);
+                    reserve(account, amount);
+                    command.step = Step.CREDIT;
+                    destination.handoff(command);
+                    return;
+
+                case CREDIT:
+                    command.step = Step.REFUND;
+
+                    if (hasSpace(command.other, amount)) {
+                        try {
+                            command.commit.run();
+                            command.other.increaseBalance(amount);
+                            command.step = Step.SETTLE;
+                            command.complete(null);
+                        } catch (RuntimeException e) {
+                            command.failure = e;
+                        }
+                    }
+
+                    shardOf(account).handoff(command);
+                    return;
+
+                case SETTLE:
+                    release(account, amount);
+                    return;
+
+                case REFUND:
+                    release(account, amount);
+                    account.increaseBalance(amount);
+
+                    if (command.failure != null) {
+                        command.completeExceptionally(command.failure);
+                    } else {
+                        reject(command, Rejection.BALANCE_LIMIT);
+                    }
+                    return;
+
+                case RESERVE:
+                    reserve(command);
+                    return;
+
+                case COMMIT:
+                case UNDO:
+                    settle(command.changes, command.step == Step.COMMIT);
+                    command.complete(null);
+                    return;
+
+                default:
+                    throw new IllegalStateException("Unknown step " + command.step);
+            }
+        }
+
+        // debits are withdrawn and reserved, credits reserve their room, so that undoing them always fits
+        private void reserve(Command command) {
+
+            BalanceChanges changes = command.changes;
+
+            for (int i = 0; i < changes.size(); i++) {
+
+                Account account = changes.getAccount(i);
+                long delta = changes.getDelta(i);
+
+                if (shardOf(account) != this) {
+                    continue;
+                }
+
+                if (delta < 0 && (delta < -Integer.MAX_VALUE || !account.hasEnoughBalanceToWithdraw((int) -delta))) {
+                    command.completeExceptionally(BalanceChanges.lowerLimit(account));
+                    return;
+                }
+
+                if (delta > 0 && (delta > Integer.MAX_VALUE || !hasSpace(account, (int) delta))) {
+                    command.completeExceptionally(BalanceChanges.upperLimit(account));
+                    return;
+                }
+            }
+
+            for (int i = 0; i < changes.size(); i++) {
+
+                Account account = changes.getAccount(i);
+                int amount = (int) Math.abs(changes.getDelta(i));
+
+                if (amount == 0 || shardOf(account) != this) {
+                    continue;
+                }
+
+                if (changes.getDelta(i) < 0) {
+                    account.decreaseBalance(amount);
+                }
+
+                reserve(account, amount);
+            }
+
+            command.complete(null);
+        }
+
+        private void settle(BalanceChanges changes, boolean commit) {
+
+            for (int i = 0; i < changes.size(); i++) {
+
+                Account account = changes.getAccount(i);
+                long delta = changes.getDelta(i);
+
+                if (delta == 0 || shardOf(account) != this) {
+                    continue;
+                }
+
+                release(account, (int) Math.abs(delta));
+
+                // credits are deposit on commit, debits are given back on undo
+                if (commit == delta > 0) {
+                    account.increaseBalance((int) Math.abs(delta));
+                }
+            }
+        }
+
+        private boolean hasSpace(Account account, int amount) {
+
+            long[] refunds = reserved.isEmpty() ? null : reserved.get(account.getId());
+
+            if (refunds == null) {
+                return account.hasEnoughSpaceToDeposit(amount);
+            }
+
+            long required = amount + refunds[0];
+
+            return required <= Integer.MAX_VALUE && account.hasEnoughSpaceToDeposit((int) required);
+        }
+
+        private void reserve(Account account, int amount) {
+            reserved.computeIfAbsent(account.getId(), id -> new long[1])[0] += amount;
+        }
+
+        private void release(Account account, int amount) {
+
+            long[] refunds = reserved.get(account.getId());
+
+            if ((refunds[0] -= amount) == 0) {
+                reserved.remove(account.getId());
+            }
+        }
+
+        private void reject(Command command, Rejection rejection) {
+            command.complete(rejection);
+        }
+
+        // a failed commit fails the command instead of the shard, nothing has changed yet
+        private boolean commit(Command command) {
+
+            try {
+                command.commit.run();
+                return true;
+            } catch (RuntimeException e) {
+                command.completeExceptionally(e);
+                return false;
+            }
+        }
+    }
+
+    private final Shard[] shards;
+
+    /**
+     * @param shardCount number of shards, each one runs on its own thread once started
+     * @param ringSize number of commands waiting for a shard before requests have to wait to submit
+     */
+    public ShardedLedger(int shardCount, int ringSize) {
+
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be positive: " + shardCount);
+        }
+
+        this.shards = new Shard[shardCount];
+
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, ringSize);
+        }
+    }
+
+    @Override
+    public void start() {
+        for (Shard shard : shards) {
+            shard.start();
+        }
+    }
+
+    /**
+     * Stops the shards once they have finished their current command, commands still waiting are rejected
+     * Must only be called once requests stopped coming, as the application does after its server has stopped
+     *
+     * @throws InterruptedException if interrupted while waiting for a shard to stop
+     */
+    @Override
+    public void stop() throws InterruptedException {
+        for (Shard shard : shards) {
+            shard.stop();
+        }
+    }
+
+    @Override
+    public Rejection deposit(Account account, int amount, Commit commit) {
+        return submit(account, new Command(Step.DEPOSIT, account, null, amount, commit));
+    }
+
+    @Override
+    public Rejection withdraw(Account account, int amount, Commit commit) {
+        return submit(account, new Command(Step.WITHDRAW, account, null, amount, commit));
+    }
+
+    @Override
+    public Rejection transfer(Account from, Account to, int amount, Commit commit) {
+
+        if (from.getId().equals(to.getId())) {
+            return Rejection.SAME_ACCOUNT;
+        }
+
+        return submit(from, new Command(Step.TRANSFER, from, to, amount, commit));
+    }
+
+    /**
+     * Every shard owning any of the accounts reserves their changes, then all of them commit,
+     *    or the shards that have reserved undo their changes if any shard rejects or the commit fails
+     */
+    @Override
+    public void apply(BalanceChanges changes, Commit commit) throws TransactionException {
+
+        List<Shard> owners = new ArrayList<>();
+
+        for (int i = 0; i < changes.size(); i++) {
+
+            Shard shard = shardOf(changes.getAccount(i));
+
+            if (!owners.contains(shard)) {
+                owners.add(shard);
+            }
+        }
+
+        List<Command> reservations = new ArrayList<>(owners.size());
+
+        for (Shard shard : owners) {
+            Command command = new Command(Step.RESERVE, changes);
+            reservations.add(command);
+            shard.submit(command);
+        }
+
+        TransactionException rejection = null;
+        RuntimeException failure = null;
+
+        for (Command command : reservations) {
+            try {
+                join(command);
+            } catch (TransactionException e) {
+                rejection = rejection != null ? rejection : e;
+            } catch (RuntimeException e) {
+                failure = failure != null ? failure : e;
+            }
+        }
+
+        if (rejection == null && failure == null) {
+            try {
+                commit.run();
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+
+        boolean committed = rejection == null && failure == null;
+        List<Command> settlements = new ArrayList<>(owners.size());
+
+        for (int i = 0; i < owners.size(); i++) {
+
+            // a shard that has not reserved has nothing to undo
+            if (committed || !reservations.get(i).isCompletedExceptionally()) {
+                Command command = new Command(committed ? Step.COMMIT : Step.UNDO, changes);
+                settlements.add(command);
+                owners.get(i).submit(command);
+            }
+        }
+
+        for (Command command : settlements) {
+            join(command);
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+
+        if (rejection != null) {
+            throw rejection;
+        }
+    }
+
+    /**
+     * @return number of shards
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    private Rejection submit(Account account, Command command) {
+
+        shardOf(account).submit(command);
+
+        try {
+            return command.join();
+        } catch (CompletionException e) {
+
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw e;
+        }
+    }
+
+    private static void join(Command command) throws TransactionException {
+
+        try {
+            command.join();
+        } catch (CompletionException e) {
+
+            if (e.getCause() instanceof TransactionException) {
+                throw (TransactionException) e.getCause();
+            }
+
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw e;
+        }
+    }
+
+    private Shard shardOf(Account account) {
+
+        int hash = account.getId().hashCode();
+
+        return shards[Math.floorMod(hash ^ (hash >>> 16), shards.length)];
+    }
+}
@@ -0,0 +1,51 @@
+package com.assignment.service;
+
+import com.google.common.collect.ImmutableMultimap;
+import io.dropwizard.servlets.tasks.Task;
+
+import java.io.PrintWriter;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Admin task listing the stripes of a {@link StripedLockTable} threads waited for the longest, one line per stripe
+ * `POST /tasks/ledger-stripes?top=20` lists the given number of stripes, `reset=true` clears the metrics afterwards
+ */
+public class StripeWaitsTask extends Task {
+
+    private static final int DEFAULT_TOP = 20;
+
+    private final StripedLockTable locks;
+
+    /**
+     * @param locks to be reported
+     */
+    public StripeWaitsTask(StripedLockTable locks) {
+        super("ledger-stripes");
+        this.locks = locks;
+    }
+
+    @Override
+    public void execute(ImmutableMultimap<String, String> parameters, PrintWriter output) throws Exception {
+
+        int top = parameters.get("top").stream().findFirst().map(Integer::parseInt).orElse(DEFAULT_TOP);
+
+        output.printf("stripes=%d waits=%d wait-ms=%d%n", locks.getStripeCount(), locks.getTotalWaits(),
+                TimeUnit.NANOSECONDS.toMillis(locks.getTotalWaitNanos()));
+
+        IntStream.range(0, locks.getStripeCount())
+                .filter(stripe -> locks.getWaits(stripe) > 0)
+                .boxed()
+                .sorted(Comparator.comparingLong(locks::getWaitNanos).reversed())
+                .limit(top)
+                .forEach(stripe -> output.printf("stripe=%d waits=%d wait-us=%d max-wait-us=%d%n", stripe,
+                        locks.getWaits(stripe),
+                        TimeUnit.NANOSECONDS.toMicros(locks.getWaitNanos(stripe)),
+                        TimeUnit.NANOSECONDS.toMicros(locks.getMaxWaitNanos(stripe))));
+
+        if (parameters.get("reset").contains("true")) {
+            locks.resetWaits();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.assignment.service;
+
+import com.assignment.model.Account;
+
+import java.util.Arrays;
+
+/**
+ * {@link Ledger} guarding balances by the locks of a {@link StripedLockTable} instead of the monitors of accounts
+ * Accounts are mapped to stripes by their ids, so every view of an account shares its lock
+ * Transfers lock both stripes in ascending order, or a single one if both accounts share it
+ * Changes are committed while the stripes are locked, so the order of commits is the order of changes
+ */
+public class StripedLedger implements Ledger {
+
+    private final StripedLockTable locks;
+
+    /**
+     * @param locks guarding the balances
+     */
+    public StripedLedger(StripedLockTable locks) {
+        this.locks = locks;
+    }
+
+    @Override
+    public Rejection deposit(Account account, int amount, Commit commit) {
+
+        int stripe = locks.stripeOf(account.getId());
+
+        locks.lock(stripe);
+
+        try {
+            // validation
+            if (!account.hasEnoughSpaceToDeposit(amount)) {
+                return Rejection.BALANCE_LIMIT;
+            }
+
+            // journaled before the balance changes, so there is nothing to undo if that fails
+            commit.run();
+
+            // perform deposit
+            account.increaseBalance(amount);
+
+            return null;
+        } finally {
+            locks.unlock(stripe);
+        }
+    }
+
+    @Override
+    public Rejection withdraw(Account account, int amount, Commit commit) {
+
+        int stripe = locks.stripeOf(account.getId());
+
+        locks.lock(stripe);
+
+        try {
+            // validation
+            if (!account.hasEnoughBalanceToWithdraw(amount)) {
+                return Rejection.INSUFFICIENT_FUNDS;
+            }
+
+            commit.run();
+
+            // perform withdrawal
+            account.decreaseBalance(amount);
+
+            return null;
+        } finally {
+            locks.unlock(stripe);
+        }
+    }
+
+    @Override
+    public Rejection transfer(Account from, Account to, int amount, Commit commit) {
+
+        if (from.getId().equals(to.getId())) {
+            return Rejection.SAME_ACCOUNT;
+        }
+
+        // Stripe ordering must be deterministic to prevent deadlock situations
+        int fromStripe = locks.stripeOf(from.getId());
+        int toStripe = locks.stripeOf(to.getId());
+        int firstStripe = Math.min(fromStripe, toStripe);
+        int secondStripe = Math.max(fromStripe, toStripe);
+
+        locks.lock(firstStripe);
+
+        try {
+            if (secondStripe != firstStripe) {
+                locks.lock(secondStripe);
+            }
+
+            try {
+                // validations
+                if (!from.hasEnoughBalanceToWithdraw(amount)) {
+                    return Rejection.INSUFFICIENT_FUNDS;
+                }
+
+                if (!to.hasEnoughSpaceToDeposit(amount)) {
+                    return Rejection.BALANCE_LIMIT;
+                }
+
+                commit.run();
+
+                // perform transfer
+                from.decreaseBalance(amount);
+                to.increaseBalance(amount);
+
+                return null;
+            } finally {
+                if (secondStripe != firstStripe) {
+                    locks.unlock(secondStripe);
+                }
+            }
+        } finally {
+            locks.unlock(firstStripe);
+        }
+    }
+
+    @Override
+    public void apply(BalanceChanges changes, Commit commit) throws TransactionException {
+
+        int[] stripes = new int[changes.size()];
+
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = locks.stripeOf(changes.getAccount(i).getId());
+        }
+
+        // Stripe ordering must be deterministic to prevent deadlock situations, every stripe is locked once
+        Arrays.sort(stripes);
+
+        int count = 0;
+
+        for (int stripe : stripes) {
+            if (count == 0 || stripes[count - 1] != stripe) {
+                stripes[count++] = stripe;
+            }
+        }
+
+        int locked = 0;
+
+        try {
+            while (locked < count) {
+                locks.lock(stripes[locked++]);
+            }
+
+            // validation and perform changes once all stripes are locked
+            changes.check();
+            commit.run();
+            changes.applyUnchecked();
+        } finally {
+            while (locked > 0) {
+                locks.unlock(stripes[--locked]);
+            }
+        }
+    }
+
+    /**
+     * @return locks guarding the balances, with their wait metrics
+     */
+    public StripedLockTable getLocks() {
+        return locks;
+    }
+}
@@ -0,0 +1,221 @@
+package com.assignment.service;
+
+import com.codahale.metrics.Histogram;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed power of two number of locks, each one guarding every account whose id hashes to its stripe
+ * Locks are owned by the table, so nothing else synchronizing on an account can interfere with them
+ * Several stripes must be locked in ascending order to prevent deadlocks
+ * Every lock which could not be taken at once records how long it waited for its stripe,
+ *    uncontended locks cost no more than a compare and set
+ * Optionally the wait of every lock and how long the stripe is then held are recorded in histograms,
+ *    which costs two reads of the clock per lock
+ */
+public class StripedLockTable {
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    // per stripe: number of contended locks, total and longest wait in nanoseconds
+    private final AtomicLongArray waits;
+    private final AtomicLongArray waitNanos;
+    private final AtomicLongArray maxWaitNanos;
+
+    // null unless every lock is timed
+    private final Histogram lockWaits;
+    private final Histogram criticalSections;
+
+    // per stripe: when its holder took it, written and read by the holder only
+    private final long[] lockedAt;
+
+    /**
+     * @param stripes number of locks, rounded up to a power of two
+     */
+    public StripedLockTable(int stripes) {
+        this(stripes, null, null);
+    }
+
+    /**
+     * @param stripes number of locks, rounded up to a power of two
+     * @param lockWaits receives the nanoseconds every lock waited for its stripe, 0 if it was free
+     * @param criticalSections receives the nanoseconds every stripe was held, from its lock to its unlock
+     */
+    public StripedLockTable(int stripes, Histogram lockWaits, Histogram criticalSections) {
+
+        if (stripes < 1 || stripes > 1 << 30) {
+            throw new IllegalArgumentException("Stripes must be between 1 and " + (1 << 30) + ": " + stripes);
+        }
+
+        int size = Integer.highestOneBit(stripes);
+
+        if (size < stripes) {
+            size <<= 1;
+        }
+
+        this.locks = new ReentrantLock[size];
+        this.mask = size - 1;
+
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+
+        this.waits = new AtomicLongArray(size);
+        this.waitNanos = new AtomicLongArray(size);
+        this.maxWaitNanos = new AtomicLongArray(size);
+
+        this.lockWaits = lockWaits;
+        this.criticalSections = criticalSections;
+        this.lockedAt = lockWaits != null || criticalSections != null ? new long[size] : null;
+    }
+
+    /**
+     * @param id of the account
+     * @return stripe guarding the account, defines the order in which stripes must be locked
+     */
+    public int stripeOf(String id) {
+
+        int hash = id.hashCode();
+
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /**
+     * Locks given stripe, waiting for it if it is held by another thread
+     *
+     * @param stripe to be locked
+     */
+    public void lock(int stripe) {
+
+        ReentrantLock lock = locks[stripe];
+
+        if (lock.tryLock()) {
+            if (lockedAt != null) {
+                locked(stripe, lock, 0, System.nanoTime());
+            }
+            return;
+        }
+
+        long started = System.nanoTime();
+
+        lock.lock();
+
+        long now = System.nanoTime();
+
+        recordWait(stripe, now - started);
+
+        if (lockedAt != null) {
+            locked(stripe, lock, now - started, now);
+        }
+    }
+
+    /**
+     * @param stripe to be unlocked, must be held by the current thread
+     */
+    public void unlock(int stripe) {
+
+        ReentrantLock lock = locks[stripe];
+
+        // only the outermost unlock of a reentrant holder ends the critical section
+        if (lockedAt != null && criticalSections != null && lock.getHoldCount() == 1) {
+            criticalSections.update(System.nanoTime() - lockedAt[stripe]);
+        }
+
+        lock.unlock();
+    }
+
+    /**
+     * @return number of stripes
+     */
+    public int getStripeCount() {
+        return locks.length;
+    }
+
+    /**
+     * @param stripe of the table
+     * @return number of times a thread had to wait for given stripe
+     */
+    public long getWaits(int stripe) {
+        return waits.get(stripe);
+    }
+
+    /**
+     * @param stripe of the table
+     * @return nanoseconds threads spent waiting for given stripe
+     */
+    public long getWaitNanos(int stripe) {
+        return waitNanos.get(stripe);
+    }
+
+    /**
+     * @param stripe of the table
+     * @return longest wait for given stripe in nanoseconds
+     */
+    public long getMaxWaitNanos(int stripe) {
+        return maxWaitNanos.get(stripe);
+    }
+
+    /**
+     * @return number of times a thread had to wait for any stripe
+     */
+    public long getTotalWaits() {
+        return sum(waits);
+    }
+
+    /**
+     * @return nanoseconds threads spent waiting for any stripe
+     */
+    public long getTotalWaitNanos() {
+        return sum(waitNanos);
+    }
+
+    /**
+     * Clears the wait metrics of all stripes, e.g. before measuring another load
+     */
+    public void resetWaits() {
+        for (int i = 0; i < locks.length; i++) {
+            waits.set(i, 0);
+            waitNanos.set(i, 0);
+            maxWaitNanos.set(i, 0);
+        }
+    }
+
+    // a reentrant lock neither waited nor starts another critical section
+    private void locked(int stripe, ReentrantLock lock, long waitNanos, long now) {
+
+        if (lock.getHoldCount() > 1) {
+            return;
+        }
+
+        lockedAt[stripe] = now;
+
+        if (lockWaits != null) {
+            lockWaits.update(waitNanos);
+        }
+    }
+
+    private void recordWait(int stripe, long nanos) {
+
+        waits.incrementAndGet(stripe);
+        waitNanos.addAndGet(stripe, nanos);
+
+        long max;
+
+        while (nanos > (max = maxWaitNanos.get(stripe)) && !maxWaitNanos.compareAndSet(stripe, max, nanos)) {
+            // another wait has been recorded meanwhile, retry against it
+        }
+    }
+
+    private static long sum(AtomicLongArray values) {
+
+        long sum = 0;
+
+        for (int i = 0; i < values.length(); i++) {
+            sum += values.get(i);
+        }
+
+        return sum;
+    }
+}
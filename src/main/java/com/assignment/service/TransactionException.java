@@ -8,4 +8,12 @@ public class TransactionException extends Exception {
     public TransactionException(String message) {
         super(message);
     }
+
+    /**
+     * @param message of the exception
+     * @param writableStackTrace false for an exception thrown again and again, which never needs its own stack trace
+     */
+    protected TransactionException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
 }
\ No newline at end of file
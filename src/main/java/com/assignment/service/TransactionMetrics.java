@@ -0,0 +1,85 @@
+package com.assignment.service;
+
+import com.assignment.metrics.HdrReservoir;
+import com.assignment.model.TransactionType;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers of the deposits, withdrawals and transfers of {@link TransactionService}, one per outcome:
+ *    {@code TransactionService.deposit.performed}, {@code TransactionService.deposit.balance-limit} ...
+ * Each timer counts its transactions in a striped meter and records their durations in an {@link HdrReservoir},
+ *    so recording takes no lock shared by the request threads
+ */
+public class TransactionMetrics {
+
+    /**
+     * Metrics to be used when nothing is measured, records nothing
+     */
+    public static final TransactionMetrics DISABLED = new TransactionMetrics();
+
+    private static final TransactionType[] TIMED = {TransactionType.DEPOSIT, TransactionType.WITHDRAW, TransactionType.TRANSFER};
+
+    // by transaction type, then by outcome: performed first, then every rejection by its ordinal
+    private final Timer[][] timers;
+
+    private TransactionMetrics() {
+        this.timers = null;
+    }
+
+    /**
+     * Creates the timers and registers them
+     *
+     * @param registry to register the timers with
+     */
+    public TransactionMetrics(MetricRegistry registry) {
+
+        this.timers = new Timer[TransactionType.values().length][];
+
+        for (TransactionType type : TIMED) {
+
+            String operation = type.name().toLowerCase();
+            Timer[] outcomes = new Timer[1 + Rejection.values().length];
+
+            outcomes[0] = timer(registry, operation, "performed");
+
+            for (Rejection rejection : Rejection.values()) {
+                outcomes[1 + rejection.ordinal()] = timer(registry, operation, rejection.name().toLowerCase().replace('_', '-'));
+            }
+
+            timers[type.ordinal()] = outcomes;
+        }
+    }
+
+    /**
+     * Records a deposit, withdrawal or transfer
+     *
+     * @param type of the transaction
+     * @param rejection reason the transaction is rejected, null if it is performed
+     * @param startedNanos {@link System#nanoTime()} when the transaction started
+     */
+    public void record(TransactionType type, Rejection rejection, long startedNanos) {
+
+        if (timers == null) {
+            return;
+        }
+
+        timers[type.ordinal()][rejection == null ? 0 : 1 + rejection.ordinal()]
+                .update(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param type of the transaction
+     * @param rejection reason the transaction is rejected, null for performed transactions
+     * @return timer of given outcome, null if nothing is measured
+     */
+    Timer getTimer(TransactionType type, Rejection rejection) {
+        return timers != null ? timers[type.ordinal()][rejection == null ? 0 : 1 + rejection.ordinal()] : null;
+    }
+
+    private static Timer timer(MetricRegistry registry, String operation, String outcome) {
+        return registry.register(MetricRegistry.name(TransactionService.class, operation, outcome), new Timer(new HdrReservoir()));
+    }
+}
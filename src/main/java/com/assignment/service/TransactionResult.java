@@ -0,0 +1,74 @@
+package com.assignment.service;
+
+import com.assignment.model.Transaction;
+
+/**
+ * Outcome of a transaction requested from {@link TransactionService}: either the performed transaction
+ *    or the reason it has been rejected
+ * Results of rejections are shared, so rejecting a transaction allocates nothing
+ */
+public final class TransactionResult {
+
+    private static final TransactionResult[] REJECTED = new TransactionResult[Rejection.values().length];
+
+    static {
+        for (Rejection rejection : Rejection.values()) {
+            REJECTED[rejection.ordinal()] = new TransactionResult(null, rejection);
+        }
+    }
+
+    private final Transaction transaction;
+    private final Rejection rejection;
+
+    private TransactionResult(Transaction transaction, Rejection rejection) {
+        this.transaction = transaction;
+        this.rejection = rejection;
+    }
+
+    /**
+     * @param transaction performed
+     * @return result of a performed transaction
+     */
+    public static TransactionResult performed(Transaction transaction) {
+        return new TransactionResult(transaction, null);
+    }
+
+    /**
+     * @param rejection reason of the rejection
+     * @return shared result of a transaction rejected for given reason
+     */
+    public static TransactionResult rejected(Rejection rejection) {
+        return REJECTED[rejection.ordinal()];
+    }
+
+    public boolean isRejected() {
+        return rejection != null;
+    }
+
+    /**
+     * @return performed transaction, null if rejected
+     */
+    public Transaction getTransaction() {
+        return transaction;
+    }
+
+    /**
+     * @return reason of the rejection, null if performed
+     */
+    public Rejection getRejection() {
+        return rejection;
+    }
+
+    /**
+     * @return performed transaction
+     * @throws TransactionException shared exception of the rejection, if rejected
+     */
+    public Transaction orThrow() throws TransactionException {
+
+        if (rejection != null) {
+            throw rejection.toException();
+        }
+
+        return transaction;
+    }
+}
@@ -2,130 +2,318 @@ package com.assignment.service;
 
 import com.assignment.dao.TransactionDao;
 import com.assignment.model.Account;
+import com.assignment.model.Batch;
+import com.assignment.model.BatchResult;
+import com.assignment.model.Leg;
+import com.assignment.model.Page;
 import com.assignment.model.Transaction;
+import com.assignment.model.TransactionType;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 
 /**
  * Service layer to perform all kinds of transactions
+ * Single transactions rejected by the {@link Ledger} are answered with a shared result instead of an exception
+ * Transactions are created and journaled by the {@link Ledger.Commit} of their change, before anything can depend on it,
+ *    so the journal keeps the order balances change in; they are kept once durable, after the ledger is done
+ * Single transactions reuse a commit per thread, so a rejected one allocates neither its commit nor its transaction
  */
 public class TransactionService {
 
+    // rejections of single transactions of a batch, shared by every batch
+    private static final BatchResult[] REJECTED = new BatchResult[Rejection.values().length];
+
+    static {
+        for (Rejection rejection : Rejection.values()) {
+            REJECTED[rejection.ordinal()] = BatchResult.rejected(rejection.getMessage());
+        }
+    }
+
     private final TransactionDao transactionDao;
+    private final Ledger ledger;
+
+    // completes asynchronous requests once their transaction is durable
+    private final Executor completions;
+
+    private final TransactionMetrics metrics;
+
+    // every ledger call returns only once its commit has run or been dropped, so a thread never needs two at once
+    private final ThreadLocal<Pending> pending = ThreadLocal.withInitial(Pending::new);
 
     public TransactionService(TransactionDao transactionDao) {
+        this(transactionDao, new MonitorLedger());
+    }
+
+    public TransactionService(TransactionDao transactionDao, Ledger ledger) {
+        this(transactionDao, ledger, Runnable::run);
+    }
+
+    public TransactionService(TransactionDao transactionDao, Ledger ledger, Executor completions) {
+        this(transactionDao, ledger, completions, TransactionMetrics.DISABLED);
+    }
+
+    public TransactionService(TransactionDao transactionDao, Ledger ledger, Executor completions, TransactionMetrics metrics) {
         this.transactionDao = transactionDao;
+        this.ledger = ledger;
+        this.completions = completions;
+        this.metrics = metrics;
     }
 
     /**
      * First validates the request and then performs deposit operation on given account
-     * Guards balance of the account from concurrent modifications via accounts implicit monitor
+     * Concurrent changes of the balance are kept apart by the {@link Ledger}
      *
      * @param account object to perform deposit
      * @param amount to be deposit
-     * @return newly created transaction
-     * @throws TransactionException deposit action is not valid
+     * @return newly created transaction, or the reason the deposit is not valid
      */
-    public Transaction deposit(Account account, Integer amount) throws TransactionException {
+    public TransactionResult deposit(Account account, Integer amount) {
 
-        synchronized (account) {
+        long started = System.nanoTime();
 
-            // validation
-            if (!account.hasEnoughSpaceToDeposit(amount)) {
-                throw new TransactionException("Account balance cannot be greater than " + Integer.MAX_VALUE);
-            }
+        // validate and perform deposit, journaling a DEPOSIT transaction
+        Pending deposit = pending.get().of(TransactionType.DEPOSIT, null, account.getId(), amount, null);
+        Rejection rejection = ledger.deposit(account, amount, deposit);
 
-            // perform deposit
-            account.increaseBalance(amount);
+        if (rejection != null) {
+            metrics.record(TransactionType.DEPOSIT, rejection, started);
+            return TransactionResult.rejected(rejection);
         }
 
-        // create a DEPOSIT transaction
-        Transaction transaction = Transaction.ofDeposit(account.getId(), amount);
-
         // save the transaction
-        transactionDao.save(transaction);
+        transactionDao.commit(deposit.transaction, deposit.sequence);
+
+        metrics.record(TransactionType.DEPOSIT, null, started);
 
-        return transaction;
+        return TransactionResult.performed(deposit.transaction);
     }
 
     /**
      * First validates the request then performs withdraw operation on given account
-     * Guards balance of the account from concurrent modifications via accounts implicit monitor
+     * Concurrent changes of the balance are kept apart by the {@link Ledger}
      *
      * @param account object to perform withdrawal
      * @param amount to be withdrawn
-     * @return newly created transaction
-     * @throws TransactionException withdraw action is not valid
+     * @return newly created transaction, or the reason the withdrawal is not valid
      */
-    public Transaction withdraw(Account account, Integer amount) throws TransactionException {
+    public TransactionResult withdraw(Account account, Integer amount) {
 
-        synchronized (account) {
+        long started = System.nanoTime();
 
-            // validation
-            if (!account.hasEnoughBalanceToWithdraw(amount)) {
-                throw new TransactionException("Account balance cannot be less than zero");
-            }
+        // validate and perform withdrawal, journaling a WITHDRAW transaction
+        Pending withdrawal = pending.get().of(TransactionType.WITHDRAW, account.getId(), null, amount, null);
+        Rejection rejection = ledger.withdraw(account, amount, withdrawal);
 
-            // perform withdrawal
-            account.decreaseBalance(amount);
+        if (rejection != null) {
+            metrics.record(TransactionType.WITHDRAW, rejection, started);
+            return TransactionResult.rejected(rejection);
         }
 
-        // create a WITHDRAW transaction
-        Transaction transaction = Transaction.ofWithdraw(account.getId(), amount);
-
         // save the transaction
-        transactionDao.save(transaction);
+        transactionDao.commit(withdrawal.transaction, withdrawal.sequence);
+
+        metrics.record(TransactionType.WITHDRAW, null, started);
 
-        return transaction;
+        return TransactionResult.performed(withdrawal.transaction);
     }
 
     /**
      * First makes validations on both account then performs transfer operation
-     * Guards balance of the accounts from concurrent modifications via their implicit monitors
+     * Concurrent changes of the balances are kept apart by the {@link Ledger}
+     *
+     * @param from object to perform deposit
+     * @param to object to perform deposit
+     * @param amount to be deposit
+     * @return newly created transaction, or the reason the transfer is not valid
+     */
+    public TransactionResult transfer(Account from, Account to, Integer amount) {
+
+        long started = System.nanoTime();
+
+        // validate and perform transfer, journaling a TRANSFER transaction
+        Pending transfer = pending.get().of(TransactionType.TRANSFER, from.getId(), to.getId(), amount, null);
+        Rejection rejection = ledger.transfer(from, to, amount, transfer);
+
+        if (rejection != null) {
+            metrics.record(TransactionType.TRANSFER, rejection, started);
+            return TransactionResult.rejected(rejection);
+        }
+
+        // save the transaction
+        transactionDao.commit(transfer.transaction, transfer.sequence);
+
+        metrics.record(TransactionType.TRANSFER, null, started);
+
+        return TransactionResult.performed(transfer.transaction);
+    }
+
+    /**
+     * Performs a deposit like {@link #deposit(Account, Integer)} without waiting for the journal
+     *
+     * @param account object to perform deposit
+     * @param amount to be deposit
+     * @return stage completed with the newly created transaction once it is durable, or at once with the rejection,
+     *    completed exceptionally by a {@link NotDurableException} if the journal fails to make the transaction durable
+     */
+    public CompletionStage<TransactionResult> depositAsync(Account account, Integer amount) {
+
+        long started = System.nanoTime();
+        Pending deposit = pending.get().of(TransactionType.DEPOSIT, null, account.getId(), amount, null);
+        Rejection rejection = ledger.deposit(account, amount, deposit);
+
+        return rejection != null ? rejectedAsync(TransactionType.DEPOSIT, rejection, started) : commitAsync(deposit, started);
+    }
+
+    /**
+     * Performs a withdrawal like {@link #withdraw(Account, Integer)} without waiting for the journal
+     *
+     * @param account object to perform withdrawal
+     * @param amount to be withdrawn
+     * @return stage completed with the newly created transaction once it is durable, or at once with the rejection,
+     *    completed exceptionally by a {@link NotDurableException} if the journal fails to make the transaction durable
+     */
+    public CompletionStage<TransactionResult> withdrawAsync(Account account, Integer amount) {
+
+        long started = System.nanoTime();
+        Pending withdrawal = pending.get().of(TransactionType.WITHDRAW, account.getId(), null, amount, null);
+        Rejection rejection = ledger.withdraw(account, amount, withdrawal);
+
+        return rejection != null ? rejectedAsync(TransactionType.WITHDRAW, rejection, started) : commitAsync(withdrawal, started);
+    }
+
+    /**
+     * Performs a transfer like {@link #transfer(Account, Account, Integer)} without waiting for the journal
      *
      * @param from object to perform deposit
      * @param to object to perform deposit
      * @param amount to be deposit
+     * @return stage completed with the newly created transaction once it is durable, or at once with the rejection,
+     *    completed exceptionally by a {@link NotDurableException} if the journal fails to make the transaction durable
+     */
+    public CompletionStage<TransactionResult> transferAsync(Account from, Account to, Integer amount) {
+
+        long started = System.nanoTime();
+        Pending transfer = pending.get().of(TransactionType.TRANSFER, from.getId(), to.getId(), amount, null);
+        Rejection rejection = ledger.transfer(from, to, amount, transfer);
+
+        return rejection != null ? rejectedAsync(TransactionType.TRANSFER, rejection, started) : commitAsync(transfer, started);
+    }
+
+    /**
+     * First makes validations on all legs then pays all of them from one account at once
+     * Legs are validated against the net change of every balance and performed together, or none of them
+     *
+     * @param from object to pay all legs
+     * @param legs payees and the amounts they receive
+     * @param accounts looks up an account by id, returns null for an unknown account
      * @return newly created transaction
-     * @throws TransactionException deposit action is not valid
+     * @throws TransactionException split action is not valid
      */
-    public Transaction transfer(Account from, Account to, Integer amount) throws TransactionException {
+    public Transaction split(Account from, List<Leg> legs, Function<String, Account> accounts) throws TransactionException {
 
-        // Two account id cannot be same since its checked during insertion to account store
-        Object firstLock = from.getId().compareTo(to.getId()) < 0 ? from : to;
-        Object secondLock = from.getId().compareTo(to.getId()) < 0 ? to : from;
+        BalanceChanges changes = new BalanceChanges();
 
-        // Lock ordering must be deterministic to prevent deadlock situations
-        synchronized (firstLock) {
+        collect(changes, from, legs, accounts);
 
-            synchronized (secondLock) {
+        // validate and perform all legs at once, journaling a SPLIT transaction
+        Pending split = pending.get().of(TransactionType.SPLIT, from.getId(), null, 0, legs);
+        ledger.apply(changes, split);
 
-                // validations
-                if (from.getId().equals(to.getId())) {
-                    throw new TransactionException("Participants of a transfer must be different");
-                }
+        // save the transaction
+        transactionDao.commit(split.transaction, split.sequence);
 
-                if (!from.hasEnoughBalanceToWithdraw(amount)) {
-                    throw new TransactionException("Account balance cannot be less than zero");
-                }
+        return split.transaction;
+    }
 
-                if (!to.hasEnoughSpaceToDeposit(amount)) {
-                    throw new TransactionException("Account balance cannot be greater than " + Integer.MAX_VALUE);
-                }
+    /**
+     * Performs all transactions of given batch in their order, saving them to the journal together
+     * Atomic batches are validated against the net change of every balance and performed all together,
+     *    otherwise every transaction is validated and performed on its own and may be rejected on its own
+     *
+     * @param batch transactions to be performed
+     * @param accounts looks up an account by id, returns null for an unknown account
+     * @return result of every transaction in the order of the batch
+     * @throws TransactionException atomic batch is not valid, none of its transactions has been performed then
+     */
+    public List<BatchResult> execute(Batch batch, Function<String, Account> accounts) throws TransactionException {
+
+        List<Transaction> requests = batch.getTransactions();
+        List<Transaction> transactions = new ArrayList<>(requests.size());
+        List<BatchResult> results = new ArrayList<>(requests.size());
+        long sequence = 0;
+
+        if (batch.isAtomic()) {
+
+            BalanceChanges changes = new BalanceChanges();
+            List<Pending> pending = new ArrayList<>(requests.size());
+
+            for (Transaction request : requests) {
+                collect(changes, request, accounts);
+                pending.add(new Pending().of(request));
+            }
 
-                // perform transfer
-                from.decreaseBalance(amount);
-                to.increaseBalance(amount);
+            // validate and perform all changes at once, journaling all transactions in the order of the batch
+            ledger.apply(changes, () -> pending.forEach(Pending::run));
+
+            for (Pending performed : pending) {
+                transactions.add(performed.transaction);
+                results.add(BatchResult.of(performed.transaction));
+            }
+
+            sequence = pending.isEmpty() ? 0 : pending.get(pending.size() - 1).sequence;
+        } else {
+
+            for (Transaction request : requests) {
+                try {
+                    Pending performed = pending.get();
+                    Rejection rejection = perform(request, accounts, performed);
+
+                    if (rejection != null) {
+                        results.add(REJECTED[rejection.ordinal()]);
+                        continue;
+                    }
+
+                    transactions.add(performed.transaction);
+                    results.add(BatchResult.of(performed.transaction));
+                    sequence = performed.sequence;
+                } catch (TransactionException e) {
+                    results.add(BatchResult.rejected(e.getMessage()));
+                }
             }
         }
 
-        // create a TRANSFER transaction
-        Transaction transaction = Transaction.ofTransfer(from.getId(), to.getId(), amount);
+        // save the transactions
+        transactionDao.commitAll(transactions, sequence);
 
-        // save the transaction
-        transactionDao.save(transaction);
+        return results;
+    }
+
+    // timed until the transaction is durable, like the blocking methods
+    private CompletionStage<TransactionResult> commitAsync(Pending pending, long started) {
+
+        Transaction transaction = pending.transaction;
+
+        return transactionDao.commitAsync(transaction, pending.sequence, completions).handle((saved, e) -> {
 
-        return transaction;
+            if (e != null) {
+                throw new NotDurableException(transaction, e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+            }
+
+            metrics.record(transaction.getTransactionType(), null, started);
+            return TransactionResult.performed(transaction);
+        });
+    }
+
+    private CompletionStage<TransactionResult> rejectedAsync(TransactionType type, Rejection rejection, long started) {
+        metrics.record(type, rejection, started);
+        return CompletableFuture.completedFuture(TransactionResult.rejected(rejection));
     }
 
     /**
@@ -136,4 +324,218 @@ public class TransactionService {
     public Collection<Transaction> getAllTransactions() {
         return transactionDao.getAll();
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns a page of all transactions in the order they happened
+     *
+     * @param after cursor returned with the previous page, -1 for the first page
+     * @param limit maximum number of transactions in the page
+     * @return page of transactions
+     */
+    public Page<Transaction> getAllTransactions(int after, int limit) {
+        return transactionDao.getPage(after, limit);
+    }
+
+    /**
+     * Returns a page of the transactions given account took part in, in the order they happened
+     *
+     * @param account whose transactions are requested
+     * @param after cursor returned with the previous page, -1 for the first page
+     * @param limit maximum number of transactions in the page
+     * @return page of transactions
+     */
+    public Page<Transaction> getTransactions(Account account, int after, int limit) {
+        return transactionDao.getByAccount(account.getId(), after, limit);
+    }
+
+    private void collect(BalanceChanges changes, Transaction request, Function<String, Account> accounts)
+            throws TransactionException {
+
+        TransactionType type = typeOf(request);
+
+        if (type == TransactionType.SPLIT) {
+            collect(changes, accountOf(request.getFromAccountId(), accounts), request.getLegs(), accounts);
+            return;
+        }
+
+        int amount = amountOf(request);
+
+        switch (type) {
+
+            case DEPOSIT:
+                changes.credit(accountOf(request.getToAccountId(), accounts), amount);
+                return;
+
+            case WITHDRAW:
+                changes.debit(accountOf(request.getFromAccountId(), accounts), amount);
+                return;
+
+            default:
+                Account from = accountOf(request.getFromAccountId(), accounts);
+                Account to = accountOf(request.getToAccountId(), accounts);
+
+                if (from.getId().equals(to.getId())) {
+                    throw new TransactionException("Participants of a transfer must be different");
+                }
+
+                changes.debit(from, amount);
+                changes.credit(to, amount);
+        }
+    }
+
+    // every leg is a transfer from the same account, the legs must total to a valid amount
+    private static void collect(BalanceChanges changes, Account from, List<Leg> legs, Function<String, Account> accounts)
+            throws TransactionException {
+
+        if (legs == null || legs.isEmpty() || legs.size() > Transaction.MAX_LEGS) {
+            throw new TransactionException("A split must have between 1 and " + Transaction.MAX_LEGS + " legs");
+        }
+
+        long total = 0;
+
+        for (Leg leg : legs) {
+
+            if (leg == null || leg.getAmount() == null || leg.getAmount() < 1) {
+                throw new TransactionException("Amount must be positive");
+            }
+
+            Account to = accountOf(leg.getToAccountId(), accounts);
+
+            if (from.getId().equals(to.getId())) {
+                throw new TransactionException("Participants of a transfer must be different");
+            }
+
+            total += leg.getAmount();
+
+            changes.debit(from, leg.getAmount());
+            changes.credit(to, leg.getAmount());
+        }
+
+        if (total > Integer.MAX_VALUE) {
+            throw new TransactionException("Amount cannot be greater than " + Integer.MAX_VALUE);
+        }
+    }
+
+    // validates and performs a single transaction, journaling it without keeping it yet, invalid requests are thrown
+    private Rejection perform(Transaction request, Function<String, Account> accounts, Pending pending)
+            throws TransactionException {
+
+        TransactionType type = typeOf(request);
+
+        pending.of(request);
+
+        if (type == TransactionType.SPLIT) {
+
+            BalanceChanges changes = new BalanceChanges();
+
+            collect(changes, request, accounts);
+            ledger.apply(changes, pending);
+
+            return null;
+        }
+
+        int amount = amountOf(request);
+
+        switch (type) {
+
+            case DEPOSIT:
+                return ledger.deposit(accountOf(request.getToAccountId(), accounts), amount, pending);
+
+            case WITHDRAW:
+                return ledger.withdraw(accountOf(request.getFromAccountId(), accounts), amount, pending);
+
+            default:
+                Account from = accountOf(request.getFromAccountId(), accounts);
+                Account to = accountOf(request.getToAccountId(), accounts);
+
+                return ledger.transfer(from, to, amount, pending);
+        }
+    }
+
+    private static TransactionType typeOf(Transaction request) throws TransactionException {
+
+        if (request == null || request.getTransactionType() == null) {
+            throw new TransactionException("Transaction type is required");
+        }
+
+        return request.getTransactionType();
+    }
+
+    private static int amountOf(Transaction request) throws TransactionException {
+
+        if (request == null || request.getAmount() == null || request.getAmount() < 1) {
+            throw new TransactionException("Amount must be positive");
+        }
+
+        return request.getAmount();
+    }
+
+    private static Account accountOf(String id, Function<String, Account> accounts) throws TransactionException {
+
+        Account account = id != null ? accounts.apply(id) : null;
+
+        if (account == null) {
+            throw new TransactionException("No account found with id " + id);
+        }
+
+        return account;
+    }
+
+    /**
+     * Creates the transaction of a change and journals it, run by the {@link Ledger} before anything can depend on the change
+     * Only holds the request until then, so that nothing is allocated for a change the ledger rejects
+     */
+    private final class Pending implements Ledger.Commit {
+
+        private TransactionType type;
+        private String fromAccountId;
+        private String toAccountId;
+        private int amount;
+        private List<Leg> legs;
+
+        // set once the ledger has run the commit
+        private Transaction transaction;
+        private long sequence;
+
+        Pending of(TransactionType type, String fromAccountId, String toAccountId, int amount, List<Leg> legs) {
+            this.type = type;
+            this.fromAccountId = fromAccountId;
+            this.toAccountId = toAccountId;
+            this.amount = amount;
+            this.legs = legs;
+            this.transaction = null;
+            this.sequence = 0;
+            return this;
+        }
+
+        Pending of(Transaction request) {
+            Integer amount = request.getAmount();
+            return of(request.getTransactionType(), request.getFromAccountId(), request.getToAccountId(),
+                    amount != null ? amount : 0, request.getLegs());
+        }
+
+        @Override
+        public void run() {
+            transaction = create();
+            sequence = transactionDao.journal(transaction);
+        }
+
+        private Transaction create() {
+
+            switch (type) {
+
+                case DEPOSIT:
+                    return Transaction.ofDeposit(toAccountId, amount);
+
+                case WITHDRAW:
+                    return Transaction.ofWithdraw(fromAccountId, amount);
+
+                case SPLIT:
+                    return Transaction.ofSplit(fromAccountId, legs);
+
+                default:
+                    return Transaction.ofTransfer(fromAccountId, toAccountId, amount);
+            }
+        }
+    }
+}
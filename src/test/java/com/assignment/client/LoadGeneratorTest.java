@@ -0,0 +1,124 @@
+package com.assignment.client;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link LoadGenerator}
+ */
+public class LoadGeneratorTest {
+
+    @Test
+    public void runTest() throws Exception {
+
+        // arrange
+        AtomicInteger sent = new AtomicInteger();
+        LoadGenerator generator = new LoadGenerator(operation -> {
+            sent.incrementAndGet();
+            return operation != LoadGenerator.Operation.WITHDRAW;
+        }, LoadMix.parse("deposit=1,withdraw=1"), 2);
+
+        // act
+        LoadGenerator.Report report = generator.run(1_000, TimeUnit.MILLISECONDS.toNanos(200));
+
+        // assert
+        assertEquals(200, sent.get());
+        assertEquals(200, report.getResponseTimes().getTotalCount());
+        assertEquals(200, report.getSent(LoadGenerator.Operation.DEPOSIT) + report.getSent(LoadGenerator.Operation.WITHDRAW));
+        assertEquals(report.getSent(LoadGenerator.Operation.WITHDRAW), report.getFailed(LoadGenerator.Operation.WITHDRAW));
+        assertEquals(0, report.getFailed(LoadGenerator.Operation.DEPOSIT));
+        assertEquals(0, report.getDropped());
+    }
+
+    @Test
+    public void stallTest() throws Exception {
+
+        // arrange, the first answer takes 100ms, every other is immediate
+        AtomicInteger sent = new AtomicInteger();
+        LoadGenerator generator = new LoadGenerator(operation -> {
+            if (sent.getAndIncrement() == 0) {
+                sleep(100);
+            }
+            return true;
+        }, LoadMix.parse("read=1"), 1);
+
+        // act
+        LoadGenerator.Report report = generator.run(1_000, TimeUnit.MILLISECONDS.toNanos(200));
+
+        // assert, requests scheduled during the stall waited for it, although only one was served slowly
+        long slow = TimeUnit.MILLISECONDS.toNanos(50);
+        assertEquals(1, report.getServiceTimes().getCountBetweenValues(slow, TimeUnit.SECONDS.toNanos(10)));
+        assertTrue(report.getResponseTimes().getCountBetweenValues(slow, TimeUnit.SECONDS.toNanos(10)) >= 10);
+        assertTrue(report.getResponseTimes().getMaxValue() >= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    public void dropTest() throws Exception {
+
+        // arrange, no answer comes before the run stops
+        LoadGenerator generator = new LoadGenerator(operation -> {
+            sleep(1_000);
+            return true;
+        }, LoadMix.parse("read=1"), 1);
+
+        // act
+        LoadGenerator.Report report = generator.run(100, TimeUnit.MILLISECONDS.toNanos(100));
+
+        // assert, every request is recorded as having waited until the stop, the first one the longest
+        assertEquals(10, report.getDropped());
+        assertEquals(10, report.getResponseTimes().getTotalCount());
+        assertEquals(0, report.getServiceTimes().getTotalCount());
+        assertTrue(report.getResponseTimes().getMaxValue() >= TimeUnit.MILLISECONDS.toNanos(190));
+        assertEquals(0, report.getThroughput(), 0);
+    }
+
+    @Test
+    public void failureTest() throws Exception {
+
+        // arrange
+        LoadGenerator generator = new LoadGenerator(operation -> {
+            throw new IOException("Connection refused");
+        }, LoadMix.parse("transfer=1"), 1);
+
+        // act
+        LoadGenerator.Report report = generator.run(1_000, TimeUnit.MILLISECONDS.toNanos(50));
+
+        // assert
+        assertEquals(report.getSent(LoadGenerator.Operation.TRANSFER), report.getFailed(LoadGenerator.Operation.TRANSFER));
+        assertEquals(report.getSent(LoadGenerator.Operation.TRANSFER), report.getResponseTimes().getTotalCount());
+    }
+
+    @Test
+    public void reportTest() throws Exception {
+
+        // arrange
+        LoadGenerator generator = new LoadGenerator(operation -> true, LoadMix.parse("save=1"), 1);
+        LoadGenerator.Report report = generator.run(1_000, TimeUnit.MILLISECONDS.toNanos(20));
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        ByteArrayOutputStream exported = new ByteArrayOutputStream();
+
+        // act
+        report.print(new PrintStream(printed, true, StandardCharsets.UTF_8.name()));
+        report.export(new PrintStream(exported, true, StandardCharsets.UTF_8.name()));
+
+        // assert
+        assertTrue(printed.toString(StandardCharsets.UTF_8.name()).contains("p99.99"));
+        assertTrue(exported.toString(StandardCharsets.UTF_8.name()).startsWith("\"Value\",\"Percentile\""));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.assignment.client;
+
+import org.junit.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link LoadMix}
+ */
+public class LoadMixTest {
+
+    @Test
+    public void parseTest() throws Exception {
+
+        // act
+        LoadMix mix = LoadMix.parse("save=1, READ=3,transfer=0");
+
+        // assert
+        assertEquals("save=1,read=3", mix.toString());
+    }
+
+    @Test
+    public void pickTest() throws Exception {
+
+        // arrange
+        LoadMix mix = LoadMix.parse("save=1,read=2,transfer=1");
+
+        // act
+        Map<LoadGenerator.Operation, Integer> picks = new EnumMap<>(LoadGenerator.Operation.class);
+        for (int i = 0; i < 100; i++) {
+            picks.merge(mix.pick(i / 100.0), 1, Integer::sum);
+        }
+
+        // assert
+        assertEquals(Integer.valueOf(25), picks.get(LoadGenerator.Operation.SAVE));
+        assertEquals(Integer.valueOf(50), picks.get(LoadGenerator.Operation.READ));
+        assertEquals(Integer.valueOf(25), picks.get(LoadGenerator.Operation.TRANSFER));
+        assertFalse(picks.containsKey(LoadGenerator.Operation.DEPOSIT));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseUnknownOperationTest() throws Exception {
+
+        // act
+        LoadMix.parse("save=1,refund=1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseEmptyTest() throws Exception {
+
+        // act
+        LoadMix.parse("save=0");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseNegativeTest() throws Exception {
+
+        // act
+        LoadMix.parse("save=1,read=-1");
+    }
+}
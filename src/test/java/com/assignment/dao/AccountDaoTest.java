@@ -1,6 +1,7 @@
 package com.assignment.dao;
 
 import com.assignment.model.Account;
+import com.assignment.model.Page;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -75,4 +76,32 @@ public class AccountDaoTest {
             assertEquals(expectedAccount, actualAccount);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getPageTest() throws Exception {
+
+        // arrange
+        List<String> expected = new ArrayList<>();
+
+        for (int i = 0; i < 12; i++) {
+            accountDao.save(new Account("acc_" + i, i));
+            expected.add("acc_" + i);
+        }
+
+        // act
+        List<String> actual = new ArrayList<>();
+        int pages = 0;
+        String cursor = "-1";
+
+        while (cursor != null) {
+            Page<Account> page = accountDao.getPage(Integer.parseInt(cursor), 4);
+            page.getItems().forEach(account -> actual.add(account.getId()));
+            cursor = page.getNext();
+            pages++;
+        }
+
+        // assert
+        assertEquals(expected, actual);
+        assertEquals(3, pages);
+    }
+}
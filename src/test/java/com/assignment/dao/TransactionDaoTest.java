@@ -1,5 +1,7 @@
 package com.assignment.dao;
 
+import com.assignment.model.Page;
+import com.assignment.model.Leg;
 import com.assignment.model.Transaction;
 import org.junit.Before;
 import org.junit.Test;
@@ -37,6 +39,48 @@ public class TransactionDaoTest {
         assertTrue(result);
     }
 
+    @Test
+    public void saveAsyncTest() throws Exception {
+
+        // arrange
+        Transaction transaction = Transaction.ofDeposit("acc_1", 10);
+
+        // act
+        boolean saved = transactionDao.saveAsync(transaction, Runnable::run).toCompletableFuture().get();
+
+        // assert
+        assertTrue(saved);
+        assertTrue(transactionDao.getAll().contains(transaction));
+    }
+
+    @Test
+    public void saveAllTest() throws Exception {
+
+        // act
+        boolean result = transactionDao.saveAll(Arrays.asList(transaction1, transaction2));
+
+        // assert
+        assertTrue(result);
+        assertEquals(Arrays.asList(transaction1, transaction2), new ArrayList<>(transactionDao.getAll()));
+        assertEquals(2, transactionDao.getByAccount("acc_1", -1, 10).getItems().size());
+    }
+
+    @Test
+    public void getByAccountSplitTest() throws Exception {
+
+        // arrange, acc_2 receives two legs and is indexed once
+        Transaction split = Transaction.ofSplit("acc_1", Arrays.asList(
+                new Leg("acc_2", 20), new Leg("acc_3", 5), new Leg("acc_2", 1)));
+
+        // act
+        transactionDao.save(split);
+
+        // assert
+        assertEquals(Collections.singletonList(split), transactionDao.getByAccount("acc_1", -1, 10).getItems());
+        assertEquals(Collections.singletonList(split), transactionDao.getByAccount("acc_2", -1, 10).getItems());
+        assertEquals(Collections.singletonList(split), transactionDao.getByAccount("acc_3", -1, 10).getItems());
+    }
+
     @Test
     public void getAllTest() throws Exception {
 
@@ -61,4 +105,177 @@ public class TransactionDaoTest {
             assertEquals(expectedTransaction, actualTransaction);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getAllInSaveOrderTest() throws Exception {
+
+        // arrange
+        transactionDao.save(transaction2);
+        transactionDao.save(transaction1);
+
+        // act
+        List<Transaction> result = new ArrayList<>(transactionDao.getAll());
+
+        // assert
+        assertEquals(Arrays.asList(transaction2, transaction1), result);
+    }
+
+    @Test
+    public void getByAccountTest() throws Exception {
+
+        // arrange
+        Transaction deposit = Transaction.ofDeposit("acc_3", 10);
+        transactionDao.save(transaction1);
+        transactionDao.save(deposit);
+        transactionDao.save(transaction2);
+
+        // act
+        Page<Transaction> result1 = transactionDao.getByAccount("acc_1", -1, 10);
+        Page<Transaction> result2 = transactionDao.getByAccount("acc_3", -1, 10);
+        Page<Transaction> result3 = transactionDao.getByAccount("acc_4", -1, 10);
+
+        // assert
+        assertEquals(Arrays.asList(transaction1, transaction2), result1.getItems());
+        assertNull(result1.getNext());
+        assertEquals(Collections.singletonList(deposit), result2.getItems());
+        assertTrue(result3.getItems().isEmpty());
+        assertNull(result3.getNext());
+    }
+
+    @Test
+    public void getByAccountPagesTest() throws Exception {
+
+        // arrange
+        List<Transaction> expected = new ArrayList<>();
+
+        for (int i = 0; i < 25; i++) {
+            Transaction transaction = Transaction.ofDeposit("acc_" + i % 2, i + 1);
+            transactionDao.save(transaction);
+            if (i % 2 == 0) {
+                expected.add(transaction);
+            }
+        }
+
+        // act
+        List<Transaction> actual = new ArrayList<>();
+        int pages = 0;
+        String cursor = "-1";
+
+        while (cursor != null) {
+            Page<Transaction> page = transactionDao.getByAccount("acc_0", Integer.parseInt(cursor), 5);
+            actual.addAll(page.getItems());
+            cursor = page.getNext();
+            pages++;
+        }
+
+        // assert
+        assertEquals(expected, actual);
+        assertEquals(3, pages);
+    }
+
+    @Test
+    public void getByAccountConcurrentTest() throws Exception {
+
+        // arrange
+        int threadCount = 4;
+        int perThread = 2_000;
+        List<Thread> threads = new ArrayList<>();
+
+        for (int i = 0; i < threadCount; i++) {
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < perThread; j++) {
+                    transactionDao.save(Transaction.ofDeposit("acc_1", 1));
+                }
+            }));
+        }
+
+        // act, every read must extend the previous one, a transaction never shows up in front of one read before
+        threads.forEach(Thread::start);
+
+        List<Transaction> previous = Collections.emptyList();
+        boolean running = true;
+
+        while (running) {
+
+            running = threads.stream().anyMatch(Thread::isAlive);
+
+            List<Transaction> current = transactionDao.getByAccount("acc_1", -1, threadCount * perThread).getItems();
+
+            // assert
+            assertTrue(current.size() >= previous.size());
+            assertEquals(previous, current.subList(0, previous.size()));
+
+            previous = current;
+        }
+
+        assertEquals(threadCount * perThread, previous.size());
+        assertEquals(transactionDao.getAll(), previous);
+    }
+
+    @Test
+    public void readOwnSaveConcurrentTest() throws Exception {
+
+        // arrange
+        int threadCount = 4;
+        int perThread = 500;
+        List<Thread> threads = new ArrayList<>();
+        List<Transaction> missing = Collections.synchronizedList(new ArrayList<>());
+
+        for (int i = 0; i < threadCount; i++) {
+
+            String accountId = "acc_" + i;
+
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < perThread; j++) {
+
+                    Transaction transaction = Transaction.ofDeposit(accountId, 1);
+                    transactionDao.save(transaction);
+
+                    if (!transactionDao.getByAccount(accountId, -1, perThread).getItems().contains(transaction)
+                            || !transactionDao.getAll().contains(transaction)) {
+                        missing.add(transaction);
+                    }
+                }
+            }));
+        }
+
+        // act
+        threads.forEach(Thread::start);
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // assert, every saved transaction is read back by whoever saved it, right after the save
+        assertEquals(Collections.emptyList(), missing);
+    }
+
+    @Test
+    public void restoreIndexesTest() throws Exception {
+
+        // act
+        transactionDao.restore(transaction1);
+
+        // assert
+        assertEquals(Collections.singletonList(transaction1), transactionDao.getByAccount("acc_2", -1, 10).getItems());
+    }
+
+    @Test
+    public void getPageTest() throws Exception {
+
+        // arrange
+        transactionDao.save(transaction1);
+        transactionDao.save(transaction2);
+        Transaction deposit = Transaction.ofDeposit("acc_3", 10);
+        transactionDao.save(deposit);
+
+        // act
+        Page<Transaction> result1 = transactionDao.getPage(-1, 2);
+        Page<Transaction> result2 = transactionDao.getPage(Integer.parseInt(result1.getNext()), 2);
+
+        // assert
+        assertEquals(Arrays.asList(transaction1, transaction2), result1.getItems());
+        assertEquals(Collections.singletonList(deposit), result2.getItems());
+        assertNull(result2.getNext());
+    }
+}
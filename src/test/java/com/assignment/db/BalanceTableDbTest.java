@@ -0,0 +1,241 @@
+package com.assignment.db;
+
+import com.assignment.model.Account;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link BalanceTableDb}
+ */
+public class BalanceTableDbTest {
+
+    private BalanceTableDb balanceTableDb;
+
+    private Account account1;
+    private Account account2;
+
+    @Before
+    public void setUp() throws Exception {
+
+        balanceTableDb = new BalanceTableDb(new PrimitiveBalanceTable());
+
+        account1 = new Account("acc_1", 10);
+        account2 = new Account("acc_2", 20);
+    }
+
+    @Test
+    public void addTest() throws Exception {
+
+        // act
+        boolean result1 = balanceTableDb.add(account1);
+        boolean result2 = balanceTableDb.add(account2);
+
+        // assert
+        assertTrue(result1);
+        assertTrue(result2);
+        assertEquals(2, balanceTableDb.size());
+    }
+
+    @Test
+    public void addWithSameIdTest() throws Exception {
+
+        // arrange
+        balanceTableDb.add(account1);
+
+        // act
+        boolean result = balanceTableDb.add(new Account("acc_1", 30));
+
+        // assert
+        assertFalse(result);
+        assertEquals(10, balanceTableDb.get("acc_1").getBalance().intValue());
+    }
+
+    @Test
+    public void addNullTest() throws Exception {
+
+        // act
+        boolean result1 = balanceTableDb.add(new Account(null, 10));
+        boolean result2 = balanceTableDb.add(null);
+
+        // assert
+        assertFalse(result1);
+        assertFalse(result2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addWithLongIdTest() throws Exception {
+
+        // act
+        balanceTableDb.add(new Account("acc_12345678901234", 10));
+    }
+
+    @Test
+    public void addWithFailingCallbackTest() throws Exception {
+
+        // arrange
+        try {
+            balanceTableDb.add(account1, a -> {
+                throw new IllegalStateException();
+            });
+            fail();
+        } catch (IllegalStateException expected) {
+            // ignored
+        }
+
+        // act
+        boolean result = balanceTableDb.add(account2);
+
+        // assert
+        assertTrue(result);
+        assertNull(balanceTableDb.get("acc_1"));
+        assertEquals(20, balanceTableDb.get("acc_2").getBalance().intValue());
+        assertEquals(1, balanceTableDb.size());
+    }
+
+    @Test
+    public void getTest() throws Exception {
+
+        // arrange
+        balanceTableDb.add(account1);
+
+        // act
+        Account actual = balanceTableDb.get(account1.getId());
+
+        // assert
+        assertEquals(account1.getId(), actual.getId());
+        assertEquals(account1.getBalance(), actual.getBalance());
+    }
+
+    @Test
+    public void getUnexistingAccountTest() throws Exception {
+
+        // arrange
+        balanceTableDb.add(account1);
+
+        // act
+        Account actual = balanceTableDb.get(account2.getId());
+
+        // assert
+        assertNull(actual);
+    }
+
+    @Test
+    public void getWithNullIdTest() throws Exception {
+
+        // act
+        Account actual = balanceTableDb.get(null);
+
+        // assert
+        assertNull(actual);
+    }
+
+    @Test
+    public void viewSharesBalanceTest() throws Exception {
+
+        // arrange
+        balanceTableDb.add(account1);
+        Account view1 = balanceTableDb.get(account1.getId());
+        Account view2 = balanceTableDb.get(account1.getId());
+
+        // act
+        view1.increaseBalance(5);
+        view2.decreaseBalance(2);
+
+        // assert
+        assertEquals(13, view1.getBalance().intValue());
+        assertEquals(13, view2.getBalance().intValue());
+        assertEquals(10, account1.getBalance().intValue());
+        assertSame(view1.monitor(), view2.monitor());
+    }
+
+    @Test
+    public void getAllTest() throws Exception {
+
+        // arrange
+        balanceTableDb.add(account1);
+        balanceTableDb.add(account2);
+        List<Account> actualAccounts = new ArrayList<>();
+
+        // act
+        Collection<Account> result = balanceTableDb.getAll();
+        actualAccounts.addAll(result);
+
+        // assert
+        assertEquals(2, result.size());
+        assertEquals("acc_1", actualAccounts.get(0).getId());
+        assertEquals(10, actualAccounts.get(0).getBalance().intValue());
+        assertEquals("acc_2", actualAccounts.get(1).getId());
+        assertEquals(20, actualAccounts.get(1).getBalance().intValue());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void getAllTryToAddTest() throws Exception {
+
+        // arrange
+        balanceTableDb.add(account1);
+        Collection<Account> result = balanceTableDb.getAll();
+
+        // act
+        result.add(account2);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void getAllTryToRemoveViaIteratorTest() throws Exception {
+
+        // arrange
+        balanceTableDb.add(account1);
+        Collection<Account> result = balanceTableDb.getAll();
+
+        // act
+        Iterator<Account> iterator = result.iterator();
+        iterator.next();
+        iterator.remove();
+    }
+
+    @Test
+    public void addManyTest() throws Exception {
+
+        // arrange
+        int count = 3 * BalanceTable.CHUNK_SIZE + 5;
+
+        // act
+        for (int i = 0; i < count; i++) {
+            assertTrue(balanceTableDb.add(new Account("acc_" + i, i)));
+        }
+
+        // assert
+        assertEquals(count, balanceTableDb.size());
+        assertFalse(balanceTableDb.add(new Account("acc_" + (count - 1), 0)));
+
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, balanceTableDb.get("acc_" + i).getBalance().intValue());
+        }
+    }
+
+    @Test
+    public void getAfterTest() throws Exception {
+
+        // arrange
+        balanceTableDb.add(account2);
+        balanceTableDb.add(account1);
+        balanceTableDb.add(new Account("acc_3", 30));
+
+        // act
+        List<Account> result1 = balanceTableDb.getAfter(-1, 2);
+        List<Account> result2 = balanceTableDb.getAfter(1, 2);
+        List<Account> result3 = balanceTableDb.getAfter(Integer.MAX_VALUE - 1, Integer.MAX_VALUE);
+
+        // assert
+        assertEquals(2, result1.size());
+        assertEquals("acc_2", result1.get(0).getId());
+        assertEquals("acc_1", result1.get(1).getId());
+        assertEquals(1, result2.size());
+        assertEquals("acc_3", result2.get(0).getId());
+        assertEquals(Integer.valueOf(30), result2.get(0).getBalance());
+        assertTrue(result3.isEmpty());
+    }
+}
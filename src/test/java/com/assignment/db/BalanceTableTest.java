@@ -0,0 +1,90 @@
+package com.assignment.db;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link BalanceTable}, {@link PrimitiveBalanceTable} and {@link OffHeapBalanceTable}
+ */
+public class BalanceTableTest {
+
+    @Test
+    public void primitiveRecordsTest() throws Exception {
+        recordsTest(new PrimitiveBalanceTable());
+    }
+
+    @Test
+    public void offHeapRecordsTest() throws Exception {
+        recordsTest(new OffHeapBalanceTable());
+    }
+
+    @Test
+    public void primitiveCompareAndSetTest() throws Exception {
+        compareAndSetTest(new PrimitiveBalanceTable());
+    }
+
+    @Test
+    public void offHeapCompareAndSetTest() throws Exception {
+        compareAndSetTest(new OffHeapBalanceTable());
+    }
+
+    @Test
+    public void stripesTest() throws Exception {
+
+        // arrange
+        BalanceTable table = new PrimitiveBalanceTable();
+
+        // act
+        int stripe1 = table.getStripe(1);
+        int stripe2 = table.getStripe(2);
+
+        // assert
+        assertNotEquals(stripe1, stripe2);
+        assertNotSame(table.getMonitor(1), table.getMonitor(2));
+        assertSame(table.getMonitor(1), table.getMonitor(1));
+    }
+
+    private void recordsTest(BalanceTable table) {
+
+        // arrange
+        int first = BalanceTable.CHUNK_SIZE - 1;
+        int second = BalanceTable.CHUNK_SIZE;
+        String longest = "abcdefghijklmnop";
+
+        // act
+        table.ensureCapacity(second + 1);
+        table.putId(first, "acc_ş1");
+        table.setBalance(first, Long.MAX_VALUE);
+        table.putId(second, longest);
+        table.setBalance(second, -1);
+
+        // assert
+        assertEquals("acc_ş1", table.getId(first));
+        assertEquals(Long.MAX_VALUE, table.getBalance(first));
+        assertEquals(longest, table.getId(second));
+        assertEquals(-1, table.getBalance(second));
+        assertEquals(longest.hashCode(), table.idHash(second));
+        assertTrue(table.idEquals(second, longest));
+        assertFalse(table.idEquals(second, "abcdefghijklmnoq"));
+        assertFalse(table.idEquals(first, "acc_ş"));
+    }
+
+    private void compareAndSetTest(BalanceTable table) {
+
+        // arrange
+        int slot = BalanceTable.CHUNK_SIZE + 1;
+        table.ensureCapacity(slot + 1);
+        table.setBalance(slot, 10);
+
+        // act
+        boolean result1 = table.compareAndSetBalance(slot, 10, 1L << 40);
+        boolean result2 = table.compareAndSetBalance(slot, 10, 20);
+
+        // assert
+        assertTrue(result1);
+        assertFalse(result2);
+        assertEquals(1L << 40, table.getBalance(slot));
+        assertEquals(0, table.getBalance(slot - 1));
+    }
+}
@@ -183,4 +183,44 @@ public class InMemoryDbTest {
         iterator.next();
         iterator.remove();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getAfterTest() throws Exception {
+
+        // arrange
+        inMemoryDb.add(testEntity2);
+        inMemoryDb.add(testEntity1);
+        inMemoryDb.add(testEntity2Same);
+        TestEntity testEntity3 = new TestEntity("id_3", "value_3");
+        inMemoryDb.add(testEntity3, e -> { });
+
+        // act
+        List<TestEntity> result1 = inMemoryDb.getAfter(-1, 2);
+        List<TestEntity> result2 = inMemoryDb.getAfter(1, 2);
+        List<TestEntity> result3 = inMemoryDb.getAfter(2, 2);
+
+        // assert
+        assertEquals(Arrays.asList(testEntity2, testEntity1), result1);
+        assertEquals(Collections.singletonList(testEntity3), result2);
+        assertTrue(result3.isEmpty());
+    }
+
+    @Test
+    public void getAfterFailedCallbackTest() throws Exception {
+
+        // arrange
+        try {
+            inMemoryDb.add(testEntity1, e -> { throw new IllegalStateException(); });
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        inMemoryDb.add(testEntity2);
+
+        // act
+        List<TestEntity> result = inMemoryDb.getAfter(-1, 10);
+
+        // assert
+        assertEquals(Collections.singletonList(testEntity2), result);
+    }
+}
@@ -0,0 +1,119 @@
+package com.assignment.db;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link TransactionIndex}
+ */
+public class TransactionIndexTest {
+
+    private TransactionIndex transactionIndex;
+
+    @Before
+    public void setUp() throws Exception {
+        transactionIndex = new TransactionIndex();
+    }
+
+    @Test
+    public void getTest() throws Exception {
+
+        // arrange
+        for (int i = 0; i < 20; i++) {
+            transactionIndex.add("acc_" + i % 2, i);
+        }
+
+        // act
+        int[] result1 = transactionIndex.get("acc_0", -1, 3);
+        int[] result2 = transactionIndex.get("acc_0", 4, 3);
+        int[] result3 = transactionIndex.get("acc_1", 15, 10);
+        int[] result4 = transactionIndex.get("acc_1", 19, 10);
+
+        // assert
+        assertArrayEquals(new int[] { 0, 2, 4 }, result1);
+        assertArrayEquals(new int[] { 6, 8, 10 }, result2);
+        assertArrayEquals(new int[] { 17, 19 }, result3);
+        assertArrayEquals(new int[0], result4);
+    }
+
+    @Test
+    public void getUnknownAccountTest() throws Exception {
+
+        // act
+        int[] result = transactionIndex.get("acc_1", -1, 10);
+
+        // assert
+        assertEquals(0, result.length);
+        assertFalse(transactionIndex.hasAfter("acc_1", -1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addBehindTest() throws Exception {
+
+        // arrange
+        transactionIndex.add("acc_1", 5);
+
+        // act
+        transactionIndex.add("acc_1", 2);
+    }
+
+    @Test
+    public void addNullAccountTest() throws Exception {
+
+        // act
+        transactionIndex.add("acc_1", 5);
+        transactionIndex.add(null, 8);
+        transactionIndex.add("acc_1", 7);
+
+        // assert
+        assertArrayEquals(new int[] { 5, 7 }, transactionIndex.get("acc_1", -1, 10));
+    }
+
+    @Test
+    public void hasAfterTest() throws Exception {
+
+        // arrange
+        transactionIndex.add("acc_1", 3);
+        transactionIndex.add("acc_1", 6);
+
+        // assert
+        assertTrue(transactionIndex.hasAfter("acc_1", -1));
+        assertTrue(transactionIndex.hasAfter("acc_1", 3));
+        assertFalse(transactionIndex.hasAfter("acc_1", 6));
+    }
+
+    @Test
+    public void concurrentAddTest() throws Exception {
+
+        // arrange, positions of different accounts are added concurrently, each account in increasing order
+        int threadCount = 4;
+        int perThread = 10_000;
+        List<Thread> threads = new ArrayList<>();
+
+        for (int i = 0; i < threadCount; i++) {
+            final int thread = i;
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < perThread; j++) {
+                    transactionIndex.add("acc_" + thread, j);
+                }
+            }));
+        }
+
+        // act
+        threads.forEach(Thread::start);
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // assert
+        for (int i = 0; i < threadCount; i++) {
+            assertEquals(perThread, transactionIndex.get("acc_" + i, -1, perThread + 1).length);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.assignment.db;
+
+import com.assignment.model.Leg;
+import com.assignment.model.Transaction;
+import com.assignment.model.TransactionType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link TransactionLog}
+ */
+public class TransactionLogTest {
+
+    private TransactionLog transactionLog;
+
+    @Before
+    public void setUp() throws Exception {
+        transactionLog = new TransactionLog();
+    }
+
+    @Test
+    public void appendTest() throws Exception {
+
+        // arrange
+        Transaction deposit = Transaction.ofDeposit("acc_1", 10);
+        Transaction withdraw = Transaction.ofWithdraw("acc_2", 20);
+        Transaction transfer = Transaction.ofTransfer("acc_1", "acc_2", 30);
+
+        // act
+        int result1 = transactionLog.append(deposit);
+        int result2 = transactionLog.append(withdraw);
+        int result3 = transactionLog.append(transfer);
+
+        // assert
+        assertEquals(0, result1);
+        assertEquals(1, result2);
+        assertEquals(2, result3);
+        assertEquals(3, transactionLog.size());
+        assertEquals(deposit, transactionLog.get(0));
+        assertEquals(withdraw, transactionLog.get(1));
+        assertEquals(transfer, transactionLog.get(2));
+        assertNull(transactionLog.get(0).getFromAccountId());
+        assertNull(transactionLog.get(1).getToAccountId());
+    }
+
+    @Test
+    public void appendSplitTest() throws Exception {
+
+        // arrange
+        Transaction transfer = Transaction.ofTransfer("acc_1", "acc_2", 30);
+        Transaction split = Transaction.ofSplit("acc_1", Arrays.asList(new Leg("acc_2", 20), new Leg("acc_3", 5)));
+
+        // act
+        transactionLog.append(transfer);
+        transactionLog.append(split);
+
+        // assert
+        assertEquals(split, transactionLog.get(1));
+        assertEquals(25, transactionLog.get(1).getAmount().intValue());
+        assertNull(transactionLog.get(0).getLegs());
+    }
+
+    @Test
+    public void appendInvalidTest() throws Exception {
+
+        // act
+        int result1 = transactionLog.append(null);
+        int result2 = transactionLog.append(new Transaction("acc_1", "acc_2", 10));
+        int result3 = transactionLog.append(Transaction.of(0, TransactionType.DEPOSIT, null, "acc_1", 10));
+        int result4 = transactionLog.append(Transaction.of(1, TransactionType.DEPOSIT, null, "acc_1", null));
+
+        // assert
+        assertEquals(-1, result1);
+        assertEquals(-1, result2);
+        assertEquals(-1, result3);
+        assertEquals(-1, result4);
+        assertEquals(0, transactionLog.size());
+    }
+
+    @Test
+    public void getAllInCommitOrderTest() throws Exception {
+
+        // arrange
+        List<Transaction> expected = new ArrayList<>();
+
+        for (int i = 0; i < TransactionLog.CHUNK_SIZE + 10; i++) {
+            // ids are not in commit order
+            Transaction transaction = Transaction.of(TransactionLog.CHUNK_SIZE + 10 - i,
+                    TransactionType.TRANSFER, "acc_" + (i % 7), "acc_" + (i % 5), i + 1);
+            expected.add(transaction);
+            transactionLog.append(transaction);
+        }
+
+        // act
+        List<Transaction> actual = new ArrayList<>(transactionLog.getAll());
+
+        // assert
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void appendLargeIdTest() throws Exception {
+
+        // arrange
+        Transaction transaction = Transaction.of(Integer.MAX_VALUE + 10L, TransactionType.DEPOSIT, null, "acc_1", 10);
+
+        // act
+        transactionLog.append(transaction);
+
+        // assert
+        assertEquals(transaction, transactionLog.get(0));
+    }
+
+    @Test
+    public void getAllIsSnapshotTest() throws Exception {
+
+        // arrange
+        transactionLog.append(Transaction.ofDeposit("acc_1", 10));
+        Collection<Transaction> result = transactionLog.getAll();
+
+        // act
+        transactionLog.append(Transaction.ofDeposit("acc_1", 20));
+
+        // assert
+        assertEquals(1, result.size());
+        assertEquals(2, transactionLog.getAll().size());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void getAllTryToAddTest() throws Exception {
+
+        // arrange
+        Collection<Transaction> result = transactionLog.getAll();
+
+        // act
+        result.add(Transaction.ofDeposit("acc_1", 10));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void getAllTryToRemoveViaIteratorTest() throws Exception {
+
+        // arrange
+        transactionLog.append(Transaction.ofDeposit("acc_1", 10));
+        Collection<Transaction> result = transactionLog.getAll();
+
+        // act
+        Iterator<Transaction> iterator = result.iterator();
+        iterator.next();
+        iterator.remove();
+    }
+
+    @Test
+    public void appendConcurrencyTest() throws Exception {
+
+        // arrange
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        int nbrOfThreads = 8;
+        int nbrOfTrials = 20_000;
+
+        // act
+        for (int i = 0; i < nbrOfThreads; i++) {
+            int thread = i;
+            executorService.execute(() -> {
+                for (int j = 0; j < nbrOfTrials; j++) {
+                    transactionLog.append(Transaction.ofTransfer("acc_" + thread, "acc_" + j % 100, j + 1));
+                }
+            });
+        }
+
+        executorService.shutdown();
+        executorService.awaitTermination(10, TimeUnit.SECONDS);
+
+        // assert
+        List<Transaction> all = transactionLog.getAll();
+        Set<String> ids = new HashSet<>();
+        int[] lastAmounts = new int[nbrOfThreads];
+
+        assertEquals(nbrOfThreads * nbrOfTrials, all.size());
+
+        for (Transaction transaction : all) {
+
+            assertTrue(ids.add(transaction.getId()));
+
+            // appends of a single thread keep their order
+            int thread = Integer.parseInt(transaction.getFromAccountId().substring(4));
+            assertEquals(lastAmounts[thread] + 1, transaction.getAmount().intValue());
+            lastAmounts[thread] = transaction.getAmount();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.assignment.journal;
+
+import com.assignment.dao.AccountDao;
+import com.assignment.dao.TransactionDao;
+import com.assignment.model.Account;
+import com.assignment.model.Transaction;
+import com.assignment.model.TransactionType;
+import com.assignment.service.TransactionService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.RandomAccessFile;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link Checkpointer}
+ */
+public class CheckpointerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FileJournal journal;
+    private SnapshotStore snapshotStore;
+    private Checkpointer checkpointer;
+    private AccountDao accountDao;
+    private TransactionService transactionService;
+
+    @Before
+    public void setUp() throws Exception {
+
+        Path directory = folder.getRoot().toPath();
+
+        journal = new FileJournal(directory, JournalMode.SYNC, 1 << 20, 10);
+        snapshotStore = new SnapshotStore(directory, 2);
+        checkpointer = new Checkpointer(journal, snapshotStore);
+        accountDao = new AccountDao(journal);
+        transactionService = new TransactionService(new TransactionDao(journal));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        journal.stop();
+    }
+
+    @Test
+    public void checkpointTest() throws Exception {
+
+        // arrange
+        Account account1 = new Account("acc_1", 10);
+        Account account2 = new Account("acc_2", 20);
+        accountDao.save(account1);
+        accountDao.save(account2);
+        transactionService.transfer(account1, account2, 3);
+
+        Map<String, Integer> loaded = new ConcurrentHashMap<>();
+
+        // act
+        SnapshotStore.Snapshot snapshot = checkpointer.checkpoint();
+        snapshotStore.load(snapshot.getPath(), loaded::put);
+
+        // assert
+        assertEquals(3, snapshot.getSequence());
+        assertEquals(2, snapshot.getAccountCount());
+        assertEquals(7, loaded.get("acc_1").intValue());
+        assertEquals(23, loaded.get("acc_2").intValue());
+    }
+
+    @Test
+    public void incrementalCheckpointTest() throws Exception {
+
+        // arrange
+        Account account1 = new Account("acc_1", 10);
+        accountDao.save(account1);
+        checkpointer.checkpoint();
+
+        Account account2 = new Account("acc_2", 20);
+        accountDao.save(account2);
+        transactionService.transfer(account2, account1, 5);
+
+        Map<String, Integer> loaded = new ConcurrentHashMap<>();
+
+        // act
+        SnapshotStore.Snapshot snapshot = checkpointer.checkpoint();
+        snapshotStore.load(snapshot.getPath(), loaded::put);
+
+        // assert
+        assertEquals(3, snapshot.getSequence());
+        assertEquals(15, loaded.get("acc_1").intValue());
+        assertEquals(15, loaded.get("acc_2").intValue());
+    }
+
+    @Test
+    public void checkpointSkipsCorruptedTest() throws Exception {
+
+        // arrange
+        Account account = new Account("acc_1", 10);
+        accountDao.save(account);
+        checkpointer.checkpoint();
+        transactionService.deposit(account, 1);
+        SnapshotStore.Snapshot corrupted = checkpointer.checkpoint();
+        transactionService.deposit(account, 2);
+
+        try (RandomAccessFile file = new RandomAccessFile(corrupted.getPath().toFile(), "rw")) {
+            file.seek(file.length() - 1);
+            int last = file.read();
+            file.seek(file.length() - 1);
+            file.write(last ^ 0xFF);
+        }
+
+        Map<String, Integer> loaded = new ConcurrentHashMap<>();
+
+        // act
+        SnapshotStore.Snapshot snapshot = checkpointer.checkpoint();
+        snapshotStore.load(snapshot.getPath(), loaded::put);
+
+        // assert
+        assertEquals(3, snapshot.getSequence());
+        assertEquals(13, loaded.get("acc_1").intValue());
+    }
+
+    @Test
+    public void checkpointHistoryTest() throws Exception {
+
+        // arrange
+        Account account1 = new Account("acc_1", 10);
+        accountDao.save(account1);
+        transactionService.deposit(account1, 1);
+        checkpointer.checkpoint();
+        transactionService.withdraw(account1, 2);
+
+        List<Transaction> loaded = new ArrayList<>();
+
+        // act
+        SnapshotStore.Snapshot snapshot = checkpointer.checkpoint();
+        snapshotStore.load(snapshot.getPath(), (id, balance) -> { }, loaded::add);
+
+        // assert
+        assertEquals(2, snapshot.getTransactionCount());
+        assertEquals(TransactionType.DEPOSIT, loaded.get(0).getTransactionType());
+        assertEquals(TransactionType.WITHDRAW, loaded.get(1).getTransactionType());
+    }
+
+    @Test
+    public void checkpointPrunesJournalTest() throws Exception {
+
+        // arrange
+        journal.stop();
+        journal = new FileJournal(folder.getRoot().toPath(), JournalMode.SYNC, 256, 10);
+        checkpointer = new Checkpointer(journal, snapshotStore);
+        accountDao = new AccountDao(journal);
+        transactionService = new TransactionService(new TransactionDao(journal));
+
+        Account account = new Account("acc_1", 0);
+        accountDao.save(account);
+
+        // act
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 50; j++) {
+                transactionService.deposit(account, 1);
+            }
+            checkpointer.checkpoint();
+        }
+
+        List<JournalRecord> records = new ArrayList<>();
+        journal.replay(snapshotStore.getRetainedSequence(), records::add);
+
+        // assert
+        assertEquals(101, snapshotStore.getRetainedSequence());
+        assertEquals(50, records.size());
+
+        try (DirectoryStream<Path> segments = Files.newDirectoryStream(folder.getRoot().toPath(), "journal-*.log")) {
+            for (Path segment : segments) {
+                String name = segment.getFileName().toString();
+                assertTrue(Long.parseLong(name.substring(8, name.length() - 4)) > 51);
+            }
+        }
+    }
+
+    @Test
+    public void checkpointWithoutChangesTest() throws Exception {
+
+        // arrange
+        accountDao.save(new Account("acc_1", 10));
+        checkpointer.checkpoint();
+
+        // act
+        SnapshotStore.Snapshot snapshot = checkpointer.checkpoint();
+
+        // assert
+        assertNull(snapshot);
+    }
+}
@@ -0,0 +1,313 @@
+package com.assignment.journal;
+
+import com.assignment.model.Account;
+import com.assignment.model.Transaction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link FileJournal}
+ */
+public class FileJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory;
+    private FileJournal journal;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = folder.getRoot().toPath();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (journal != null) {
+            journal.stop();
+        }
+    }
+
+    @Test
+    public void appendAndReplayTest() throws Exception {
+
+        // arrange
+        journal = new FileJournal(directory, JournalMode.SYNC, 1 << 20, 10);
+        Transaction transaction = Transaction.ofTransfer("acc_1", "acc_2", 5);
+
+        // act
+        long sequence1 = journal.append(new Account("acc_1", 10));
+        long sequence2 = journal.append(transaction);
+        List<JournalRecord> records = replay(journal, 0);
+
+        // assert
+        assertEquals(1, sequence1);
+        assertEquals(2, sequence2);
+        assertEquals(2, records.size());
+        assertTrue(records.get(0).isAccount());
+        assertEquals("acc_1", records.get(0).getAccount().getId());
+        assertEquals(10, records.get(0).getAccount().getBalance().intValue());
+        assertFalse(records.get(1).isAccount());
+        assertEquals(transaction.getId(), records.get(1).getTransaction().getId());
+        assertEquals(transaction.getTransactionType(), records.get(1).getTransaction().getTransactionType());
+        assertEquals("acc_1", records.get(1).getTransaction().getFromAccountId());
+        assertEquals("acc_2", records.get(1).getTransaction().getToAccountId());
+        assertEquals(5, records.get(1).getTransaction().getAmount().intValue());
+    }
+
+    @Test
+    public void replayAfterSequenceTest() throws Exception {
+
+        // arrange
+        journal = new FileJournal(directory, JournalMode.SYNC, 1 << 20, 10);
+        journal.append(new Account("acc_1", 10));
+        journal.append(new Account("acc_2", 20));
+        journal.append(new Account("acc_3", 30));
+
+        // act
+        List<JournalRecord> records = replay(journal, 2);
+
+        // assert
+        assertEquals(1, records.size());
+        assertEquals(3, records.get(0).getSequence());
+        assertEquals("acc_3", records.get(0).getAccount().getId());
+    }
+
+    @Test
+    public void segmentRotationTest() throws Exception {
+
+        // arrange
+        journal = new FileJournal(directory, JournalMode.GROUP, 256, 10);
+
+        // act
+        for (int i = 0; i < 100; i++) {
+            journal.sync(journal.append(Transaction.ofDeposit("acc_1", i + 1)));
+        }
+
+        List<JournalRecord> all = replay(journal, 0);
+        List<JournalRecord> tail = replay(journal, 90);
+
+        // assert
+        assertTrue(directory.toFile().list().length > 1);
+        assertEquals(100, all.size());
+        assertEquals(10, tail.size());
+
+        for (int i = 0; i < all.size(); i++) {
+            assertEquals(i + 1, all.get(i).getSequence());
+            assertEquals(i + 1, all.get(i).getTransaction().getAmount().intValue());
+        }
+    }
+
+    @Test
+    public void pruneTest() throws Exception {
+
+        // arrange
+        journal = new FileJournal(directory, JournalMode.SYNC, 256, 10);
+
+        for (int i = 0; i < 100; i++) {
+            journal.append(Transaction.ofDeposit("acc_1", i + 1));
+        }
+
+        journal.sync(journal.getLastSequence());
+        int segments = directory.toFile().list().length;
+
+        // act
+        int deleted = journal.prune(50);
+        List<JournalRecord> tail = replay(journal, 50);
+
+        // assert
+        assertTrue(deleted > 0);
+        assertEquals(segments - deleted, directory.toFile().list().length);
+        assertEquals(50, tail.size());
+        assertEquals(51, tail.get(0).getSequence());
+    }
+
+    @Test(expected = IOException.class)
+    public void replayPrunedTest() throws Exception {
+
+        // arrange
+        journal = new FileJournal(directory, JournalMode.SYNC, 256, 10);
+
+        for (int i = 0; i < 100; i++) {
+            journal.append(Transaction.ofDeposit("acc_1", i + 1));
+        }
+
+        journal.prune(50);
+
+        // act
+        replay(journal, 0);
+    }
+
+    @Test
+    public void pruneKeepsCurrentSegmentTest() throws Exception {
+
+        // arrange
+        journal = new FileJournal(directory, JournalMode.SYNC, 256, 10);
+
+        for (int i = 0; i < 100; i++) {
+            journal.append(Transaction.ofDeposit("acc_1", i + 1));
+        }
+
+        // act
+        journal.prune(journal.getLastSequence());
+        long sequence = journal.append(Transaction.ofDeposit("acc_1", 1));
+
+        // assert
+        assertEquals(101, sequence);
+        assertEquals(1, replay(journal, 100).size());
+    }
+
+    @Test
+    public void reopenContinuesSequenceTest() throws Exception {
+
+        // arrange
+        journal = new FileJournal(directory, JournalMode.ASYNC, 1 << 20, 10);
+        journal.append(new Account("acc_1", 10));
+        journal.append(new Account("acc_2", 20));
+        journal.stop();
+
+        // act
+        journal = new FileJournal(directory, JournalMode.ASYNC, 1 << 20, 10);
+        long sequence = journal.append(new Account("acc_3", 30));
+
+        // assert
+        assertEquals(3, sequence);
+        assertEquals(3, replay(journal, 0).size());
+    }
+
+    @Test
+    public void tornTailIsTruncatedTest() throws Exception {
+
+        // arrange
+        journal = new FileJournal(directory, JournalMode.SYNC, 1 << 20, 10);
+        journal.append(new Account("acc_1", 10));
+        journal.append(new Account("acc_2", 20));
+        journal.stop();
+
+        File segment = directory.toFile().listFiles()[0];
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.setLength(file.length() - 3); // partially written last record
+        }
+
+        // act
+        journal = new FileJournal(directory, JournalMode.SYNC, 1 << 20, 10);
+        long sequence = journal.append(new Account("acc_3", 30));
+        List<JournalRecord> records = replay(journal, 0);
+
+        // assert
+        assertEquals(2, sequence);
+        assertEquals(2, records.size());
+        assertEquals("acc_1", records.get(0).getAccount().getId());
+        assertEquals("acc_3", records.get(1).getAccount().getId());
+    }
+
+    @Test
+    public void groupCommitConcurrencyTest() throws Exception {
+
+        // arrange
+        journal = new FileJournal(directory, JournalMode.GROUP, 1 << 20, 1_000);
+        ExecutorService executorService = Executors.newFixedThreadPool(16);
+        int nbrOfThreads = 16;
+        int nbrOfTrials = 100;
+
+        // act
+        for (int i = 0; i < nbrOfThreads; i++) {
+            executorService.execute(() -> {
+                for (int j = 0; j < nbrOfTrials; j++) {
+                    journal.sync(journal.append(Transaction.ofDeposit("acc_1", 1)));
+                }
+            });
+        }
+
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(30, TimeUnit.SECONDS));
+
+        // assert
+        List<JournalRecord> records = replay(journal, 0);
+
+        assertEquals(nbrOfThreads * nbrOfTrials, records.size());
+        assertEquals(nbrOfThreads * nbrOfTrials, journal.getLastSequence());
+    }
+
+    @Test
+    public void syncAsyncTest() throws Exception {
+
+        // arrange
+        journal = new FileJournal(directory, JournalMode.GROUP, 1 << 20, 1_000);
+        int nbrOfRecords = 100;
+        List<CompletableFuture<Void>> stages = new ArrayList<>();
+
+        // act, nothing waits for the flusher but the test
+        for (int i = 0; i < nbrOfRecords; i++) {
+            stages.add(journal.syncAsync(journal.append(Transaction.ofDeposit("acc_1", 1))).toCompletableFuture());
+        }
+
+        CompletableFuture.allOf(stages.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        // assert
+        assertEquals(nbrOfRecords, journal.getDurableSequence());
+        assertTrue(journal.syncAsync(nbrOfRecords).toCompletableFuture().isDone());
+    }
+
+    @Test
+    public void interruptedSyncTest() throws Exception {
+
+        // arrange
+        journal = new FileJournal(directory, JournalMode.GROUP, 1 << 20, 1_000);
+        long sequence = journal.append(Transaction.ofDeposit("acc_1", 1));
+
+        // act
+        Thread.currentThread().interrupt();
+        journal.sync(sequence);
+        boolean interrupted = Thread.interrupted();
+
+        // assert
+        assertTrue(interrupted);
+        assertTrue(journal.getDurableSequence() >= sequence);
+    }
+
+    @Test
+    public void stopWritesBufferedRecordsTest() throws Exception {
+
+        // arrange
+        journal = new FileJournal(directory, JournalMode.ASYNC, 256, 60_000);
+
+        for (int i = 0; i < 100; i++) {
+            journal.append(Transaction.ofDeposit("acc_1", i + 1));
+        }
+
+        // act
+        journal.stop();
+        journal = new FileJournal(directory, JournalMode.ASYNC, 256, 60_000);
+        List<JournalRecord> records = replay(journal, 0);
+
+        // assert
+        assertEquals(100, records.size());
+        assertEquals(100, records.get(99).getTransaction().getAmount().intValue());
+    }
+
+    private List<JournalRecord> replay(Journal journal, long afterSequence) throws Exception {
+
+        List<JournalRecord> records = new ArrayList<>();
+
+        journal.replay(afterSequence, records::add);
+
+        return records;
+    }
+}
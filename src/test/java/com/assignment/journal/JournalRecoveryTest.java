@@ -0,0 +1,157 @@
+package com.assignment.journal;
+
+import com.assignment.dao.AccountDao;
+import com.assignment.dao.TransactionDao;
+import com.assignment.model.Account;
+import com.assignment.model.Leg;
+import com.assignment.model.Transaction;
+import com.assignment.model.TransactionType;
+import com.assignment.service.TransactionService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link JournalRecovery}
+ */
+public class JournalRecoveryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory;
+    private FileJournal journal;
+
+    @Before
+    public void setUp() throws Exception {
+
+        directory = folder.getRoot().toPath();
+        journal = new FileJournal(directory, JournalMode.GROUP, 1 << 20, 10);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        journal.stop();
+    }
+
+    @Test
+    public void runTest() throws Exception {
+
+        // arrange
+        AccountDao accountDao = new AccountDao(journal);
+        TransactionService transactionService = new TransactionService(new TransactionDao(journal));
+
+        Account account1 = new Account("acc_1", 10);
+        Account account2 = new Account("acc_2", 20);
+        accountDao.save(account1);
+        accountDao.save(account2);
+
+        transactionService.deposit(account1, 1);
+        transactionService.withdraw(account2, 2);
+        Transaction transfer = transactionService.transfer(account1, account2, 3).getTransaction();
+
+        journal.stop();
+        journal = new FileJournal(directory, JournalMode.GROUP, 1 << 20, 10);
+
+        AccountDao recoveredAccountDao = new AccountDao(journal);
+        TransactionDao recoveredTransactionDao = new TransactionDao(journal);
+
+        // act
+        long replayed = new JournalRecovery(journal, recoveredAccountDao, recoveredTransactionDao).run();
+
+        // assert
+        assertEquals(5, replayed);
+        assertEquals(8, recoveredAccountDao.get("acc_1").getBalance().intValue());
+        assertEquals(21, recoveredAccountDao.get("acc_2").getBalance().intValue());
+        assertEquals(3, recoveredTransactionDao.getAll().size());
+        assertTrue(Transaction.getLastTransactionId() >= transfer.getNumber());
+    }
+
+    @Test
+    public void runWithSnapshotTest() throws Exception {
+
+        // arrange
+        SnapshotStore snapshotStore = new SnapshotStore(directory, 2);
+        AccountDao accountDao = new AccountDao(journal);
+        TransactionService transactionService = new TransactionService(new TransactionDao(journal));
+
+        Account account1 = new Account("acc_1", 10);
+        Account account2 = new Account("acc_2", 20);
+        accountDao.save(account1);
+        accountDao.save(account2);
+        transactionService.deposit(account1, 1);
+
+        journal.sync(journal.getLastSequence());
+        new Checkpointer(journal, snapshotStore).checkpoint();
+
+        transactionService.transfer(account1, account2, 3);
+
+        journal.stop();
+        journal = new FileJournal(directory, JournalMode.GROUP, 1 << 20, 10);
+
+        AccountDao recoveredAccountDao = new AccountDao(journal);
+        TransactionDao recoveredTransactionDao = new TransactionDao(journal);
+
+        // act
+        long replayed = new JournalRecovery(journal, snapshotStore, recoveredAccountDao, recoveredTransactionDao).run();
+
+        // assert
+        assertEquals(1, replayed);
+        assertEquals(8, recoveredAccountDao.get("acc_1").getBalance().intValue());
+        assertEquals(23, recoveredAccountDao.get("acc_2").getBalance().intValue());
+        assertEquals(2, recoveredTransactionDao.getAll().size());
+        assertEquals(TransactionType.DEPOSIT, recoveredTransactionDao.getAll().iterator().next().getTransactionType());
+    }
+
+    @Test
+    public void runWithSplitTest() throws Exception {
+
+        // arrange
+        AccountDao accountDao = new AccountDao(journal);
+        TransactionService transactionService = new TransactionService(new TransactionDao(journal));
+
+        Account account1 = new Account("acc_1", 10);
+        Account account2 = new Account("acc_2", 20);
+        Account fee = new Account("acc_fee", 0);
+        accountDao.save(account1);
+        accountDao.save(account2);
+        accountDao.save(fee);
+
+        Transaction split = transactionService.split(account1, Arrays.asList(new Leg("acc_2", 8), new Leg("acc_fee", 1)), accountDao::get);
+
+        journal.stop();
+        journal = new FileJournal(directory, JournalMode.GROUP, 1 << 20, 10);
+
+        AccountDao recoveredAccountDao = new AccountDao(journal);
+        TransactionDao recoveredTransactionDao = new TransactionDao(journal);
+
+        // act
+        long replayed = new JournalRecovery(journal, recoveredAccountDao, recoveredTransactionDao).run();
+
+        // assert, a single record for all legs
+        assertEquals(4, replayed);
+        assertEquals(1, recoveredAccountDao.get("acc_1").getBalance().intValue());
+        assertEquals(28, recoveredAccountDao.get("acc_2").getBalance().intValue());
+        assertEquals(1, recoveredAccountDao.get("acc_fee").getBalance().intValue());
+        assertEquals(Collections.singletonList(split), new ArrayList<>(recoveredTransactionDao.getAll()));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void runWithUnknownAccountTest() throws Exception {
+
+        // arrange
+        journal.append(Transaction.ofDeposit("acc_1", 10));
+
+        // act
+        new JournalRecovery(journal, new AccountDao(), new TransactionDao()).run();
+    }
+}
@@ -0,0 +1,69 @@
+package com.assignment.journal;
+
+import com.assignment.model.Account;
+import com.assignment.model.Leg;
+import com.assignment.model.Transaction;
+import com.assignment.model.TransactionType;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link RecordCodec}
+ */
+public class RecordCodecTest {
+
+    @Test
+    public void accountTest() throws Exception {
+
+        // arrange
+        Account account = new Account("acc_1", 10);
+
+        // act
+        Account decoded = (Account) RecordCodec.decode(RecordCodec.encode(account));
+
+        // assert
+        assertEquals(account.getId(), decoded.getId());
+        assertEquals(account.getBalance(), decoded.getBalance());
+    }
+
+    @Test
+    public void transactionTest() throws Exception {
+
+        // arrange
+        Transaction transaction = Transaction.of(Integer.MAX_VALUE + 1L, TransactionType.WITHDRAW, "acc_1", null, 10);
+
+        // act
+        Transaction decoded = (Transaction) RecordCodec.decode(RecordCodec.encode(transaction));
+
+        // assert
+        assertEquals(transaction, decoded);
+        assertTrue(Transaction.getLastTransactionId() >= transaction.getNumber());
+    }
+
+    @Test
+    public void splitTransactionTest() throws Exception {
+
+        // arrange
+        List<Leg> legs = Arrays.asList(new Leg("acc_2", 90), new Leg("acc_fee", 10));
+        Transaction transaction = Transaction.of(7, TransactionType.SPLIT, "acc_1", null, 100, legs);
+
+        // act
+        Transaction decoded = (Transaction) RecordCodec.decode(RecordCodec.encode(transaction));
+
+        // assert
+        assertEquals(transaction, decoded);
+        assertEquals(legs, decoded.getLegs());
+    }
+
+    @Test(expected = IOException.class)
+    public void unknownKindTest() throws Exception {
+
+        // act
+        RecordCodec.decode(new byte[]{42});
+    }
+}
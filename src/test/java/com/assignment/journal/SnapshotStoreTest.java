@@ -0,0 +1,295 @@
+package com.assignment.journal;
+
+import com.assignment.model.Account;
+import com.assignment.model.Leg;
+import com.assignment.model.Transaction;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link SnapshotStore}
+ */
+public class SnapshotStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private SnapshotStore snapshotStore;
+
+    @Before
+    public void setUp() throws Exception {
+        snapshotStore = new SnapshotStore(folder.getRoot().toPath(), 2);
+    }
+
+    @Test
+    public void writeAndLoadTest() throws Exception {
+
+        // arrange
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < 200_000; i++) {
+            accounts.add(new Account("acc_" + i, i));
+        }
+        Map<String, Integer> loaded = new ConcurrentHashMap<>();
+
+        // act
+        SnapshotStore.Snapshot written = snapshotStore.write(42, Integer.MAX_VALUE + 7L, accounts);
+        SnapshotStore.Snapshot snapshot = snapshotStore.load(written.getPath(), loaded::put);
+
+        // assert
+        assertEquals(42, snapshot.getSequence());
+        assertEquals(Integer.MAX_VALUE + 7L, snapshot.getLastTransactionId());
+        assertEquals(accounts.size(), snapshot.getAccountCount());
+        assertEquals(accounts.size(), loaded.size());
+
+        for (Account account : accounts) {
+            assertEquals(account.getBalance(), loaded.get(account.getId()));
+        }
+    }
+
+    @Test
+    public void writeAndLoadHistoryTest() throws Exception {
+
+        // arrange
+        List<Account> accounts = new ArrayList<>();
+        accounts.add(new Account("acc_1", 10));
+        Transaction deposit = Transaction.ofDeposit("acc_1", 5);
+        Transaction withdraw = Transaction.ofWithdraw("acc_1", 2);
+        Transaction split = Transaction.ofSplit("acc_1", Arrays.asList(new Leg("acc_2", 1), new Leg("acc_3", 2)));
+        List<Transaction> loaded = new ArrayList<>();
+
+        // act
+        SnapshotStore.Snapshot previous = snapshotStore.write(2, 0, accounts, null, Arrays.asList(deposit, withdraw));
+        SnapshotStore.Snapshot written = snapshotStore.write(3, 0, accounts, previous, Collections.singletonList(split));
+        SnapshotStore.Snapshot snapshot = snapshotStore.load(written.getPath(), (id, balance) -> { }, loaded::add);
+
+        // assert
+        assertEquals(3, snapshot.getTransactionCount());
+        assertEquals(3, loaded.size());
+        assertEquals(deposit.getId(), loaded.get(0).getId());
+        assertEquals(withdraw.getId(), loaded.get(1).getId());
+        assertEquals(split.getId(), loaded.get(2).getId());
+        assertEquals(2, loaded.get(2).getLegs().size());
+    }
+
+    @Test
+    public void writeReferencesHistoryTest() throws Exception {
+
+        // arrange
+        SnapshotStore.Snapshot previous = snapshotStore.write(1, 0, new ArrayList<>(), null,
+                Collections.singletonList(Transaction.ofDeposit("acc_1", 5)));
+        Path segment = historyFiles().get(0);
+        long modified = Files.getLastModifiedTime(segment).toMillis();
+
+        // act
+        SnapshotStore.Snapshot written = snapshotStore.write(2, 0, new ArrayList<>(), previous,
+                Collections.singletonList(Transaction.ofDeposit("acc_1", 6)));
+
+        // assert
+        assertEquals(2, written.getHistory().size());
+        assertEquals(1, written.getHistory().get(0).getLastSequence());
+        assertEquals(2, written.getHistory().get(1).getFirstSequence());
+        assertEquals(2, historyFiles().size());
+        assertEquals(modified, Files.getLastModifiedTime(segment).toMillis());
+    }
+
+    @Test
+    public void deleteUnreferencedHistoryTest() throws Exception {
+
+        // arrange
+        SnapshotStore.Snapshot first = snapshotStore.write(1, 0, new ArrayList<>(), null,
+                Collections.singletonList(Transaction.ofDeposit("acc_1", 5)));
+        snapshotStore.write(2, 0, new ArrayList<>(), first, Collections.singletonList(Transaction.ofDeposit("acc_1", 6)));
+
+        // act
+        snapshotStore.write(3, 0, new ArrayList<>(), null, Collections.singletonList(Transaction.ofDeposit("acc_1", 7)));
+        snapshotStore.write(4, 0, new ArrayList<>(), null, Collections.singletonList(Transaction.ofDeposit("acc_1", 8)));
+
+        // assert
+        List<Path> history = historyFiles();
+
+        assertEquals(2, history.size());
+        assertTrue(history.get(0).toString().endsWith("3.hist"));
+        assertTrue(history.get(1).toString().endsWith("4.hist"));
+    }
+
+    @Test(expected = IOException.class)
+    public void loadCorruptedHistoryTest() throws Exception {
+
+        // arrange
+        SnapshotStore.Snapshot written = snapshotStore.write(1, 0, new ArrayList<>(), null,
+                Collections.singletonList(Transaction.ofDeposit("acc_1", 5)));
+
+        try (RandomAccessFile file = new RandomAccessFile(historyFiles().get(0).toFile(), "rw")) {
+            file.seek(file.length() - 1);
+            int last = file.read();
+            file.seek(file.length() - 1);
+            file.write(last ^ 0xFF);
+        }
+
+        // act
+        snapshotStore.load(written.getPath(), (id, balance) -> { }, transaction -> { });
+    }
+
+    @Test
+    public void loadLatestSkipsMissingHistoryTest() throws Exception {
+
+        // arrange
+        List<Account> accounts = Collections.singletonList(new Account("acc_1", 10));
+        SnapshotStore.Snapshot previous = snapshotStore.write(1, 0, accounts);
+        snapshotStore.write(2, 0, accounts, previous, Collections.singletonList(Transaction.ofDeposit("acc_1", 5)));
+        Files.delete(historyFiles().get(0));
+        List<Transaction> loaded = new ArrayList<>();
+
+        // act
+        SnapshotStore.Snapshot snapshot = snapshotStore.loadLatest((id, balance) -> { }, loaded::add);
+
+        // assert
+        assertEquals(1, snapshot.getSequence());
+        assertTrue(loaded.isEmpty());
+    }
+
+    @Test
+    public void forEachAccountTest() throws Exception {
+
+        // arrange
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            accounts.add(new Account("acc_" + i, i));
+        }
+        SnapshotStore.Snapshot written = snapshotStore.write(1, 0, accounts);
+        List<String> ids = new ArrayList<>();
+
+        // act
+        snapshotStore.forEachAccount(snapshotStore.read(written.getPath()), (id, balance) -> {
+            assertEquals(id, "acc_" + balance);
+            ids.add(id);
+        });
+
+        // assert
+        assertEquals(accounts.size(), ids.size());
+        assertEquals("acc_0", ids.get(0));
+        assertEquals("acc_99999", ids.get(ids.size() - 1));
+    }
+
+    @Test
+    public void longAccountIdTest() throws Exception {
+
+        // arrange
+        char[] id = new char[Short.MAX_VALUE + 100];
+        Arrays.fill(id, 'a');
+        List<Account> accounts = Collections.singletonList(new Account(new String(id), 10));
+        Map<String, Integer> loaded = new ConcurrentHashMap<>();
+
+        // act
+        SnapshotStore.Snapshot written = snapshotStore.write(1, 0, accounts);
+        snapshotStore.load(written.getPath(), loaded::put);
+
+        // assert
+        assertEquals(10, loaded.get(new String(id)).intValue());
+    }
+
+    @Test
+    public void writeEmptyTest() throws Exception {
+
+        // arrange
+        Map<String, Integer> loaded = new ConcurrentHashMap<>();
+
+        // act
+        SnapshotStore.Snapshot written = snapshotStore.write(1, 0, new ArrayList<>());
+        SnapshotStore.Snapshot snapshot = snapshotStore.load(written.getPath(), loaded::put);
+
+        // assert
+        assertEquals(0, snapshot.getAccountCount());
+        assertTrue(loaded.isEmpty());
+    }
+
+    @Test
+    public void retainedSnapshotsTest() throws Exception {
+
+        // act
+        snapshotStore.write(1, 0, new ArrayList<>());
+        snapshotStore.write(2, 0, new ArrayList<>());
+        snapshotStore.write(3, 0, new ArrayList<>());
+
+        // assert
+        List<Path> snapshots = snapshotStore.list();
+
+        assertEquals(2, snapshots.size());
+        assertTrue(snapshots.get(0).toString().endsWith("3.snap"));
+        assertTrue(snapshots.get(1).toString().endsWith("2.snap"));
+    }
+
+    @Test
+    public void loadLatestSkipsCorruptedTest() throws Exception {
+
+        // arrange
+        List<Account> accounts = new ArrayList<>();
+        accounts.add(new Account("acc_1", 10));
+        snapshotStore.write(1, 0, accounts);
+        SnapshotStore.Snapshot latest = snapshotStore.write(2, 0, accounts);
+
+        try (RandomAccessFile file = new RandomAccessFile(latest.getPath().toFile(), "rw")) {
+            file.seek(file.length() - 1);
+            file.write(0xFF);
+        }
+
+        Map<String, Integer> loaded = new ConcurrentHashMap<>();
+
+        // act
+        SnapshotStore.Snapshot snapshot = snapshotStore.loadLatest(loaded::put);
+
+        // assert
+        assertEquals(1, snapshot.getSequence());
+        assertEquals(10, loaded.get("acc_1").intValue());
+    }
+
+    @Test(expected = IOException.class)
+    public void loadCorruptedTest() throws Exception {
+
+        // arrange
+        List<Account> accounts = new ArrayList<>();
+        accounts.add(new Account("acc_1", 10));
+        SnapshotStore.Snapshot written = snapshotStore.write(1, 0, accounts);
+
+        try (RandomAccessFile file = new RandomAccessFile(written.getPath().toFile(), "rw")) {
+            file.seek(file.length() - 1);
+            file.write(0xFF);
+        }
+
+        // act
+        snapshotStore.load(written.getPath(), (id, balance) -> { });
+    }
+
+    @Test
+    public void loadLatestWithoutSnapshotTest() throws Exception {
+
+        // act
+        SnapshotStore.Snapshot snapshot = snapshotStore.loadLatest((id, balance) -> { });
+
+        // assert
+        assertNull(snapshot);
+    }
+
+    private List<Path> historyFiles() throws IOException {
+        try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+            return files.filter(path -> path.toString().endsWith(".hist")).sorted().collect(Collectors.toList());
+        }
+    }
+}
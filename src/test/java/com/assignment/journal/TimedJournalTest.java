@@ -0,0 +1,40 @@
+package com.assignment.journal;
+
+import com.assignment.model.Account;
+import com.assignment.model.Transaction;
+import com.codahale.metrics.Timer;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link TimedJournal}
+ */
+public class TimedJournalTest {
+
+    @Test
+    public void timedTest() throws Exception {
+
+        // arrange
+        Timer appends = new Timer();
+        Timer syncs = new Timer();
+        TimedJournal journal = new TimedJournal(Journal.DISABLED, appends, syncs);
+
+        // act
+        journal.append(new Account("acc_1", 10));
+        long sequence = journal.append(Transaction.ofDeposit("acc_1", 5));
+        journal.sync(sequence);
+        journal.syncAsync(sequence).toCompletableFuture().get();
+
+        List<JournalRecord> records = new ArrayList<>();
+        journal.replay(0, records::add);
+
+        // assert
+        assertEquals(2, appends.getCount());
+        assertEquals(2, syncs.getCount());
+        assertTrue(records.isEmpty());
+    }
+}
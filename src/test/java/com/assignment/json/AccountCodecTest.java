@@ -0,0 +1,124 @@
+package com.assignment.json;
+
+import com.assignment.model.Account;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.dropwizard.jackson.Jackson;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static io.dropwizard.testing.FixtureHelpers.fixture;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link AccountCodec}, against the bean serializer of {@link Account}
+ */
+public class AccountCodecTest {
+
+    private static final ObjectMapper BEAN_MAPPER = Jackson.newObjectMapper();
+    private static final ObjectMapper MAPPER = Jackson.newObjectMapper().registerModule(new ModelModule());
+
+    @Test
+    public void serializeTest() throws Exception {
+
+        // arrange
+        List<Account> accounts = Arrays.asList(new Account("acc_1", 10), new Account("acc_\"2\"", Integer.MAX_VALUE), new Account());
+
+        for (Account account : accounts) {
+
+            // act
+            String actual = MAPPER.writeValueAsString(account);
+
+            // assert
+            assertEquals(BEAN_MAPPER.writeValueAsString(account), actual);
+        }
+    }
+
+    @Test
+    public void serializeListTest() throws Exception {
+
+        // arrange
+        List<Account> accounts = Arrays.asList(new Account("acc_1", 10), new Account("acc_2", 20));
+
+        // act
+        String actual = MAPPER.writeValueAsString(accounts);
+
+        // assert
+        assertEquals(BEAN_MAPPER.writeValueAsString(accounts), actual);
+    }
+
+    @Test
+    public void deserializeTest() throws Exception {
+
+        // act
+        Account actual = MAPPER.readValue(fixture("fixtures/account.json"), Account.class);
+
+        // assert
+        assertEquals("acc_1", actual.getId());
+        assertEquals(10, actual.getBalance().intValue());
+    }
+
+    @Test
+    public void deserializeCoercedTest() throws Exception {
+
+        // arrange
+        String json = "{\"balance\":\"12\",\"id\":null}";
+
+        // act
+        Account actual = MAPPER.readValue(json, Account.class);
+
+        // assert
+        assertNull(actual.getId());
+        assertEquals(12, actual.getBalance().intValue());
+        assertEquals(BEAN_MAPPER.writeValueAsString(BEAN_MAPPER.readValue(json, Account.class)),
+                MAPPER.writeValueAsString(actual));
+    }
+
+    @Test
+    public void deserializeMissingBalanceTest() throws Exception {
+
+        // act
+        Account actual = MAPPER.readValue("{\"id\":\"acc_1\",\"balance\":null}", Account.class);
+
+        // assert
+        assertEquals(0, actual.getBalance().intValue());
+    }
+
+    @Test(expected = JsonMappingException.class)
+    public void deserializeUnknownPropertyTest() throws Exception {
+
+        // act
+        MAPPER.readValue("{\"id\":\"acc_1\",\"owner\":\"someone\"}", Account.class);
+    }
+
+    @Test
+    public void deserializeUnknownPropertyIgnoredTest() throws Exception {
+
+        // arrange
+        ObjectMapper mapper = MAPPER.copy().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+        // act
+        Account actual = mapper.readValue("{\"id\":\"acc_1\",\"owner\":{\"name\":[1,2]},\"balance\":3}", Account.class);
+
+        // assert
+        assertEquals("acc_1", actual.getId());
+        assertEquals(3, actual.getBalance().intValue());
+    }
+
+    @Test(expected = JsonMappingException.class)
+    public void deserializeNotObjectTest() throws Exception {
+
+        // act
+        MAPPER.readValue("[\"acc_1\"]", Account.class);
+    }
+
+    @Test(expected = JsonMappingException.class)
+    public void deserializeInvalidBalanceTest() throws Exception {
+
+        // act
+        MAPPER.readValue("{\"id\":\"acc_1\",\"balance\":\"ten\"}", Account.class);
+    }
+}
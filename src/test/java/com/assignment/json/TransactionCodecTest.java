@@ -0,0 +1,138 @@
+package com.assignment.json;
+
+import com.assignment.model.Batch;
+import com.assignment.model.BatchResult;
+import com.assignment.model.Leg;
+import com.assignment.model.Page;
+import com.assignment.model.Transaction;
+import com.assignment.model.TransactionType;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.dropwizard.jackson.Jackson;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static io.dropwizard.testing.FixtureHelpers.fixture;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link TransactionCodec} and {@link LegCodec}, against the bean serializers of {@link Transaction} and {@link Leg}
+ */
+public class TransactionCodecTest {
+
+    private static final ObjectMapper BEAN_MAPPER = Jackson.newObjectMapper();
+    private static final ObjectMapper MAPPER = Jackson.newObjectMapper().registerModule(new ModelModule());
+
+    private static List<Transaction> transactions() {
+        return Arrays.asList(
+                Transaction.ofDeposit("acc_1", 10),
+                Transaction.ofWithdraw("acc_1", 20),
+                Transaction.ofTransfer("acc_1", "acc_é\"2\"", Integer.MAX_VALUE),
+                Transaction.ofSplit("acc_1", Arrays.asList(new Leg("acc_2", 1), new Leg("acc_3", 2))),
+                new Transaction("acc_1", "acc_2", null),
+                new Transaction());
+    }
+
+    @Test
+    public void serializeTest() throws Exception {
+
+        for (Transaction transaction : transactions()) {
+
+            // act
+            String actual = MAPPER.writeValueAsString(transaction);
+
+            // assert
+            assertEquals(BEAN_MAPPER.writeValueAsString(transaction), actual);
+        }
+    }
+
+    @Test
+    public void serializeContainersTest() throws Exception {
+
+        // arrange
+        Page<Transaction> page = new Page<>(transactions(), "trx_1");
+        BatchResult result = BatchResult.of(Transaction.ofDeposit("acc_1", 10));
+
+        // act, assert
+        assertEquals(BEAN_MAPPER.writeValueAsString(page), MAPPER.writeValueAsString(page));
+        assertEquals(BEAN_MAPPER.writeValueAsString(result), MAPPER.writeValueAsString(result));
+    }
+
+    @Test
+    public void roundTripTest() throws Exception {
+
+        for (Transaction transaction : transactions()) {
+
+            // arrange
+            String json = BEAN_MAPPER.writeValueAsString(transaction);
+
+            // act
+            Transaction actual = MAPPER.readValue(json, Transaction.class);
+
+            // assert
+            assertEquals(transaction, actual);
+            assertEquals(BEAN_MAPPER.readValue(json, Transaction.class), actual);
+        }
+    }
+
+    @Test
+    public void deserializeTest() throws Exception {
+
+        // act
+        Transaction actual = MAPPER.readValue(fixture("fixtures/transaction.json"), Transaction.class);
+
+        // assert
+        assertEquals(new Transaction("acc_1", "acc_2", 10), actual);
+        assertEquals(0, actual.getNumber());
+    }
+
+    @Test
+    public void deserializeBatchTest() throws Exception {
+
+        // arrange
+        String json = "{\"atomic\":true,\"transactions\":[{\"transactionType\":\"split\",\"fromAccountId\":\"acc_1\","
+                + "\"legs\":[{\"toAccountId\":\"acc_2\",\"amount\":\"1\"},null]},{\"transactionType\":\"deposit\"}]}";
+
+        // act
+        Batch actual = MAPPER.readValue(json, Batch.class);
+
+        // assert
+        assertEquals(BEAN_MAPPER.readValue(json, Batch.class).getTransactions(), actual.getTransactions());
+        assertEquals(TransactionType.SPLIT, actual.getTransactions().get(0).getTransactionType());
+        assertEquals(Arrays.asList(new Leg("acc_2", 1), null), actual.getTransactions().get(0).getLegs());
+    }
+
+    @Test
+    public void deserializeForeignIdTest() throws Exception {
+
+        // act
+        Transaction actual = MAPPER.readValue("{\"id\":\"acc_1\",\"amount\":1}", Transaction.class);
+
+        // assert
+        assertEquals(0, actual.getNumber());
+        assertNull(actual.getId());
+    }
+
+    @Test(expected = JsonMappingException.class)
+    public void deserializeUnknownTypeTest() throws Exception {
+
+        // act
+        MAPPER.readValue("{\"transactionType\":\"refund\"}", Transaction.class);
+    }
+
+    @Test(expected = JsonMappingException.class)
+    public void deserializeUnknownPropertyTest() throws Exception {
+
+        // act
+        MAPPER.readValue("{\"amount\":1,\"currency\":\"EUR\"}", Transaction.class);
+    }
+
+    @Test(expected = JsonMappingException.class)
+    public void deserializeInvalidLegsTest() throws Exception {
+
+        // act
+        MAPPER.readValue("{\"legs\":{\"toAccountId\":\"acc_2\"}}", Transaction.class);
+    }
+}
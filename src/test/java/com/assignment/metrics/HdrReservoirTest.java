@@ -0,0 +1,88 @@
+package com.assignment.metrics;
+
+import com.codahale.metrics.Snapshot;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link HdrReservoir}
+ */
+public class HdrReservoirTest {
+
+    @Test
+    public void snapshotTest() throws Exception {
+
+        // arrange
+        HdrReservoir reservoir = new HdrReservoir();
+
+        // act
+        for (long value = 1; value <= 1000; value++) {
+            reservoir.update(value);
+        }
+
+        Snapshot snapshot = reservoir.getSnapshot();
+
+        // assert
+        assertEquals(1000, snapshot.size());
+        assertEquals(1, snapshot.getMin());
+        assertEquals(1000, snapshot.getMax());
+        assertEquals(500, snapshot.getMedian(), 1);
+        assertEquals(990, snapshot.get99thPercentile(), 1);
+        assertEquals(500.5, snapshot.getMean(), 1);
+    }
+
+    @Test
+    public void emptySnapshotTest() throws Exception {
+
+        // act
+        Snapshot snapshot = new HdrReservoir().getSnapshot();
+
+        // assert
+        assertEquals(0, snapshot.size());
+        assertEquals(0, snapshot.getMax());
+        assertEquals(0, snapshot.getMean(), 0);
+        assertEquals(0, snapshot.getValues().length);
+    }
+
+    @Test
+    public void negativeValueTest() throws Exception {
+
+        // arrange
+        HdrReservoir reservoir = new HdrReservoir();
+
+        // act
+        reservoir.update(-5);
+
+        // assert
+        assertEquals(1, reservoir.size());
+        assertEquals(0, reservoir.getSnapshot().getMax());
+    }
+
+    @Test
+    public void windowTest() throws Exception {
+
+        // arrange
+        HdrReservoir reservoir = new HdrReservoir(TimeUnit.MILLISECONDS.toNanos(10));
+
+        reservoir.update(100);
+        assertEquals(1, reservoir.size());
+
+        // act
+        Thread.sleep(15);
+        reservoir.update(200);
+        int previousAndCurrent = reservoir.size();
+
+        Thread.sleep(15);
+        reservoir.update(300);
+        Snapshot snapshot = reservoir.getSnapshot();
+
+        // assert
+        assertEquals(2, previousAndCurrent);
+        assertEquals(2, snapshot.size());
+        assertEquals(200, snapshot.getMin());
+        assertEquals(300, snapshot.getMax());
+    }
+}
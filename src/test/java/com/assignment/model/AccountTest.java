@@ -4,6 +4,10 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import io.dropwizard.jackson.Jackson;
 import org.junit.Test;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 import static io.dropwizard.testing.FixtureHelpers.fixture;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.*;
@@ -15,6 +19,55 @@ public class AccountTest {
 
     private static final ObjectMapper MAPPER = Jackson.newObjectMapper();
 
+    private class TestBalanceStore implements BalanceStore {
+
+        long[] balances = new long[2];
+        HotBalance[] hotBalances = new HotBalance[2];
+        Object[] monitors = {new Object(), new Object()};
+
+        @Override
+        public long getBalance(int slot) {
+            return balances[slot];
+        }
+
+        @Override
+        public void setBalance(int slot, long balance) {
+            balances[slot] = balance;
+        }
+
+        @Override
+        public boolean compareAndSetBalance(int slot, long expected, long balance) {
+
+            if (balances[slot] != expected) {
+                return false;
+            }
+
+            balances[slot] = balance;
+
+            return true;
+        }
+
+        @Override
+        public HotBalance getHotBalance(int slot) {
+            return hotBalances[slot];
+        }
+
+        @Override
+        public void setHotBalance(int slot, HotBalance hotBalance) {
+            hotBalances[slot] = hotBalance;
+        }
+
+        @Override
+        public int getStripe(int slot) {
+            return slot;
+        }
+
+        @Override
+        public Object getMonitor(int slot) {
+            return monitors[slot];
+        }
+    }
+
     @Test
     public void serializeToJsonTest() throws Exception {
 
@@ -95,6 +148,229 @@ public class AccountTest {
         assertFalse(result);
     }
 
+    @Test
+    public void tryDepositTest() throws Exception {
+
+        // arrange
+        Account account = new Account("acc_1", Integer.MAX_VALUE - 10);
+
+        // act
+        boolean result1 = account.tryDeposit(10);
+        boolean result2 = account.tryDeposit(1);
+
+        // assert
+        assertTrue(result1);
+        assertFalse(result2);
+        assertEquals(Integer.MAX_VALUE, account.getBalance().intValue());
+    }
+
+    @Test
+    public void tryWithdrawTest() throws Exception {
+
+        // arrange
+        Account account = new Account("acc_1", 10);
+
+        // act
+        boolean result1 = account.tryWithdraw(10);
+        boolean result2 = account.tryWithdraw(1);
+
+        // assert
+        assertTrue(result1);
+        assertFalse(result2);
+        assertEquals(0, account.getBalance().intValue());
+    }
+
+    @Test
+    public void tryWithdrawReservedTest() throws Exception {
+
+        // arrange
+        Account account = new Account("acc_1", Integer.MAX_VALUE - 10);
+
+        // act
+        boolean result1 = account.tryWithdrawReserved(100);
+        boolean result2 = account.tryDeposit(11);
+        boolean result3 = account.hasEnoughSpaceToDeposit(10);
+        boolean result4 = account.tryWithdrawReserved(Integer.MAX_VALUE);
+
+        // assert
+        assertTrue(result1);
+        assertFalse(result2);
+        assertTrue(result3);
+        assertFalse(result4);
+        assertEquals(Integer.MAX_VALUE - 110, account.getBalance().intValue());
+    }
+
+    @Test
+    public void releaseAndRefundReservedTest() throws Exception {
+
+        // arrange
+        Account account = new Account("acc_1", 100);
+        account = StoredAccount.attach(account, new TestBalanceStore(), 1);
+        account.tryWithdrawReserved(30);
+        account.tryWithdrawReserved(20);
+
+        // act
+        account.releaseReserved(30);
+        account.refundReserved(20);
+
+        // assert
+        assertEquals(70, account.getBalance().intValue());
+        assertTrue(account.hasEnoughSpaceToDeposit(Integer.MAX_VALUE - 70));
+        assertEquals("Account {id=acc_1 balance=70}", account.toString());
+    }
+
+    @Test
+    public void tryReserveRoomTest() throws Exception {
+
+        // arrange
+        Account account = new Account("acc_1", Integer.MAX_VALUE - 100);
+
+        // act
+        boolean result1 = account.tryReserveRoom(60);
+        boolean result2 = account.tryReserveRoom(41);
+        boolean result3 = account.tryDeposit(41);
+        account.refundReserved(60);
+
+        // assert
+        assertTrue(result1);
+        assertFalse(result2);
+        assertFalse(result3);
+        assertEquals(Integer.MAX_VALUE - 40, account.getBalance().intValue());
+        assertTrue(account.tryDeposit(40));
+    }
+
+    @Test
+    public void hotReserveRoomTest() throws Exception {
+
+        // arrange
+        Account account = new Account("acc_1", Integer.MAX_VALUE - 100);
+        account = StoredAccount.attach(account, new TestBalanceStore(), 1);
+        account.promote(4);
+
+        // act
+        boolean reserved = account.tryReserveRoom(100);
+        boolean deposited = account.tryDeposit(1);
+        account.releaseReserved(100);
+
+        // assert
+        assertTrue(reserved);
+        assertFalse(deposited);
+        assertEquals(Integer.MAX_VALUE - 100, account.getBalance().intValue());
+        assertTrue(account.tryDeposit(100));
+    }
+
+    @Test
+    public void snapshotTest() throws Exception {
+
+        // arrange
+        Account account = new Account("acc_1", 100);
+        account = StoredAccount.attach(account, new TestBalanceStore(), 1);
+
+        // act
+        Account snapshot = account.snapshot();
+        account.increaseBalance(10);
+
+        // assert
+        assertEquals("acc_1", snapshot.getId());
+        assertEquals(100, snapshot.getBalance().intValue());
+        assertEquals(110, account.getBalance().intValue());
+    }
+
+    @Test
+    public void snapshotWhileLockedTest() throws Exception {
+
+        // arrange
+        Account account = new Account("acc_1", 100);
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+
+        // act
+        Account snapshot;
+
+        synchronized (account.monitor()) {
+            account.decreaseBalance(10);
+            snapshot = executorService.submit(account::snapshot).get(5, TimeUnit.SECONDS);
+        }
+
+        executorService.shutdown();
+
+        // assert
+        assertEquals(90, snapshot.getBalance().intValue());
+    }
+
+    @Test
+    public void promoteTest() throws Exception {
+
+        // arrange
+        Account account = new Account("acc_1", 100);
+
+        // act
+        boolean result1 = account.promote(4);
+        boolean result2 = account.promote(4);
+        boolean deposited = account.tryDeposit(Integer.MAX_VALUE - 100);
+        boolean overflowed = account.tryDeposit(1);
+        boolean withdrawn = account.tryWithdraw(Integer.MAX_VALUE - 50);
+
+        // assert
+        assertTrue(result1);
+        assertFalse(result2);
+        assertTrue(account.isHot());
+        assertTrue(deposited);
+        assertFalse(overflowed);
+        assertTrue(withdrawn);
+        assertEquals(50, account.getBalance().intValue());
+        assertFalse(account.tryWithdraw(51));
+    }
+
+    @Test
+    public void hotReservationTest() throws Exception {
+
+        // arrange
+        Account account = new Account("acc_1", Integer.MAX_VALUE - 100);
+        account = StoredAccount.attach(account, new TestBalanceStore(), 1);
+        account.promote(4);
+
+        // act
+        boolean reserved1 = account.tryWithdrawReserved(30);
+        boolean reserved2 = account.tryWithdrawReserved(20);
+        boolean deposited = account.tryDeposit(101);
+        account.releaseReserved(30);
+        account.refundReserved(20);
+
+        // assert
+        assertTrue(reserved1);
+        assertTrue(reserved2);
+        assertFalse(deposited);
+        assertEquals(Integer.MAX_VALUE - 130, account.getBalance().intValue());
+        assertTrue(account.hasEnoughSpaceToDeposit(130));
+        assertFalse(account.hasEnoughSpaceToDeposit(131));
+        assertTrue(account.tryDeposit(130));
+    }
+
+    @Test
+    public void demoteTest() throws Exception {
+
+        // arrange
+        Account account = new Account("acc_1", 100);
+        account = StoredAccount.attach(account, new TestBalanceStore(), 1);
+        account.promote(4);
+        account.tryDeposit(10);
+        account.tryWithdrawReserved(20);
+
+        // act
+        boolean result1 = account.demote();
+        boolean result2 = account.demote();
+        account.refundReserved(20);
+        account.increaseBalance(5);
+
+        // assert
+        assertTrue(result1);
+        assertFalse(result2);
+        assertFalse(account.isHot());
+        assertEquals(115, account.getBalance().intValue());
+        assertTrue(account.hasEnoughSpaceToDeposit(Integer.MAX_VALUE - 115));
+        assertEquals("{\"id\":\"acc_1\",\"balance\":115}", MAPPER.writeValueAsString(account));
+    }
+
     @Test
     public void toStringTest() throws Exception {
 
@@ -108,4 +384,53 @@ public class AccountTest {
         assertTrue(result.contains(account.getId()));
         assertTrue(result.contains(String.valueOf(account.getBalance())));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void attachTest() throws Exception {
+
+        // arrange
+        Account account = new Account("acc_1", 125);
+        TestBalanceStore table = new TestBalanceStore();
+
+        // act
+        Account view = StoredAccount.attach(account, table, 0);
+        view.increaseBalance(5);
+
+        // assert
+        assertEquals(130, table.getBalance(0));
+        assertEquals(130, view.getBalance().intValue());
+        assertEquals(125, account.getBalance().intValue());
+        assertSame(table.getMonitor(0), view.monitor());
+    }
+
+    @Test
+    public void compareLockOrderTest() throws Exception {
+
+        // arrange
+        Account account1 = new Account("acc_1", 10);
+        Account account2 = new Account("acc_2", 10);
+
+        // act
+        int result = account1.compareLockOrder(account2);
+
+        // assert
+        assertTrue(result < 0);
+        assertSame(account1, account1.monitor());
+    }
+
+    @Test
+    public void compareLockOrderOfViewsTest() throws Exception {
+
+        // arrange
+        TestBalanceStore table = new TestBalanceStore();
+        Account view1 = new StoredAccount("acc_2", table, 0);
+        Account view2 = new StoredAccount("acc_1", table, 1);
+
+        // act
+        int result = view1.compareLockOrder(view2);
+
+        // assert
+        assertTrue(result < 0);
+        assertEquals(0, view1.compareLockOrder(new StoredAccount("acc_2", table, 0)));
+    }
+}
@@ -0,0 +1,105 @@
+package com.assignment.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link HotBalance}
+ */
+public class HotBalanceTest {
+
+    @Test
+    public void openTest() throws Exception {
+
+        // arrange
+        HotBalance hotBalance = new HotBalance(4);
+
+        // act
+        hotBalance.open(103, 1_000);
+
+        // assert
+        assertEquals(4, hotBalance.getCellCount());
+        assertEquals(103, hotBalance.sum());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidCellCountTest() throws Exception {
+        new HotBalance(0);
+    }
+
+    @Test
+    public void creditDebitTest() throws Exception {
+
+        // arrange
+        HotBalance hotBalance = new HotBalance(4);
+        hotBalance.open(100, 100);
+
+        // act
+        int result1 = hotBalance.apply(10, -10);
+        int result2 = hotBalance.apply(-30, 30);
+
+        // assert
+        assertEquals(HotBalance.DONE, result1);
+        assertEquals(HotBalance.DONE, result2);
+        assertEquals(80, hotBalance.sum());
+    }
+
+    @Test
+    public void gatherTest() throws Exception {
+
+        // arrange
+        HotBalance hotBalance = new HotBalance(4);
+        hotBalance.open(100, 100);
+
+        // act, no single cell holds more than 25 of balance or room
+        int result1 = hotBalance.apply(-90, 90);
+        int result2 = hotBalance.apply(180, -180);
+
+        // assert
+        assertEquals(HotBalance.DONE, result1);
+        assertEquals(HotBalance.DONE, result2);
+        assertEquals(190, hotBalance.sum());
+    }
+
+    @Test
+    public void rejectTest() throws Exception {
+
+        // arrange
+        HotBalance hotBalance = new HotBalance(4);
+        hotBalance.open(100, 100);
+
+        // act
+        int result1 = hotBalance.apply(-101, 101);
+        int result2 = hotBalance.apply(101, -101);
+        int result3 = hotBalance.apply(-100, 0);
+
+        // assert
+        assertEquals(HotBalance.REJECTED, result1);
+        assertEquals(HotBalance.REJECTED, result2);
+        assertEquals(HotBalance.DONE, result3);
+        assertEquals(0, hotBalance.sum());
+        assertEquals(HotBalance.REJECTED, hotBalance.apply(101, -101));
+    }
+
+    @Test
+    public void demoteTest() throws Exception {
+
+        // arrange
+        HotBalance hotBalance = new HotBalance(4);
+        hotBalance.open(100, 100);
+        int[] folded = new int[1];
+
+        // act
+        boolean result1 = hotBalance.demote(balance -> folded[0] = balance);
+        boolean result2 = hotBalance.demote(balance -> folded[0] = -1);
+
+        // assert
+        assertTrue(result1);
+        assertFalse(result2);
+        assertEquals(100, folded[0]);
+        assertEquals(-1, hotBalance.sum());
+        assertEquals(HotBalance.DEMOTED, hotBalance.apply(1, -1));
+        assertEquals(HotBalance.DEMOTED, hotBalance.apply(1, 0));
+    }
+}
@@ -0,0 +1,127 @@
+package com.assignment.model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link IdGenerator}
+ */
+public class IdGeneratorTest {
+
+    private IdGenerator idGenerator;
+
+    @Before
+    public void setUp() throws Exception {
+        idGenerator = new IdGenerator(4);
+    }
+
+    @Test
+    public void nextTest() throws Exception {
+
+        // act
+        long id1 = idGenerator.next();
+        long id2 = idGenerator.next();
+        long id3 = idGenerator.next();
+
+        // assert
+        assertEquals(1, id1);
+        assertEquals(2, id2);
+        assertEquals(3, id3);
+        assertEquals(4, idGenerator.getLastId());
+    }
+
+    @Test
+    public void nextAcrossBlocksTest() throws Exception {
+
+        // arrange
+        long previous = idGenerator.next();
+
+        for (int i = 0; i < 10; i++) {
+
+            // act
+            long id = idGenerator.next();
+
+            // assert
+            assertTrue(id > previous);
+            previous = id;
+        }
+    }
+
+    @Test
+    public void seedTest() throws Exception {
+
+        // arrange
+        idGenerator.next();
+
+        // act
+        idGenerator.seed(100);
+
+        // assert
+        assertEquals(101, idGenerator.next());
+    }
+
+    @Test
+    public void seedBehindTest() throws Exception {
+
+        // arrange
+        idGenerator.seed(100);
+
+        // act
+        idGenerator.seed(50);
+
+        // assert
+        assertEquals(101, idGenerator.next());
+    }
+
+    @Test
+    public void seedBeyondIntegerTest() throws Exception {
+
+        // act
+        idGenerator.seed(Integer.MAX_VALUE);
+
+        // assert
+        assertEquals(Integer.MAX_VALUE + 1L, idGenerator.next());
+        assertEquals(Integer.MAX_VALUE + 2L, idGenerator.next());
+    }
+
+    @Test
+    public void nextConcurrencyTest() throws Exception {
+
+        // arrange
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        int nbrOfThreads = 8;
+        int nbrOfTrials = 10_000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        // act
+        for (int i = 0; i < nbrOfThreads; i++) {
+            executorService.execute(() -> {
+                for (int j = 0; j < nbrOfTrials; j++) {
+                    ids.add(idGenerator.next());
+                }
+            });
+        }
+
+        executorService.shutdown();
+        executorService.awaitTermination(10, TimeUnit.SECONDS);
+
+        // assert
+        assertEquals(nbrOfThreads * nbrOfTrials, ids.size());
+        assertTrue(idGenerator.getLastId() >= nbrOfThreads * nbrOfTrials);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidBlockSizeTest() throws Exception {
+
+        // act
+        new IdGenerator(0);
+    }
+}
@@ -5,6 +5,9 @@ import io.dropwizard.jackson.Jackson;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.List;
+
 import static io.dropwizard.testing.FixtureHelpers.fixture;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.*;
@@ -19,7 +22,7 @@ public class TransactionTest {
     private String accountId1;
     private String accountId2;
     private Integer amount;
-    private int transactionIdBeforeTest;
+    private long transactionIdBeforeTest;
 
     @Before
     public void setUp() throws Exception {
@@ -68,7 +71,8 @@ public class TransactionTest {
 
         // assert
         assertEquals(TransactionType.DEPOSIT, result.getTransactionType());
-        assertTrue(result.getId().contains(String.valueOf(transactionIdBeforeTest + 1)));
+        assertTrue(result.getNumber() > 0);
+        assertEquals(Transaction.formatId(result.getNumber()), result.getId());
         assertNull(result.getFromAccountId());
         assertEquals(accountId1, result.getToAccountId());
         assertEquals(amount, result.getAmount());
@@ -82,7 +86,8 @@ public class TransactionTest {
 
         // assert
         assertEquals(TransactionType.WITHDRAW, result.getTransactionType());
-        assertTrue(result.getId().contains(String.valueOf(transactionIdBeforeTest + 1)));
+        assertTrue(result.getNumber() > 0);
+        assertEquals(Transaction.formatId(result.getNumber()), result.getId());
         assertEquals(accountId1, result.getFromAccountId());
         assertNull(result.getToAccountId());
         assertEquals(amount, result.getAmount());
@@ -96,24 +101,48 @@ public class TransactionTest {
 
         // assert
         assertEquals(TransactionType.TRANSFER, result.getTransactionType());
-        assertTrue(result.getId().contains(String.valueOf(transactionIdBeforeTest + 1)));
+        assertTrue(result.getNumber() > 0);
+        assertEquals(Transaction.formatId(result.getNumber()), result.getId());
         assertEquals(accountId1, result.getFromAccountId());
         assertEquals(accountId2, result.getToAccountId());
         assertEquals(amount, result.getAmount());
     }
 
+    @Test
+    public void ofSplitTest() throws Exception {
+
+        // arrange
+        List<Leg> legs = Arrays.asList(new Leg(accountId2, 90), new Leg("acc_fee", 10));
+
+        // act
+        Transaction result = Transaction.ofSplit(accountId1, legs);
+
+        String json = MAPPER.writeValueAsString(result);
+        Transaction actual = MAPPER.readValue(json, Transaction.class);
+
+        // assert
+        assertEquals(TransactionType.SPLIT, result.getTransactionType());
+        assertEquals(accountId1, result.getFromAccountId());
+        assertNull(result.getToAccountId());
+        assertEquals(100, result.getAmount().intValue());
+        assertEquals(legs, result.getLegs());
+        assertEquals(result, actual);
+        assertFalse(MAPPER.writeValueAsString(Transaction.ofDeposit(accountId1, amount)).contains("legs"));
+    }
+
     @Test
     public void getLastTransactionIdTest() throws Exception {
 
         // arrange
-        Transaction.ofTransfer(accountId1, accountId2, amount);
-        Transaction.ofTransfer(accountId2, accountId1, amount);
+        Transaction transaction1 = Transaction.ofTransfer(accountId1, accountId2, amount);
+        Transaction transaction2 = Transaction.ofTransfer(accountId2, accountId1, amount);
 
         // act
-        int result = Transaction.getLastTransactionId();
+        long result = Transaction.getLastTransactionId();
 
         // assert
-        assertEquals(transactionIdBeforeTest + 2, result);
+        assertTrue(transaction2.getNumber() > transaction1.getNumber());
+        assertTrue(result >= transaction2.getNumber());
     }
 
     @Test
@@ -123,9 +152,89 @@ public class TransactionTest {
         new Transaction(accountId1, accountId2, amount);
 
         // act
-        int result = Transaction.getLastTransactionId();
+        long result = Transaction.getLastTransactionId();
 
         // assert
         assertEquals(transactionIdBeforeTest, result);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void ofTest() throws Exception {
+
+        // act
+        Transaction transaction = Transaction.of(1_000_000, TransactionType.TRANSFER, accountId1, accountId2, amount);
+
+        // assert
+        assertEquals("trx_1000000", transaction.getId());
+        assertEquals(TransactionType.TRANSFER, transaction.getTransactionType());
+        assertEquals(transactionIdBeforeTest, Transaction.getLastTransactionId());
+    }
+
+    @Test
+    public void restoreTest() throws Exception {
+
+        // arrange
+        long restoredNumber = Transaction.getLastTransactionId() + 10_000;
+
+        // act
+        Transaction restored = Transaction.restore(restoredNumber, TransactionType.DEPOSIT, null, accountId1, amount);
+        Transaction created = Transaction.ofDeposit(accountId1, amount);
+
+        // assert
+        assertEquals(Transaction.formatId(restoredNumber), restored.getId());
+        assertTrue(created.getNumber() > restoredNumber);
+    }
+
+    @Test
+    public void deserializeIdFromJsonTest() throws Exception {
+
+        // arrange
+        Transaction expected = Transaction.ofTransfer(accountId1, accountId2, amount);
+
+        // act
+        Transaction actual = MAPPER.readValue(MAPPER.writeValueAsString(expected), Transaction.class);
+
+        // assert
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void getIdWithoutNumberTest() throws Exception {
+
+        // act
+        Transaction transaction = new Transaction(accountId1, accountId2, amount);
+
+        // assert
+        assertNull(transaction.getId());
+        assertEquals(0, transaction.getNumber());
+    }
+
+    @Test
+    public void parseIdTest() throws Exception {
+
+        // act
+        long number = Transaction.parseId(Transaction.formatId(1L << 40));
+
+        // assert
+        assertEquals(1L << 40, number);
+        assertEquals(-1, Transaction.parseId(null));
+        assertEquals(-1, Transaction.parseId("acc_1"));
+        assertEquals(-1, Transaction.parseId("trx_x"));
+        assertEquals(-1, Transaction.parseId("trx_0"));
+    }
+
+    @Test
+    public void equalsTest() throws Exception {
+
+        // arrange
+        Transaction transaction = Transaction.ofTransfer(accountId1, accountId2, amount);
+
+        // act
+        Transaction copy = Transaction.of(transaction.getNumber(), TransactionType.TRANSFER, accountId1, accountId2, amount);
+
+        // assert
+        assertEquals(transaction, copy);
+        assertEquals(transaction.hashCode(), copy.hashCode());
+        assertNotEquals(transaction, Transaction.ofTransfer(accountId1, accountId2, amount));
+    }
+}
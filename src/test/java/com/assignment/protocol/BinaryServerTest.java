@@ -0,0 +1,202 @@
+package com.assignment.protocol;
+
+import com.assignment.client.BinaryClient;
+import com.assignment.dao.AccountDao;
+import com.assignment.dao.TransactionDao;
+import com.assignment.journal.Journal;
+import com.assignment.journal.JournalRecord;
+import com.assignment.model.Account;
+import com.assignment.model.Transaction;
+import com.assignment.service.TransactionService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link BinaryServer}, through the {@link BinaryClient}
+ */
+public class BinaryServerTest {
+
+    private BinaryServer server;
+    private BinaryClient client;
+    private AccountDao accountDao;
+    private TransactionService transactionService;
+    private ExecutorService workers;
+
+    @Before
+    public void setUp() throws Exception {
+
+        accountDao = new AccountDao();
+        accountDao.save(new Account("acc_1", 100));
+        accountDao.save(new Account("acc_2", 0));
+
+        workers = Executors.newFixedThreadPool(2);
+        transactionService = new TransactionService(new TransactionDao());
+        server = new BinaryServer(0, 2, 4, accountDao, transactionService, workers);
+        server.start();
+        client = new BinaryClient("localhost", server.getPort());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.close();
+        server.stop();
+        workers.shutdown();
+    }
+
+    @Test
+    public void transactionsTest() throws Exception {
+
+        // act
+        BinaryClient.Reply deposit = client.deposit("acc_1", 10);
+        BinaryClient.Reply withdraw = client.withdraw("acc_1", 20);
+        BinaryClient.Reply transfer = client.transfer("acc_1", "acc_2", 30);
+
+        // assert
+        assertTrue(deposit.isOk());
+        assertTrue(withdraw.isOk());
+        assertTrue(transfer.isOk());
+        assertEquals(60, client.balance("acc_1").getValue());
+        assertEquals(30, client.balance("acc_2").getValue());
+        assertEquals(3, transactionService.getAllTransactions().size());
+
+        // requests run on any worker, whose ids interleave in no particular order, but are answered with their numbers
+        Iterator<Transaction> transactions = transactionService.getAllTransactions().iterator();
+        assertEquals(transactions.next().getNumber(), deposit.getValue());
+        assertEquals(transactions.next().getNumber(), withdraw.getValue());
+        assertEquals(transactions.next().getNumber(), transfer.getValue());
+    }
+
+    @Test
+    public void rejectedTest() throws Exception {
+
+        // act, assert
+        assertEquals(BinaryStatus.INSUFFICIENT_FUNDS, client.withdraw("acc_2", 1).getStatus());
+        assertEquals(BinaryStatus.BALANCE_LIMIT, client.deposit("acc_1", Integer.MAX_VALUE).getStatus());
+        assertEquals(BinaryStatus.SAME_ACCOUNT, client.transfer("acc_1", "acc_1", 1).getStatus());
+        assertEquals(BinaryStatus.NOT_FOUND, client.transfer("acc_1", "unknown", 1).getStatus());
+        assertEquals(BinaryStatus.NOT_FOUND, client.balance("unknown").getStatus());
+        assertEquals(BinaryStatus.BAD_REQUEST, client.deposit("acc_1", 0).getStatus());
+        assertTrue(transactionService.getAllTransactions().isEmpty());
+    }
+
+    @Test
+    public void pipelinedTest() throws Exception {
+
+        // arrange, far more requests in flight than the server reads at a time
+        List<CompletableFuture<BinaryClient.Reply>> replies = new ArrayList<>();
+
+        // act
+        for (int i = 0; i < 1_000; i++) {
+            replies.add(i % 2 == 0 ? client.transferAsync("acc_1", "acc_2", 1) : client.transferAsync("acc_2", "acc_1", 1));
+        }
+
+        // assert
+        for (CompletableFuture<BinaryClient.Reply> reply : replies) {
+            assertTrue(reply.get(10, TimeUnit.SECONDS).isOk());
+        }
+
+        assertEquals(100, client.balance("acc_1").getValue());
+        assertEquals(0, client.balance("acc_2").getValue());
+        assertEquals(1_000, transactionService.getAllTransactions().size());
+    }
+
+    @Test
+    public void notDurableTest() throws Exception {
+
+        // arrange, a journal which appends but never makes anything durable
+        Journal failing = new Journal() {
+
+            @Override
+            public long append(Account account) {
+                return 1;
+            }
+
+            @Override
+            public long append(Transaction transaction) {
+                return 1;
+            }
+
+            @Override
+            public void sync(long sequence) {
+                throw new UncheckedIOException(new IOException("Disk is gone"));
+            }
+
+            @Override
+            public void replay(long afterSequence, Consumer<JournalRecord> consumer) {
+            }
+        };
+
+        TransactionService failingService = new TransactionService(new TransactionDao(failing));
+        BinaryServer failingServer = new BinaryServer(0, 1, 4, accountDao, failingService, workers);
+        failingServer.start();
+
+        try (BinaryClient failingClient = new BinaryClient("localhost", failingServer.getPort())) {
+
+            // act
+            BinaryClient.Reply deposit = failingClient.deposit("acc_1", 10);
+
+            // assert, the balance has changed and the client is told so
+            assertEquals(BinaryStatus.NOT_DURABLE, deposit.getStatus());
+            assertTrue(deposit.getValue() > 0);
+            assertEquals(110, failingClient.balance("acc_1").getValue());
+        } finally {
+            failingServer.stop();
+        }
+    }
+
+    @Test
+    public void connectionsTest() throws Exception {
+
+        // arrange
+        List<BinaryClient> clients = new ArrayList<>();
+
+        for (int i = 0; i < 4; i++) {
+            clients.add(new BinaryClient("localhost", server.getPort()));
+        }
+
+        // act
+        for (BinaryClient other : clients) {
+            assertTrue(other.deposit("acc_2", 1).isOk());
+            other.close();
+        }
+
+        // assert
+        assertEquals(4, client.balance("acc_2").getValue());
+        assertEquals(5, server.getRequests());
+    }
+
+    @Test
+    public void malformedFrameTest() throws Exception {
+
+        // arrange
+        ByteBuffer frame = ByteBuffer.allocate(4).putInt(1 << 20);
+
+        try (Socket socket = new Socket("localhost", server.getPort())) {
+
+            // act
+            socket.getOutputStream().write(frame.array());
+            socket.setSoTimeout(10_000);
+            InputStream in = socket.getInputStream();
+
+            // assert, the connection is closed without any response
+            assertEquals(-1, in.read());
+        }
+    }
+}
@@ -2,6 +2,10 @@ package com.assignment.resource;
 
 import com.assignment.dao.AccountDao;
 import com.assignment.model.Account;
+import com.assignment.model.Page;
+import com.assignment.model.Transaction;
+import com.assignment.service.TransactionService;
+import io.dropwizard.jackson.Jackson;
 import io.dropwizard.testing.junit.ResourceTestRule;
 import org.junit.After;
 import org.junit.Before;
@@ -25,10 +29,11 @@ import static org.mockito.Mockito.*;
 public class AccountResourceTest {
 
     private static AccountDao accountDao = mock(AccountDao.class);
+    private static TransactionService transactionService = mock(TransactionService.class);
 
     @ClassRule
     public static final ResourceTestRule resources = ResourceTestRule.builder()
-            .addResource(new AccountResource(accountDao))
+            .addResource(new AccountResource(accountDao, transactionService, Jackson.newObjectMapper()))
             .build();
 
     private String accountId1 = "acc_1";
@@ -48,6 +53,7 @@ public class AccountResourceTest {
     @After
     public void tearDown(){
         reset(accountDao);
+        reset(transactionService);
     }
 
     @Test
@@ -90,6 +96,22 @@ public class AccountResourceTest {
         assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
         assertEquals(account1.getId(), account.getId());
         assertEquals(account1.getBalance(), account.getBalance());
+        assertEquals("\"10\"", response.getHeaderString("ETag"));
+    }
+
+    @Test
+    public void getNotModifiedTest() throws Exception {
+
+        // act
+        Response response1 = resources.target("/account/id/" + accountId1).request()
+                .header("If-None-Match", "\"10\"").buildGet().invoke();
+        Response response2 = resources.target("/account/id/" + accountId1).request()
+                .header("If-None-Match", "\"9\"").buildGet().invoke();
+
+        // assert
+        assertEquals(Response.Status.NOT_MODIFIED.getStatusCode(), response1.getStatus());
+        assertEquals(Response.Status.OK.getStatusCode(), response2.getStatus());
+        assertEquals(balance, response2.readEntity(Account.class).getBalance());
     }
 
     @Test
@@ -102,6 +124,74 @@ public class AccountResourceTest {
         assertEquals(Response.Status.NOT_FOUND.getStatusCode(), response.getStatus());
     }
 
+    @Test
+    public void getTransactionsTest() throws Exception {
+
+        // arrange
+        Transaction transaction = Transaction.ofDeposit(accountId1, balance);
+        when(transactionService.getTransactions(account1, 5, 10))
+                .thenReturn(new Page<>(Collections.singletonList(transaction), "6"));
+
+        // act
+        Response response = resources.target("/account/id/" + accountId1 + "/transactions")
+                .queryParam("after", 5)
+                .queryParam("limit", 10)
+                .request().buildGet().invoke();
+
+        Page<Transaction> page = response.readEntity(new GenericType<Page<Transaction>>() {});
+
+        // assert
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        assertEquals(Collections.singletonList(transaction), page.getItems());
+        assertEquals("6", page.getNext());
+    }
+
+    @Test
+    public void getTransactionsFirstPageTest() throws Exception {
+
+        // arrange
+        when(transactionService.getTransactions(account1, -1, AccountResource.DEFAULT_PAGE_SIZE))
+                .thenReturn(new Page<>(Collections.emptyList(), null));
+
+        // act
+        Response response = resources.target("/account/id/" + accountId1 + "/transactions").request().buildGet().invoke();
+
+        Page<Transaction> page = response.readEntity(new GenericType<Page<Transaction>>() {});
+
+        // assert
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        assertTrue(page.getItems().isEmpty());
+        assertNull(page.getNext());
+    }
+
+    @Test
+    public void getTransactionsInvalidAccountTest() throws Exception {
+
+        // act
+        Response response = resources.target("/account/id/" + invalidAccountId + "/transactions").request().buildGet().invoke();
+
+        // assert
+        assertEquals(Response.Status.NOT_FOUND.getStatusCode(), response.getStatus());
+    }
+
+    @Test
+    public void getTransactionsInvalidParametersTest() throws Exception {
+
+        // act
+        Response response1 = resources.target("/account/id/" + accountId1 + "/transactions")
+                .queryParam("after", "x").request().buildGet().invoke();
+        Response response2 = resources.target("/account/id/" + accountId1 + "/transactions")
+                .queryParam("limit", 0).request().buildGet().invoke();
+        Response response3 = resources.target("/account/id/" + accountId1 + "/transactions")
+                .queryParam("limit", AccountResource.MAX_PAGE_SIZE + 1).request().buildGet().invoke();
+
+        // assert
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response1.getStatus());
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response2.getStatus());
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response3.getStatus());
+        verifyZeroInteractions(transactionService);
+    }
+
     @Test
     public void saveTest() throws Exception {
 
@@ -142,6 +232,53 @@ public class AccountResourceTest {
         assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
     }
 
+    @Test
+    public void getPageTest() throws Exception {
+
+        // arrange
+        when(accountDao.getPage(-1, 2)).thenReturn(new Page<>(Arrays.asList(account1, account2), "1"));
+
+        // act
+        Response response = resources.target("/account/all").queryParam("limit", 2).request().buildGet().invoke();
+
+        Page<Account> page = response.readEntity(new GenericType<Page<Account>>() {});
+
+        // assert
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        assertEquals(2, page.getItems().size());
+        assertEquals(accountId1, page.getItems().get(0).getId());
+        assertEquals("1", page.getNext());
+    }
+
+    @Test
+    public void getPageInvalidCursorTest() throws Exception {
+
+        // act
+        Response response = resources.target("/account/all").queryParam("after", -5).request().buildGet().invoke();
+
+        // assert
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+    }
+
+    @Test
+    public void streamAllTest() throws Exception {
+
+        // arrange
+        when(accountDao.getAll()).thenReturn(Arrays.asList(account1, account2));
+
+        // act
+        Response response = resources.target("/account/all").request(ResourceBase.NDJSON).buildGet().invoke();
+
+        String[] lines = response.readEntity(String.class).split("\n");
+
+        // assert
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        assertEquals(ResourceBase.NDJSON, response.getMediaType().toString());
+        assertEquals(2, lines.length);
+        assertEquals(accountId1, resources.getObjectMapper().readValue(lines[0], Account.class).getId());
+        assertEquals(accountId2, resources.getObjectMapper().readValue(lines[1], Account.class).getId());
+    }
+
     private Response postAccount(Account account) {
 
         return resources.target("/account/save")
@@ -149,4 +286,4 @@ public class AccountResourceTest {
                 .buildPost(Entity.entity(account, MediaType.APPLICATION_JSON_TYPE))
                 .invoke();
     }
-}
\ No newline at end of file
+}
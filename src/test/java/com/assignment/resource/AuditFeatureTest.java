@@ -0,0 +1,125 @@
+package com.assignment.resource;
+
+import com.assignment.model.Transaction;
+import com.assignment.service.AuditLog;
+import io.dropwizard.jersey.errors.ErrorMessage;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.FeatureContext;
+import javax.ws.rs.core.Request;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for {@link AuditFeature}
+ */
+public class AuditFeatureTest {
+
+    private AuditLog auditLog;
+    private ContainerRequestContext requestContext;
+    private ContainerResponseContext responseContext;
+
+    @Before
+    public void setUp() throws Exception {
+
+        auditLog = mock(AuditLog.class);
+        requestContext = mock(ContainerRequestContext.class);
+        responseContext = mock(ContainerResponseContext.class);
+
+        when(requestContext.getMethod()).thenReturn("POST");
+    }
+
+    @Test
+    public void pathOfTest() throws Exception {
+
+        // act, assert
+        assertEquals("/transaction/transfer", AuditFeature.pathOf(resourceInfo(TransactionResource.class,
+                TransactionResource.class.getMethod("transfer", String.class, Transaction.class))));
+        assertEquals("/account/id/{id}", AuditFeature.pathOf(resourceInfo(AccountResource.class,
+                AccountResource.class.getMethod("get", String.class, Request.class))));
+    }
+
+    @Test
+    public void configureTest() throws Exception {
+
+        // arrange
+        AuditLog rated = new AuditLog(4, 0, Collections.singletonMap("/transaction/transfer", 1.0));
+        FeatureContext context = mock(FeatureContext.class);
+
+        // act
+        new AuditFeature(rated).configure(resourceInfo(TransactionResource.class,
+                TransactionResource.class.getMethod("transfer", String.class, Transaction.class)), context);
+        new AuditFeature(rated).configure(resourceInfo(TransactionResource.class,
+                TransactionResource.class.getMethod("deposit", String.class, Transaction.class)), context);
+
+        // assert, only the endpoint with a rate is filtered
+        verify(context, times(1)).register(any(AuditFeature.AuditFilter.class));
+    }
+
+    @Test
+    public void filterTest() throws Exception {
+
+        // arrange
+        AuditFeature.AuditFilter filter = new AuditFeature.AuditFilter(auditLog, "/transaction/transfer", 1);
+        Transaction transaction = Transaction.ofTransfer("acc_1", "acc_2", 10);
+        when(requestContext.getProperty(anyString())).thenReturn(System.nanoTime());
+        when(responseContext.getStatus()).thenReturn(200);
+        when(responseContext.getEntity()).thenReturn(transaction);
+
+        // act
+        filter.filter(requestContext);
+        filter.filter(requestContext, responseContext);
+
+        // assert
+        verify(requestContext).setProperty(anyString(), anyLong());
+        verify(auditLog).record(eq("POST"), eq("/transaction/transfer"), eq(200), anyLong(), eq(transaction), isNull());
+    }
+
+    @Test
+    public void filterErrorTest() throws Exception {
+
+        // arrange
+        AuditFeature.AuditFilter filter = new AuditFeature.AuditFilter(auditLog, "/transaction/withdraw", 1);
+        when(requestContext.getProperty(anyString())).thenReturn(System.nanoTime());
+        when(responseContext.getStatus()).thenReturn(400);
+        when(responseContext.getEntity()).thenReturn(new ErrorMessage(400, "No funds"));
+
+        // act
+        filter.filter(requestContext, responseContext);
+
+        // assert
+        verify(auditLog).record(eq("POST"), eq("/transaction/withdraw"), eq(400), anyLong(), isNull(), eq("No funds"));
+    }
+
+    @Test
+    public void filterNotSampledTest() throws Exception {
+
+        // arrange, the request has not been timed
+        AuditFeature.AuditFilter filter = new AuditFeature.AuditFilter(auditLog, "/transaction/transfer", 0);
+
+        // act
+        filter.filter(requestContext);
+        filter.filter(requestContext, responseContext);
+
+        // assert
+        verify(requestContext, never()).setProperty(anyString(), any());
+        verifyZeroInteractions(auditLog);
+    }
+
+    private static ResourceInfo resourceInfo(Class<?> resourceClass, java.lang.reflect.Method method) {
+
+        ResourceInfo resourceInfo = mock(ResourceInfo.class);
+
+        doReturn(resourceClass).when(resourceInfo).getResourceClass();
+        when(resourceInfo.getResourceMethod()).thenReturn(method);
+
+        return resourceInfo;
+    }
+}
@@ -2,22 +2,37 @@ package com.assignment.resource;
 
 import com.assignment.dao.AccountDao;
 import com.assignment.model.Account;
+import com.assignment.model.Batch;
+import com.assignment.model.BatchResult;
+import com.assignment.model.Leg;
+import com.assignment.model.Page;
 import com.assignment.model.Transaction;
 import com.assignment.model.TransactionType;
+import com.assignment.service.AdmissionControl;
+import com.assignment.service.IdempotencyCache;
+import com.assignment.service.Rejection;
 import com.assignment.service.TransactionException;
+import com.assignment.service.TransactionResult;
 import com.assignment.service.TransactionService;
+import io.dropwizard.jackson.Jackson;
+import io.dropwizard.jersey.errors.ErrorMessage;
 import io.dropwizard.testing.junit.ResourceTestRule;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.ClassRule;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.client.Entity;
+import javax.ws.rs.container.AsyncResponse;
 import javax.ws.rs.core.GenericType;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
@@ -30,9 +45,16 @@ public class TransactionResourceTest {
     private static TransactionService transactionService = mock(TransactionService.class);
     private static AccountDao accountDao = mock(AccountDao.class);
 
+    // a single lane admitting a single request, so any request in progress sheds the others
+    private static AdmissionControl admissionControl = new AdmissionControl(1, 1, 0,
+            TimeUnit.MILLISECONDS.toNanos(5), TimeUnit.MILLISECONDS.toNanos(100), 1);
+
+    private static TransactionResource transactionResource = new TransactionResource(transactionService, accountDao,
+            Jackson.newObjectMapper(), new IdempotencyCache(16, TimeUnit.MINUTES.toNanos(1)), admissionControl);
+
     @ClassRule
     public static final ResourceTestRule resources = ResourceTestRule.builder()
-            .addResource(new TransactionResource(transactionService, accountDao))
+            .addResource(transactionResource)
             .build();
 
     private String accountId1 = "acc_1";
@@ -51,9 +73,9 @@ public class TransactionResourceTest {
         when(accountDao.get(eq(accountId1))).thenReturn(account1);
         when(accountDao.get(eq(accountId2))).thenReturn(account2);
         when(accountDao.get(eq(invalidAccountId))).thenReturn(null);
-        when(transactionService.deposit(account2, amount)).thenReturn(depositTransaction);
-        when(transactionService.withdraw(account1, amount)).thenReturn(withdrawTransaction);
-        when(transactionService.transfer(account1, account2, amount)).thenReturn(transferTransaction);
+        when(transactionService.deposit(account2, amount)).thenReturn(TransactionResult.performed(depositTransaction));
+        when(transactionService.withdraw(account1, amount)).thenReturn(TransactionResult.performed(withdrawTransaction));
+        when(transactionService.transfer(account1, account2, amount)).thenReturn(TransactionResult.performed(transferTransaction));
     }
 
     @After
@@ -141,7 +163,7 @@ public class TransactionResourceTest {
         Account richAccount = new Account("richAcc", amount);
         Transaction transaction = new Transaction(null, richAccount.getId(), amount);
         when(accountDao.get(eq(richAccount.getId()))).thenReturn(richAccount);
-        when(transactionService.deposit(richAccount, amount)).thenThrow(new TransactionException(""));
+        when(transactionService.deposit(richAccount, amount)).thenReturn(TransactionResult.rejected(Rejection.BALANCE_LIMIT));
 
         // act
         Response response = postDeposit(transaction);
@@ -199,13 +221,14 @@ public class TransactionResourceTest {
         Account poorAccount = new Account("poorAcc", amount);
         Transaction transaction = new Transaction(poorAccount.getId(), null, amount);
         when(accountDao.get(eq(poorAccount.getId()))).thenReturn(poorAccount);
-        when(transactionService.withdraw(poorAccount, amount)).thenThrow(new TransactionException(""));
+        when(transactionService.withdraw(poorAccount, amount)).thenReturn(TransactionResult.rejected(Rejection.INSUFFICIENT_FUNDS));
 
         // act
         Response response = postWithdraw(transaction);
 
         // assert
         assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+        assertEquals(Rejection.INSUFFICIENT_FUNDS.getMessage(), response.readEntity(ErrorMessage.class).getMessage());
     }
 
     @Test
@@ -270,7 +293,7 @@ public class TransactionResourceTest {
     public void transferSameAccountTest() throws Exception {
 
         // arrange
-        when(transactionService.transfer(account1, account1, amount)).thenThrow(new TransactionException(""));
+        when(transactionService.transfer(account1, account1, amount)).thenReturn(TransactionResult.rejected(Rejection.SAME_ACCOUNT));
         Transaction transaction = new Transaction(accountId1, accountId1, amount);
 
         // act
@@ -296,6 +319,317 @@ public class TransactionResourceTest {
                 .invoke();
     }
 
+    @Test
+    public void getPageTest() throws Exception {
+
+        // arrange
+        when(transactionService.getAllTransactions(4, 2))
+                .thenReturn(new Page<>(Arrays.asList(depositTransaction, withdrawTransaction), null));
+
+        // act
+        Response response = resources.target("/transaction/all")
+                .queryParam("after", 4)
+                .queryParam("limit", 2)
+                .request().buildGet().invoke();
+
+        Page<Transaction> page = response.readEntity(new GenericType<Page<Transaction>>() {});
+
+        // assert
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        assertEquals(Arrays.asList(depositTransaction, withdrawTransaction), page.getItems());
+        assertNull(page.getNext());
+    }
+
+    @Test
+    public void streamAllTest() throws Exception {
+
+        // arrange
+        List<Transaction> expectedTransactions = Arrays.asList(depositTransaction, withdrawTransaction, transferTransaction);
+        when(transactionService.getAllTransactions()).thenReturn(expectedTransactions);
+
+        // act
+        Response response = resources.target("/transaction/all").request(ResourceBase.NDJSON).buildGet().invoke();
+
+        String body = response.readEntity(String.class);
+
+        List<Transaction> actualTransactions = new ArrayList<>();
+
+        for (String line : body.split("\n")) {
+            actualTransactions.add(resources.getObjectMapper().readValue(line, Transaction.class));
+        }
+
+        // assert
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        assertTrue(body.endsWith("\n"));
+        assertEquals(expectedTransactions, actualTransactions);
+    }
+
+    @Test
+    public void splitTest() throws Exception {
+
+        // arrange
+        List<Leg> legs = Arrays.asList(new Leg(accountId2, 9), new Leg(accountId2, 1));
+        Transaction splitTransaction = Transaction.ofSplit(accountId1, legs);
+        when(transactionService.split(eq(account1), eq(legs), any())).thenReturn(splitTransaction);
+
+        // act
+        Response response = postSplit(new Transaction(accountId1, legs));
+
+        Transaction newTransaction = response.readEntity(Transaction.class);
+
+        // assert
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        assertEquals(splitTransaction, newTransaction);
+        verify(accountDao, times(1)).get(accountId2);
+    }
+
+    @Test
+    public void splitInvalidAccountTest() throws Exception {
+
+        // arrange
+        List<Leg> legs = Arrays.asList(new Leg(accountId2, 9), new Leg(invalidAccountId, 1));
+
+        // act
+        Response response = postSplit(new Transaction(accountId1, legs));
+
+        // assert
+        assertEquals(Response.Status.NOT_FOUND.getStatusCode(), response.getStatus());
+        verify(transactionService, never()).split(any(), any(), any());
+    }
+
+    private Response postSplit(Transaction transaction) {
+
+        return resources.target("/transaction/split")
+                .request()
+                .buildPost(Entity.entity(transaction, MediaType.APPLICATION_JSON_TYPE))
+                .invoke();
+    }
+
+    @Test
+    public void transferRetriedTest() throws Exception {
+
+        // arrange
+        Transaction transaction = new Transaction(accountId1, accountId2, amount);
+
+        // act
+        Response response1 = postTransfer(transaction, "key-1");
+        Response response2 = postTransfer(transaction, "key-1");
+
+        // assert
+        assertEquals(Response.Status.OK.getStatusCode(), response1.getStatus());
+        assertEquals(Response.Status.OK.getStatusCode(), response2.getStatus());
+        assertEquals(transferTransaction, response1.readEntity(Transaction.class));
+        assertEquals(transferTransaction, response2.readEntity(Transaction.class));
+        verify(transactionService, times(1)).transfer(account1, account2, amount);
+    }
+
+    @Test
+    public void transferKeyReusedTest() throws Exception {
+
+        // act
+        Response response1 = postTransfer(new Transaction(accountId1, accountId2, amount), "key-2");
+        Response response2 = postTransfer(new Transaction(accountId1, accountId2, amount + 1), "key-2");
+
+        // assert
+        assertEquals(Response.Status.OK.getStatusCode(), response1.getStatus());
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response2.getStatus());
+        verify(transactionService, never()).transfer(account1, account2, amount + 1);
+    }
+
+    // the in-memory test container cannot suspend requests, asynchronous endpoints are called directly
+    @Test
+    public void transferAsyncTest() throws Exception {
+
+        // arrange
+        Transaction transaction = new Transaction(accountId1, accountId2, amount);
+        AsyncResponse asyncResponse = mock(AsyncResponse.class);
+        ArgumentCaptor<Response> response = ArgumentCaptor.forClass(Response.class);
+        when(transactionService.transferAsync(account1, account2, amount))
+                .thenReturn(CompletableFuture.completedFuture(TransactionResult.performed(transferTransaction)));
+
+        // act
+        transactionResource.transferAsync(null, transaction, asyncResponse);
+
+        // assert
+        verify(asyncResponse).resume(response.capture());
+        assertEquals(Response.Status.OK.getStatusCode(), response.getValue().getStatus());
+        assertEquals(transferTransaction, response.getValue().getEntity());
+    }
+
+    @Test
+    public void transferAsyncFailedTest() throws Exception {
+
+        // arrange
+        Transaction transaction = new Transaction(accountId1, accountId2, amount);
+        AsyncResponse asyncResponse = mock(AsyncResponse.class);
+        ArgumentCaptor<Throwable> error = ArgumentCaptor.forClass(Throwable.class);
+        CompletableFuture<TransactionResult> pending = new CompletableFuture<>();
+        when(transactionService.transferAsync(account1, account2, amount)).thenReturn(pending);
+
+        // act
+        transactionResource.transferAsync(null, transaction, asyncResponse);
+
+        verify(asyncResponse, never()).resume(any(Object.class));
+
+        pending.completeExceptionally(new TransactionException("Journal failed"));
+
+        // assert, the permit has been released whatever the outcome
+        verify(asyncResponse).resume(error.capture());
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(),
+                ((WebApplicationException) error.getValue()).getResponse().getStatus());
+        admissionControl.admit(accountId1).close();
+    }
+
+    @Test
+    public void transferAsyncRejectedTest() throws Exception {
+
+        // arrange
+        Transaction transaction = new Transaction(accountId1, accountId2, amount);
+        AsyncResponse asyncResponse = mock(AsyncResponse.class);
+        ArgumentCaptor<Response> response = ArgumentCaptor.forClass(Response.class);
+        when(transactionService.transferAsync(account1, account2, amount))
+                .thenReturn(CompletableFuture.completedFuture(TransactionResult.rejected(Rejection.INSUFFICIENT_FUNDS)));
+
+        // act
+        transactionResource.transferAsync(null, transaction, asyncResponse);
+
+        // assert
+        verify(asyncResponse).resume(response.capture());
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getValue().getStatus());
+        assertEquals(Rejection.INSUFFICIENT_FUNDS.getMessage(), ((ErrorMessage) response.getValue().getEntity()).getMessage());
+    }
+
+    @Test
+    public void transferRejectedRetriedTest() throws Exception {
+
+        // arrange
+        Transaction transaction = new Transaction(accountId1, accountId2, amount);
+        when(transactionService.transfer(account1, account2, amount))
+                .thenReturn(TransactionResult.rejected(Rejection.INSUFFICIENT_FUNDS))
+                .thenReturn(TransactionResult.performed(transferTransaction));
+
+        // act
+        Response response1 = postTransfer(transaction, "key-rejected");
+        Response response2 = postTransfer(transaction, "key-rejected");
+
+        // assert, the rejection has not been kept for the key
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response1.getStatus());
+        assertEquals(Rejection.INSUFFICIENT_FUNDS.getMessage(), response1.readEntity(ErrorMessage.class).getMessage());
+        assertEquals(Response.Status.OK.getStatusCode(), response2.getStatus());
+        verify(transactionService, times(2)).transfer(account1, account2, amount);
+    }
+
+    @Test(expected = WebApplicationException.class)
+    public void transferAsyncInvalidAccountTest() throws Exception {
+
+        // arrange
+        Transaction transaction = new Transaction(invalidAccountId, accountId2, amount);
+
+        // act
+        transactionResource.transferAsync(null, transaction, mock(AsyncResponse.class));
+    }
+
+    @Test
+    public void transferShedTest() throws Exception {
+
+        // arrange
+        Transaction transaction = new Transaction(accountId1, accountId2, amount);
+
+        // act
+        Response response;
+
+        try (AdmissionControl.Permit permit = admissionControl.admit(accountId2)) {
+            response = postTransfer(transaction);
+        }
+
+        // assert
+        assertEquals(429, response.getStatus());
+        assertEquals("1", response.getHeaderString("Retry-After"));
+        verify(transactionService, never()).transfer(account1, account2, amount);
+    }
+
+    @Test
+    public void transferDuplicateNotAdmittedTest() throws Exception {
+
+        // arrange
+        Transaction transaction = new Transaction(accountId1, accountId2, amount);
+        when(transactionService.transfer(account1, account2, amount)).thenReturn(TransactionResult.performed(transferTransaction));
+
+        Response response1 = postTransfer(transaction, "key-duplicate");
+
+        // act, the duplicate is answered from the cache although the lanes are busy
+        Response response2;
+
+        try (AdmissionControl.Permit permit = admissionControl.admit(accountId2)) {
+            response2 = postTransfer(transaction, "key-duplicate");
+        }
+
+        // assert
+        assertEquals(Response.Status.OK.getStatusCode(), response1.getStatus());
+        assertEquals(Response.Status.OK.getStatusCode(), response2.getStatus());
+        verify(transactionService, times(1)).transfer(account1, account2, amount);
+    }
+
+    @Test
+    public void batchTest() throws Exception {
+
+        // arrange
+        Batch batch = new Batch(true, Arrays.asList(depositTransaction, transferTransaction));
+        List<BatchResult> expectedResults = Arrays.asList(BatchResult.of(depositTransaction), BatchResult.of(transferTransaction));
+        ArgumentCaptor<Batch> captor = ArgumentCaptor.forClass(Batch.class);
+        when(transactionService.execute(captor.capture(), any())).thenReturn(expectedResults);
+
+        // act
+        Response response = postBatch(batch);
+
+        List<BatchResult> results = response.readEntity(new GenericType<List<BatchResult>>() {});
+
+        // assert
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        assertTrue(captor.getValue().isAtomic());
+        assertEquals(TransactionType.DEPOSIT, captor.getValue().getTransactions().get(0).getTransactionType());
+        assertEquals(TransactionType.TRANSFER, captor.getValue().getTransactions().get(1).getTransactionType());
+        assertEquals(depositTransaction, results.get(0).getTransaction());
+        assertEquals(transferTransaction, results.get(1).getTransaction());
+        assertNull(results.get(0).getError());
+    }
+
+    @Test
+    public void batchRejectedTest() throws Exception {
+
+        // arrange
+        Batch batch = new Batch(true, Collections.singletonList(withdrawTransaction));
+        when(transactionService.execute(any(), any())).thenThrow(new TransactionException("Account balance cannot be less than zero"));
+
+        // act
+        Response response = postBatch(batch);
+
+        // assert
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+    }
+
+    @Test
+    public void batchEmptyTest() throws Exception {
+
+        // arrange
+        Batch batch = new Batch(false, Collections.emptyList());
+
+        // act
+        Response response = postBatch(batch);
+
+        // assert
+        assertEquals(422, response.getStatus());
+        verify(transactionService, never()).execute(any(), any());
+    }
+
+    private Response postBatch(Batch batch) {
+
+        return resources.target("/transaction/batch")
+                .request()
+                .buildPost(Entity.entity(batch, MediaType.APPLICATION_JSON_TYPE))
+                .invoke();
+    }
+
     private Response postTransfer(Transaction transaction) {
 
         return resources.target("/transaction/transfer")
@@ -303,4 +637,13 @@ public class TransactionResourceTest {
                 .buildPost(Entity.entity(transaction, MediaType.APPLICATION_JSON_TYPE))
                 .invoke();
     }
-}
\ No newline at end of file
+
+    private Response postTransfer(Transaction transaction, String idempotencyKey) {
+
+        return resources.target("/transaction/transfer")
+                .request()
+                .header(TransactionResource.IDEMPOTENCY_KEY, idempotencyKey)
+                .buildPost(Entity.entity(transaction, MediaType.APPLICATION_JSON_TYPE))
+                .invoke();
+    }
+}
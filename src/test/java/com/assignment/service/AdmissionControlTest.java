@@ -0,0 +1,200 @@
+package com.assignment.service;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link AdmissionControl}
+ */
+public class AdmissionControlTest {
+
+    private static final long TARGET = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(200);
+
+    @Test
+    public void admitTest() throws Exception {
+
+        // arrange
+        AdmissionControl admissionControl = new AdmissionControl(4, 2, 0, TARGET, INTERVAL, 1);
+
+        // act
+        AdmissionControl.Permit permit1 = admissionControl.admit("acc_1");
+        AdmissionControl.Permit permit2 = admissionControl.admit("acc_1");
+
+        // assert
+        assertEquals(2, admissionControl.getAdmitted());
+
+        permit2.close();
+        permit1.close();
+
+        AdmissionControl.Permit permit3 = admissionControl.admit("acc_1", "acc_1", "acc_2");
+        assertEquals(3, admissionControl.getAdmitted());
+        permit3.close();
+
+        assertEquals(0, admissionControl.getShed());
+    }
+
+    @Test
+    public void shedQueueFullTest() throws Exception {
+
+        // arrange
+        AdmissionControl admissionControl = new AdmissionControl(1, 1, 0, TARGET, INTERVAL, 3);
+
+        // act
+        AdmissionControl.Permit permit = admissionControl.admit("acc_1");
+
+        try {
+            admissionControl.admit("acc_2");
+            fail();
+        } catch (AdmissionException e) {
+
+            // assert
+            assertEquals(3, e.getRetryAfterSeconds());
+        } finally {
+            permit.close();
+        }
+
+        assertEquals(1, admissionControl.getShed());
+
+        admissionControl.admit("acc_2").close();
+    }
+
+    @Test
+    public void shedReleasesEnteredLanesTest() throws Exception {
+
+        // arrange
+        AdmissionControl admissionControl = new AdmissionControl(2, 1, 0, TARGET, INTERVAL, 1);
+
+        String first = idInLane(admissionControl, 0);
+        String second = idInLane(admissionControl, 1);
+
+        // act
+        AdmissionControl.Permit permit = admissionControl.admit(second);
+
+        try {
+            admissionControl.admit(second, first);
+            fail();
+        } catch (AdmissionException e) {
+            // expected
+        } finally {
+            permit.close();
+        }
+
+        // assert, the lane entered before the shed one has been left
+        admissionControl.admit(first).close();
+        assertEquals(2, admissionControl.getAdmitted());
+    }
+
+    @Test
+    public void waitHoldsNoLaneTest() throws Exception {
+
+        // arrange
+        AdmissionControl admissionControl = new AdmissionControl(2, 1, 1, TARGET, TimeUnit.SECONDS.toNanos(10), 1);
+
+        String first = idInLane(admissionControl, 0);
+        String second = idInLane(admissionControl, 1);
+
+        AdmissionControl.Permit permit = admissionControl.admit(second);
+        CompletableFuture<AdmissionControl.Permit> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return admissionControl.admit(first, second);
+            } catch (AdmissionException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        while (admissionControl.getQueued() == 0) {
+            Thread.sleep(1);
+        }
+
+        // act, the lane of the first account is free while the request waits for the second one
+        admissionControl.admit(first).close();
+        permit.close();
+
+        // assert
+        waiting.get(10, TimeUnit.SECONDS).close();
+        assertEquals(3, admissionControl.getAdmitted());
+        assertEquals(0, admissionControl.getShed());
+    }
+
+    @Test
+    public void shedSharesExceptionTest() throws Exception {
+
+        // arrange
+        AdmissionControl admissionControl = new AdmissionControl(1, 1, 0, TARGET, INTERVAL, 1);
+        AdmissionException[] shed = new AdmissionException[2];
+
+        AdmissionControl.Permit permit = admissionControl.admit("acc_1");
+
+        // act
+        for (int i = 0; i < shed.length; i++) {
+            try {
+                admissionControl.admit("acc_1");
+                fail();
+            } catch (AdmissionException e) {
+                shed[i] = e;
+            }
+        }
+        permit.close();
+
+        // assert
+        assertSame(shed[0], shed[1]);
+        assertEquals(0, shed[0].getStackTrace().length);
+    }
+
+    @Test
+    public void shedOverloadedTest() throws Exception {
+
+        // arrange
+        AdmissionControl admissionControl = new AdmissionControl(1, 1, 1, TARGET, INTERVAL, 1);
+
+        AdmissionControl.Permit permit = admissionControl.admit("acc_1");
+
+        try {
+            // act, each wait lasts the interval until the lane is overloaded
+            assertShed(admissionControl, "acc_2");
+            assertEquals(0, admissionControl.getOverloaded());
+
+            assertShed(admissionControl, "acc_2");
+            assertEquals(1, admissionControl.getOverloaded());
+
+            long started = System.nanoTime();
+
+            assertShed(admissionControl, "acc_2");
+
+            // assert, an overloaded lane only waits for the target
+            assertTrue(System.nanoTime() - started < INTERVAL);
+        } finally {
+            permit.close();
+        }
+
+        assertEquals(3, admissionControl.getShed());
+        assertEquals(0, admissionControl.getQueued());
+
+        // a free lane admits at once, overloaded or not
+        admissionControl.admit("acc_2").close();
+    }
+
+    private static void assertShed(AdmissionControl admissionControl, String accountId) {
+
+        try {
+            admissionControl.admit(accountId).close();
+            fail();
+        } catch (AdmissionException e) {
+            // expected
+        }
+    }
+
+    private static String idInLane(AdmissionControl admissionControl, int lane) {
+
+        for (int i = 0; ; i++) {
+            if (admissionControl.laneOf("acc_" + i) == lane) {
+                return "acc_" + i;
+            }
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package com.assignment.service;
+
+import com.assignment.dao.AccountDao;
+import com.assignment.db.AccountStorage;
+import com.assignment.journal.Journal;
+import com.assignment.model.Account;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link AtomicLedger}
+ */
+public class AtomicLedgerTest {
+
+    private AtomicLedger atomicLedger;
+
+    private Account account1;
+    private Account account2;
+
+    @Before
+    public void setUp() throws Exception {
+
+        atomicLedger = new AtomicLedger();
+
+        account1 = new Account("acc_1", 100);
+        account2 = new Account("acc_2", Integer.MAX_VALUE - 10);
+    }
+
+    @Test
+    public void depositWithdrawTest() throws Exception {
+
+        // act
+        atomicLedger.deposit(account1, 10);
+        atomicLedger.withdraw(account1, 30);
+
+        // assert
+        assertEquals(80, account1.getBalance().intValue());
+    }
+
+    @Test
+    public void depositMoreThanMaximumTest() throws Exception {
+        assertEquals(Rejection.BALANCE_LIMIT, atomicLedger.deposit(account2, 11));
+    }
+
+    @Test
+    public void withdrawMoreThanAvailableTest() throws Exception {
+        assertEquals(Rejection.INSUFFICIENT_FUNDS, atomicLedger.withdraw(account1, 101));
+    }
+
+    @Test
+    public void transferTest() throws Exception {
+
+        // act
+        atomicLedger.transfer(account1, account2, 10);
+
+        // assert
+        assertEquals(90, account1.getBalance().intValue());
+        assertEquals(Integer.MAX_VALUE, account2.getBalance().intValue());
+        assertTrue(account1.hasEnoughSpaceToDeposit(Integer.MAX_VALUE - 90));
+    }
+
+    @Test
+    public void transferSameAccountTest() throws Exception {
+        assertEquals(Rejection.SAME_ACCOUNT, atomicLedger.transfer(account1, new Account("acc_1", 0), 1));
+    }
+
+    @Test
+    public void transferMoreThanMaximumTest() throws Exception {
+
+        // act
+        assertEquals(Rejection.BALANCE_LIMIT, atomicLedger.transfer(account1, account2, 11));
+
+        // assert
+        assertEquals(100, account1.getBalance().intValue());
+        assertEquals(Integer.MAX_VALUE - 10, account2.getBalance().intValue());
+        assertTrue(account1.hasEnoughSpaceToDeposit(Integer.MAX_VALUE - 100));
+    }
+
+    @Test
+    public void applyTest() throws Exception {
+
+        // arrange
+        Account account3 = new Account("acc_3", 0);
+        BalanceChanges changes = new BalanceChanges();
+        changes.debit(account1, 100);
+        changes.credit(account2, 10);
+        changes.credit(account3, 90);
+
+        // act
+        atomicLedger.apply(changes);
+
+        // assert
+        assertEquals(0, account1.getBalance().intValue());
+        assertEquals(Integer.MAX_VALUE, account2.getBalance().intValue());
+        assertEquals(90, account3.getBalance().intValue());
+    }
+
+    @Test
+    public void applyMoreThanMaximumTest() throws Exception {
+
+        // arrange, account1 has been debited by the time account2 rejects
+        BalanceChanges changes = new BalanceChanges();
+        changes.credit(account2, 11);
+        changes.debit(account1, 11);
+
+        // act
+        try {
+            atomicLedger.apply(changes);
+            fail();
+        } catch (TransactionException e) {
+            // expected
+        }
+
+        // assert, nothing is left reserved
+        assertEquals(100, account1.getBalance().intValue());
+        assertTrue(account1.hasEnoughSpaceToDeposit(Integer.MAX_VALUE - 100));
+        assertEquals(Integer.MAX_VALUE - 10, account2.getBalance().intValue());
+        assertTrue(account2.hasEnoughSpaceToDeposit(10));
+    }
+
+    @Test
+    public void applyOnHotAccountTest() throws Exception {
+
+        // arrange
+        account2.promote(4);
+        BalanceChanges changes = new BalanceChanges();
+        changes.debit(account1, 10);
+        changes.credit(account2, 10);
+
+        // act
+        atomicLedger.apply(changes);
+
+        // assert
+        assertEquals(90, account1.getBalance().intValue());
+        assertEquals(Integer.MAX_VALUE, account2.getBalance().intValue());
+        assertFalse(account2.hasEnoughSpaceToDeposit(1));
+    }
+
+    @Test
+    public void conservationOnObjectsTest() throws Exception {
+        conservationTest(AccountStorage.OBJECT);
+    }
+
+    @Test
+    public void conservationOnPrimitivesTest() throws Exception {
+        conservationTest(AccountStorage.PRIMITIVE);
+    }
+
+    @Test
+    public void conservationOffHeapTest() throws Exception {
+        conservationTest(AccountStorage.OFF_HEAP);
+    }
+
+    @Test
+    public void conservationWithHotAccountsTest() throws Exception {
+
+        // arrange, a second thread keeps promoting and demoting every account
+        AtomicBoolean running = new AtomicBoolean(true);
+        AccountDao accountDao = new AccountDao(Journal.DISABLED, AccountStorage.OFF_HEAP.createDb());
+
+        Thread toggler = new Thread(() -> {
+            Random random = new Random();
+            while (running.get()) {
+                Account account = accountDao.get("acc_" + random.nextInt(8));
+                if (account != null && !account.promote(1 + random.nextInt(4))) {
+                    account.demote();
+                }
+            }
+        });
+
+        // act
+        toggler.start();
+
+        try {
+            conservationTest(accountDao);
+        } finally {
+            running.set(false);
+            toggler.join();
+        }
+    }
+
+    private void conservationTest(AccountStorage storage) throws Exception {
+        conservationTest(new AccountDao(Journal.DISABLED, storage.createDb()));
+    }
+
+    private void conservationTest(AccountDao accountDao) throws Exception {
+
+        // arrange
+        int nbrOfAccounts = 8;
+        int initialBalance = 1_000;
+
+        for (int i = 0; i < nbrOfAccounts; i++) {
+            accountDao.save(new Account("acc_" + i, initialBalance));
+        }
+
+        int nbrOfThreads = 8;
+        int nbrOfTrials = 20_000;
+        AtomicLong deposited = new AtomicLong();
+        AtomicLong withdrawn = new AtomicLong();
+        ExecutorService executorService = Executors.newFixedThreadPool(nbrOfThreads);
+
+        // act
+        for (int i = 0; i < nbrOfThreads; i++) {
+            final long seed = i;
+            executorService.execute(() -> {
+                Random random = new Random(seed);
+                for (int j = 0; j < nbrOfTrials; j++) {
+                    // every lookup of a balance table returns a new view over the same slot
+                    Account account = accountDao.get("acc_" + random.nextInt(nbrOfAccounts));
+                    Account other = accountDao.get("acc_" + random.nextInt(nbrOfAccounts));
+                    Account third = accountDao.get("acc_" + random.nextInt(nbrOfAccounts));
+                    int amount = 1 + random.nextInt(100);
+                    try {
+                        switch (j % 4) {
+                            case 0:
+                                if (atomicLedger.deposit(account, amount) == null) {
+                                    deposited.addAndGet(amount);
+                                }
+                                break;
+                            case 1:
+                                if (atomicLedger.withdraw(account, amount) == null) {
+                                    withdrawn.addAndGet(amount);
+                                }
+                                break;
+                            case 2:
+                                atomicLedger.transfer(account, other, amount);
+                                break;
+                            default:
+                                BalanceChanges changes = new BalanceChanges();
+                                changes.debit(account, amount);
+                                changes.credit(other, amount / 2);
+                                changes.credit(third, amount - amount / 2);
+                                atomicLedger.apply(changes);
+                        }
+                    } catch (TransactionException e) {
+                        // changes without enough balance are not applied
+                    }
+                }
+            });
+        }
+
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(30, TimeUnit.SECONDS));
+
+        // assert
+        long total = 0;
+
+        for (Account account : accountDao.getAll()) {
+            assertTrue(account.getBalance() >= 0);
+            assertTrue(account.hasEnoughSpaceToDeposit(Integer.MAX_VALUE - account.getBalance()));
+            total += account.getBalance();
+        }
+
+        assertEquals((long) initialBalance * nbrOfAccounts + deposited.get() - withdrawn.get(), total);
+    }
+
+    @Test
+    public void failedCommitTest() throws Exception {
+
+        // arrange
+        Ledger.Commit failing = () -> {
+            throw new IllegalStateException("Journal is not writable");
+        };
+
+        BalanceChanges changes = new BalanceChanges();
+        changes.debit(account1, 10);
+        changes.credit(account2, 10);
+
+        // act
+        for (Callable<?> change : Arrays.<Callable<?>>asList(
+                () -> atomicLedger.deposit(account1, 10, failing),
+                () -> atomicLedger.withdraw(account1, 10, failing),
+                () -> atomicLedger.transfer(account1, account2, 10, failing),
+                () -> {
+                    atomicLedger.apply(changes, failing);
+                    return null;
+                })) {
+            try {
+                change.call();
+                fail();
+            } catch (IllegalStateException e) {
+                // expected
+            }
+        }
+
+        // assert, every change has been undone and nothing is left reserved
+        assertEquals(100, account1.getBalance().intValue());
+        assertEquals(Integer.MAX_VALUE - 10, account2.getBalance().intValue());
+        assertNull(atomicLedger.transfer(account1, account2, 10));
+        assertEquals(Integer.MAX_VALUE, account2.getBalance().intValue());
+    }
+
+    @Test
+    public void reservedAmountIsUnavailableTest() throws Exception {
+
+        // arrange, a withdrawal runs while a transfer of the whole balance is reserved and then refunded
+        Account account = new Account("acc_3", 10);
+        Rejection[] racing = new Rejection[1];
+        Ledger.Commit failing = () -> {
+            racing[0] = atomicLedger.withdraw(account, 1);
+            throw new IllegalStateException("Journal is not writable");
+        };
+
+        // act
+        try {
+            atomicLedger.transfer(account, account2, 10, failing);
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        // assert
+        assertEquals(Rejection.INSUFFICIENT_FUNDS, racing[0]);
+        assertEquals(10, account.getBalance().intValue());
+    }
+}
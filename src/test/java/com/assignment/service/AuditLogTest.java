@@ -0,0 +1,124 @@
+package com.assignment.service;
+
+import com.assignment.model.Transaction;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for {@link AuditLog}
+ */
+public class AuditLogTest {
+
+    private Logger logger;
+
+    @Before
+    public void setUp() throws Exception {
+        logger = mock(Logger.class);
+        when(logger.isInfoEnabled()).thenReturn(true);
+    }
+
+    @Test
+    public void rateOfTest() throws Exception {
+
+        // arrange
+        AuditLog auditLog = new AuditLog(4, 0.5, Collections.singletonMap("/transaction/transfer", 0.1), logger);
+
+        // act, assert
+        assertEquals(0.1, auditLog.rateOf("/transaction/transfer"), 0);
+        assertEquals(0.5, auditLog.rateOf("/transaction/deposit"), 0);
+    }
+
+    @Test
+    public void rateOfDisabledLoggerTest() throws Exception {
+
+        // arrange
+        when(logger.isInfoEnabled()).thenReturn(false);
+        AuditLog auditLog = new AuditLog(4, 1, Collections.emptyMap(), logger);
+
+        // act, assert
+        assertEquals(0, auditLog.rateOf("/transaction/transfer"), 0);
+    }
+
+    @Test
+    public void isSampledTest() throws Exception {
+
+        // arrange
+        int sampled = 0;
+
+        // act
+        for (int i = 0; i < 10_000; i++) {
+            if (AuditLog.isSampled(0.5)) {
+                sampled++;
+            }
+        }
+
+        // assert
+        assertTrue(AuditLog.isSampled(1));
+        assertFalse(AuditLog.isSampled(0));
+        assertTrue(sampled > 4_000 && sampled < 6_000);
+    }
+
+    @Test
+    public void recordTest() throws Exception {
+
+        // arrange
+        AuditLog auditLog = new AuditLog(4, 1, Collections.emptyMap(), logger);
+        Transaction transaction = Transaction.ofTransfer("acc_1", "acc_2", 10);
+
+        // act
+        auditLog.record("POST", "/transaction/transfer", 200, TimeUnit.MICROSECONDS.toNanos(42), transaction, null);
+        auditLog.record("POST", "/transaction/withdraw", 400, TimeUnit.MICROSECONDS.toNanos(7), null, "No funds");
+
+        // assert, nothing is written by the recording thread
+        verifyZeroInteractions(logger);
+
+        assertEquals(2, auditLog.drain());
+        verify(logger).info(anyString(), eq("POST"), eq("/transaction/transfer"), eq(200), eq(42L),
+                eq(transaction.getNumber()), eq(transaction.getTransactionType()), eq("acc_1"), eq("acc_2"), eq(10));
+        verify(logger).info(anyString(), eq("POST"), eq("/transaction/withdraw"), eq(400), eq(7L), eq("No funds"));
+        assertEquals(2, auditLog.getWritten());
+    }
+
+    @Test
+    public void recordFullTest() throws Exception {
+
+        // arrange
+        AuditLog auditLog = new AuditLog(2, 1, Collections.emptyMap(), logger);
+
+        // act
+        assertTrue(auditLog.record("GET", "/account/all", 200, 1, null, null));
+        assertTrue(auditLog.record("GET", "/account/all", 200, 1, null, null));
+        boolean recorded = auditLog.record("GET", "/account/all", 200, 1, null, null);
+
+        // assert
+        assertFalse(recorded);
+        assertEquals(1, auditLog.getDropped());
+        assertEquals(2, auditLog.drain());
+    }
+
+    @Test
+    public void stopTest() throws Exception {
+
+        // arrange
+        AuditLog auditLog = new AuditLog(16, 1, Collections.emptyMap(), logger);
+        auditLog.start();
+
+        // act
+        for (int i = 0; i < 10; i++) {
+            auditLog.record("GET", "/account/all", 200, 1, null, null);
+        }
+
+        auditLog.stop();
+
+        // assert, entries recorded before stopping are written
+        assertEquals(10, auditLog.getWritten());
+    }
+}
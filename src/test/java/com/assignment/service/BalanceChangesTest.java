@@ -0,0 +1,67 @@
+package com.assignment.service;
+
+import com.assignment.model.Account;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link BalanceChanges}
+ */
+public class BalanceChangesTest {
+
+    @Test
+    public void netChangeTest() throws Exception {
+
+        // arrange
+        Account account1 = new Account("acc_1", 100);
+        Account account2 = new Account("acc_2", 100);
+        BalanceChanges changes = new BalanceChanges();
+
+        // act, a different object of the same account counts as the same account
+        changes.debit(account1, 30);
+        changes.credit(account2, 30);
+        changes.credit(new Account("acc_1", 100), 10);
+
+        for (int i = 0; i < 10; i++) {
+            changes.credit(new Account("acc_x" + i, 0), i);
+        }
+
+        // assert
+        assertEquals(12, changes.size());
+        assertSame(account1, changes.getAccount(0));
+        assertEquals(-20, changes.getDelta(0));
+        assertEquals(30, changes.getDelta(1));
+        assertEquals(9, changes.getDelta(11));
+    }
+
+    @Test
+    public void checkTest() throws Exception {
+
+        // arrange, debits beyond the balance are fine as long as the net change fits
+        Account account = new Account("acc_1", 100);
+        BalanceChanges changes = new BalanceChanges();
+        changes.debit(account, 150);
+        changes.credit(account, 50);
+
+        // act
+        changes.check();
+        changes.applyUnchecked();
+
+        // assert
+        assertEquals(0, account.getBalance().intValue());
+    }
+
+    @Test(expected = TransactionException.class)
+    public void checkMoreThanMaximumTest() throws Exception {
+
+        // arrange
+        Account account = new Account("acc_1", 0);
+        BalanceChanges changes = new BalanceChanges();
+        changes.credit(account, Integer.MAX_VALUE);
+        changes.credit(account, 1);
+
+        // act
+        changes.check();
+    }
+}
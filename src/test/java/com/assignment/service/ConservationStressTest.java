@@ -0,0 +1,357 @@
+package com.assignment.service;
+
+import com.assignment.dao.AccountDao;
+import com.assignment.dao.TransactionDao;
+import com.assignment.db.AccountStorage;
+import com.assignment.journal.Journal;
+import com.assignment.journal.JournalRecord;
+import com.assignment.model.Account;
+import com.assignment.model.Leg;
+import com.assignment.model.Transaction;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Stress tests of {@link TransactionService} on every {@link LedgerEngine} and every {@link AccountStorage}
+ * Threads perform random deposits, withdrawals, transfers and splits in rounds, the amounts are large enough
+ *    to be rejected for insufficient funds and for the balance limit now and then
+ * While a round runs, an observer checks every balance stays between 0 and {@link Integer#MAX_VALUE};
+ *    between rounds, when no change is in flight, the total of all balances must equal the initial total
+ *    plus all performed deposits minus all performed withdrawals
+ * Finally the journaled transactions are replayed in their order on the initial balances, which must never take
+ *    a balance out of its bounds either, as recovering them after a crash would
+ * Longer runs: {@code mvn test -Dtest=ConservationStressTest -Dstress.rounds=1000 -Dstress.operations=10000}
+ */
+public class ConservationStressTest {
+
+    private static final int THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+    private static final int ACCOUNTS = 32;
+    private static final int ROUNDS = Integer.getInteger("stress.rounds", 10);
+    private static final int OPERATIONS = Integer.getInteger("stress.operations", 500);
+
+    // accounts changed between hot and plain by the hot accounts test
+    private static final int HOT_ACCOUNTS = 4;
+
+    @Test
+    public void everyLedgerAndStorageTest() throws Exception {
+
+        List<String> violations = new ArrayList<>();
+
+        for (LedgerEngine engine : LedgerEngine.values()) {
+            for (AccountStorage storage : AccountStorage.values()) {
+
+                Ledger ledger = ledgerOf(engine);
+
+                try {
+                    violations.addAll(stress(engine + " on " + storage, ledger, storage, false));
+                } finally {
+                    if (ledger instanceof ShardedLedger) {
+                        ((ShardedLedger) ledger).stop();
+                    }
+                }
+            }
+        }
+
+        assertTrue(String.join("\n", violations), violations.isEmpty());
+    }
+
+    @Test
+    public void hotAccountsTest() throws Exception {
+
+        List<String> violations = new ArrayList<>();
+
+        for (AccountStorage storage : AccountStorage.values()) {
+            violations.addAll(stress("hot accounts on " + storage, new AtomicLedger(), storage, true));
+        }
+
+        assertTrue(String.join("\n", violations), violations.isEmpty());
+    }
+
+    // every engine must be stressed, a new one fails here until it is added
+    private static Ledger ledgerOf(LedgerEngine engine) {
+
+        switch (engine) {
+
+            case MONITOR:
+                return new MonitorLedger();
+
+            case STRIPED:
+                return new StripedLedger(new StripedLockTable(16));
+
+            case ATOMIC:
+                return new AtomicLedger();
+
+            case SHARDED:
+                ShardedLedger ledger = new ShardedLedger(4, 64);
+                ledger.start();
+                return ledger;
+
+            default:
+                throw new IllegalArgumentException("No stress test for " + engine);
+        }
+    }
+
+    /**
+     * Runs all rounds against a fresh set of accounts
+     *
+     * @param backend name of the ledger and storage, for the violations
+     * @param ledger to change balances with
+     * @param storage keeping the accounts
+     * @param hot whether threads also promote and demote the first accounts while others change them
+     * @return every invariant found broken
+     */
+    private static List<String> stress(String backend, Ledger ledger, AccountStorage storage, boolean hot) throws Exception {
+
+        AccountDao accountDao = new AccountDao(Journal.DISABLED, storage.createDb());
+        RecordingJournal journal = new RecordingJournal();
+        TransactionDao transactionDao = new TransactionDao(journal);
+        TransactionService transactionService = new TransactionService(transactionDao, ledger);
+
+        String[] ids = new String[ACCOUNTS];
+        Map<String, Long> initialBalances = new HashMap<>();
+        long initial = 0;
+
+        for (int i = 0; i < ACCOUNTS; i++) {
+
+            // empty accounts, accounts at the limit and everything in between
+            int balance = i % 4 == 0 ? 0 : i % 4 == 1 ? Integer.MAX_VALUE - 10 : 1_000 * i;
+
+            ids[i] = "acc_" + i;
+            accountDao.save(new Account(ids[i], balance));
+            initialBalances.put(ids[i], (long) balance);
+            initial += balance;
+        }
+
+        List<String> violations = Collections.synchronizedList(new ArrayList<>());
+
+        // deposited, withdrawn and performed by every thread, only read between rounds
+        long[][] counters = new long[THREADS][3];
+        long total = initial;
+
+        // decided between rounds only, so that every thread stops after the same round
+        AtomicBoolean broken = new AtomicBoolean();
+
+        CyclicBarrier round = new CyclicBarrier(THREADS, () -> {
+
+            long deposited = 0;
+            long withdrawn = 0;
+
+            for (long[] counter : counters) {
+                deposited += counter[0];
+                withdrawn += counter[1];
+            }
+
+            long sum = 0;
+
+            for (String id : ids) {
+                sum += checkBounds(backend, accountDao.get(id), violations);
+            }
+
+            if (sum != total + deposited - withdrawn) {
+                violations.add(backend + ": total " + sum + " but expected " + (total + deposited - withdrawn));
+            }
+
+            broken.set(!violations.isEmpty());
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        // checks the bounds of every balance while the rounds run
+        executor.execute(() -> {
+            while (running.get() && violations.isEmpty()) {
+                for (String id : ids) {
+                    checkBounds(backend, accountDao.get(id), violations);
+                }
+            }
+        });
+
+        List<Future<?>> workers = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+
+            long[] counter = counters[t];
+            SplittableRandom random = new SplittableRandom(31L * t + backend.hashCode());
+
+            workers.add(executor.submit(() -> {
+                // a broken invariant stays broken, the remaining rounds would only repeat it
+                for (int r = 0; r < ROUNDS && !broken.get(); r++) {
+
+                    for (int i = 0; i < OPERATIONS; i++) {
+                        perform(transactionService, accountDao, ids, random, counter, hot);
+                    }
+
+                    round.await(30, TimeUnit.SECONDS);
+                }
+                return null;
+            }));
+        }
+
+        for (Future<?> worker : workers) {
+            try {
+                worker.get();
+            } catch (Exception e) {
+                violations.add(backend + ": " + e);
+            }
+        }
+
+        running.set(false);
+        executor.shutdown();
+
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            violations.add(backend + ": observer did not stop");
+        }
+
+        long performed = Arrays.stream(counters).mapToLong(counter -> counter[2]).sum();
+        int saved = transactionService.getAllTransactions().size();
+
+        if (saved != performed) {
+            violations.add(backend + ": " + saved + " transactions saved but " + performed + " performed");
+        }
+
+        replay(backend, initialBalances, journal.transactions, violations);
+
+        return violations;
+    }
+
+    // the first record taking a balance out of its bounds is reported, the journal is out of order from there
+    private static void replay(String backend, Map<String, Long> balances, List<Transaction> journal, List<String> violations) {
+
+        for (Transaction transaction : journal) {
+
+            if (transaction.getFromAccountId() != null) {
+                balances.merge(transaction.getFromAccountId(), (long) -transaction.getAmount(), Long::sum);
+            }
+
+            if (transaction.getToAccountId() != null) {
+                balances.merge(transaction.getToAccountId(), (long) transaction.getAmount(), Long::sum);
+            }
+
+            if (transaction.getLegs() != null) {
+                for (Leg leg : transaction.getLegs()) {
+                    balances.merge(leg.getToAccountId(), (long) leg.getAmount(), Long::sum);
+                }
+            }
+
+            for (Map.Entry<String, Long> balance : balances.entrySet()) {
+                if (balance.getValue() < 0 || balance.getValue() > Integer.MAX_VALUE) {
+                    violations.add(backend + ": replaying " + transaction + " takes " + balance.getKey() + " to " + balance.getValue());
+                    return;
+                }
+            }
+        }
+    }
+
+    private static void perform(TransactionService transactionService,
+                                AccountDao accountDao,
+                                String[] ids,
+                                SplittableRandom random,
+                                long[] counter,
+                                boolean hot) {
+
+        int from = random.nextInt(ACCOUNTS);
+        int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+
+        // mostly small amounts, now and then one large enough to hit the bounds
+        int amount = random.nextInt(10) == 0 ? 1 + random.nextInt(Integer.MAX_VALUE / 2) : 1 + random.nextInt(100);
+
+        switch (random.nextInt(hot ? 5 : 4)) {
+
+            case 0:
+                if (!transactionService.deposit(accountDao.get(ids[to]), amount).isRejected()) {
+                    counter[0] += amount;
+                    counter[2]++;
+                }
+                break;
+
+            case 1:
+                if (!transactionService.withdraw(accountDao.get(ids[from]), amount).isRejected()) {
+                    counter[1] += amount;
+                    counter[2]++;
+                }
+                break;
+
+            case 2:
+                if (!transactionService.transfer(accountDao.get(ids[from]), accountDao.get(ids[to]), amount).isRejected()) {
+                    counter[2]++;
+                }
+                break;
+
+            case 3:
+                int other = (to + 1 + random.nextInt(ACCOUNTS - 2)) % ACCOUNTS;
+                List<Leg> legs = Arrays.asList(
+                        new Leg(ids[to], 1 + random.nextInt(100)),
+                        new Leg(ids[other == from ? (other + 1) % ACCOUNTS : other], amount));
+
+                try {
+                    transactionService.split(accountDao.get(ids[from]), legs, accountDao::get);
+                    counter[2]++;
+                } catch (TransactionException e) {
+                    // rejected as a whole
+                }
+                break;
+
+            default:
+                Account account = accountDao.get(ids[random.nextInt(HOT_ACCOUNTS)]);
+
+                if (!account.promote(1 + random.nextInt(8))) {
+                    account.demote();
+                }
+        }
+    }
+
+    private static long checkBounds(String backend, Account account, List<String> violations) {
+
+        Integer balance = account.getBalance();
+
+        if (balance == null || balance < 0) {
+            violations.add(backend + ": balance of " + account.getId() + " is " + balance);
+            return 0;
+        }
+
+        return balance;
+    }
+
+    /**
+     * Keeps appended transactions in the order of their sequence numbers, appending under a lock like a file journal
+     */
+    private static final class RecordingJournal implements Journal {
+
+        private final List<Transaction> transactions = new ArrayList<>();
+
+        @Override
+        public long append(Account account) {
+            return 0;
+        }
+
+        @Override
+        public synchronized long append(Transaction transaction) {
+            transactions.add(transaction);
+            return transactions.size();
+        }
+
+        @Override
+        public void sync(long sequence) {
+        }
+
+        @Override
+        public void replay(long afterSequence, Consumer<JournalRecord> consumer) {
+        }
+    }
+}
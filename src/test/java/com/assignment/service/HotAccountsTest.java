@@ -0,0 +1,69 @@
+package com.assignment.service;
+
+import com.assignment.model.Account;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link HotAccounts}
+ */
+public class HotAccountsTest {
+
+    @Test
+    public void promoteDemoteTest() throws Exception {
+
+        // arrange
+        HotAccounts hotAccounts = new HotAccounts(4, Collections.emptySet(), 1_000, 10, 1);
+        Account hot = new Account("acc_1", 100);
+        Account cold = new Account("acc_2", 100);
+
+        for (int i = 0; i < 10_000; i++) {
+            hotAccounts.record(hot);
+        }
+
+        hotAccounts.record(cold);
+
+        // act
+        hotAccounts.run();
+        boolean promoted = hot.isHot();
+        Thread.sleep(10);
+        hotAccounts.run();
+
+        // assert
+        assertTrue(promoted);
+        assertFalse(cold.isHot());
+        assertFalse(hot.isHot());
+        assertEquals(100, hot.getBalance().intValue());
+        assertEquals(1, hotAccounts.getPromotions());
+        assertEquals(1, hotAccounts.getDemotions());
+        assertEquals(0, hotAccounts.getHotCount());
+    }
+
+    @Test
+    public void pinnedTest() throws Exception {
+
+        // arrange
+        HotAccounts hotAccounts = new HotAccounts(4, Collections.singleton("acc_1"), Long.MAX_VALUE, 10, 1 << 30);
+        Account pinned = new Account("acc_1", 100);
+
+        hotAccounts.record(pinned);
+
+        // act
+        hotAccounts.run();
+        Thread.sleep(10);
+        hotAccounts.run();
+
+        // assert
+        assertTrue(pinned.isHot());
+        assertEquals(1, hotAccounts.getHotCount());
+        assertEquals(0, hotAccounts.getDemotions());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidCellsTest() throws Exception {
+        new HotAccounts(0, Collections.emptySet(), 1, 1, 1);
+    }
+}
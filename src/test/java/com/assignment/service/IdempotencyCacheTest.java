@@ -0,0 +1,266 @@
+package com.assignment.service;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link IdempotencyCache}
+ */
+public class IdempotencyCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final IdempotencyCache cache = new IdempotencyCache(2, 100, clock::get);
+
+    @Test
+    public void executeOnceTest() throws Exception {
+
+        // arrange
+        AtomicInteger calls = new AtomicInteger();
+
+        // act
+        int result1 = cache.execute("key-1", "request", calls::incrementAndGet);
+        int result2 = cache.execute("key-1", "request", calls::incrementAndGet);
+        int result3 = cache.execute("key-2", "request", calls::incrementAndGet);
+
+        // assert
+        assertEquals(1, result1);
+        assertEquals(1, result2);
+        assertEquals(2, result3);
+        assertEquals(2, calls.get());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test(expected = TransactionException.class)
+    public void executeOtherRequestTest() throws Exception {
+
+        // arrange
+        cache.execute("key-1", "request", () -> 1);
+
+        // act
+        cache.execute("key-1", "other request", () -> 2);
+    }
+
+    @Test
+    public void executeRejectedTest() throws Exception {
+
+        // arrange
+        try {
+            cache.execute("key-1", "request", () -> {
+                throw new TransactionException("rejected");
+            });
+            fail();
+        } catch (TransactionException e) {
+            // expected
+        }
+
+        // act, rejected requests are executed again
+        int result = cache.execute("key-1", "request", () -> 2);
+
+        // assert
+        assertEquals(2, result);
+    }
+
+    @Test
+    public void executeAsyncTest() throws Exception {
+
+        // arrange
+        CompletableFuture<Integer> first = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        // act
+        CompletionStage<Integer> result1 = cache.executeAsync("key-1", "request", () -> {
+            calls.incrementAndGet();
+            return first;
+        });
+        CompletionStage<Integer> result2 = cache.executeAsync("key-1", "request", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture(2);
+        });
+
+        first.complete(1);
+
+        // assert
+        assertEquals(1, result1.toCompletableFuture().get().intValue());
+        assertEquals(1, result2.toCompletableFuture().get().intValue());
+        assertEquals(1, calls.get());
+        assertEquals(1, cache.getCoalesced());
+        assertEquals(1, cache.execute("key-1", "request", () -> 3).intValue());
+    }
+
+    @Test
+    public void executeFailedTest() throws Exception {
+
+        // arrange
+        AtomicInteger calls = new AtomicInteger();
+
+        try {
+            cache.execute("key-1", "request", () -> {
+                calls.incrementAndGet();
+                throw new IllegalStateException("failed");
+            });
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        // act, requests which may have changed balances are not executed again
+        try {
+            cache.execute("key-1", "request", calls::incrementAndGet);
+            fail();
+        } catch (IllegalStateException e) {
+            // assert
+            assertEquals("failed", e.getMessage());
+            assertEquals(1, calls.get());
+        }
+    }
+
+    @Test
+    public void executeAsyncRejectedTest() throws Exception {
+
+        // arrange
+        CompletableFuture<Integer> first = new CompletableFuture<>();
+        CompletionStage<Integer> result1 = cache.executeAsync("key-1", "request", () -> first);
+
+        // act, rejected requests are executed again
+        first.completeExceptionally(new CompletionException(new TransactionException("rejected")));
+
+        CompletionStage<Integer> result2 = cache.executeAsync("key-1", "request", () -> CompletableFuture.completedFuture(2));
+
+        // assert
+        assertTrue(result1.toCompletableFuture().isCompletedExceptionally());
+        assertEquals(2, result2.toCompletableFuture().get().intValue());
+    }
+
+    @Test
+    public void executeAsyncFailedTest() throws Exception {
+
+        // arrange
+        CompletableFuture<Integer> first = new CompletableFuture<>();
+        CompletionStage<Integer> result1 = cache.executeAsync("key-1", "request", () -> first);
+
+        // act, failed requests are answered with their failure
+        first.completeExceptionally(new IllegalStateException("failed"));
+
+        CompletionStage<Integer> result2 = cache.executeAsync("key-1", "request", () -> CompletableFuture.completedFuture(2));
+
+        // assert
+        assertTrue(result1.toCompletableFuture().isCompletedExceptionally());
+        assertTrue(result2.toCompletableFuture().isCompletedExceptionally());
+    }
+
+    @Test
+    public void expireTest() throws Exception {
+
+        // arrange
+        cache.execute("key-1", "request", () -> 1);
+        clock.set(100);
+
+        // act
+        int result = cache.execute("key-1", "other request", () -> 2);
+
+        // assert
+        assertEquals(2, result);
+        assertEquals(1, cache.getSize());
+    }
+
+    @Test
+    public void evictTest() throws Exception {
+
+        // act
+        cache.execute("key-1", "request", () -> 1);
+        cache.execute("key-2", "request", () -> 2);
+        cache.execute("key-3", "request", () -> 3);
+
+        int result = cache.execute("key-1", "request", () -> 4);
+
+        // assert, the oldest key made room for the third one
+        assertEquals(4, result);
+        assertEquals(2, cache.getSize());
+        assertEquals(2, cache.getEvictions());
+    }
+
+    @Test
+    public void evictKeepsInProgressTest() throws Exception {
+
+        // arrange
+        CompletableFuture<Integer> first = new CompletableFuture<>();
+        cache.executeAsync("key-1", "request", () -> first);
+
+        // act, the cache grows beyond its size rather than forgetting the request in progress
+        cache.execute("key-2", "request", () -> 2);
+        cache.execute("key-3", "request", () -> 3);
+
+        CompletionStage<Integer> duplicate = cache.executeAsync("key-1", "request", () -> CompletableFuture.completedFuture(4));
+
+        first.complete(1);
+
+        // assert
+        assertEquals(1, duplicate.toCompletableFuture().get().intValue());
+        assertEquals(1, cache.getCoalesced());
+        assertEquals(0, cache.getEvictions());
+        assertEquals(3, cache.getSize());
+    }
+
+    @Test
+    public void coalesceTest() throws Exception {
+
+        // arrange
+        int nbrOfDuplicates = 8;
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(nbrOfDuplicates);
+
+        Future<Integer> first = executorService.submit(() -> cache.execute("key-1", "request", () -> {
+            started.countDown();
+
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            return calls.incrementAndGet();
+        }));
+
+        started.await();
+
+        // act
+        Future<?>[] duplicates = new Future<?>[nbrOfDuplicates - 1];
+
+        for (int i = 0; i < duplicates.length; i++) {
+            duplicates[i] = executorService.submit(() -> cache.execute("key-1", "request", calls::incrementAndGet));
+        }
+
+        while (cache.getCoalesced() < duplicates.length) {
+            Thread.sleep(1);
+        }
+
+        release.countDown();
+
+        // assert
+        assertEquals(1, first.get().intValue());
+
+        for (Future<?> duplicate : duplicates) {
+            assertEquals(1, duplicate.get());
+        }
+
+        assertEquals(1, calls.get());
+
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,137 @@
+package com.assignment.service;
+
+import com.assignment.model.Account;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link MonitorLedger}
+ */
+public class MonitorLedgerTest {
+
+    private MonitorLedger monitorLedger;
+
+    private Account account1;
+    private Account account2;
+
+    @Before
+    public void setUp() throws Exception {
+
+        monitorLedger = new MonitorLedger();
+
+        account1 = new Account("acc_1", 100);
+        account2 = new Account("acc_2", Integer.MAX_VALUE - 10);
+    }
+
+    @Test
+    public void depositWithdrawTest() throws Exception {
+
+        // act
+        monitorLedger.deposit(account1, 10);
+        monitorLedger.withdraw(account1, 30);
+
+        // assert
+        assertEquals(80, account1.getBalance().intValue());
+    }
+
+    @Test
+    public void transferTest() throws Exception {
+
+        // act
+        monitorLedger.transfer(account1, account2, 10);
+
+        // assert
+        assertEquals(90, account1.getBalance().intValue());
+        assertEquals(Integer.MAX_VALUE, account2.getBalance().intValue());
+    }
+
+    @Test
+    public void transferMoreThanMaximumTest() throws Exception {
+
+        // act
+        assertEquals(Rejection.BALANCE_LIMIT, monitorLedger.transfer(account1, account2, 11));
+
+        // assert
+        assertEquals(100, account1.getBalance().intValue());
+        assertEquals(Integer.MAX_VALUE - 10, account2.getBalance().intValue());
+    }
+
+    @Test
+    public void applyTest() throws Exception {
+
+        // arrange, account1 pays more than its balance but gets more back within the same changes
+        BalanceChanges changes = new BalanceChanges();
+        changes.debit(account1, 150);
+        changes.credit(account1, 60);
+        changes.credit(account2, 10);
+
+        // act
+        monitorLedger.apply(changes);
+
+        // assert
+        assertEquals(10, account1.getBalance().intValue());
+        assertEquals(Integer.MAX_VALUE, account2.getBalance().intValue());
+    }
+
+    @Test
+    public void applyMoreThanMaximumTest() throws Exception {
+
+        // arrange
+        BalanceChanges changes = new BalanceChanges();
+        changes.debit(account1, 11);
+        changes.credit(account2, 11);
+
+        // act
+        try {
+            monitorLedger.apply(changes);
+            fail();
+        } catch (TransactionException e) {
+            // expected
+        }
+
+        // assert
+        assertEquals(100, account1.getBalance().intValue());
+        assertEquals(Integer.MAX_VALUE - 10, account2.getBalance().intValue());
+    }
+
+    @Test
+    public void failedCommitTest() throws Exception {
+
+        // arrange
+        Ledger.Commit failing = () -> {
+            throw new IllegalStateException("Journal is not writable");
+        };
+
+        BalanceChanges changes = new BalanceChanges();
+        changes.debit(account1, 10);
+        changes.credit(account2, 10);
+
+        // act
+        for (Callable<?> change : Arrays.<Callable<?>>asList(
+                () -> monitorLedger.deposit(account1, 10, failing),
+                () -> monitorLedger.withdraw(account1, 10, failing),
+                () -> monitorLedger.transfer(account1, account2, 10, failing),
+                () -> {
+                    monitorLedger.apply(changes, failing);
+                    return null;
+                })) {
+            try {
+                change.call();
+                fail();
+            } catch (IllegalStateException e) {
+                // expected
+            }
+        }
+
+        // assert, every change has been undone and nothing is left reserved
+        assertEquals(100, account1.getBalance().intValue());
+        assertEquals(Integer.MAX_VALUE - 10, account2.getBalance().intValue());
+        assertNull(monitorLedger.transfer(account1, account2, 10));
+        assertEquals(Integer.MAX_VALUE, account2.getBalance().intValue());
+    }
+}
@@ -0,0 +1,124 @@
+package com.assignment.service;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link RingBuffer}
+ */
+public class RingBufferTest {
+
+    @Test
+    public void offerPollTest() throws Exception {
+
+        // arrange
+        RingBuffer<String> ringBuffer = new RingBuffer<>(4);
+
+        // act
+        ringBuffer.offer("a");
+        ringBuffer.offer("b");
+
+        // assert
+        assertFalse(ringBuffer.isEmpty());
+        assertEquals("a", ringBuffer.poll());
+        assertEquals("b", ringBuffer.poll());
+        assertNull(ringBuffer.poll());
+        assertTrue(ringBuffer.isEmpty());
+    }
+
+    @Test
+    public void offerFullTest() throws Exception {
+
+        // arrange
+        RingBuffer<Integer> ringBuffer = new RingBuffer<>(3);
+
+        // act
+        List<Boolean> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            results.add(ringBuffer.offer(i));
+        }
+
+        // assert
+        assertEquals(4, results.stream().filter(result -> result).count());
+        assertFalse(results.get(4));
+        assertEquals(Integer.valueOf(0), ringBuffer.poll());
+        assertTrue(ringBuffer.offer(4));
+    }
+
+    @Test
+    public void wrapAroundTest() throws Exception {
+
+        // arrange
+        RingBuffer<Integer> ringBuffer = new RingBuffer<>(2);
+
+        // act & assert
+        for (int i = 0; i < 100; i++) {
+            assertTrue(ringBuffer.offer(i));
+            assertEquals(Integer.valueOf(i), ringBuffer.poll());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidCapacityTest() throws Exception {
+        new RingBuffer<>(0);
+    }
+
+    @Test
+    public void concurrentProducersTest() throws Exception {
+
+        // arrange
+        RingBuffer<Integer> ringBuffer = new RingBuffer<>(64);
+        int producerCount = 4;
+        int perProducer = 10_000;
+        List<Thread> producers = new ArrayList<>();
+
+        for (int i = 0; i < producerCount; i++) {
+            final int producer = i;
+            producers.add(new Thread(() -> {
+                for (int j = 0; j < perProducer; j++) {
+                    while (!ringBuffer.offer(producer * perProducer + j)) {
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+
+        // act
+        producers.forEach(Thread::start);
+
+        boolean[] seen = new boolean[producerCount * perProducer];
+        int[] last = new int[producerCount];
+        Arrays.fill(last, -1);
+        int count = 0;
+
+        while (count < seen.length) {
+
+            Integer element = ringBuffer.poll();
+
+            if (element == null) {
+                Thread.yield();
+                continue;
+            }
+
+            // elements of a single producer keep their order
+            assertTrue(element % perProducer > last[element / perProducer]);
+            last[element / perProducer] = element % perProducer;
+
+            assertFalse(seen[element]);
+            seen[element] = true;
+            count++;
+        }
+
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        // assert
+        assertTrue(ringBuffer.isEmpty());
+    }
+}
@@ -0,0 +1,303 @@
+package com.assignment.service;
+
+import com.assignment.dao.AccountDao;
+import com.assignment.db.AccountStorage;
+import com.assignment.journal.Journal;
+import com.assignment.model.Account;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link ShardedLedger}
+ */
+public class ShardedLedgerTest {
+
+    private ShardedLedger shardedLedger;
+
+    private List<Account> accounts;
+
+    @Before
+    public void setUp() throws Exception {
+
+        shardedLedger = new ShardedLedger(4, 16);
+        shardedLedger.start();
+
+        accounts = new ArrayList<>();
+
+        for (int i = 0; i < 16; i++) {
+            accounts.add(new Account("acc_" + i, 1_000));
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        shardedLedger.stop();
+    }
+
+    @Test
+    public void depositTest() throws Exception {
+
+        // act
+        shardedLedger.deposit(accounts.get(0), 10);
+
+        // assert
+        assertEquals(1_010, accounts.get(0).getBalance().intValue());
+    }
+
+    @Test
+    public void depositMoreThanMaximumTest() throws Exception {
+        assertEquals(Rejection.BALANCE_LIMIT, shardedLedger.deposit(accounts.get(0), Integer.MAX_VALUE - 999));
+    }
+
+    @Test
+    public void withdrawTest() throws Exception {
+
+        // act
+        shardedLedger.withdraw(accounts.get(0), 1_000);
+
+        // assert
+        assertEquals(0, accounts.get(0).getBalance().intValue());
+    }
+
+    @Test
+    public void withdrawMoreThanAvailableTest() throws Exception {
+        assertEquals(Rejection.INSUFFICIENT_FUNDS, shardedLedger.withdraw(accounts.get(0), 1_001));
+    }
+
+    @Test
+    public void transferTest() throws Exception {
+
+        // act, pairs of accounts on the same and on different shards
+        for (int i = 1; i < accounts.size(); i++) {
+            shardedLedger.transfer(accounts.get(0), accounts.get(i), 10);
+        }
+
+        // assert
+        assertEquals(1_000 - 10 * (accounts.size() - 1), accounts.get(0).getBalance().intValue());
+
+        for (int i = 1; i < accounts.size(); i++) {
+            assertEquals(1_010, accounts.get(i).getBalance().intValue());
+        }
+    }
+
+    @Test
+    public void transferSameAccountTest() throws Exception {
+        assertEquals(Rejection.SAME_ACCOUNT, shardedLedger.transfer(accounts.get(0), new Account("acc_0", 0), 1));
+    }
+
+    @Test
+    public void transferMoreThanAvailableTest() throws Exception {
+        assertEquals(Rejection.INSUFFICIENT_FUNDS, shardedLedger.transfer(accounts.get(0), accounts.get(1), 1_001));
+    }
+
+    @Test
+    public void transferMoreThanMaximumTest() throws Exception {
+
+        // arrange
+        Account full = new Account("acc_full", Integer.MAX_VALUE);
+        int rejected = 0;
+
+        // act, destinations on other shards refund the source
+        for (Account account : accounts) {
+            if (shardedLedger.transfer(account, full, 1) == Rejection.BALANCE_LIMIT) {
+                rejected++;
+            }
+        }
+
+        // assert
+        assertEquals(accounts.size(), rejected);
+        assertEquals(Integer.MAX_VALUE, full.getBalance().intValue());
+
+        for (Account account : accounts) {
+            assertEquals(1_000, account.getBalance().intValue());
+        }
+    }
+
+    @Test
+    public void applyTest() throws Exception {
+
+        // arrange, accounts of every shard pay into the first one
+        BalanceChanges changes = new BalanceChanges();
+
+        for (int i = 1; i < accounts.size(); i++) {
+            changes.debit(accounts.get(i), 1_000);
+            changes.credit(accounts.get(0), 1_000);
+        }
+
+        // act
+        shardedLedger.apply(changes);
+
+        // assert
+        assertEquals(1_000 * accounts.size(), accounts.get(0).getBalance().intValue());
+
+        for (int i = 1; i < accounts.size(); i++) {
+            assertEquals(0, accounts.get(i).getBalance().intValue());
+        }
+    }
+
+    @Test
+    public void applyMoreThanMaximumTest() throws Exception {
+
+        // arrange, the other shards have reserved by the time the full account rejects
+        Account full = new Account("acc_full", Integer.MAX_VALUE);
+        BalanceChanges changes = new BalanceChanges();
+
+        for (Account account : accounts) {
+            changes.debit(account, 1);
+        }
+
+        changes.credit(full, accounts.size());
+
+        // act
+        try {
+            shardedLedger.apply(changes);
+            fail();
+        } catch (TransactionException e) {
+            // expected
+        }
+
+        // assert, every reservation has been undone
+        assertEquals(Integer.MAX_VALUE, full.getBalance().intValue());
+
+        for (Account account : accounts) {
+            assertEquals(1_000, account.getBalance().intValue());
+        }
+
+        shardedLedger.deposit(accounts.get(0), Integer.MAX_VALUE - 1_000);
+    }
+
+    @Test
+    public void failedCommitTest() throws Exception {
+
+        // arrange
+        Ledger.Commit failing = () -> {
+            throw new IllegalStateException("Journal is not writable");
+        };
+
+        BalanceChanges changes = new BalanceChanges();
+
+        for (int i = 1; i < accounts.size(); i++) {
+            changes.debit(accounts.get(i), 10);
+            changes.credit(accounts.get(0), 10);
+        }
+
+        int failed = 0;
+
+        // act, destinations on the same and on other shards
+        for (int i = 1; i < accounts.size(); i++) {
+            try {
+                shardedLedger.transfer(accounts.get(i), accounts.get(0), 10, failing);
+            } catch (IllegalStateException e) {
+                failed++;
+            }
+        }
+
+        try {
+            shardedLedger.deposit(accounts.get(0), 10, failing);
+        } catch (IllegalStateException e) {
+            failed++;
+        }
+
+        try {
+            shardedLedger.apply(changes, failing);
+        } catch (IllegalStateException e) {
+            failed++;
+        }
+
+        // assert, every change has been undone and nothing is left reserved
+        assertEquals(accounts.size() + 1, failed);
+
+        for (Account account : accounts) {
+            assertEquals(1_000, account.getBalance().intValue());
+        }
+
+        shardedLedger.apply(changes);
+        assertEquals(1_000 + 10 * (accounts.size() - 1), accounts.get(0).getBalance().intValue());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void notRunningTest() throws Exception {
+        new ShardedLedger(1, 1).deposit(accounts.get(0), 1);
+    }
+
+    @Test
+    public void transferConcurrencyTest() throws Exception {
+
+        // arrange
+        int nbrOfThreads = 8;
+        int nbrOfTrials = 2_000;
+        ExecutorService executorService = Executors.newFixedThreadPool(nbrOfThreads);
+
+        // act
+        for (int i = 0; i < nbrOfThreads; i++) {
+            final long seed = i;
+            executorService.execute(() -> {
+                Random random = new Random(seed);
+                for (int j = 0; j < nbrOfTrials; j++) {
+                    Account from = accounts.get(random.nextInt(accounts.size()));
+                    Account to = accounts.get(random.nextInt(accounts.size()));
+                    // same accounts or not enough balance are rejected
+                    shardedLedger.transfer(from, to, 1 + random.nextInt(50));
+                }
+            });
+        }
+
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(30, TimeUnit.SECONDS));
+
+        // assert
+        long total = 0;
+
+        for (Account account : accounts) {
+            assertTrue(account.getBalance() >= 0);
+            total += account.getBalance();
+        }
+
+        assertEquals(1_000L * accounts.size(), total);
+    }
+
+    @Test
+    public void transferConcurrencyOnBalanceTableTest() throws Exception {
+
+        // arrange
+        AccountDao accountDao = new AccountDao(Journal.DISABLED, AccountStorage.PRIMITIVE.createDb());
+        accounts.forEach(accountDao::save);
+
+        int nbrOfThreads = 8;
+        int nbrOfTrials = 2_000;
+        ExecutorService executorService = Executors.newFixedThreadPool(nbrOfThreads);
+
+        // act
+        for (int i = 0; i < nbrOfThreads; i++) {
+            final long seed = i;
+            executorService.execute(() -> {
+                Random random = new Random(seed);
+                for (int j = 0; j < nbrOfTrials; j++) {
+                    // every lookup returns a new view over the same slot
+                    Account from = accountDao.get("acc_" + random.nextInt(accounts.size()));
+                    Account to = accountDao.get("acc_" + random.nextInt(accounts.size()));
+                    // same accounts or not enough balance are rejected
+                    shardedLedger.transfer(from, to, 1 + random.nextInt(50));
+                }
+            });
+        }
+
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(30, TimeUnit.SECONDS));
+
+        // assert
+        long total = accountDao.getAll().stream().mapToLong(Account::getBalance).sum();
+
+        assertEquals(1_000L * accounts.size(), total);
+    }
+}
@@ -0,0 +1,215 @@
+package com.assignment.service;
+
+import com.assignment.dao.AccountDao;
+import com.assignment.db.AccountStorage;
+import com.assignment.journal.Journal;
+import com.assignment.model.Account;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link StripedLedger}
+ */
+public class StripedLedgerTest {
+
+    private StripedLedger stripedLedger;
+
+    private Account account1;
+    private Account account2;
+
+    @Before
+    public void setUp() throws Exception {
+
+        stripedLedger = new StripedLedger(new StripedLockTable(16));
+
+        account1 = new Account("acc_1", 100);
+        account2 = new Account("acc_2", Integer.MAX_VALUE - 10);
+    }
+
+    @Test
+    public void depositWithdrawTest() throws Exception {
+
+        // act
+        stripedLedger.deposit(account1, 10);
+        stripedLedger.withdraw(account1, 30);
+
+        // assert
+        assertEquals(80, account1.getBalance().intValue());
+    }
+
+    @Test
+    public void withdrawMoreThanAvailableTest() throws Exception {
+        assertEquals(Rejection.INSUFFICIENT_FUNDS, stripedLedger.withdraw(account1, 101));
+    }
+
+    @Test
+    public void transferTest() throws Exception {
+
+        // act
+        stripedLedger.transfer(account1, account2, 10);
+
+        // assert
+        assertEquals(90, account1.getBalance().intValue());
+        assertEquals(Integer.MAX_VALUE, account2.getBalance().intValue());
+    }
+
+    @Test
+    public void transferWithinSingleStripeTest() throws Exception {
+
+        // arrange
+        StripedLedger singleStripe = new StripedLedger(new StripedLockTable(1));
+
+        // act
+        singleStripe.transfer(account1, account2, 10);
+
+        // assert
+        assertEquals(90, account1.getBalance().intValue());
+        assertEquals(Integer.MAX_VALUE, account2.getBalance().intValue());
+    }
+
+    @Test
+    public void transferMoreThanMaximumTest() throws Exception {
+
+        // act
+        assertEquals(Rejection.BALANCE_LIMIT, stripedLedger.transfer(account1, account2, 11));
+
+        // assert
+        assertEquals(100, account1.getBalance().intValue());
+        assertEquals(Integer.MAX_VALUE - 10, account2.getBalance().intValue());
+    }
+
+    @Test
+    public void transferSameAccountTest() throws Exception {
+        assertEquals(Rejection.SAME_ACCOUNT, stripedLedger.transfer(account1, new Account("acc_1", 0), 1));
+    }
+
+    @Test
+    public void applyTest() throws Exception {
+
+        // arrange, all accounts share the single stripe
+        StripedLedger singleStripe = new StripedLedger(new StripedLockTable(1));
+        Account account3 = new Account("acc_3", 0);
+        BalanceChanges changes = new BalanceChanges();
+        changes.debit(account1, 100);
+        changes.credit(account3, 90);
+        changes.credit(account2, 10);
+
+        // act
+        singleStripe.apply(changes);
+
+        // assert
+        assertEquals(0, account1.getBalance().intValue());
+        assertEquals(Integer.MAX_VALUE, account2.getBalance().intValue());
+        assertEquals(90, account3.getBalance().intValue());
+    }
+
+    @Test
+    public void applyMoreThanAvailableTest() throws Exception {
+
+        // arrange
+        BalanceChanges changes = new BalanceChanges();
+        changes.credit(account2, 1);
+        changes.debit(account1, 101);
+
+        // act
+        try {
+            stripedLedger.apply(changes);
+            fail();
+        } catch (TransactionException e) {
+            // expected
+        }
+
+        // assert
+        assertEquals(100, account1.getBalance().intValue());
+        assertEquals(Integer.MAX_VALUE - 10, account2.getBalance().intValue());
+    }
+
+    @Test
+    public void conservationTest() throws Exception {
+
+        // arrange
+        AccountDao accountDao = new AccountDao(Journal.DISABLED, AccountStorage.PRIMITIVE.createDb());
+        int nbrOfAccounts = 8;
+        int initialBalance = 1_000;
+
+        for (int i = 0; i < nbrOfAccounts; i++) {
+            accountDao.save(new Account("acc_" + i, initialBalance));
+        }
+
+        int nbrOfThreads = 8;
+        int nbrOfTrials = 20_000;
+        ExecutorService executorService = Executors.newFixedThreadPool(nbrOfThreads);
+
+        // act
+        for (int i = 0; i < nbrOfThreads; i++) {
+            final long seed = i;
+            executorService.execute(() -> {
+                Random random = new Random(seed);
+                for (int j = 0; j < nbrOfTrials; j++) {
+                    Account from = accountDao.get("acc_" + random.nextInt(nbrOfAccounts));
+                    Account to = accountDao.get("acc_" + random.nextInt(nbrOfAccounts));
+                    // same accounts or not enough balance are rejected
+                    stripedLedger.transfer(from, to, 1 + random.nextInt(100));
+                }
+            });
+        }
+
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(30, TimeUnit.SECONDS));
+
+        // assert
+        long total = 0;
+
+        for (Account account : accountDao.getAll()) {
+            assertTrue(account.getBalance() >= 0);
+            total += account.getBalance();
+        }
+
+        assertEquals((long) initialBalance * nbrOfAccounts, total);
+    }
+
+    @Test
+    public void failedCommitTest() throws Exception {
+
+        // arrange
+        Ledger.Commit failing = () -> {
+            throw new IllegalStateException("Journal is not writable");
+        };
+
+        BalanceChanges changes = new BalanceChanges();
+        changes.debit(account1, 10);
+        changes.credit(account2, 10);
+
+        // act
+        for (Callable<?> change : Arrays.<Callable<?>>asList(
+                () -> stripedLedger.deposit(account1, 10, failing),
+                () -> stripedLedger.withdraw(account1, 10, failing),
+                () -> stripedLedger.transfer(account1, account2, 10, failing),
+                () -> {
+                    stripedLedger.apply(changes, failing);
+                    return null;
+                })) {
+            try {
+                change.call();
+                fail();
+            } catch (IllegalStateException e) {
+                // expected
+            }
+        }
+
+        // assert, every change has been undone and nothing is left reserved
+        assertEquals(100, account1.getBalance().intValue());
+        assertEquals(Integer.MAX_VALUE - 10, account2.getBalance().intValue());
+        assertNull(stripedLedger.transfer(account1, account2, 10));
+        assertEquals(Integer.MAX_VALUE, account2.getBalance().intValue());
+    }
+}
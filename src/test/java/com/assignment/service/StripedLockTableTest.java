@@ -0,0 +1,127 @@
+package com.assignment.service;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.UniformReservoir;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link StripedLockTable}
+ */
+public class StripedLockTableTest {
+
+    @Test
+    public void stripeCountTest() throws Exception {
+
+        // act
+        StripedLockTable locks = new StripedLockTable(1000);
+
+        // assert
+        assertEquals(1024, locks.getStripeCount());
+        assertEquals(1, new StripedLockTable(1).getStripeCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidStripeCountTest() throws Exception {
+        new StripedLockTable(0);
+    }
+
+    @Test
+    public void stripeOfTest() throws Exception {
+
+        // arrange
+        StripedLockTable locks = new StripedLockTable(16);
+
+        // act
+        int stripe = locks.stripeOf("acc_1");
+
+        // assert
+        assertEquals(stripe, locks.stripeOf(new String("acc_1")));
+        assertTrue(stripe >= 0 && stripe < 16);
+        assertEquals(0, new StripedLockTable(1).stripeOf("acc_1"));
+    }
+
+    @Test
+    public void uncontendedLockTest() throws Exception {
+
+        // arrange
+        StripedLockTable locks = new StripedLockTable(16);
+
+        // act
+        locks.lock(3);
+        locks.lock(3);
+        locks.unlock(3);
+        locks.unlock(3);
+
+        // assert
+        assertEquals(0, locks.getTotalWaits());
+        assertEquals(0, locks.getTotalWaitNanos());
+    }
+
+    @Test
+    public void waitMetricsTest() throws Exception {
+
+        // arrange
+        StripedLockTable locks = new StripedLockTable(16);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Thread holder = new Thread(() -> {
+            locks.lock(5);
+            locked.countDown();
+            try {
+                release.await();
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                locks.unlock(5);
+            }
+        });
+
+        holder.start();
+        locked.await();
+
+        // act
+        release.countDown();
+        locks.lock(5);
+        locks.unlock(5);
+        holder.join();
+
+        // assert
+        assertEquals(1, locks.getWaits(5));
+        assertEquals(1, locks.getTotalWaits());
+        assertTrue(locks.getWaitNanos(5) > 0);
+        assertEquals(locks.getWaitNanos(5), locks.getMaxWaitNanos(5));
+        assertEquals(0, locks.getWaits(4));
+
+        locks.resetWaits();
+        assertEquals(0, locks.getTotalWaits());
+        assertEquals(0, locks.getMaxWaitNanos(5));
+    }
+
+    @Test
+    public void timedLocksTest() throws Exception {
+
+        // arrange
+        Histogram lockWaits = new Histogram(new UniformReservoir());
+        Histogram criticalSections = new Histogram(new UniformReservoir());
+        StripedLockTable locks = new StripedLockTable(16, lockWaits, criticalSections);
+
+        // act
+        locks.lock(3);
+        locks.lock(3);
+        Thread.sleep(5);
+        locks.unlock(3);
+        locks.unlock(3);
+
+        // assert
+        assertEquals(1, lockWaits.getCount());
+        assertEquals(0, lockWaits.getSnapshot().getMax());
+        assertEquals(1, criticalSections.getCount());
+        assertTrue(criticalSections.getSnapshot().getMax() >= 5_000_000);
+    }
+}
@@ -0,0 +1,57 @@
+package com.assignment.service;
+
+import com.assignment.model.Transaction;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link TransactionResult}
+ */
+public class TransactionResultTest {
+
+    @Test
+    public void performedTest() throws Exception {
+
+        // arrange
+        Transaction transaction = Transaction.ofDeposit("acc_1", 10);
+
+        // act
+        TransactionResult result = TransactionResult.performed(transaction);
+
+        // assert
+        assertFalse(result.isRejected());
+        assertNull(result.getRejection());
+        assertSame(transaction, result.orThrow());
+    }
+
+    @Test
+    public void rejectedIsSharedTest() throws Exception {
+
+        // act
+        TransactionResult result1 = TransactionResult.rejected(Rejection.INSUFFICIENT_FUNDS);
+        TransactionResult result2 = TransactionResult.rejected(Rejection.INSUFFICIENT_FUNDS);
+
+        // assert
+        assertTrue(result1.isRejected());
+        assertSame(result1, result2);
+        assertNull(result1.getTransaction());
+        assertNotSame(result1, TransactionResult.rejected(Rejection.BALANCE_LIMIT));
+    }
+
+    @Test
+    public void orThrowTest() throws Exception {
+
+        // act
+        try {
+            TransactionResult.rejected(Rejection.SAME_ACCOUNT).orThrow();
+            fail();
+        } catch (TransactionException e) {
+
+            // assert, the exception is shared and has no stack trace to fill in
+            assertSame(Rejection.SAME_ACCOUNT.toException(), e);
+            assertEquals(Rejection.SAME_ACCOUNT.getMessage(), e.getMessage());
+            assertEquals(0, e.getStackTrace().length);
+        }
+    }
+}
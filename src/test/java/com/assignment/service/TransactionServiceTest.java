@@ -2,15 +2,30 @@ package com.assignment.service;
 
 import com.assignment.dao.AccountDao;
 import com.assignment.dao.TransactionDao;
+import com.assignment.db.AccountStorage;
+import com.assignment.journal.Journal;
+import com.assignment.journal.JournalRecord;
 import com.assignment.model.Account;
+import com.assignment.model.Batch;
+import com.assignment.model.BatchResult;
+import com.assignment.model.Leg;
 import com.assignment.model.Transaction;
+import com.assignment.model.TransactionType;
+import com.codahale.metrics.MetricRegistry;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import static org.junit.Assert.*;
 
@@ -25,8 +40,6 @@ public class TransactionServiceTest {
     private Account account1;
     private Account account2;
 
-    private int transactionIdBeforeTest;
-
     @Before
     public void setUp() throws Exception {
 
@@ -40,81 +53,103 @@ public class TransactionServiceTest {
 
         accountDao.save(account1);
         accountDao.save(account2);
-
-        transactionIdBeforeTest = Transaction.getLastTransactionId();
     }
 
     @Test
     public void depositTest() throws Exception {
 
         // act
-        Transaction transaction = transactionService.deposit(account1, 10);
+        Transaction transaction = transactionService.deposit(account1, 10).getTransaction();
 
         // assert
         Account actualAccount = accountDao.get(account1.getId());
 
         assertEquals(100_010, actualAccount.getBalance().intValue());
-        assertTrue(transaction.getId().endsWith(String.valueOf(transactionIdBeforeTest + 1)));
+        assertTrue(transactionService.getAllTransactions().contains(transaction));
     }
 
     @Test
     public void depositMaxiumumTest() throws Exception {
 
         // act
-        Transaction transaction = transactionService.deposit(account1, Integer.MAX_VALUE - account1.getBalance());
+        Transaction transaction = transactionService.deposit(account1, Integer.MAX_VALUE - account1.getBalance()).getTransaction();
 
         // assert
         Account actualAccount = accountDao.get(account1.getId());
 
         assertEquals(Integer.MAX_VALUE, actualAccount.getBalance().intValue());
-        assertTrue(transaction.getId().endsWith(String.valueOf(transactionIdBeforeTest + 1)));
+        assertTrue(transactionService.getAllTransactions().contains(transaction));
     }
 
-    @Test(expected = TransactionException.class)
+    @Test
     public void depositMoreThanMaximumTest() throws Exception {
 
         // act
-        transactionService.deposit(account1, Integer.MAX_VALUE - account2.getBalance() + 1);
+        TransactionResult result = transactionService.deposit(account1, Integer.MAX_VALUE - account2.getBalance() + 1);
+
+        // assert
+        assertEquals(Rejection.BALANCE_LIMIT, result.getRejection());
+        assertTrue(transactionService.getAllTransactions().isEmpty());
     }
 
     @Test
     public void withdrawTest() throws Exception {
 
         // act
-        Transaction transaction = transactionService.withdraw(account2, 10);
+        Transaction transaction = transactionService.withdraw(account2, 10).getTransaction();
 
         // assert
         Account actualAccount = accountDao.get(account2.getId());
 
         assertEquals(99_990, actualAccount.getBalance().intValue());
-        assertTrue(transaction.getId().endsWith(String.valueOf(transactionIdBeforeTest + 1)));
+        assertTrue(transactionService.getAllTransactions().contains(transaction));
     }
 
     @Test
     public void withdrawMaxiumTest() throws Exception {
 
         // act
-        Transaction transaction = transactionService.withdraw(account2, account2.getBalance());
+        Transaction transaction = transactionService.withdraw(account2, account2.getBalance()).getTransaction();
 
         // assert
         Account actualAccount = accountDao.get(account2.getId());
 
         assertEquals(0, actualAccount.getBalance().intValue());
-        assertTrue(transaction.getId().endsWith(String.valueOf(transactionIdBeforeTest + 1)));
+        assertTrue(transactionService.getAllTransactions().contains(transaction));
     }
 
-    @Test(expected = TransactionException.class)
+    @Test
     public void withdrawMoreThanAvailableTest() throws Exception {
 
         // act
-        transactionService.withdraw(account1, account1.getBalance() + 1);
+        TransactionResult result = transactionService.withdraw(account1, account1.getBalance() + 1);
+
+        // assert
+        assertEquals(Rejection.INSUFFICIENT_FUNDS, result.getRejection());
+        assertEquals(100_000, account1.getBalance().intValue());
+    }
+
+    @Test
+    public void rejectedBetweenPerformedTest() throws Exception {
+
+        // act
+        Transaction deposit = transactionService.deposit(account1, 10).getTransaction();
+        TransactionResult rejected = transactionService.withdraw(account2, Integer.MAX_VALUE);
+        Transaction transfer = transactionService.transfer(account1, account2, 5).getTransaction();
+
+        // assert
+        assertEquals(TransactionType.DEPOSIT, deposit.getTransactionType());
+        assertNull(rejected.getTransaction());
+        assertEquals(TransactionType.TRANSFER, transfer.getTransactionType());
+        assertNotEquals(deposit.getId(), transfer.getId());
+        assertEquals(2, transactionService.getAllTransactions().size());
     }
 
     @Test
     public void transferTest() throws Exception {
 
         // act
-        Transaction transaction = transactionService.transfer(account1, account2, 10);
+        Transaction transaction = transactionService.transfer(account1, account2, 10).getTransaction();
 
         // assert
         Account actualAccount1 = accountDao.get(account1.getId());
@@ -122,24 +157,56 @@ public class TransactionServiceTest {
 
         assertEquals(99_990, actualAccount1.getBalance().intValue());
         assertEquals(100_010, actualAccount2.getBalance().intValue());
-        assertTrue(transaction.getId().endsWith(String.valueOf(transactionIdBeforeTest + 1)));
+        assertTrue(transactionService.getAllTransactions().contains(transaction));
     }
 
-    @Test(expected = TransactionException.class)
+    @Test
+    public void transferAsyncTest() throws Exception {
+
+        // act
+        Transaction transaction = transactionService.transferAsync(account1, account2, 10).toCompletableFuture().get()
+                .getTransaction();
+
+        // assert
+        assertEquals(99_990, account1.getBalance().intValue());
+        assertEquals(100_010, account2.getBalance().intValue());
+        assertTrue(transactionService.getAllTransactions().contains(transaction));
+    }
+
+    @Test
+    public void transferAsyncMoreThanAvailableTest() throws Exception {
+
+        // act, rejected before anything is saved
+        TransactionResult result = transactionService.transferAsync(account2, account1, account2.getBalance() + 1)
+                .toCompletableFuture().getNow(null);
+
+        // assert
+        assertEquals(Rejection.INSUFFICIENT_FUNDS, result.getRejection());
+        assertTrue(transactionService.getAllTransactions().isEmpty());
+    }
+
+    @Test
     public void transferSameAccountTest() throws Exception {
 
         // act
-        transactionService.transfer(account1, account1, 10);
+        TransactionResult result = transactionService.transfer(account1, account1, 10);
+
+        // assert
+        assertEquals(Rejection.SAME_ACCOUNT, result.getRejection());
     }
 
-    @Test(expected = TransactionException.class)
+    @Test
     public void transferMoreThanAvailableTest() throws Exception {
 
         // act
-        transactionService.transfer(account2, account1, account2.getBalance() + 1);
+        TransactionResult result = transactionService.transfer(account2, account1, account2.getBalance() + 1);
+
+        // assert
+        assertEquals(Rejection.INSUFFICIENT_FUNDS, result.getRejection());
+        assertNull(result.getTransaction());
     }
 
-    @Test(expected = TransactionException.class)
+    @Test
     public void transferMoreThanMaximumTest() throws Exception {
 
         // arrange
@@ -147,7 +214,10 @@ public class TransactionServiceTest {
         transactionService.deposit(account1, Integer.MAX_VALUE - initialBalance);
 
         // act
-        transactionService.transfer(account1, account2, account1.getBalance() - initialBalance + 1);
+        TransactionResult result = transactionService.transfer(account1, account2, account1.getBalance() - initialBalance + 1);
+
+        // assert
+        assertEquals(Rejection.BALANCE_LIMIT, result.getRejection());
     }
 
     @Test
@@ -161,16 +231,12 @@ public class TransactionServiceTest {
         // act
         for (int i = 0; i < nbrOfThreads; i++) {
             executorService.execute(() -> {
-                try {
-                    for (int j = 0; j < nbrOfTrials; j++) {
-                        if (j % 2 == 0) {
-                            transactionService.transfer(account1, account2, 1);
-                        } else {
-                            transactionService.transfer(account2, account1, 1);
-                        }
+                for (int j = 0; j < nbrOfTrials; j++) {
+                    if (j % 2 == 0) {
+                        transactionService.transfer(account1, account2, 1);
+                    } else {
+                        transactionService.transfer(account2, account1, 1);
                     }
-                } catch (TransactionException e) {
-                    e.printStackTrace();
                 }
             });
         }
@@ -184,7 +250,207 @@ public class TransactionServiceTest {
         // assert
         assertEquals(100_000, actualAccount1.getBalance().intValue());
         assertEquals(100_000, actualAccount2.getBalance().intValue());
-        assertEquals(nbrOfThreads * nbrOfTrials + transactionIdBeforeTest, Transaction.getLastTransactionId());
+
+        Set<Long> ids = new HashSet<>();
+        for (Transaction transaction : transactionService.getAllTransactions()) {
+            ids.add(transaction.getNumber());
+        }
+
+        assertEquals(nbrOfThreads * nbrOfTrials, ids.size());
+    }
+
+    @Test
+    public void transferConcurrencyOnBalanceTableTest() throws Exception {
+
+        // arrange
+        AccountDao offHeapAccountDao = new AccountDao(Journal.DISABLED, AccountStorage.OFF_HEAP.createDb());
+        offHeapAccountDao.save(new Account("acc_1", 100_000));
+        offHeapAccountDao.save(new Account("acc_2", 100_000));
+
+        ExecutorService executorService = Executors.newFixedThreadPool(20);
+        int nbrOfThreads = 20;
+        int nbrOfTrials = 1_000;
+
+        // act
+        for (int i = 0; i < nbrOfThreads; i++) {
+            executorService.execute(() -> {
+                for (int j = 0; j < nbrOfTrials; j++) {
+                    // every lookup returns a new view over the same slot
+                    Account from = offHeapAccountDao.get(j % 2 == 0 ? "acc_1" : "acc_2");
+                    Account to = offHeapAccountDao.get(j % 2 == 0 ? "acc_2" : "acc_1");
+                    transactionService.transfer(from, to, 1);
+                    transactionService.deposit(from, 1);
+                    transactionService.withdraw(to, 1);
+                }
+            });
+        }
+
+        executorService.shutdown();
+        executorService.awaitTermination(10, TimeUnit.SECONDS);
+
+        Account actualAccount1 = offHeapAccountDao.get("acc_1");
+        Account actualAccount2 = offHeapAccountDao.get("acc_2");
+
+        // assert
+        assertEquals(100_000, actualAccount1.getBalance().intValue());
+        assertEquals(100_000, actualAccount2.getBalance().intValue());
+    }
+
+    @Test
+    public void splitTest() throws Exception {
+
+        // arrange
+        Account fee = new Account("acc_fee", 0);
+        accountDao.save(fee);
+        List<Leg> legs = Arrays.asList(new Leg(account2.getId(), 99_000), new Leg(fee.getId(), 1_000));
+
+        // act
+        Transaction transaction = transactionService.split(account1, legs, accountDao::get);
+
+        // assert
+        assertEquals(0, account1.getBalance().intValue());
+        assertEquals(199_000, account2.getBalance().intValue());
+        assertEquals(1_000, fee.getBalance().intValue());
+        assertEquals(TransactionType.SPLIT, transaction.getTransactionType());
+        assertEquals(100_000, transaction.getAmount().intValue());
+        assertEquals(Collections.singletonList(transaction), new ArrayList<>(transactionService.getAllTransactions()));
+    }
+
+    @Test
+    public void splitMoreThanAvailableTest() throws Exception {
+
+        // arrange
+        List<Leg> legs = Arrays.asList(new Leg(account2.getId(), 99_000), new Leg(account2.getId(), 1_001));
+
+        // act
+        try {
+            transactionService.split(account1, legs, accountDao::get);
+            fail();
+        } catch (TransactionException e) {
+            // expected
+        }
+
+        // assert
+        assertEquals(100_000, account1.getBalance().intValue());
+        assertEquals(100_000, account2.getBalance().intValue());
+        assertTrue(transactionService.getAllTransactions().isEmpty());
+    }
+
+    @Test(expected = TransactionException.class)
+    public void splitSameAccountTest() throws Exception {
+        transactionService.split(account1, Arrays.asList(new Leg(account2.getId(), 1), new Leg(account1.getId(), 1)), accountDao::get);
+    }
+
+    @Test(expected = TransactionException.class)
+    public void splitMoreThanMaximumTest() throws Exception {
+        transactionService.split(account1, Arrays.asList(new Leg(account2.getId(), Integer.MAX_VALUE), new Leg(account2.getId(), 1)), accountDao::get);
+    }
+
+    @Test
+    public void executeAtomicBatchWithSplitTest() throws Exception {
+
+        // arrange
+        Batch batch = new Batch(true, Arrays.asList(
+                Transaction.ofSplit(account1.getId(), Arrays.asList(new Leg(account2.getId(), 60_000), new Leg(account2.getId(), 60_000))),
+                Transaction.ofTransfer(account2.getId(), account1.getId(), 20_000)));
+
+        // act
+        List<BatchResult> results = transactionService.execute(batch, accountDao::get);
+
+        // assert
+        assertEquals(0, account1.getBalance().intValue());
+        assertEquals(200_000, account2.getBalance().intValue());
+        assertEquals(120_000, results.get(0).getTransaction().getAmount().intValue());
+        assertEquals(2, results.get(0).getTransaction().getLegs().size());
+    }
+
+    @Test
+    public void executeAtomicBatchTest() throws Exception {
+
+        // arrange, account1 pays more than its balance but gets it back within the batch
+        Batch batch = new Batch(true, Arrays.asList(
+                Transaction.ofTransfer(account1.getId(), account2.getId(), 150_000),
+                Transaction.ofTransfer(account2.getId(), account1.getId(), 60_000),
+                Transaction.ofWithdraw(account2.getId(), 10_000),
+                Transaction.ofDeposit(account1.getId(), 5)));
+
+        // act
+        List<BatchResult> results = transactionService.execute(batch, accountDao::get);
+
+        // assert
+        assertEquals(10_005, account1.getBalance().intValue());
+        assertEquals(180_000, account2.getBalance().intValue());
+        assertEquals(4, results.size());
+        assertEquals(4, transactionService.getAllTransactions().size());
+
+        for (int i = 0; i < results.size(); i++) {
+            Transaction request = batch.getTransactions().get(i);
+            Transaction transaction = results.get(i).getTransaction();
+            assertNull(results.get(i).getError());
+            assertEquals(request.getTransactionType(), transaction.getTransactionType());
+            assertEquals(request.getAmount(), transaction.getAmount());
+            assertTrue(transactionService.getAllTransactions().contains(transaction));
+        }
+    }
+
+    @Test
+    public void executeAtomicBatchRejectedTest() throws Exception {
+
+        // arrange
+        Batch batch = new Batch(true, Arrays.asList(
+                Transaction.ofTransfer(account1.getId(), account2.getId(), 100_000),
+                Transaction.ofWithdraw(account1.getId(), 1)));
+
+        // act
+        try {
+            transactionService.execute(batch, accountDao::get);
+            fail();
+        } catch (TransactionException e) {
+            // expected
+        }
+
+        // assert
+        assertEquals(100_000, account1.getBalance().intValue());
+        assertEquals(100_000, account2.getBalance().intValue());
+        assertTrue(transactionService.getAllTransactions().isEmpty());
+    }
+
+    @Test(expected = TransactionException.class)
+    public void executeAtomicBatchUnknownAccountTest() throws Exception {
+
+        // arrange
+        Batch batch = new Batch(true, Arrays.asList(
+                Transaction.ofDeposit(account1.getId(), 1),
+                Transaction.ofDeposit("unknown", 1)));
+
+        // act
+        transactionService.execute(batch, accountDao::get);
+    }
+
+    @Test
+    public void executeBatchTest() throws Exception {
+
+        // arrange
+        Batch batch = new Batch(false, Arrays.asList(
+                Transaction.ofTransfer(account1.getId(), account2.getId(), 100_000),
+                Transaction.ofWithdraw(account1.getId(), 1),
+                new Transaction(account1.getId(), account2.getId(), 1),
+                Transaction.ofDeposit("unknown", 1),
+                Transaction.ofWithdraw(account2.getId(), 1)));
+
+        // act
+        List<BatchResult> results = transactionService.execute(batch, accountDao::get);
+
+        // assert
+        assertEquals(0, account1.getBalance().intValue());
+        assertEquals(199_999, account2.getBalance().intValue());
+        assertEquals(5, results.size());
+        assertNotNull(results.get(0).getTransaction());
+        assertNotNull(results.get(1).getError());
+        assertNotNull(results.get(2).getError());
+        assertNotNull(results.get(3).getError());
+        assertNotNull(results.get(4).getTransaction());
+        assertEquals(2, transactionService.getAllTransactions().size());
     }
 
     @Test
@@ -221,4 +487,109 @@ public class TransactionServiceTest {
             }
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void metricsTest() throws Exception {
+
+        // arrange
+        MetricRegistry registry = new MetricRegistry();
+        TransactionMetrics metrics = new TransactionMetrics(registry);
+        TransactionService service = new TransactionService(new TransactionDao(), new AtomicLedger(), Runnable::run, metrics);
+
+        // act
+        service.deposit(account1, 10);
+        service.deposit(account1, Integer.MAX_VALUE);
+        service.withdraw(account1, 5);
+        service.transfer(account1, account2, 3);
+        service.transfer(account1, account1, 3);
+        service.transferAsync(account2, account1, Integer.MAX_VALUE).toCompletableFuture().get();
+        service.withdrawAsync(account2, 1).toCompletableFuture().get();
+
+        // assert
+        assertEquals(1, metrics.getTimer(TransactionType.DEPOSIT, null).getCount());
+        assertEquals(1, metrics.getTimer(TransactionType.DEPOSIT, Rejection.BALANCE_LIMIT).getCount());
+        assertEquals(2, metrics.getTimer(TransactionType.WITHDRAW, null).getCount());
+        assertEquals(1, metrics.getTimer(TransactionType.TRANSFER, null).getCount());
+        assertEquals(1, metrics.getTimer(TransactionType.TRANSFER, Rejection.SAME_ACCOUNT).getCount());
+        assertEquals(1, metrics.getTimer(TransactionType.TRANSFER, Rejection.INSUFFICIENT_FUNDS).getCount());
+        assertEquals(0, metrics.getTimer(TransactionType.WITHDRAW, Rejection.INSUFFICIENT_FUNDS).getCount());
+        assertTrue(registry.getTimers().containsKey("com.assignment.service.TransactionService.deposit.balance-limit"));
+        assertEquals(12, registry.getTimers().size());
+    }
+
+    @Test
+    public void failedJournalAppendTest() throws Exception {
+
+        // arrange
+        TransactionService service = new TransactionService(new TransactionDao(new FailingJournal(true)), new MonitorLedger());
+
+        // act
+        try {
+            service.transfer(account1, account2, 10);
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        // assert, the transfer has been undone
+        assertEquals(100_000, account1.getBalance().intValue());
+        assertEquals(100_000, account2.getBalance().intValue());
+        assertTrue(service.getAllTransactions().isEmpty());
+    }
+
+    @Test
+    public void failedJournalSyncTest() throws Exception {
+
+        // arrange
+        TransactionService service = new TransactionService(new TransactionDao(new FailingJournal(false)), new MonitorLedger());
+
+        // act
+        try {
+            service.transfer(account1, account2, 10);
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        // assert, the transfer is journaled already and kept with its balances
+        assertEquals(99_990, account1.getBalance().intValue());
+        assertEquals(100_010, account2.getBalance().intValue());
+        assertEquals(1, service.getAllTransactions().size());
+    }
+
+    /**
+     * Journal failing every append, or every sync of an appended record
+     */
+    private static final class FailingJournal implements Journal {
+
+        private final boolean failAppend;
+
+        FailingJournal(boolean failAppend) {
+            this.failAppend = failAppend;
+        }
+
+        @Override
+        public long append(Account account) {
+            return 0;
+        }
+
+        @Override
+        public long append(Transaction transaction) {
+
+            if (failAppend) {
+                throw new IllegalStateException("Journal is closed");
+            }
+
+            return 1;
+        }
+
+        @Override
+        public void sync(long sequence) {
+            throw new IllegalStateException("Journal is closed");
+        }
+
+        @Override
+        public void replay(long afterSequence, Consumer<JournalRecord> consumer) {
+        }
+    }
+}